@@ -0,0 +1,62 @@
+package com.athaydes.logfx.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * A minimal benchmark harness measuring the time and the memory allocated per operation on the current Thread.
+ * <p>
+ * Each benchmark runs a number of warm-up iterations, so that the JIT compiler can optimize the code being measured,
+ * then a number of measured iterations. The fastest iteration is reported, as it's the one least disturbed by
+ * the rest of the system.
+ */
+public final class Bench {
+
+    private static final int WARM_UP_ITERATIONS = 10;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            ( com.sun.management.ThreadMXBean ) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The values returned by iterations, kept so that the JIT compiler cannot discard the work being measured.
+     */
+    private static long blackHole;
+
+    private Bench() {
+    }
+
+    /**
+     * Run a benchmark, printing its results.
+     *
+     * @param name            of the benchmark
+     * @param opsPerIteration number of operations performed by each iteration
+     * @param iteration       runs one iteration, returning any value computed by it
+     */
+    public static void run( String name, int opsPerIteration, LongSupplier iteration ) {
+        for ( int i = 0; i < WARM_UP_ITERATIONS; i++ ) {
+            blackHole += iteration.getAsLong();
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for ( int i = 0; i < MEASURED_ITERATIONS; i++ ) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            blackHole += iteration.getAsLong();
+            long nanos = System.nanoTime() - start;
+            long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            bestNanos = Math.min( bestNanos, nanos );
+            bestBytes = Math.min( bestBytes, bytes );
+        }
+        System.out.printf( Locale.ROOT, "%-50s %12.1f ns/op %12.1f B/op%n", name,
+                ( double ) bestNanos / opsPerIteration, ( double ) bestBytes / opsPerIteration );
+    }
+
+    /**
+     * @return a value derived from everything computed by the benchmarks
+     */
+    public static long blackHole() {
+        return blackHole;
+    }
+}
@@ -0,0 +1,38 @@
+package com.athaydes.logfx.bench;
+
+import com.athaydes.logfx.file.FileLineStartsBenchmark;
+import com.athaydes.logfx.text.DateTimeParsingBenchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs the LogFX benchmarks.
+ * <p>
+ * Run with {@code jb -p src/bench run}, optionally passing the names of the benchmarks to run
+ * (all benchmarks run by default).
+ */
+public final class Benchmarks {
+
+    private static final Map<String, Runnable> benchmarks = new LinkedHashMap<>();
+
+    static {
+        benchmarks.put( "file-line-starts", FileLineStartsBenchmark::run );
+        benchmarks.put( "date-time-parsing", DateTimeParsingBenchmark::run );
+    }
+
+    public static void main( String[] args ) {
+        var names = args.length == 0 ? benchmarks.keySet().toArray( String[]::new ) : args;
+        for ( var name : names ) {
+            var benchmark = benchmarks.get( name );
+            if ( benchmark == null ) {
+                System.err.println( "Unknown benchmark: " + name + ", available benchmarks: " + benchmarks.keySet() );
+                System.exit( 1 );
+            }
+            System.out.println( "# " + name );
+            benchmark.run();
+        }
+        // print the black-hole so the JIT compiler cannot prove it's unused
+        System.out.println( "(" + Bench.blackHole() + ")" );
+    }
+}
@@ -0,0 +1,103 @@
+package com.athaydes.logfx.file;
+
+import com.athaydes.logfx.bench.Bench;
+
+/**
+ * Compares {@link FileLineStarts} with the {@link TreeSetFileLineStarts} it replaced, using the operations
+ * {@link FileReader} performs while the user scrolls through a file and while it follows the tail of a file.
+ */
+public final class FileLineStartsBenchmark {
+
+    // the window size used by LogFX (LogView.MAX_LINES + 1)
+    private static final int SIZE = 513;
+
+    private static final int LINES = 100_000;
+    private static final int LINE_LENGTH = 120;
+
+    private FileLineStartsBenchmark() {
+    }
+
+    public static void run() {
+        Bench.run( "scroll down, FileLineStarts", LINES, () -> {
+            var lineStarts = new FileLineStarts( SIZE );
+            for ( int i = 0; i < LINES; i++ ) {
+                lineStarts.addLast( ( long ) i * LINE_LENGTH );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+        Bench.run( "scroll down, TreeSet", LINES, () -> {
+            var lineStarts = new TreeSetFileLineStarts( SIZE );
+            for ( int i = 0; i < LINES; i++ ) {
+                lineStarts.addLast( ( long ) i * LINE_LENGTH );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+
+        Bench.run( "scroll up, FileLineStarts", LINES, () -> {
+            var lineStarts = new FileLineStarts( SIZE );
+            for ( int i = LINES - 1; i >= 0; i-- ) {
+                lineStarts.addFirst( ( long ) i * LINE_LENGTH );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+        Bench.run( "scroll up, TreeSet", LINES, () -> {
+            var lineStarts = new TreeSetFileLineStarts( SIZE );
+            for ( int i = LINES - 1; i >= 0; i-- ) {
+                lineStarts.addFirst( ( long ) i * LINE_LENGTH );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+
+        // when following the tail, the end of the window is removed, the new lines are added, then the window trimmed
+        Bench.run( "follow tail, FileLineStarts", LINES, () -> {
+            var lineStarts = new FileLineStarts( SIZE );
+            long length = 0L;
+            for ( int i = 0; i < LINES; i++ ) {
+                lineStarts.removeFrom( length );
+                length += LINE_LENGTH;
+                lineStarts.addLast( length - LINE_LENGTH );
+                lineStarts.addLast( length );
+                lineStarts.retainLast( SIZE - 1 );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+        Bench.run( "follow tail, TreeSet", LINES, () -> {
+            var lineStarts = new TreeSetFileLineStarts( SIZE );
+            long length = 0L;
+            for ( int i = 0; i < LINES; i++ ) {
+                lineStarts.removeFrom( length );
+                length += LINE_LENGTH;
+                lineStarts.addLast( length - LINE_LENGTH );
+                lineStarts.addLast( length );
+                lineStarts.retainLast( SIZE - 1 );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+
+        // a copy of the reader is moved, then the reader copies its state back, as done when searching for a date-time
+        Bench.run( "copy and move, FileLineStarts", LINES, () -> {
+            var lineStarts = new FileLineStarts( SIZE );
+            for ( int i = 0; i < SIZE; i++ ) {
+                lineStarts.addLast( ( long ) i * LINE_LENGTH );
+            }
+            for ( int i = SIZE; i < SIZE + LINES; i++ ) {
+                var copy = lineStarts.makeCopy();
+                copy.addLast( ( long ) i * LINE_LENGTH );
+                lineStarts.copyState( copy );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+        Bench.run( "copy and move, TreeSet", LINES, () -> {
+            var lineStarts = new TreeSetFileLineStarts( SIZE );
+            for ( int i = 0; i < SIZE; i++ ) {
+                lineStarts.addLast( ( long ) i * LINE_LENGTH );
+            }
+            for ( int i = SIZE; i < SIZE + LINES; i++ ) {
+                var copy = lineStarts.makeCopy();
+                copy.addLast( ( long ) i * LINE_LENGTH );
+                lineStarts.copyState( copy );
+            }
+            return lineStarts.getFirst() + lineStarts.getLast();
+        } );
+    }
+}
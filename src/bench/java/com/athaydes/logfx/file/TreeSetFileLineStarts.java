@@ -0,0 +1,98 @@
+package com.athaydes.logfx.file;
+
+import java.util.TreeSet;
+
+/**
+ * The implementation of {@link FileLineStarts} based on a {@link TreeSet} that was used before it was replaced
+ * by a circular buffer of primitive longs, kept so that both can be compared by {@link FileLineStartsBenchmark}.
+ */
+final class TreeSetFileLineStarts {
+
+    private final int size;
+    private final TreeSet<Long> indexes = new TreeSet<>();
+
+    TreeSetFileLineStarts( int size ) {
+        if ( size < 1L ) {
+            throw new IllegalArgumentException( "Size must be positive" );
+        }
+        this.size = size;
+    }
+
+    TreeSetFileLineStarts makeCopy() {
+        var clone = new TreeSetFileLineStarts( size );
+        clone.indexes.addAll( this.indexes );
+        return clone;
+    }
+
+    void copyState( TreeSetFileLineStarts lineStarts ) {
+        this.indexes.clear();
+        this.indexes.addAll( lineStarts.indexes );
+    }
+
+    void addFirst( long index ) {
+        indexes.add( index );
+        trim( false );
+    }
+
+    void addLast( long index ) {
+        indexes.add( index );
+        trim( true );
+    }
+
+    void clear() {
+        indexes.clear();
+    }
+
+    /**
+     * Remove all indexes that are equal to or greater than the given index.
+     *
+     * @param index first index to remove
+     */
+    void removeFrom( long index ) {
+        indexes.tailSet( index ).clear();
+    }
+
+    /**
+     * Remove indexes from the beginning until no more than the given number of indexes are left.
+     *
+     * @param count of indexes to keep
+     */
+    void retainLast( int count ) {
+        while ( indexes.size() > count ) {
+            indexes.remove( getFirst() );
+        }
+    }
+
+    long getFirst() {
+        if ( indexes.isEmpty() ) {
+            return 0L;
+        } else {
+            return indexes.first();
+        }
+    }
+
+    long getLast() {
+        if ( indexes.isEmpty() ) {
+            return 0L;
+        } else {
+            return indexes.last();
+        }
+    }
+
+    private void trim( boolean fromBeginning ) {
+        Runnable remove = fromBeginning ?
+                () -> indexes.remove( getFirst() ) :
+                () -> indexes.remove( getLast() );
+
+        while ( indexes.size() > size ) {
+            remove.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TreeSetFileLineStarts{" +
+                "indexes=" + indexes +
+                '}';
+    }
+}
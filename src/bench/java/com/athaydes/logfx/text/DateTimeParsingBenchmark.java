@@ -0,0 +1,62 @@
+package com.athaydes.logfx.text;
+
+import com.athaydes.logfx.bench.Bench;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures parsing the date-time of log lines, as done when indexing a log file by time.
+ * <p>
+ * Formats are parsed with offsets as well as without them, as date-times without an offset are parsed in a zone
+ * (the system default zone if the line has none), which may have daylight saving time transitions.
+ */
+public final class DateTimeParsingBenchmark {
+
+    private static final int LINES = 100_000;
+
+    private DateTimeParsingBenchmark() {
+    }
+
+    public static void run() {
+        run( "ISO, default zone", "yyyy-MM-dd'T'HH:mm:ss.SSS" );
+        run( "ISO, offset", "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" );
+        run( "Common, zone name", "EEE MMM dd HH:mm:ss zzz yyyy" );
+        run( "NCSA, offset", "dd/MMM/yyyy:HH:mm:ss Z" );
+    }
+
+    private static void run( String name, String pattern ) {
+        var formatter = DateTimeFormatter.ofPattern( pattern, Locale.ENGLISH )
+                .withZone( ZoneId.of( "Europe/Berlin" ) );
+        var lines = lines( formatter );
+        var guess = DateTimeFormatGuesser.standard().guessDateTimeFormats( lines.subList( 0, 100 ) )
+                .orElseThrow( () -> new IllegalStateException( "No date-time format found for: " + lines.get( 0 ) ) );
+
+        Bench.run( name, lines.size(), () -> {
+            long result = 0L;
+            for ( var line : lines ) {
+                result += guess.parseEpochNanos( line );
+            }
+            return result;
+        } );
+    }
+
+    /**
+     * @return log lines one second apart, across several daylight saving time transitions
+     */
+    private static List<String> lines( DateTimeFormatter formatter ) {
+        var lines = new ArrayList<String>( LINES );
+        var dateTime = LocalDateTime.of( 2023, 3, 20, 12, 0 );
+        for ( int i = 0; i < LINES; i++ ) {
+            // advance ~10 minutes per line so that the lines span two years
+            dateTime = dateTime.plusSeconds( 613 );
+            lines.add( formatter.format( dateTime.atZone( formatter.getZone() ) ) +
+                    " INFO [main] com.example.Service - processed request " + i );
+        }
+        return lines;
+    }
+}
@@ -6,7 +6,6 @@ import com.athaydes.logfx.config.Properties;
 import com.athaydes.logfx.data.LogFile;
 import com.athaydes.logfx.data.NaNChecker.NaNException;
 import com.athaydes.logfx.file.FileContentReader;
-import com.athaydes.logfx.file.FileReader;
 import com.athaydes.logfx.iterable.IterableUtils;
 import com.athaydes.logfx.log.LogConfigFile;
 import com.athaydes.logfx.text.DateTimeFormatGuess;
@@ -367,7 +366,7 @@ public final class LogFX extends Application {
 
         FileContentReader fileReader;
         try {
-            fileReader = new FileReader( logFile.file, LogView.MAX_LINES );
+            fileReader = FileContentReader.create( logFile.file, LogView.MAX_LINES );
         } catch ( IllegalStateException e ) {
             Dialog.showMessage( e.getMessage(), Dialog.MessageLevel.ERROR );
             return false;
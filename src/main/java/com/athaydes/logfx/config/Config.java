@@ -74,6 +74,7 @@ public class Config {
         properties.font.addListener( listener );
         properties.enableFilters.addListener( listener );
         properties.displayTimeGaps.addListener( listener );
+        properties.canvasRendering.addListener( listener );
         properties.guesses.addListener( listener );
 
         // keep track of logFiles's groups
@@ -125,6 +126,14 @@ public class Config {
         return properties.displayTimeGaps;
     }
 
+    /**
+     * @return property indicating whether log views draw their lines onto a canvas rather than
+     * using a node for each line.
+     */
+    public BooleanProperty canvasRenderingProperty() {
+        return properties.canvasRendering;
+    }
+
     public ObservableList<PatternBasedDateTimeFormatGuess> getDateTimeGuesses() {
         return properties.guesses;
     }
@@ -190,6 +199,7 @@ public class Config {
         Platform.runLater( () -> data.windowBounds = properties.windowBounds.get() );
         Platform.runLater( () -> data.dividerPositions = List.copyOf( properties.paneDividerPositions ) );
         Platform.runLater( () -> data.font = properties.font.getValue() );
+        Platform.runLater( () -> data.canvasRendering = properties.canvasRendering.getValue() );
         Platform.runLater( () -> data.guesses = List.copyOf( properties.guesses ) );
 
         // go to the JavaFX Thread to wait for all previous tasks to complete, then dump the file, finally.
@@ -265,6 +275,7 @@ public class Config {
             }
             writer.write( "\n  font " + data.font.getSize() );
             writer.write( " " + data.font.getFamily() );
+            writer.write( "\n  renderer " + ( data.canvasRendering ? "canvas" : "nodes" ) );
             writer.write( "\n" );
 
             writer.write( "date-time-format:\n" );
@@ -290,6 +301,7 @@ public class Config {
         volatile Bounds windowBounds;
         volatile List<Double> dividerPositions;
         volatile Font font;
+        volatile boolean canvasRendering;
         volatile File path;
         volatile List<PatternBasedDateTimeFormatGuess> guesses;
     }
@@ -300,6 +300,17 @@ final class ConfigParser {
                             }
                         }
                         break;
+                    case "renderer":
+                        if ( parts.length != 2 ) {
+                            logInvalidProperty( "gui", "renderer", line,
+                                    "Expected 2 parts, got " + parts.length );
+                        } else switch ( parts[ 1 ] ) {
+                            case "canvas" -> properties.canvasRendering.set( true );
+                            case "nodes" -> properties.canvasRendering.set( false );
+                            default -> logInvalidProperty( "gui", "renderer", parts[ 1 ],
+                                    "Invalid value for renderer (should be 'canvas' or 'nodes')" );
+                        }
+                        break;
                 }
             } else if ( !line.trim().isEmpty() ) {
                 return line;
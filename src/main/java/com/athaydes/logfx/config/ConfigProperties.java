@@ -35,6 +35,7 @@ final class ConfigProperties {
     final BindableValue<Font> font;
     final BooleanProperty enableFilters;
     final BooleanProperty displayTimeGaps;
+    final BooleanProperty canvasRendering;
     final HighlightGroups highlightGroups;
 
     ConfigProperties() {
@@ -48,6 +49,7 @@ final class ConfigProperties {
         font = new BindableValue<>( DEFAULT_FONT );
         enableFilters = new SimpleBooleanProperty( false );
         displayTimeGaps = new SimpleBooleanProperty( false );
+        canvasRendering = new SimpleBooleanProperty( false );
         observableFiles.addListener( ( SetChangeListener<? super LogFile> ) ( change ) -> {
             if ( change.wasAdded() ) {
                 change.getElementAdded().minTimeGap.addListener( flipFileChange );
@@ -74,5 +76,6 @@ final class ConfigProperties {
         font.setValue( DEFAULT_FONT );
         enableFilters.set( false );
         displayTimeGaps.set( false );
+        canvasRendering.set( false );
     }
 }
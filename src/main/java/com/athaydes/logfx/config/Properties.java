@@ -24,6 +24,9 @@ public class Properties {
     public static final Path LOGFX_DIR;
     public static final Path DEFAULT_LOGFX_CONFIG;
     public static final long UPDATE_CHECK_PERIOD_SECONDS;
+    public static final long MAPPED_READER_MIN_FILE_SIZE;
+    public static final long BLOCK_CACHE_SIZE;
+    public static final boolean READ_ROTATED_LOGS;
     public static final String DEFAULT_PROJECT_NAME = "Default";
 
     private static volatile LogLevel logLevel = null;
@@ -102,6 +105,32 @@ public class Properties {
             }
         }
         UPDATE_CHECK_PERIOD_SECONDS = autoUpdatePeriodSecs == null ? 24 * 60 * 60 : autoUpdatePeriodSecs;
+
+        String mappedReaderMinSize = System.getProperty( "logfx.mapped_reader.min_size_mb" );
+        Long mappedReaderMinSizeMb = null;
+        if ( mappedReaderMinSize != null ) {
+            try {
+                mappedReaderMinSizeMb = Long.parseLong( mappedReaderMinSize );
+            } catch ( NumberFormatException e ) {
+                System.err.printf( "Invalid value for system property logfx.mapped_reader.min_size_mb: %s (%s)\n",
+                        mappedReaderMinSize, e );
+            }
+        }
+        MAPPED_READER_MIN_FILE_SIZE = ( mappedReaderMinSizeMb == null ? 256L : mappedReaderMinSizeMb ) * 1024L * 1024L;
+
+        String blockCacheSize = System.getProperty( "logfx.block_cache.size_mb" );
+        Long blockCacheSizeMb = null;
+        if ( blockCacheSize != null ) {
+            try {
+                blockCacheSizeMb = Long.parseLong( blockCacheSize );
+            } catch ( NumberFormatException e ) {
+                System.err.printf( "Invalid value for system property logfx.block_cache.size_mb: %s (%s)\n",
+                        blockCacheSize, e );
+            }
+        }
+        BLOCK_CACHE_SIZE = ( blockCacheSizeMb == null ? 64L : blockCacheSizeMb ) * 1024L * 1024L;
+
+        READ_ROTATED_LOGS = System.getProperty( "logfx.rotated_logs" ) != null;
     }
 
     public static Optional<LogLevel> getLogLevel() {
@@ -0,0 +1,126 @@
+package com.athaydes.logfx.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Window over a fixed number of lines, backed by a ring buffer.
+ * <p>
+ * Adding lines to the top or bottom of the window moves the head of the ring, so only the added lines
+ * are written, and no line is copied.
+ * <p>
+ * This class is not thread-safe: a window must only be used from a single Thread.
+ *
+ * @param <T> type of lines
+ */
+public final class LinesWindow<T> {
+
+    private final Object[] ring;
+    private int head;
+
+    private LinesWindow( Object[] ring ) {
+        this.ring = ring;
+    }
+
+    /**
+     * Create a window containing the given lines.
+     *
+     * @param lines  the lines, of which only as many as fit in the window are used
+     * @param size   number of lines in the window
+     * @param filler line used to fill the window after the given lines
+     * @param <T>    type of lines
+     * @return the window
+     */
+    public static <T> LinesWindow<T> of( List<T> lines, int size, T filler ) {
+        var window = new LinesWindow<T>( new Object[ size ] );
+        window.setAll( lines, filler );
+        return window;
+    }
+
+    public int size() {
+        return ring.length;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public T get( int index ) {
+        return ( T ) ring[ slot( index ) ];
+    }
+
+    /**
+     * Replace a line of the window.
+     *
+     * @param index of the line
+     * @param line  the new line
+     */
+    public void set( int index, T line ) {
+        ring[ slot( index ) ] = line;
+    }
+
+    /**
+     * Replace all lines of the window.
+     *
+     * @param lines  the lines, of which only as many as fit in the window are used
+     * @param filler line used to fill the window after the given lines
+     */
+    public void setAll( List<T> lines, T filler ) {
+        head = 0;
+        for ( int i = 0; i < ring.length; i++ ) {
+            ring[ i ] = i < lines.size() ? lines.get( i ) : filler;
+        }
+    }
+
+    /**
+     * Add lines to the top of the window, pushing the current lines down.
+     * <p>
+     * Only the first lines are added if there are more lines than fit in the window.
+     *
+     * @param lines to add
+     * @return how many positions the current lines moved down
+     */
+    public int addTopLines( List<T> lines ) {
+        int shift = Math.min( ring.length, lines.size() );
+        head = Math.floorMod( head - shift, ring.length );
+        for ( int i = 0; i < shift; i++ ) {
+            set( i, lines.get( i ) );
+        }
+        return shift;
+    }
+
+    /**
+     * Add lines to the bottom of the window, pushing the current lines up.
+     * <p>
+     * Only the last lines are added if there are more lines than fit in the window.
+     *
+     * @param lines   to add
+     * @param overlap number of given lines that replace current bottom lines rather than being added
+     *                after them (e.g. because the current last line was incomplete)
+     * @return how many positions the current lines moved up
+     */
+    public int addBottomLines( List<T> lines, int overlap ) {
+        int shift = Math.min( ring.length, Math.max( 0, lines.size() - overlap ) );
+        int linesToSet = Math.min( ring.length, lines.size() );
+        head = ( head + shift ) % ring.length;
+        int firstIndex = ring.length - linesToSet;
+        int linesOffset = lines.size() - linesToSet;
+        for ( int i = 0; i < linesToSet; i++ ) {
+            set( firstIndex + i, lines.get( i + linesOffset ) );
+        }
+        return shift;
+    }
+
+    /**
+     * @return the lines of this window, from top to bottom
+     */
+    public List<T> toList() {
+        var result = new ArrayList<T>( ring.length );
+        for ( int i = 0; i < ring.length; i++ ) {
+            result.add( get( i ) );
+        }
+        return result;
+    }
+
+    private int slot( int index ) {
+        int slot = head + index;
+        return slot < ring.length ? slot : slot - ring.length;
+    }
+}
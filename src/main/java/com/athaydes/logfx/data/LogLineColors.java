@@ -2,6 +2,8 @@ package com.athaydes.logfx.data;
 
 import javafx.scene.paint.Paint;
 
+import java.util.Objects;
+
 /**
  * A tuple of 2 colors representing the colors for a log file line in the UI.
  */
@@ -22,4 +24,17 @@ public class LogLineColors {
     public Paint getFill() {
         return fill;
     }
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        LogLineColors that = ( LogLineColors ) o;
+        return Objects.equals( background, that.background ) && Objects.equals( fill, that.fill );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( background, fill );
+    }
 }
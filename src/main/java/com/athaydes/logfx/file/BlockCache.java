@@ -0,0 +1,412 @@
+package com.athaydes.logfx.file;
+
+import com.athaydes.logfx.config.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of file blocks, shared by all readers in the process.
+ * <p>
+ * Blocks are keyed by the identity of the file and their offset within the file. The cache remembers the length and
+ * last-modified time each file had when it was last opened, so that when a file is opened again:
+ * <ul>
+ *     <li>if it was appended to, only its last block (if it was incomplete) is dropped, as log files mostly grow.</li>
+ *     <li>if it was truncated, replaced or modified, all its blocks are dropped.</li>
+ * </ul>
+ * Each block also records the length and last-modified time of the file it was read from, so that it's only returned
+ * to sources that can read all of its bytes from the same contents. Blocks read by sources opened before all blocks
+ * of a file were dropped are not cached.
+ * <p>
+ * Sources opened through the cache only open the underlying file if a block is not found in the cache.
+ * <p>
+ * This class is thread-safe.
+ */
+final class BlockCache {
+
+    private static final Logger log = LoggerFactory.getLogger( BlockCache.class );
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final BlockCache SHARED = new BlockCache( Properties.BLOCK_CACHE_SIZE );
+
+    private final long maxBytes;
+
+    // guarded by this
+    private final LinkedHashMap<BlockKey, CachedBlock> blocks = new LinkedHashMap<>( 64, 0.75f, true );
+    private final Map<Object, FileState> states = new HashMap<>();
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+
+    BlockCache( long maxBytes ) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the cache shared by all readers, whose size is given by {@link Properties#BLOCK_CACHE_SIZE}.
+     */
+    static BlockCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Open a source for the given file that reads its bytes through this cache.
+     * <p>
+     * If the file grew since it was last opened, the last block cached for it is read again to check that the file
+     * was only appended to, as a file may be replaced by another one with the same identity (e.g. its inode may be
+     * reused).
+     *
+     * @param file    the file
+     * @param factory factory of the underlying source, which is only opened if some block is not cached
+     * @return the source
+     * @throws IOException if the file attributes cannot be read
+     */
+    ByteSource open( File file, ByteSource.Factory factory ) throws IOException {
+        if ( maxBytes < BLOCK_SIZE ) {
+            return factory.open();
+        }
+        var attributes = Files.readAttributes( file.toPath(), BasicFileAttributes.class );
+        Object fileId = attributes.fileKey() == null ? file.getAbsoluteFile() : attributes.fileKey();
+        var version = new FileVersion( attributes.size(), attributes.lastModifiedTime() );
+
+        FileState previous;
+        CachedBlock lastBlock;
+        synchronized ( this ) {
+            previous = states.get( fileId );
+            if ( previous == null || previous.version().equals( version ) ||
+                    version.length() <= previous.version().length() ) {
+                return new CachedSource( factory, fileId, version, update( fileId, previous, version, false ) );
+            }
+            lastBlock = blocks.get( new BlockKey( fileId, previous.lastBlockIndex() ) );
+        }
+
+        // the file is read without holding the lock
+        var source = new CachedSource( factory, fileId, version, previous.generation() );
+        boolean appended = lastBlock != null &&
+                source.hasBytes( previous.lastBlockIndex() * BLOCK_SIZE, lastBlock.bytes() );
+        synchronized ( this ) {
+            // if the file was updated meanwhile, the check may not apply to its current version
+            var current = states.get( fileId );
+            source.generation = update( fileId, current, version, appended && current.equals( previous ) );
+        }
+        return source;
+    }
+
+    /**
+     * Open a source of bytes that do not map directly to a file (e.g. decompressed bytes) through this cache.
+     * <p>
+     * Unlike files, the source is assumed to have been appended to if it grows without its last modified time changing.
+     *
+     * @param sourceId     identity of the source, which must not be equal to the identity of any file
+     * @param length       length of the source
+     * @param lastModified last modified time of the source
+     * @param factory      factory of the underlying source, which is only opened if some block is not cached
+     * @return the source
+     */
+    ByteSource open( Object sourceId, long length, FileTime lastModified, ByteSource.Factory factory )
+            throws IOException {
+        if ( maxBytes < BLOCK_SIZE ) {
+            return factory.open();
+        }
+        var version = new FileVersion( length, lastModified );
+        return new CachedSource( factory, sourceId, version, update( sourceId, version ) );
+    }
+
+    /**
+     * Add a block to the cache that was read by other means than a source of this cache.
+     * <p>
+     * This allows blocks that were read anyway, e.g. decompressed while seeking a compressed file, to be used
+     * by later reads.
+     *
+     * @param sourceId     identity of the source, as given to {@link #open(Object, long, FileTime, ByteSource.Factory)}
+     * @param length       length of the source
+     * @param lastModified last modified time of the source
+     * @param blockIndex   index of the block
+     * @param block        the block, which must be complete
+     */
+    synchronized void offer( Object sourceId, long length, FileTime lastModified, long blockIndex, byte[] block ) {
+        if ( maxBytes >= BLOCK_SIZE ) {
+            var version = new FileVersion( length, lastModified );
+            long generation = update( sourceId, version );
+            put( new BlockKey( sourceId, blockIndex ), new CachedBlock( block, version ), generation );
+        }
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    private synchronized long update( Object sourceId, FileVersion version ) {
+        var previous = states.get( sourceId );
+        boolean appended = previous != null && version.length() > previous.version().length() &&
+                version.lastModified().equals( previous.version().lastModified() );
+        return update( sourceId, previous, version, appended );
+    }
+
+    /**
+     * Update the known version of a file, dropping the blocks that may no longer match its contents.
+     * <p>
+     * If the file was appended to, only its last block is dropped if it was incomplete. Otherwise, all its blocks
+     * are dropped, and blocks read from its previous versions are no longer accepted.
+     *
+     * @return the generation of the file's blocks, which changes every time all of its blocks are dropped
+     */
+    private synchronized long update( Object fileId, FileState previous, FileVersion version, boolean appended ) {
+        if ( previous == null ) {
+            states.put( fileId, new FileState( version, 0L ) );
+            return 0L;
+        }
+        if ( previous.version().equals( version ) ) {
+            return previous.generation();
+        }
+        long generation = previous.generation();
+        if ( appended ) {
+            if ( previous.version().length() % BLOCK_SIZE != 0 ) {
+                remove( new BlockKey( fileId, previous.lastBlockIndex() ) );
+            }
+        } else {
+            log.debug( "File {} was truncated, replaced or modified, dropping its cached blocks", fileId );
+            generation++;
+            Iterator<Map.Entry<BlockKey, CachedBlock>> iterator = blocks.entrySet().iterator();
+            while ( iterator.hasNext() ) {
+                var entry = iterator.next();
+                if ( entry.getKey().fileId().equals( fileId ) ) {
+                    cachedBytes -= entry.getValue().bytes().length;
+                    iterator.remove();
+                }
+            }
+        }
+        states.put( fileId, new FileState( version, generation ) );
+        return generation;
+    }
+
+    /**
+     * @return the block, if it is cached and valid for a source of the given version of the file
+     */
+    private synchronized byte[] get( BlockKey key, FileVersion version, int blockLength ) {
+        var block = blocks.get( key );
+        if ( block == null || !block.isValidFor( version, blockLength ) ) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return block.bytes();
+    }
+
+    private synchronized void put( BlockKey key, CachedBlock block, long generation ) {
+        var current = states.get( key.fileId() );
+        if ( current == null || current.generation() != generation ||
+                !block.version().isCurrentOrAppendedTo( current.version() ) ) {
+            // the file was truncated, replaced or modified since the block was read
+            return;
+        }
+        remove( key );
+        blocks.put( key, block );
+        cachedBytes += block.bytes().length;
+        Iterator<Map.Entry<BlockKey, CachedBlock>> iterator = blocks.entrySet().iterator();
+        while ( cachedBytes > maxBytes && iterator.hasNext() ) {
+            cachedBytes -= iterator.next().getValue().bytes().length;
+            iterator.remove();
+        }
+    }
+
+    private synchronized void remove( BlockKey key ) {
+        var removed = blocks.remove( key );
+        if ( removed != null ) {
+            cachedBytes -= removed.bytes().length;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BlockCache{" +
+                "blocks=" + blocks.size() +
+                ", cachedBytes=" + cachedBytes +
+                ", maxBytes=" + maxBytes +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+
+    private record BlockKey( Object fileId, long blockIndex ) {
+    }
+
+    /**
+     * The latest known version of a file, and the generation of its cached blocks.
+     */
+    private record FileState( FileVersion version, long generation ) {
+
+        /**
+         * @return the index of the last block of the file, which is incomplete unless the file length is a multiple
+         * of the block size
+         */
+        long lastBlockIndex() {
+            return Math.max( 0L, version.length() - 1L ) / BLOCK_SIZE;
+        }
+    }
+
+    /**
+     * The length and last-modified time of a file when it was opened.
+     */
+    private record FileVersion( long length, FileTime lastModified ) {
+
+        /**
+         * @return whether this version is the current version, or the current version may only have been appended to
+         */
+        boolean isCurrentOrAppendedTo( FileVersion current ) {
+            return length < current.length() ||
+                    ( length == current.length() && lastModified.equals( current.lastModified() ) );
+        }
+    }
+
+    private record CachedBlock( byte[] bytes, FileVersion version ) {
+
+        /**
+         * A block is valid for a source if it has as many bytes as the source can read from it, and it was not
+         * read from a different version of the file with the same length (i.e. a file modified in place).
+         */
+        boolean isValidFor( FileVersion sourceVersion, int blockLength ) {
+            return bytes.length >= blockLength && ( version.length() != sourceVersion.length() ||
+                    version.lastModified().equals( sourceVersion.lastModified() ) );
+        }
+    }
+
+    private final class CachedSource implements ByteSource {
+        private final ByteSource.Factory factory;
+        private final Object fileId;
+        private final FileVersion version;
+        private final long length;
+
+        // generation of the file's blocks when this source was opened, blocks are only cached if it's still current
+        private long generation;
+
+        private ByteSource delegate;
+        private int sourceHits;
+        private int sourceMisses;
+
+        CachedSource( ByteSource.Factory factory, Object fileId, FileVersion version, long generation ) {
+            this.factory = factory;
+            this.fileId = fileId;
+            this.version = version;
+            this.length = version.length();
+            this.generation = generation;
+        }
+
+        /**
+         * @return the length of the file when this source was opened
+         */
+        @Override
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Read bytes from the cache, reading any missing blocks from the file.
+         * <p>
+         * Bytes appended to the file after this source was opened are not visible.
+         */
+        @Override
+        public int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+            if ( position >= this.length ) {
+                return -1;
+            }
+            length = ( int ) Math.min( length, this.length - position );
+            int bytesRead = 0;
+            while ( bytesRead < length ) {
+                long blockIndex = ( position + bytesRead ) / BLOCK_SIZE;
+                int blockOffset = ( int ) ( position + bytesRead - blockIndex * BLOCK_SIZE );
+                byte[] block = block( blockIndex );
+                int count = Math.min( length - bytesRead, block.length - blockOffset );
+                if ( count <= 0 ) {
+                    break;
+                }
+                System.arraycopy( block, blockOffset, buffer, offset + bytesRead, count );
+                bytesRead += count;
+            }
+            return bytesRead == 0 && length > 0 ? -1 : bytesRead;
+        }
+
+        private byte[] block( long blockIndex ) throws IOException {
+            var key = new BlockKey( fileId, blockIndex );
+            long blockStart = blockIndex * BLOCK_SIZE;
+            int blockLength = ( int ) Math.min( BLOCK_SIZE, length - blockStart );
+            byte[] block = get( key, version, blockLength );
+            if ( block != null ) {
+                sourceHits++;
+                return block;
+            }
+            sourceMisses++;
+
+            block = new byte[ blockLength ];
+            int bytesRead = 0;
+            while ( bytesRead < block.length ) {
+                int count = delegate().read( blockStart + bytesRead, block, bytesRead, block.length - bytesRead );
+                if ( count <= 0 ) {
+                    break;
+                }
+                bytesRead += count;
+            }
+            if ( bytesRead < block.length ) {
+                log.debug( "File was truncated while reading block at {}, not caching it", blockStart );
+                return Arrays.copyOf( block, bytesRead );
+            }
+            put( key, new CachedBlock( block, version ), generation );
+            return block;
+        }
+
+        /**
+         * @return whether the file has the given bytes at the given position
+         */
+        boolean hasBytes( long position, byte[] expected ) throws IOException {
+            if ( position + expected.length > length ) {
+                return false;
+            }
+            var actual = new byte[ expected.length ];
+            int bytesRead = 0;
+            while ( bytesRead < actual.length ) {
+                int count = delegate().read( position + bytesRead, actual, bytesRead, actual.length - bytesRead );
+                if ( count <= 0 ) {
+                    return false;
+                }
+                bytesRead += count;
+            }
+            return Arrays.equals( expected, actual );
+        }
+
+        private ByteSource delegate() throws IOException {
+            if ( delegate == null ) {
+                delegate = factory.open();
+            }
+            return delegate;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if ( log.isDebugEnabled() && ( sourceHits > 0 || sourceMisses > 0 ) ) {
+                log.debug( "Block cache hits: {}, misses: {} ({})", sourceHits, sourceMisses, BlockCache.this );
+            }
+            if ( delegate != null ) {
+                delegate.close();
+            }
+        }
+    }
+}
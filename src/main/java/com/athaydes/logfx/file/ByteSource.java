@@ -0,0 +1,43 @@
+package com.athaydes.logfx.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Random-access source of the bytes of a file.
+ * <p>
+ * A {@link FileReader} opens a source for every load operation and closes it when done,
+ * but implementations are free to keep expensive resources (open channels, memory mappings)
+ * alive between loads.
+ */
+interface ByteSource extends Closeable {
+
+    /**
+     * @return the current length of the source, in bytes.
+     * @throws IOException if the length cannot be determined
+     */
+    long length() throws IOException;
+
+    /**
+     * Read bytes starting at the given position.
+     * <p>
+     * Implementations must fill the requested range unless the end of the source is reached.
+     *
+     * @param position position of the first byte to read
+     * @param buffer   buffer into which bytes are read
+     * @param offset   offset into the buffer
+     * @param length   maximum number of bytes to read
+     * @return the number of bytes read, or -1 if the position is at or after the end of the source
+     * @throws IOException on read errors
+     */
+    int read( long position, byte[] buffer, int offset, int length ) throws IOException;
+
+    /**
+     * Factory of {@link ByteSource} instances.
+     */
+    @FunctionalInterface
+    interface Factory {
+        ByteSource open() throws IOException;
+    }
+
+}
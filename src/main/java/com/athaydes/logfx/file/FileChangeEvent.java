@@ -0,0 +1,89 @@
+package com.athaydes.logfx.file;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * A change to a watched file, found by comparing the file's attributes before and after the change.
+ *
+ * @param kind          the kind of change
+ * @param previousSize  size of the file before the change, or -1 if it did not exist or was not known
+ * @param size          size of the file after the change, or -1 if it does not exist
+ * @param lastModified  last modified time of the file, in milliseconds since the epoch, or -1 if it does not exist
+ * @param fileKey       key uniquely identifying the file (e.g. its inode), or null if it does not exist or
+ *                      the file system does not provide one
+ */
+public record FileChangeEvent( Kind kind, long previousSize, long size, long lastModified, Object fileKey ) {
+
+    public enum Kind {
+        /**
+         * Data was appended to the file, so only the bytes after the previous size are new.
+         */
+        APPEND,
+
+        /**
+         * The file shrank, but is still the same file.
+         */
+        TRUNCATE,
+
+        /**
+         * The file was created, replaced by another file (e.g. by log rotation), or modified in place,
+         * so all of its contents may have changed.
+         */
+        REPLACE,
+
+        /**
+         * The file no longer exists.
+         */
+        DELETE
+    }
+
+    /**
+     * The attributes of a file that are compared to find out how it changed.
+     */
+    record State( boolean exists, long size, long lastModified, Object fileKey ) {
+
+        static final State MISSING = new State( false, -1L, -1L, null );
+
+        static State of( BasicFileAttributes attributes ) {
+            return new State( true, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    attributes.fileKey() );
+        }
+    }
+
+    /**
+     * Classify the change between two states of a file.
+     *
+     * @param previous state of the file before the change
+     * @param current  state of the file after the change
+     * @return the change, or null if the file did not change
+     */
+    static FileChangeEvent between( State previous, State current ) {
+        var kind = kindOfChange( previous, current );
+        return kind == null ? null : of( kind, previous, current );
+    }
+
+    static FileChangeEvent of( Kind kind, State previous, State current ) {
+        return new FileChangeEvent( kind, previous.size(), current.size(), current.lastModified(), current.fileKey() );
+    }
+
+    private static Kind kindOfChange( State previous, State current ) {
+        if ( !current.exists() ) {
+            return previous.exists() ? Kind.DELETE : null;
+        }
+        if ( !previous.exists() ) {
+            return Kind.REPLACE;
+        }
+        if ( previous.fileKey() != null && current.fileKey() != null
+                && !Objects.equals( previous.fileKey(), current.fileKey() ) ) {
+            return Kind.REPLACE;
+        }
+        if ( current.size() > previous.size() ) {
+            return Kind.APPEND;
+        }
+        if ( current.size() < previous.size() ) {
+            return Kind.TRUNCATE;
+        }
+        return current.lastModified() != previous.lastModified() ? Kind.REPLACE : null;
+    }
+}
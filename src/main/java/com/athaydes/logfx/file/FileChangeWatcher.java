@@ -2,128 +2,149 @@ package com.athaydes.logfx.file;
 
 import com.athaydes.logfx.concurrency.Cancellable;
 import com.athaydes.logfx.concurrency.TaskRunner;
+import com.athaydes.logfx.file.FileChangeEvent.State;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Watches a file for any change that might happen to it.
+ * <p>
+ * All watchers share the {@link java.nio.file.WatchService} of a single {@link WatchRegistry},
+ * so watching many files does not require a Thread per file.
+ * <p>
+ * As the {@link java.nio.file.WatchService} does not report changes on some file systems (e.g. network mounts),
+ * the file's attributes are also polled, more often while the file is changing and less often while it is idle.
+ * Changes are reported only once, however they are noticed.
  */
 public class FileChangeWatcher {
 
     private static final Logger log = LoggerFactory.getLogger( FileChangeWatcher.class );
 
-    private static final AtomicInteger FILE_WATCHER_THREAD_COUNTER = new AtomicInteger( 0 );
+    static final Duration MIN_POLL_PERIOD = Duration.ofMillis( 250 );
+    static final Duration MAX_POLL_PERIOD = Duration.ofSeconds( 4 );
 
     private final AtomicBoolean closed = new AtomicBoolean( false );
     private final AtomicBoolean watching = new AtomicBoolean( false );
     private final File file;
-    private final Cancellable watcherTask;
-    private final Runnable onChange;
-    private volatile Thread watcherThread;
+    private final Cancellable registration;
+    private final Consumer<FileChangeEvent> onChange;
 
-    public FileChangeWatcher( File file,
-                              TaskRunner taskRunner,
-                              Runnable onChange ) {
+    // guarded by this
+    private State lastState;
+    private boolean startedWatching;
+    private Duration pollPeriod = MIN_POLL_PERIOD;
+
+    public FileChangeWatcher( File file, Runnable onChange ) {
+        this( file, event -> onChange.run() );
+    }
+
+    public FileChangeWatcher( File file, Consumer<FileChangeEvent> onChange ) {
         this.file = file.getAbsoluteFile();
         this.onChange = onChange;
+        this.lastState = currentState();
 
         if ( this.file.getParentFile() == null ) {
             log.warn( "Unable to watch file at the root path: {}", file );
-            this.watcherTask = () -> log.debug( "Cancelling no-op FileWatcher for {}", file );
+            this.registration = () -> log.debug( "Cancelling no-op FileWatcher for {}", file );
         } else {
-            this.watcherTask = taskRunner.scheduleRepeatingTask(
-                    Duration.ofSeconds( 2 ),
-                    this::startIfNotWatching );
-        }
+            this.registration = WatchRegistry.getDefault().register( this.file.toPath(), new WatchRegistry.Listener() {
+                @Override
+                public void onWatching( boolean isWatching ) {
+                    if ( isWatching ) {
+                        log.info( "Watching file {}", FileChangeWatcher.this.file );
+                        watching.set( true );
+                        checkForChange( true );
+                    } else {
+                        log.info( "File watcher cannot watch file until its directory is created again: {}",
+                                FileChangeWatcher.this.file );
+                        checkForChange( false );
+                        watching.set( false );
+                    }
+                }
 
+                @Override
+                public void onChange( String eventKind ) {
+                    log.trace( "Watch event {} on file {}", eventKind, FileChangeWatcher.this.file );
+                    checkForChange( false );
+                }
+            } );
+            schedulePoll( MIN_POLL_PERIOD );
+        }
     }
 
-    private synchronized void startIfNotWatching() {
-        if ( !isClosed() && !isWatching() ) {
-            log.debug( "FileWatcher is not watching the file yet, trying to start it up for file {}", file );
-            if ( file.getParentFile().isDirectory() ) {
-                final Thread previousThread = watcherThread;
-
-                if ( previousThread != null ) {
-                    previousThread.interrupt();
-                }
+    private void schedulePoll( Duration delay ) {
+        if ( !isClosed() ) {
+            TaskRunner.getGlobalInstance().runDelayed( this::poll, delay );
+        }
+    }
 
-                log.debug( "Creating a new watcher Thread" );
+    private void poll() {
+        Duration nextPoll;
+        synchronized ( this ) {
+            if ( !checkForChange( false ) ) {
+                // back off while the file is idle
+                var doubled = pollPeriod.multipliedBy( 2 );
+                pollPeriod = doubled.compareTo( MAX_POLL_PERIOD ) > 0 ? MAX_POLL_PERIOD : doubled;
+            }
+            nextPoll = pollPeriod;
+        }
+        schedulePoll( nextPoll );
+    }
 
-                Thread thread = watchFile( file.toPath() );
-                thread.setDaemon( true );
-                this.watcherThread = thread;
+    /**
+     * Compare the current state of the file with the last known state, notifying the listener if it changed.
+     *
+     * @param force whether to notify the listener even if the file did not change
+     * @return true if the file changed
+     */
+    private synchronized boolean checkForChange( boolean force ) {
+        if ( isClosed() ) return false;
+
+        var current = currentState();
+        var event = FileChangeEvent.between( lastState, current );
+        lastState = current;
+
+        // always report the first time the file is watched, as it may have changed before that
+        if ( event == null && force && !startedWatching ) {
+            event = FileChangeEvent.of( current.exists()
+                    ? FileChangeEvent.Kind.REPLACE
+                    : FileChangeEvent.Kind.DELETE, current, current );
+        }
+        if ( force ) {
+            startedWatching = true;
+        }
 
-                log.debug( "Will start Thread {}", thread.getName() );
-                thread.start();
-            } else {
-                log.debug( "Cannot start watching file as its parent directory does not exist: {}", file );
-            }
+        if ( event == null ) {
+            return false;
         }
+
+        // the file is active, poll it often
+        pollPeriod = MIN_POLL_PERIOD;
+        notifyWatcher( event );
+        return true;
     }
 
-    private Thread watchFile( Path path ) {
-        return new Thread( () -> {
-            log.debug( "File watcher Thread started: {}", path );
-
-            WatchKey watchKey = null;
-            try ( WatchService watchService = FileSystems.getDefault().newWatchService() ) {
-                watchKey = path.getParent().register( watchService, new WatchEvent.Kind[]{
-                        StandardWatchEventKinds.ENTRY_MODIFY,
-                        StandardWatchEventKinds.ENTRY_CREATE,
-                        StandardWatchEventKinds.OVERFLOW,
-                        StandardWatchEventKinds.ENTRY_DELETE
-                } );
-
-                log.info( "Watching file {}", path );
-                watching.set( true );
-                notifyWatcher( "started_watching" );
-
-                while ( !isClosed() && isWatching() ) {
-                    WatchKey wk = watchService.take();
-                    log.trace( "Watch key: {}", wk );
-                    for ( WatchEvent<?> event : wk.pollEvents() ) {
-                        // we only register event kinds for which the context is always a Path.
-                        Path changed = ( Path ) event.context();
-                        if ( !closed.get() && path.getFileName().equals( changed.getFileName() ) ) {
-                            notifyWatcher( event.kind().name() );
-                        }
-                    }
-                    // reset the key
-                    boolean valid = wk.reset();
-                    if ( !valid ) {
-                        log.info( "Key has been unregistered! File watcher cannot watch file " +
-                                "until it is created again: {}", file );
-                        notifyWatcher( "unregistered" );
-                        watching.set( false );
-                    }
-                }
-            } catch ( InterruptedException e ) {
-                log.info( "Interrupted watching file {}", file );
-                closed.set( true );
-            } catch ( IOException e ) {
-                log.warn( "Problem watching file [{}]: {}", file, e );
-            } finally {
-                watching.set( false );
-                if ( watchKey != null ) {
-                    watchKey.cancel();
-                }
-            }
-        }, "file-change-watcher-" + FILE_WATCHER_THREAD_COUNTER.incrementAndGet() );
+    private State currentState() {
+        try {
+            return State.of( Files.readAttributes( file.toPath(), BasicFileAttributes.class ) );
+        } catch ( IOException e ) {
+            return State.MISSING;
+        }
     }
 
-    private void notifyWatcher( String eventKind ) {
+    private void notifyWatcher( FileChangeEvent event ) {
         log.debug( "Notifying listener of change event {} on file {}",
-                eventKind, file );
+                event, file );
         try {
-            onChange.run();
+            onChange.accept( event );
         } catch ( Exception e ) {
             log.warn( "Error handling file change event", e );
         }
@@ -137,17 +158,11 @@ public class FileChangeWatcher {
         return closed.get();
     }
 
-    public synchronized void close() {
+    public void close() {
         if ( !closed.getAndSet( true ) ) {
             log.info( "Closing FileChangeWatcher for file {}", file );
-
-            final Thread thread = watcherThread;
-            watcherThread = null;
-            watcherTask.cancel();
-
-            if ( thread != null ) {
-                thread.interrupt();
-            }
+            registration.cancel();
+            watching.set( false );
         }
     }
 
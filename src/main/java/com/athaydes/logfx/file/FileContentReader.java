@@ -1,6 +1,10 @@
 package com.athaydes.logfx.file;
 
+import com.athaydes.logfx.config.Properties;
+
 import java.io.File;
+import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -18,6 +22,39 @@ import java.util.function.Predicate;
  */
 public interface FileContentReader {
 
+    /**
+     * Create the most appropriate reader for the given file.
+     * <p>
+     * Gzip files are read using a {@link GzipFileReader}, which decompresses them on demand.
+     * <p>
+     * If {@link Properties#READ_ROTATED_LOGS} is set and the file was rotated into other files
+     * (e.g. {@code app.log.1}, {@code app.log.2.gz}), the file is read together with them using a
+     * {@link RotatedLogReader}.
+     * <p>
+     * Otherwise, files larger than {@link Properties#MAPPED_READER_MIN_FILE_SIZE} are read using
+     * a {@link MappedFileReader}, other files are read with the standard {@link FileReader}.
+     *
+     * @param file           to read
+     * @param fileWindowSize the file window size
+     * @return a reader for the file
+     */
+    static FileContentReader create( File file, int fileWindowSize ) {
+        if ( GzipFileReader.isGzipFile( file ) ) {
+            try {
+                return new GzipFileReader( file, fileWindowSize );
+            } catch ( IOException e ) {
+                throw new IllegalStateException( "Unable to open gzip file " + file + ": " + e.getMessage(), e );
+            }
+        }
+        if ( Properties.READ_ROTATED_LOGS && RotationSet.hasRotatedMembers( file ) ) {
+            return new RotatedLogReader( file, fileWindowSize );
+        }
+        if ( file.length() >= Properties.MAPPED_READER_MIN_FILE_SIZE ) {
+            return new MappedFileReader( file, fileWindowSize );
+        }
+        return new FileReader( file, fileWindowSize );
+    }
+
     /**
      * Set the line filter being used by this reader.
      * <p>
@@ -79,6 +116,85 @@ public interface FileContentReader {
      */
     void tail();
 
+    /**
+     * Move the file window to the tail of the file and return it, following the file as it grows.
+     * <p>
+     * The first call reads the full file window from the tail of the file. After that, as long as the file
+     * window is not moved by other means, each call only reads the bytes appended to the file since the
+     * previous call, returning an incremental update.
+     * <p>
+     * If too much data was appended for an incremental update to be worthwhile, or the file was truncated,
+     * or a line filter is in use, the full file window is read from the tail again.
+     *
+     * @return the lines read from the tail of the file, or nothing if the file does not exist
+     */
+    Optional<TailUpdate> followTail();
+
+    /**
+     * Move the file window so that it starts at the given line.
+     * <p>
+     * Lines are numbered from 1. If the file does not have enough lines, the file window is moved to the
+     * tail of the file.
+     * <p>
+     * The file's {@link LineIndex} is used to find the line, so only the lines after the closest
+     * indexed line need to be scanned. If the line has not been indexed yet, the file window is not moved:
+     * the file is never scanned up to the line by this method, as that may take a long time on large files.
+     *
+     * @param lineNumber number of the line to go to
+     * @return true if the file window was moved, false if the line has not been indexed yet, in which case
+     * the index should be updated (see {@link LineIndex#updateUntilLine(long)}) before trying again
+     */
+    boolean goToLine( long lineNumber );
+
+    /**
+     * Move the file window so that it starts at a line with a date-time before the given one.
+     * <p>
+     * The file's {@link TimeIndex} is used to find the line, so the file window is placed close to the given
+     * date-time, but the exact line must still be found by scanning the file from there.
+     *
+     * @param dateTime the date-time to go to
+     * @return true if the file window was moved, false if the file has no known date-times
+     */
+    boolean goToDateTime( ZonedDateTime dateTime );
+
+    /**
+     * Move the file window so that it starts at the line starting at the given offset.
+     *
+     * @param offset offset of the start of a line
+     */
+    void goToOffset( long offset );
+
+    /**
+     * Open a prober that reads lines at arbitrary positions of the file, without moving the file window.
+     * <p>
+     * This allows the file to be probed at many positions, e.g. to bisect it. The prober must be closed after use.
+     *
+     * @return the prober
+     */
+    LineProber openProber();
+
+    /**
+     * Update the {@link LineIndex} of the file with any lines appended to it since the last update.
+     * <p>
+     * The {@link TimeIndex} of the file is also updated, as long as the file's date-time format is known.
+     * If a line filter is set, the index of the lines accepted by the filter is also updated, so that
+     * moving the file window does not require scanning the file for filtered lines.
+     * <p>
+     * This method may take a long time on large files, so it should be called from a background Thread.
+     * Unlike other methods of this interface, it is safe to call this method concurrently with other methods.
+     */
+    void updateLineIndex();
+
+    /**
+     * @return the line index of the file.
+     */
+    LineIndex getLineIndex();
+
+    /**
+     * @return the time index of the file.
+     */
+    TimeIndex getTimeIndex();
+
     /**
      * Refresh the current file window.
      * <p>
@@ -101,10 +217,35 @@ public interface FileContentReader {
      */
     File getFile();
 
+    /**
+     * @return the current length of the contents read by this instance, which all offsets refer to.
+     * This is the length of the file, unless the reader reads other files with it.
+     */
+    long contentLength();
+
     /**
      * @return an exact copy of this reader.
      */
     FileContentReader makeCopy();
 
     void copyState( FileContentReader searchReader );
+
+    /**
+     * Set a listener to be notified when the contents read by this reader change without the file changing,
+     * e.g. as more of a compressed file becomes readable.
+     * <p>
+     * The listener may be called from any Thread.
+     *
+     * @param onContentsChanged listener of changes
+     */
+    default void setOnContentsChanged( Runnable onContentsChanged ) {
+    }
+
+    /**
+     * Release any resources held by this reader.
+     * <p>
+     * The reader should not be used after being closed.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,260 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Manager of open file channels, keeping a single channel open per file for as long as any reader uses it.
+ * <p>
+ * Every time a handle's bytes are requested, the file at the handle's path is checked, and if it was replaced
+ * by another file (e.g. by log rotation), the new file is opened.
+ * <p>
+ * This class is thread-safe.
+ */
+final class FileHandles {
+
+    private static final Logger log = LoggerFactory.getLogger( FileHandles.class );
+
+    private static final FileHandles SHARED = new FileHandles();
+
+    /**
+     * Identity of a file at some point in time.
+     *
+     * @param fileKey key uniquely identifying the file (e.g. its inode), or null if the file system does not
+     *                provide one
+     * @param size    size of the file
+     */
+    record Identity( Object fileKey, long size ) {
+
+        /**
+         * @param previous identity of the file at the same path at some earlier time
+         * @return true if this is a different file than the previous one
+         */
+        boolean isReplacementOf( Identity previous ) {
+            return previous.fileKey != null && fileKey != null && !previous.fileKey.equals( fileKey );
+        }
+
+        /**
+         * @param previous identity of the file at the same path at some earlier time
+         * @return true if this is the same file as the previous one, but smaller
+         */
+        boolean isTruncationOf( Identity previous ) {
+            return !isReplacementOf( previous ) && size < previous.size;
+        }
+    }
+
+    // guarded by this
+    private final Map<Path, FileHandle> handles = new HashMap<>();
+
+    /**
+     * @return the manager shared by all readers in the process.
+     */
+    static FileHandles shared() {
+        return SHARED;
+    }
+
+    /**
+     * Acquire the handle of a file.
+     * <p>
+     * The file is not opened until its bytes are requested. The handle must be released when no longer needed.
+     *
+     * @param file to acquire the handle of
+     * @return the handle
+     */
+    synchronized FileHandle acquire( File file ) {
+        var path = file.toPath().toAbsolutePath().normalize();
+        var handle = handles.computeIfAbsent( path, FileHandle::new );
+        handle.references++;
+        return handle;
+    }
+
+    private synchronized void release( FileHandle handle ) {
+        if ( handle.references > 0 && --handle.references == 0 ) {
+            handles.remove( handle.path );
+            handle.markReleased();
+        }
+    }
+
+    synchronized int openHandleCount() {
+        return handles.size();
+    }
+
+    /**
+     * Handle of a file, whose channel is kept open between reads.
+     */
+    final class FileHandle {
+
+        private final Path path;
+
+        // guarded by FileHandles.this
+        private int references;
+
+        // guarded by this
+        private FileChannel channel;
+        private Object fileKey;
+        private boolean released;
+
+        private FileHandle( Path path ) {
+            this.path = path;
+        }
+
+        /**
+         * Check the file at the handle's path, opening it again if it was replaced.
+         *
+         * @return the current identity of the file
+         * @throws IOException if the file does not exist or cannot be opened
+         */
+        Identity identity() throws IOException {
+            return ensureCurrent().identity;
+        }
+
+        /**
+         * Check the file at the handle's path, opening it again if it was replaced.
+         *
+         * @return the channel of the current file, which is shared, so it must not be closed
+         * @throws IOException if the file does not exist or cannot be opened
+         */
+        FileChannel channel() throws IOException {
+            return ensureCurrent().channel;
+        }
+
+        /**
+         * @return a source of the current file bytes. Closing the source does not close the file.
+         * @throws IOException if the file does not exist or cannot be opened
+         */
+        ByteSource source() throws IOException {
+            return new ChannelSource( ensureCurrent().channel );
+        }
+
+        /**
+         * Release this handle, closing the file if no other reader uses it.
+         * <p>
+         * Once closed, the handle never opens the file again: reading from it throws {@link ClosedChannelException}.
+         */
+        void release() {
+            FileHandles.this.release( this );
+        }
+
+        private synchronized CurrentFile ensureCurrent() throws IOException {
+            if ( released ) {
+                throw new ClosedChannelException();
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes( path, BasicFileAttributes.class );
+            } catch ( NoSuchFileException e ) {
+                closeChannel();
+                throw e;
+            }
+            var currentKey = attributes.fileKey();
+
+            if ( channel != null && channel.isOpen()
+                    && currentKey != null && !Objects.equals( currentKey, fileKey ) ) {
+                log.debug( "File was replaced, re-opening it: {}", path );
+                closeChannel();
+            }
+            if ( channel == null || !channel.isOpen() ) {
+                log.debug( "Opening file channel for {}", path );
+                channel = FileChannel.open( path, StandardOpenOption.READ );
+                fileKey = currentKey;
+            }
+            return new CurrentFile( channel, new Identity( currentKey, attributes.size() ) );
+        }
+
+        private synchronized FileChannel reopen( FileChannel closedChannel ) throws IOException {
+            if ( channel == closedChannel ) {
+                channel = null;
+            }
+            return ensureCurrent().channel;
+        }
+
+        private synchronized void markReleased() {
+            released = true;
+            closeChannel();
+        }
+
+        private synchronized void closeChannel() {
+            if ( channel != null ) {
+                try {
+                    channel.close();
+                } catch ( IOException e ) {
+                    log.warn( "Problem closing file channel for {}: {}", path, e.toString() );
+                }
+                channel = null;
+                fileKey = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "FileHandle{" + path + '}';
+        }
+
+        private record CurrentFile( FileChannel channel, Identity identity ) {
+        }
+
+        private final class ChannelSource implements ByteSource {
+            private FileChannel channel;
+
+            ChannelSource( FileChannel channel ) {
+                this.channel = channel;
+            }
+
+            @Override
+            public long length() throws IOException {
+                try {
+                    return channel.size();
+                } catch ( ClosedChannelException e ) {
+                    channel = reopen( channel );
+                    return channel.size();
+                }
+            }
+
+            @Override
+            public int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                try {
+                    return readFully( position, buffer, offset, length );
+                } catch ( ClosedChannelException e ) {
+                    // the channel is closed if a Thread reading it is interrupted, or if the file was replaced
+                    log.debug( "File channel was closed, re-opening it: {}", path );
+                    channel = reopen( channel );
+                    return readFully( position, buffer, offset, length );
+                }
+            }
+
+            private int readFully( long position, byte[] buffer, int offset, int length ) throws IOException {
+                var byteBuffer = ByteBuffer.wrap( buffer, offset, length );
+                int bytesRead = 0;
+                while ( byteBuffer.hasRemaining() ) {
+                    int count = channel.read( byteBuffer, position + bytesRead );
+                    if ( count < 0 ) {
+                        break;
+                    }
+                    bytesRead += count;
+                }
+                return bytesRead == 0 && length > 0 ? -1 : bytesRead;
+            }
+
+            /**
+             * The channel is shared, so it is only closed when the handle is released.
+             */
+            @Override
+            public void close() {
+            }
+        }
+    }
+}
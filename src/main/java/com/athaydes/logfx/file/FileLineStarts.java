@@ -1,77 +1,180 @@
 package com.athaydes.logfx.file;
 
-import java.util.TreeSet;
+import java.util.StringJoiner;
 
 /**
  * Representation of a file line start indexes.
+ * <p>
+ * The indexes are kept sorted, without duplicates, in a circular buffer of primitive longs, so that adding
+ * indexes to either end of the window and trimming it does not allocate.
+ * <p>
+ * Copies share the buffer until one of them is modified (copy-on-write), so making a copy is cheap.
  */
 final class FileLineStarts {
 
     private final int size;
-    private final TreeSet<Long> indexes = new TreeSet<>();
+
+    // one extra slot is needed as an index is added before the buffer is trimmed
+    private long[] indexes;
+    private int head;
+    private int count;
+
+    // true if the indexes buffer may be in use by another instance
+    private boolean shared;
 
     FileLineStarts( int size ) {
         if ( size < 1L ) {
             throw new IllegalArgumentException( "Size must be positive" );
         }
         this.size = size;
+        this.indexes = new long[ size + 1 ];
     }
 
     FileLineStarts makeCopy() {
         var clone = new FileLineStarts( size );
-        clone.indexes.addAll( this.indexes );
+        clone.copyState( this );
         return clone;
     }
 
     void copyState( FileLineStarts lineStarts ) {
-        this.indexes.clear();
-        this.indexes.addAll( lineStarts.indexes );
+        if ( lineStarts.indexes.length != indexes.length ) {
+            throw new IllegalArgumentException( "Cannot copy state of line starts with a different size" );
+        }
+        this.indexes = lineStarts.indexes;
+        this.head = lineStarts.head;
+        this.count = lineStarts.count;
+        this.shared = true;
+        lineStarts.shared = true;
     }
 
     void addFirst( long index ) {
-        indexes.add( index );
-        trim( false );
+        add( index );
+        while ( count > size ) {
+            count--;
+        }
     }
 
     void addLast( long index ) {
-        indexes.add( index );
-        trim( true );
+        add( index );
+        while ( count > size ) {
+            removeFirst();
+        }
     }
 
     void clear() {
-        indexes.clear();
+        head = 0;
+        count = 0;
+    }
+
+    /**
+     * Remove all indexes that are equal to or greater than the given index.
+     *
+     * @param index first index to remove
+     */
+    void removeFrom( long index ) {
+        count = lowerBound( index );
+    }
+
+    /**
+     * Remove indexes from the beginning until no more than the given number of indexes are left.
+     *
+     * @param count of indexes to keep
+     */
+    void retainLast( int count ) {
+        while ( this.count > count ) {
+            removeFirst();
+        }
     }
 
     long getFirst() {
-        if ( indexes.isEmpty() ) {
+        if ( count == 0 ) {
             return 0L;
         } else {
-            return indexes.first();
+            return get( 0 );
         }
     }
 
     long getLast() {
-        if ( indexes.isEmpty() ) {
+        if ( count == 0 ) {
             return 0L;
         } else {
-            return indexes.last();
+            return get( count - 1 );
         }
     }
 
-    private void trim( boolean fromBeginning ) {
-        Runnable remove = fromBeginning ?
-                () -> indexes.remove( getFirst() ) :
-                () -> indexes.remove( getLast() );
+    private long get( int i ) {
+        return indexes[ slot( i ) ];
+    }
 
-        while ( indexes.size() > size ) {
-            remove.run();
+    private int slot( int i ) {
+        int slot = head + i;
+        return slot < indexes.length ? slot : slot - indexes.length;
+    }
+
+    private void removeFirst() {
+        head = slot( 1 );
+        count--;
+    }
+
+    private void add( long index ) {
+        if ( count == 0 ) {
+            ensureNotShared();
+            head = 0;
+            indexes[ 0 ] = index;
+            count = 1;
+        } else if ( index < get( 0 ) ) {
+            ensureNotShared();
+            head = head == 0 ? indexes.length - 1 : head - 1;
+            indexes[ head ] = index;
+            count++;
+        } else if ( index > get( count - 1 ) ) {
+            ensureNotShared();
+            indexes[ slot( count ) ] = index;
+            count++;
+        } else {
+            // rare case: the index must be inserted in the middle (unless it's already present)
+            int position = lowerBound( index );
+            if ( get( position ) != index ) {
+                ensureNotShared();
+                for ( int i = count; i > position; i-- ) {
+                    indexes[ slot( i ) ] = get( i - 1 );
+                }
+                indexes[ slot( position ) ] = index;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * @return the position of the first index that is equal to or greater than the given index
+     */
+    private int lowerBound( long index ) {
+        int low = 0;
+        int high = count;
+        while ( low < high ) {
+            int middle = ( low + high ) >>> 1;
+            if ( get( middle ) < index ) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void ensureNotShared() {
+        if ( shared ) {
+            indexes = indexes.clone();
+            shared = false;
         }
     }
 
     @Override
     public String toString() {
-        return "FileLineStarts{" +
-                "indexes=" + indexes +
-                '}';
+        var joiner = new StringJoiner( ", ", "FileLineStarts{indexes=[", "]}" );
+        for ( int i = 0; i < count; i++ ) {
+            joiner.add( Long.toString( get( i ) ) );
+        }
+        return joiner.toString();
     }
 }
@@ -0,0 +1,52 @@
+package com.athaydes.logfx.file;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Lines read from a file by a {@link FileReader}.
+ * <p>
+ * Each line is backed by a {@link LogLineRef}, so the full text of very long lines is only decoded if
+ * requested via {@link #get(int)}. Use {@link #refsOf(List)} to access the references instead.
+ */
+public final class FileLines extends AbstractList<String> implements RandomAccess {
+
+    private final List<LogLineRef> refs;
+
+    FileLines( List<LogLineRef> refs ) {
+        this.refs = refs;
+    }
+
+    @Override
+    public String get( int index ) {
+        return refs.get( index ).text();
+    }
+
+    @Override
+    public int size() {
+        return refs.size();
+    }
+
+    /**
+     * Get references to the given lines.
+     * <p>
+     * If the lines were read by a {@link FileReader}, their own references are returned,
+     * otherwise each line is wrapped into a {@link LogLineRef}.
+     *
+     * @param lines the lines
+     * @return references to the lines
+     */
+    public static List<LogLineRef> refsOf( List<String> lines ) {
+        if ( lines instanceof FileLines fileLines ) {
+            return Collections.unmodifiableList( fileLines.refs );
+        }
+        List<LogLineRef> result = new ArrayList<>( lines.size() );
+        for ( String line : lines ) {
+            result.add( LogLineRef.of( line ) );
+        }
+        return result;
+    }
+}
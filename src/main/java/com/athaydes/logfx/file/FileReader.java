@@ -1,16 +1,20 @@
 package com.athaydes.logfx.file;
 
 import com.athaydes.logfx.config.Properties;
+import com.athaydes.logfx.text.LineFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.Predicate;
 
 import static com.athaydes.logfx.file.FileReader.LoadMode.MOVE;
@@ -25,17 +29,70 @@ public class FileReader implements FileContentReader {
 
     private static final Predicate<String> NO_FILTER = ( line ) -> true;
 
+    /**
+     * Maximum number of bytes read when following the tail of a file incrementally.
+     * <p>
+     * If more bytes than this are appended between updates, the file window is read from the tail again,
+     * skipping everything that would not fit in it anyway.
+     */
+    static final long MAX_INCREMENTAL_TAIL_BYTES = 1024L * 1024L;
+
+    /**
+     * Maximum number of bytes read at once.
+     * <p>
+     * Reads start with the configured buffer size and double in size for each chunk read within a single load,
+     * up to this size.
+     */
+    private static final int MAX_READ_SIZE = 256 * 1024;
+
+    /**
+     * Maximum size of the buffer kept by the reader between loads.
+     * <p>
+     * The buffer grows as needed to hold very long lines, but is allowed to shrink back after a load if it
+     * became larger than this.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
     enum LoadMode {
         MOVE, REFRESH
     }
 
+    /**
+     * Change in the identity of the file between two checks.
+     *
+     * @param previous identity of the file when it was last checked
+     * @param current  current identity of the file
+     */
+    record IdentityChange( FileHandles.Identity previous, FileHandles.Identity current ) {
+    }
+
     private final File file;
     private final int fileWindowSize;
     private final int bufferSize;
     private final FileLineStarts lineStarts;
+    private final LineIndex lineIndex;
+    private final TimeIndex timeIndex;
 
     private Predicate<String> lineFilter = NO_FILTER;
 
+    // index of the lines accepted by the line filter, shared by copies of this reader (null if there is no filter)
+    private volatile FilterIndex filterIndex;
+
+    // re-used between loads, so that lines can be decoded from it without copying their bytes around
+    private byte[] buffer;
+
+    // used by very long lines to decode their full text only when needed
+    private final ByteSource.Factory lineSource = this::openSource;
+
+    // the file is kept open between loads, and copies of this reader share it
+    private final FileHandles.FileHandle handle;
+    private final boolean ownsHandle;
+
+    // identity of the file when it was last checked, to notice when it is replaced or truncated
+    private FileHandles.Identity knownIdentity;
+
+    private final ReadAhead readAhead = new ReadAhead( this::openSource );
+
     // state to avoid reading a file when it is not required...
     // e.g. moving down when the last moveDown returned no lines and:
     //   the file has not been refreshed and
@@ -43,6 +100,13 @@ public class FileReader implements FileContentReader {
     private boolean noLinesUp = true;
     private boolean noLinesDown = true;
 
+    // state used to follow the tail of the file incrementally:
+    //   the file length when the tail was last read and
+    //   the start of the last line of the file window at that time (which may have been incomplete)
+    private boolean following = false;
+    private long followLength;
+    private long followLineStart;
+
     public FileReader( File file, int fileWindowSize ) {
         this( file, fileWindowSize, 4096 );
     }
@@ -51,6 +115,7 @@ public class FileReader implements FileContentReader {
         this.file = file;
         this.fileWindowSize = fileWindowSize;
         this.bufferSize = bufferSize;
+        this.buffer = new byte[ bufferSize ];
 
         if ( log.isDebugEnabled() ) {
             String logfxLog = Properties.LOGFX_DIR.resolve( "logfx.log" ).toFile().getAbsolutePath();
@@ -64,16 +129,30 @@ public class FileReader implements FileContentReader {
 
         // 1 extra line is needed because we need to know the boundaries between lines
         this.lineStarts = new FileLineStarts( fileWindowSize + 1 );
+        this.handle = FileHandles.shared().acquire( file );
+        this.ownsHandle = true;
+        this.lineIndex = new LineIndex( this::openIndexSource, LineIndex.DEFAULT_LINES_PER_CHECKPOINT );
+        this.timeIndex = new TimeIndex( this::openIndexSource, TimeIndex.DEFAULT_SAMPLE_INTERVAL );
     }
 
     public FileReader( FileReader other ) {
         this.file = other.file;
         this.fileWindowSize = other.fileWindowSize;
         this.bufferSize = other.bufferSize;
+        this.buffer = new byte[ bufferSize ];
+        this.handle = other.handle;
+        this.ownsHandle = false;
+        this.knownIdentity = other.knownIdentity;
         this.lineStarts = other.lineStarts.makeCopy();
+        this.lineIndex = other.lineIndex;
+        this.timeIndex = other.timeIndex;
         this.noLinesDown = other.noLinesDown;
         this.noLinesUp = other.noLinesUp;
         this.lineFilter = other.lineFilter;
+        this.filterIndex = other.filterIndex;
+        this.following = other.following;
+        this.followLength = other.followLength;
+        this.followLineStart = other.followLineStart;
     }
 
     @Override
@@ -96,57 +175,87 @@ public class FileReader implements FileContentReader {
             this.noLinesDown = otherReader.noLinesDown;
             this.noLinesUp = otherReader.noLinesUp;
             this.lineFilter = otherReader.lineFilter;
+            this.filterIndex = otherReader.filterIndex;
+            this.following = otherReader.following;
+            this.followLength = otherReader.followLength;
+            this.followLineStart = otherReader.followLineStart;
+            this.knownIdentity = otherReader.knownIdentity;
         } else {
             throw new IllegalStateException( "Different type of reader cannot copy state" );
         }
 
     }
 
+    /**
+     * Release the file handle of this reader. Copies of this reader share it, so they should not
+     * be used after the original reader is closed.
+     */
+    @Override
+    public void close() {
+        if ( ownsHandle ) {
+            handle.release();
+        }
+    }
+
     @Override
     public void setLineFilter( Predicate<String> lineFilter ) {
-        this.lineFilter = Objects.requireNonNullElse( lineFilter, NO_FILTER );
+        var newFilter = Objects.requireNonNullElse( lineFilter, NO_FILTER );
+        if ( !newFilter.equals( this.lineFilter ) ) {
+            // the lines in the file window may change
+            following = false;
+            this.lineFilter = newFilter;
+            this.filterIndex = newFilter == NO_FILTER ? null : new FilterIndex( this::openIndexSource, newFilter );
+        }
     }
 
     @Override
-    public Optional<LinkedList<String>> moveUp( int lines ) {
+    public Optional<FileLines> moveUp( int lines ) {
         log.trace( "Moving up {} lines", lines );
         if ( lines < 1 ) {
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new FileLines( List.of() ) );
         }
 
         noLinesDown = false;
+        following = false;
 
         if ( noLinesUp ) {
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new FileLines( List.of() ) );
         }
 
-        Optional<LinkedList<String>> result = loadFromBottom( lineStarts.getFirst() - 1L, lines, MOVE );
+        long previousStart = lineStarts.getFirst();
+        Optional<FileLines> result = loadFromBottom( previousStart - 1L, lines, MOVE ).map( FileLines::new );
 
         if ( result.isPresent() && result.get().isEmpty() ) {
             noLinesUp = true;
+        } else if ( result.isPresent() ) {
+            readAhead( ReadAhead.Direction.UP, previousStart - lineStarts.getFirst() );
         }
 
         return result;
     }
 
     @Override
-    public Optional<LinkedList<String>> moveDown( int lines ) {
+    public Optional<FileLines> moveDown( int lines ) {
         log.trace( "Moving down {} lines", lines );
 
         if ( lines < 1 ) {
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new FileLines( List.of() ) );
         }
 
         noLinesUp = false;
+        following = false;
 
         if ( noLinesDown ) {
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new FileLines( List.of() ) );
         }
 
-        Optional<LinkedList<String>> result = loadFromTop( lineStarts.getLast(), lines, MOVE );
+        long previousEnd = lineStarts.getLast();
+        Optional<FileLines> result = loadFromTop( previousEnd, lines, MOVE ).map( FileLines::new );
 
         if ( result.isPresent() && result.get().isEmpty() ) {
             noLinesDown = true;
+        } else if ( result.isPresent() ) {
+            readAhead( ReadAhead.Direction.DOWN, lineStarts.getLast() - previousEnd );
         }
 
         return result;
@@ -154,31 +263,127 @@ public class FileReader implements FileContentReader {
 
     @Override
     public void top() {
+        checkIdentity();
         noLinesDown = false;
         noLinesUp = true;
+        following = false;
         lineStarts.clear();
         lineStarts.addFirst( 0L );
     }
 
     @Override
     public void tail() {
+        checkIdentity();
         noLinesDown = true;
         noLinesUp = false;
+        following = false;
         lineStarts.clear();
-        // FIXME if filter is enabled, we need to find the last line that's filtered
-        lineStarts.addFirst( file.length() + 1 );
+
+        FilterIndex index = filterIndex;
+        if ( index != null ) {
+            // start the file window at the first of the last lines accepted by the filter
+            var offsets = index.offsetsUntil( fileLength(), fileWindowSize );
+            if ( offsets.isPresent() && offsets.get().length > 0 ) {
+                log.debug( "Filtered tail starts at offset {}", offsets.get()[ 0 ] );
+                lineStarts.addFirst( offsets.get()[ 0 ] );
+                return;
+            }
+        }
+
+        lineStarts.addFirst( fileLength() + 1 );
     }
 
     @Override
-    public Optional<LinkedList<String>> refresh() {
+    public boolean goToLine( long lineNumber ) {
+        var lineStart = lineIndex.lineStart( lineNumber );
+        if ( lineStart.isEmpty() ) {
+            if ( lineIndex.indexedBytes() < fileLength() ) {
+                log.debug( "Line {} has not been indexed yet (indexed lines: {})", lineNumber, lineIndex.lineCount() );
+                return false;
+            }
+            log.debug( "Line {} not found (file has {} lines), going to the tail", lineNumber, lineIndex.lineCount() );
+            tail();
+            return true;
+        }
+        long offset = lineStart.getAsLong();
+        log.debug( "Line {} starts at offset {}", lineNumber, offset );
+        goToOffset( offset );
+        return true;
+    }
+
+    @Override
+    public boolean goToDateTime( ZonedDateTime dateTime ) {
+        var offset = timeIndex.offsetBefore( dateTime );
+        if ( offset.isEmpty() ) {
+            log.debug( "Date-time {} not found in the time index", dateTime );
+            return false;
+        }
+        log.debug( "Date-time {} is after the line at offset {}", dateTime, offset.getAsLong() );
+        goToOffset( offset.getAsLong() );
+        return true;
+    }
+
+    @Override
+    public void goToOffset( long offset ) {
+        checkIdentity();
+        noLinesDown = false;
+        noLinesUp = offset == 0L;
+        following = false;
+        lineStarts.clear();
+        lineStarts.addFirst( offset );
+    }
+
+    @Override
+    public LineProber openProber() {
+        return new LineProber( this::openSource, bufferSize );
+    }
+
+    @Override
+    public void updateLineIndex() {
+        lineIndex.update();
+        timeIndex.update();
+        FilterIndex index = filterIndex;
+        if ( index != null ) {
+            index.update();
+        }
+    }
+
+    @Override
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    @Override
+    public TimeIndex getTimeIndex() {
+        return timeIndex;
+    }
+
+    @Override
+    public Optional<FileLines> refresh() {
+        var change = checkIdentity();
+        if ( isReplacementOrTruncation( change ) ) {
+            clearIndexesIfMoved( change );
+            var anchor = translateOffset( change, lineStarts.getFirst() );
+            if ( anchor.isPresent() ) {
+                log.debug( "Moving the file window to offset {}, where its lines are now", anchor.getAsLong() );
+                lineStarts.clear();
+                lineStarts.addFirst( anchor.getAsLong() );
+            } else {
+                // the file window offsets are meaningless now, start again from the top of the file
+                log.debug( "Moving the file window to the top of the file" );
+                top();
+            }
+        }
+
         noLinesDown = false;
         noLinesUp = false;
+        following = false;
 
         long initialLine = lineStarts.getFirst();
         log.debug( "Refreshing file from line {}", initialLine );
-        Optional<LinkedList<String>> fromTop = loadFromTop( initialLine, fileWindowSize, REFRESH );
+        Optional<List<LogLineRef>> fromTop = loadFromTop( initialLine, fileWindowSize, REFRESH );
         if ( fromTop.isPresent() ) {
-            LinkedList<String> topList = fromTop.get();
+            List<LogLineRef> topList = fromTop.get();
 
             if ( topList.size() < fileWindowSize ) {
                 log.trace( "Trying to get more lines after a refresh from the top did not give enough lines" );
@@ -186,7 +391,142 @@ public class FileReader implements FileContentReader {
                         .ifPresent( extraLines -> topList.addAll( 0, extraLines ) );
             }
         }
-        return fromTop;
+        return fromTop.map( FileLines::new );
+    }
+
+    @Override
+    public Optional<TailUpdate> followTail() {
+        if ( !fileExists() ) {
+            following = false;
+            return Optional.empty();
+        }
+
+        var change = checkIdentity();
+        if ( isReplacementOrTruncation( change ) ) {
+            clearIndexesIfMoved( change );
+            // the appended bytes cannot be found from the previous tail, read the new tail instead
+            following = false;
+        }
+
+        if ( following && lineFilter == NO_FILTER ) {
+            try ( ByteSource reader = openSource() ) {
+                Optional<TailUpdate> update = readAppendedLines( reader );
+                if ( update.isPresent() ) {
+                    return update;
+                }
+            } catch ( IOException e ) {
+                log.warn( "Error reading file [{}]: {}", file, e );
+                following = false;
+                return Optional.empty();
+            }
+        }
+
+        return loadTail();
+    }
+
+    private Optional<TailUpdate> loadTail() {
+        noLinesDown = false;
+        noLinesUp = false;
+        following = false;
+
+        // only read up to the current length, so we know exactly where to continue from next time
+        long length = fileLength();
+        log.debug( "Loading the tail of the file up to byte {}", length );
+        lineStarts.clear();
+        lineStarts.addLast( length );
+
+        Optional<List<LogLineRef>> lines = loadFromBottom( length, fileWindowSize, MOVE );
+
+        if ( lines.isPresent() ) {
+            try ( ByteSource reader = openSource() ) {
+                followLineStart = lastLineStart( length, reader );
+                followLength = length;
+                following = true;
+            } catch ( IOException e ) {
+                log.warn( "Error reading file [{}]: {}", file, e );
+            }
+        }
+
+        return lines.map( result -> new TailUpdate( new FileLines( result ), false ) );
+    }
+
+    /**
+     * Read the lines appended to the file since the tail was last read.
+     *
+     * @param reader source of bytes
+     * @return the update, or nothing if the tail of the file must be read from scratch
+     * @throws IOException if an error occurs reading the file
+     */
+    private Optional<TailUpdate> readAppendedLines( ByteSource reader ) throws IOException {
+        try {
+            return readAppendedLines( reader, reader.length() );
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    private Optional<TailUpdate> readAppendedLines( ByteSource reader, long length ) throws IOException {
+        if ( length < followLength ) {
+            log.debug( "File was truncated from {} to {} bytes, reading the tail again", followLength, length );
+            return Optional.empty();
+        }
+        if ( length == followLength ) {
+            return Optional.of( new TailUpdate( List.of(), true ) );
+        }
+        if ( length - followLineStart > MAX_INCREMENTAL_TAIL_BYTES ) {
+            log.debug( "Too many bytes appended to the file ({}), skipping to the newest file window",
+                    length - followLength );
+            return Optional.empty();
+        }
+
+        // the last line of the file window is read again as it may have been incomplete
+        int bytesLength = ( int ) ( length - followLineStart );
+        byte[] bytes = ensureBufferCapacity( bytesLength, 0 );
+        if ( reader.read( followLineStart, bytes, 0, bytesLength ) < bytesLength ) {
+            log.debug( "File was truncated while reading appended bytes, reading the tail again" );
+            return Optional.empty();
+        }
+
+        List<LogLineRef> lines = new ArrayList<>();
+        lineStarts.removeFrom( followLineStart );
+
+        int lineStartIndex = 0;
+        for ( int i = 0; i <= bytesLength; i++ ) {
+            boolean isNewLine = i < bytesLength && bytes[ i ] == '\n';
+            if ( isNewLine || i == bytesLength ) {
+                int lineEndIndex = i;
+                if ( lineEndIndex > lineStartIndex && bytes[ lineEndIndex - 1 ] == '\r' ) {
+                    // do not include the return character in the line
+                    lineEndIndex--;
+                }
+                lines.add( LogLineRef.of( lineSource, followLineStart + lineStartIndex,
+                        bytes, lineStartIndex, lineEndIndex - lineStartIndex ) );
+                lineStarts.addLast( followLineStart + lineStartIndex );
+                if ( isNewLine ) {
+                    lineStartIndex = i + 1;
+                }
+            }
+        }
+
+        // if the file ends with a new line, the last (empty) line starts at the end of the file,
+        // so there is one less boundary to remember
+        lineStarts.addLast( length );
+        boolean endsWithNewLine = lineStartIndex == bytesLength;
+        lineStarts.retainLast( endsWithNewLine ? fileWindowSize : fileWindowSize + 1 );
+
+        log.debug( "Read {} appended lines from file {}", lines.size() - 1, file );
+        log.trace( "Line starts: {}", lineStarts );
+
+        followLength = length;
+        followLineStart = followLineStart + lineStartIndex;
+
+        if ( lines.size() > fileWindowSize ) {
+            log.debug( "More lines appended than fit in the file window, skipping to the newest file window" );
+            return Optional.of( new TailUpdate( new FileLines(
+                    new ArrayList<>( lines.subList( lines.size() - fileWindowSize, lines.size() ) ) ), false ) );
+        }
+
+        return Optional.of( new TailUpdate( new FileLines( lines ), true ) );
     }
 
     @Override
@@ -194,25 +534,172 @@ public class FileReader implements FileContentReader {
         return file;
     }
 
-    private Optional<LinkedList<String>> loadFromTop( Long firstLineStartIndex,
-                                                      final int lines,
-                                                      final LoadMode mode ) {
-        if ( !file.isFile() ) {
+    @Override
+    public long contentLength() {
+        return fileLength();
+    }
+
+    /**
+     * @return the handle of this reader's file, shared with its copies
+     */
+    FileHandles.FileHandle fileHandle() {
+        return handle;
+    }
+
+    /**
+     * Open the source of bytes for this reader's file.
+     * <p>
+     * This is called once for every load operation and the returned source is closed after the load completes.
+     * <p>
+     * Bytes are read through the shared {@link BlockCache}, so that regions of the file that were recently read
+     * by any reader do not need to be read again while the file is only appended to.
+     *
+     * @return source of the file bytes
+     * @throws IOException if the file cannot be opened
+     */
+    ByteSource openSource() throws IOException {
+        return BlockCache.shared().open( file, handle::source );
+    }
+
+    /**
+     * Read ahead, in the background, the bytes the file window is likely to need next after a move.
+     * <p>
+     * Only unfiltered moves are read ahead, as filtered lines are found through the {@link FilterIndex}.
+     *
+     * @param direction  direction of the move
+     * @param bytesMoved number of bytes the file window moved by
+     */
+    void readAhead( ReadAhead.Direction direction, long bytesMoved ) {
+        if ( lineFilter == NO_FILTER ) {
+            readAhead.onMove( direction, bytesMoved, lineStarts.getFirst(), lineStarts.getLast(), fileLength() );
+        }
+    }
+
+    /**
+     * Open the source of bytes used to build this reader's {@link LineIndex}.
+     * <p>
+     * The index is built from a background Thread, so it reads the file directly rather than through the
+     * {@link BlockCache}, to avoid evicting the blocks used by this reader's loads.
+     *
+     * @return source of the file bytes
+     * @throws IOException if the file cannot be opened
+     */
+    ByteSource openIndexSource() throws IOException {
+        return handle.source();
+    }
+
+    /**
+     * @return whether the file exists
+     */
+    boolean fileExists() {
+        return file.isFile();
+    }
+
+    /**
+     * @return the current length of the file
+     */
+    long fileLength() {
+        return file.length();
+    }
+
+    /**
+     * @return the current identity of the file, used to notice when it is replaced or truncated
+     * @throws IOException if the file does not exist
+     */
+    FileHandles.Identity fileIdentity() throws IOException {
+        return handle.identity();
+    }
+
+    /**
+     * Find where a byte of the file is after the file was replaced or truncated.
+     * <p>
+     * A single file that is replaced has nothing in common with the file it replaces, so by default no offset
+     * can be translated. Sources made of several files may still contain the bytes of some of their files.
+     *
+     * @param change change in the identity of the file
+     * @param offset offset of the byte before the change
+     * @return the offset of the same byte after the change, or empty if the file no longer contains it
+     */
+    OptionalLong translateOffset( IdentityChange change, long offset ) {
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Clear the indexes of the file after it was replaced or truncated, unless its first byte is still at the
+     * same offset (e.g. as more files were added after it), as otherwise the indexed offsets no longer point to
+     * the same lines.
+     */
+    private void clearIndexesIfMoved( IdentityChange change ) {
+        if ( translateOffset( change, 0L ).orElse( -1L ) != 0L ) {
+            log.debug( "Clearing the indexes of the file as its contents moved: {}", file );
+            lineIndex.clear();
+            timeIndex.clear();
+            FilterIndex index = filterIndex;
+            if ( index != null ) {
+                index.clear();
+            }
+        }
+    }
+
+    /**
+     * Check the current identity of the file, remembering it as the known identity.
+     * <p>
+     * Moving the file window to an absolute position calls this only to forget any previous change in identity.
+     *
+     * @return the change since the identity was last checked, or null if it was not checked before or the
+     * file does not exist (which loads report on their own)
+     */
+    private IdentityChange checkIdentity() {
+        FileHandles.Identity identity;
+        try {
+            identity = fileIdentity();
+        } catch ( IOException e ) {
+            return null;
+        }
+        var previous = knownIdentity;
+        knownIdentity = identity;
+        return previous == null ? null : new IdentityChange( previous, identity );
+    }
+
+    /**
+     * @param change change in the identity of the file, or null if there was none
+     * @return true if the file was replaced (e.g. by log rotation) or truncated, in which case the offsets of the
+     * file window no longer point to the lines it had
+     */
+    private boolean isReplacementOrTruncation( IdentityChange change ) {
+        if ( change == null ) {
+            return false;
+        }
+        var previous = change.previous();
+        var current = change.current();
+        if ( current.isReplacementOf( previous ) ) {
+            log.info( "File was replaced: {}", file );
+            return true;
+        }
+        if ( current.isTruncationOf( previous ) ) {
+            log.info( "File was truncated from {} to {} bytes: {}", previous.size(), current.size(), file );
+            return true;
+        }
+        return false;
+    }
+
+    private Optional<List<LogLineRef>> loadFromTop( long firstLineStartIndex,
+                                                    final int lines,
+                                                    final LoadMode mode ) {
+        if ( !fileExists() ) {
             return Optional.empty();
         }
 
         log.trace( "Loading {} lines from the top, file: {}", lines, file );
 
-        if ( firstLineStartIndex >= file.length() - 1 ) {
+        if ( firstLineStartIndex >= fileLength() - 1 ) {
             log.trace( "Already at the top of the file, nothing to return" );
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new ArrayList<>( 0 ) );
         }
 
-        byte[] buffer = new byte[ bufferSize ];
-        LinkedList<String> result = new LinkedList<>();
-        byte[] topBytes = new byte[ 0 ];
+        List<LogLineRef> result = new ArrayList<>( Math.min( lines, fileWindowSize ) );
 
-        try ( RandomAccessFile reader = new RandomAccessFile( file, "r" ) ) {
+        try ( ByteSource reader = openSource() ) {
             if ( mode == LoadMode.REFRESH ) {
                 lineStarts.clear();
                 firstLineStartIndex = seekLineStartBefore( firstLineStartIndex, reader );
@@ -220,52 +707,78 @@ public class FileReader implements FileContentReader {
 
             lineStarts.addLast( firstLineStartIndex );
 
-            log.trace( "Seeking position {}", firstLineStartIndex );
-            reader.seek( firstLineStartIndex );
+            FilterIndex index = filterIndex;
+            if ( index != null ) {
+                var offsets = index.offsetsFrom( firstLineStartIndex, lines );
+                if ( offsets.isPresent() ) {
+                    loadIndexedLinesFromTop( offsets.get(), result, reader );
+                    log.debug( "Loaded {} indexed lines from file {}", result.size(), file );
+                    log.trace( "Line starts: {}", lineStarts );
+                    return Optional.of( result );
+                }
+            }
+
+            // the bytes of the current line are kept in the buffer, between lineStartIndex and bufferEnd,
+            // until the line is complete
+            long position = firstLineStartIndex;
+            int lineStartIndex = 0;
+            int bufferEnd = 0;
+            int readSize = bufferSize;
 
             readerMainLoop:
             while ( true ) {
-                final long startIndex = reader.getFilePointer();
                 final long lastIndex = reader.length() - 1;
-                long fileIndex = startIndex;
 
-                log.trace( "Reading chunk {}..{}",
-                        startIndex, startIndex + bufferSize );
+                if ( lineStartIndex > 0 ) {
+                    // discard the bytes of the lines already read
+                    System.arraycopy( buffer, lineStartIndex, buffer, 0, bufferEnd - lineStartIndex );
+                    bufferEnd -= lineStartIndex;
+                    lineStartIndex = 0;
+                }
+
+                ensureBufferCapacity( bufferEnd + readSize, bufferEnd );
+
+                // file index of the first byte in the buffer
+                final long bufferStartIndex = position - bufferEnd;
 
-                final int bytesRead = reader.read( buffer );
-                int lineStartIndex = 0;
+                log.trace( "Reading chunk {}..{}", position, position + readSize );
 
-                if ( log.isTraceEnabled() && bytesRead > 0 && bytesRead < bufferSize ) {
-                    log.trace( "Did not read full buffer, chunk that got read is {}..{}", startIndex, startIndex + bytesRead );
+                final int bytesRead = reader.read( position, buffer, bufferEnd, readSize );
+
+                if ( bytesRead < 0 ) {
+                    log.trace( "Reached file end, breaking out of reader loop" );
+                    break;
                 }
 
-                for ( int i = 0; i < bytesRead; i++ ) {
-                    byte b = buffer[ i ];
-                    boolean isNewLine = ( b == '\n' );
-                    boolean isLastByte = ( fileIndex == lastIndex );
+                if ( log.isTraceEnabled() && bytesRead < readSize ) {
+                    log.trace( "Did not read full buffer, chunk that got read is {}..{}", position, position + bytesRead );
+                }
+
+                final int scanStart = bufferEnd;
+                position += bytesRead;
+                bufferEnd += bytesRead;
+
+                for ( int i = scanStart; i < bufferEnd; i++ ) {
+                    boolean isNewLine = ( buffer[ i ] == '\n' );
+                    boolean isLastByte = ( bufferStartIndex + i == lastIndex );
 
                     if ( isNewLine || isLastByte ) {
                         // if the byte is a new line, don't include it in the result
-                        int lineEndIndex = isNewLine ? i - 1 : i;
+                        int lineEndIndex = isNewLine ? i : i + 1;
 
-                        if ( isNewLine && i > 0 && buffer[ i - 1 ] == '\r' ) {
+                        if ( isNewLine && lineEndIndex > lineStartIndex && buffer[ lineEndIndex - 1 ] == '\r' ) {
                             // do not include the return character in the line
                             lineEndIndex--;
                         }
 
-                        int lineLength = lineEndIndex - lineStartIndex + 1;
+                        log.trace( "Found line, decoding buffer [{}:{}]", lineStartIndex, lineEndIndex );
 
-                        byte[] lineBytes = new byte[ lineLength + topBytes.length ];
-                        log.trace( "Found line, copying [{}:{}] bytes from buffer + {} from top",
-                                lineStartIndex, lineLength, topBytes.length );
-                        System.arraycopy( topBytes, 0, lineBytes, 0, topBytes.length );
-                        System.arraycopy( buffer, lineStartIndex, lineBytes, topBytes.length, lineLength );
+                        LogLineRef line = lineRef( bufferStartIndex + lineStartIndex,
+                                lineStartIndex, lineEndIndex - lineStartIndex );
 
-                        String line = new String( lineBytes, StandardCharsets.UTF_8 );
-
-                        if ( lineFilter.test( line ) ) {
-                            lineStarts.addLast( startIndex + i + 1 );
-                            result.addLast( line );
+                        if ( line != null ) {
+                            lineStarts.addLast( bufferStartIndex + i + 1 );
+                            result.add( line );
                             log.trace( "Added line: {}", line );
                             if ( result.size() >= lines ) {
                                 log.trace( "Got enough lines, breaking out of reader loop" );
@@ -273,25 +786,11 @@ public class FileReader implements FileContentReader {
                             }
                         }
 
-                        topBytes = new byte[ 0 ];
-                        lineStartIndex = isNewLine ? i + 1 : i;
+                        lineStartIndex = i + 1;
                     }
-
-                    fileIndex++;
-                }
-
-                if ( bytesRead < 0L ) {
-                    log.trace( "Reached file end, breaking out of reader loop" );
-                    break;
                 }
 
-                // remember the current buffer bytes as the next top bytes
-                int bytesToCopy = bufferSize - lineStartIndex;
-                byte[] newTop = new byte[ topBytes.length + bytesToCopy ];
-                System.arraycopy( buffer, lineStartIndex, newTop, 0, bytesToCopy );
-                System.arraycopy( topBytes, 0, newTop, bytesToCopy, topBytes.length );
-                log.trace( "Updated top bytes, now top has {} bytes", newTop.length );
-                topBytes = newTop;
+                readSize = nextReadSize( readSize );
             }
 
             log.debug( "Loaded {} lines from file {}", result.size(), file );
@@ -300,13 +799,15 @@ public class FileReader implements FileContentReader {
         } catch ( IOException e ) {
             log.warn( "Error reading file [{}]: {}", file, e );
             return Optional.empty();
+        } finally {
+            releaseBuffer();
         }
     }
 
-    private Optional<LinkedList<String>> loadFromBottom( final Long firstLineStartIndex,
-                                                         final int lines,
-                                                         final LoadMode mode ) {
-        if ( !file.isFile() ) {
+    private Optional<List<LogLineRef>> loadFromBottom( final long firstLineStartIndex,
+                                                       final int lines,
+                                                       final LoadMode mode ) {
+        if ( !fileExists() ) {
             return Optional.empty();
         }
 
@@ -314,75 +815,90 @@ public class FileReader implements FileContentReader {
 
         if ( firstLineStartIndex <= 0L ) {
             log.trace( "Already at the bottom of the file, nothing to return" );
-            return Optional.of( new LinkedList<>() );
+            return Optional.of( new ArrayList<>( 0 ) );
         }
 
-        byte[] buffer = new byte[ bufferSize ];
-        LinkedList<String> result = new LinkedList<>();
-        byte[] tailBytes = new byte[ 0 ];
+        // lines are found from the bottom up, so they are reversed at the end
+        List<LogLineRef> result = new ArrayList<>( Math.min( lines, fileWindowSize ) );
         long bufferStartIndex = firstLineStartIndex;
 
-        try ( RandomAccessFile reader = new RandomAccessFile( file, "r" ) ) {
+        try ( ByteSource reader = openSource() ) {
             if ( mode == LoadMode.REFRESH ) {
                 lineStarts.clear();
                 bufferStartIndex = seekLineStartBefore( firstLineStartIndex, reader );
                 lineStarts.addLast( Math.max( 0L, bufferStartIndex - 1L ) );
             }
 
-            readerMainLoop:
-            while ( true ) {
-                long previousStartIndex = bufferStartIndex;
+            FilterIndex index = filterIndex;
+            if ( index != null ) {
+                var offsets = index.offsetsUntil( bufferStartIndex, lines );
+                if ( offsets.isPresent() ) {
+                    loadIndexedLinesFromBottom( offsets.get(), bufferStartIndex, result, reader );
+                    log.debug( "Loaded {} indexed lines from file {}", result.size(), file );
+                    log.trace( "Line starts: {}", lineStarts );
+                    return Optional.of( result );
+                }
+            }
 
-                // start reading from the bottom section of the file above the previous position that fits into the buffer
-                bufferStartIndex = Math.max( 0, bufferStartIndex - bufferSize );
+            // the bytes of the current line are kept at the end of the buffer, between dataStart and dataEnd,
+            // until the line is complete
+            int dataEnd = buffer.length;
+            int dataStart = dataEnd;
+            int readSize = bufferSize;
 
-                log.trace( "Seeking position {}", bufferStartIndex );
-                reader.seek( bufferStartIndex );
+            readerMainLoop:
+            while ( bufferStartIndex > 0L ) {
+                final int bytesToRead = ( int ) Math.min( readSize, bufferStartIndex );
+
+                if ( dataStart < bytesToRead ) {
+                    // make room for the new bytes before the current ones
+                    int dataLength = dataEnd - dataStart;
+                    byte[] newBuffer = buffer.length - dataLength >= bytesToRead
+                            ? buffer
+                            : new byte[ Math.max( buffer.length * 2, dataLength + bytesToRead ) ];
+                    System.arraycopy( buffer, dataStart, newBuffer, newBuffer.length - dataLength, dataLength );
+                    buffer = newBuffer;
+                    dataEnd = newBuffer.length;
+                    dataStart = dataEnd - dataLength;
+                }
+
+                bufferStartIndex -= bytesToRead;
+                dataStart -= bytesToRead;
 
-                log.trace( "Reading chunk {}:{}, previous start: {}",
-                        bufferStartIndex, bufferStartIndex + bufferSize, previousStartIndex );
+                log.trace( "Reading chunk {}:{}", bufferStartIndex, bufferStartIndex + bytesToRead );
 
-                final int bytesRead = bufferStartIndex == 0L && previousStartIndex > 0 ?
-                        reader.read( buffer, 0, ( int ) previousStartIndex ) :
-                        reader.read( buffer );
+                final int bytesRead = reader.read( bufferStartIndex, buffer, dataStart, bytesToRead );
 
-                int lastByteIndex = bytesRead - 1;
+                if ( bytesRead < bytesToRead ) {
+                    log.debug( "File was truncated while reading it, breaking out of the reader loop" );
+                    break;
+                }
 
-                for ( int i = lastByteIndex; i >= 0; i-- ) {
-                    byte b = buffer[ i ];
-                    boolean isNewLine = ( b == '\n' );
-                    boolean firstFileByte = ( bufferStartIndex == 0 && i == 0 );
+                for ( int i = dataStart + bytesRead - 1; i >= dataStart; i-- ) {
+                    boolean isNewLine = ( buffer[ i ] == '\n' );
+                    boolean firstFileByte = ( bufferStartIndex == 0 && i == dataStart );
 
                     if ( isNewLine || firstFileByte ) {
-
                         // if the byte is a new line, don't include it in the result
                         int lineStartIndex = isNewLine ? i + 1 : i;
-                        int tailBytesLength = tailBytes.length;
-                        int bufferBytesToAdd = lastByteIndex - lineStartIndex + 1;
+                        int lineEndIndex = dataEnd;
 
-                        if ( tailBytesLength > 0 ) {
-                            if ( tailBytes[ tailBytesLength - 1 ] == '\r' ) {
-                                // do not include the return character in the line
-                                tailBytesLength--;
-                            }
-                        } else if ( buffer[ lastByteIndex ] == '\r' ) {
-                            // no tail, so the return character is removed from the buffer
-                            bufferBytesToAdd--;
+                        if ( lineEndIndex > lineStartIndex && buffer[ lineEndIndex - 1 ] == '\r' ) {
+                            // do not include the return character in the line
+                            lineEndIndex--;
                         }
 
-                        byte[] lineBytes = new byte[ bufferBytesToAdd + tailBytesLength ];
-                        log.trace( "Found line, copying {} bytes from buffer + {} from tail", bufferBytesToAdd, tailBytes.length );
-                        System.arraycopy( buffer, lineStartIndex, lineBytes, 0, bufferBytesToAdd );
-                        System.arraycopy( tailBytes, 0, lineBytes, bufferBytesToAdd, tailBytesLength );
+                        log.trace( "Found line, decoding buffer [{}:{}]", lineStartIndex, lineEndIndex );
 
-                        String line = new String( lineBytes, StandardCharsets.UTF_8 );
+                        LogLineRef line = lineRef( bufferStartIndex + ( lineStartIndex - dataStart ),
+                                lineStartIndex, lineEndIndex - lineStartIndex );
 
-                        if ( lineFilter.test( line ) ) {
-                            result.addFirst( line );
+                        if ( line != null ) {
+                            result.add( line );
                             log.trace( "Added line: {}", line );
 
                             if ( isNewLine ) {
-                                lineStarts.addFirst( bufferStartIndex + i + 1 );
+                                lineStarts.addFirst( bufferStartIndex + ( i - dataStart ) + 1 );
                             } else { // this must be the first file byte, remember it
                                 lineStarts.addFirst( 0 );
                             }
@@ -393,40 +909,114 @@ public class FileReader implements FileContentReader {
                             }
                         }
 
-                        tailBytes = new byte[ 0 ];
-                        lastByteIndex = i - 1;
-                        log.trace( "Last byte index is now {}", lastByteIndex );
+                        dataEnd = i;
                     }
                 }
 
-                if ( bufferStartIndex == 0 ) {
-                    log.trace( "Reached file start, breaking out of the reader loop" );
-                    break;
-                }
-
-                if ( lastByteIndex < 0 ) {
-                    log.trace( "No bytes were read, skipping copying of tail bytes" );
-                    continue;
-                }
-
-                // remember the current buffer bytes as the next tail bytes
-                byte[] newTail = new byte[ tailBytes.length + lastByteIndex + 1 ];
-                System.arraycopy( buffer, 0, newTail, 0, lastByteIndex + 1 );
-                System.arraycopy( tailBytes, 0, newTail, lastByteIndex + 1, tailBytes.length );
-                log.trace( "Updated tail, now tail has {} bytes", newTail.length );
-                tailBytes = newTail;
+                readSize = nextReadSize( readSize );
             }
 
+            Collections.reverse( result );
+
             log.debug( "Loaded {} lines from file {}", result.size(), file );
             log.trace( "Line starts: {}", lineStarts );
             return Optional.of( result );
         } catch ( IOException e ) {
             log.warn( "Error reading file [{}]: {}", file, e );
             return Optional.empty();
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    private void loadIndexedLinesFromTop( long[] offsets, List<LogLineRef> result, ByteSource reader )
+            throws IOException {
+        long length = reader.length();
+        for ( long offset : offsets ) {
+            if ( offset >= length ) {
+                // the empty line after the last new line character of the file is only read from the bottom
+                break;
+            }
+            int bytesRead = readLineAt( offset, length, reader );
+            boolean isNewLine = bytesRead > 0 && buffer[ bytesRead - 1 ] == '\n';
+            int lineLength = isNewLine ? bytesRead - 1 : bytesRead;
+            if ( isNewLine && lineLength > 0 && buffer[ lineLength - 1 ] == '\r' ) {
+                // do not include the return character in the line
+                lineLength--;
+            }
+            result.add( LogLineRef.of( lineSource, offset, buffer, 0, lineLength ) );
+            lineStarts.addLast( offset + bytesRead );
+        }
+    }
+
+    private void loadIndexedLinesFromBottom( long[] offsets, long end, List<LogLineRef> result, ByteSource reader )
+            throws IOException {
+        // lines are added from the bottom up, as in loadFromBottom
+        for ( int i = offsets.length - 1; i >= 0; i-- ) {
+            long offset = offsets[ i ];
+            int lineLength = readLineAt( offset, end, reader );
+            if ( lineLength > 0 && buffer[ lineLength - 1 ] == '\n' ) {
+                lineLength--;
+            }
+            if ( lineLength > 0 && buffer[ lineLength - 1 ] == '\r' ) {
+                // do not include the return character in the line
+                lineLength--;
+            }
+            result.add( LogLineRef.of( lineSource, offset, buffer, 0, lineLength ) );
+            lineStarts.addFirst( offset );
+        }
+        Collections.reverse( result );
+    }
+
+    /**
+     * Read the line starting at the given offset into the start of the buffer.
+     *
+     * @param offset start of the line
+     * @param limit  position at which to stop reading if no new line character is found before it
+     * @param reader source of bytes
+     * @return the number of bytes read, including the new line character if one was found
+     * @throws IOException if an error occurs reading the file
+     */
+    private int readLineAt( long offset, long limit, ByteSource reader ) throws IOException {
+        int bufferEnd = 0;
+        int readSize = bufferSize;
+        while ( offset + bufferEnd < limit ) {
+            int bytesToRead = ( int ) Math.min( readSize, limit - offset - bufferEnd );
+            ensureBufferCapacity( bufferEnd + bytesToRead, bufferEnd );
+            int bytesRead = reader.read( offset + bufferEnd, buffer, bufferEnd, bytesToRead );
+            if ( bytesRead <= 0 ) {
+                break;
+            }
+            for ( int i = bufferEnd; i < bufferEnd + bytesRead; i++ ) {
+                if ( buffer[ i ] == '\n' ) {
+                    return i + 1;
+                }
+            }
+            bufferEnd += bytesRead;
+            readSize = nextReadSize( readSize );
+        }
+        return bufferEnd;
+    }
+
+    /**
+     * Create a reference to a line whose bytes are in the buffer.
+     *
+     * @return the line, or null if it is rejected by the line filter
+     */
+    private LogLineRef lineRef( long offset, int start, int length ) {
+        if ( lineFilter instanceof LineFilter filter && !filter.mayMatch( buffer, start, length ) ) {
+            // rejected without decoding the line
+            return null;
+        }
+        LogLineRef line = LogLineRef.of( lineSource, offset, buffer, start, length );
+        if ( lineFilter == NO_FILTER ) {
+            return line;
         }
+        String text = line.isComplete() ? line.prefix() : new String( buffer, start, length, StandardCharsets.UTF_8 );
+        return lineFilter.test( text ) ? line : null;
     }
 
-    private long seekLineStartBefore( Long firstLineStartIndex, RandomAccessFile reader )
+    private long seekLineStartBefore( long firstLineStartIndex, ByteSource reader )
             throws IOException {
         log.trace( "Seeking line start before or at {}", firstLineStartIndex );
         if ( firstLineStartIndex == 0L ) {
@@ -438,22 +1028,74 @@ public class FileReader implements FileContentReader {
             return reader.length();
         }
 
-        long index = Math.min( firstLineStartIndex - 1, reader.length() - 1 );
-        while ( index > 0 ) {
-            reader.seek( index );
-            int c = reader.read();
-            if ( c == '\n' ) {
-                break;
-            } else {
-                index--;
+        // the first byte is never considered a line start, even if it is a new line
+        long newLineIndex = lastNewLineIndex( 1L, firstLineStartIndex, reader );
+        long result = newLineIndex < 0L ? 0L : newLineIndex + 1L;
+
+        log.trace( "Line start before {} found at {}", firstLineStartIndex, result );
+
+        return result;
+    }
+
+    /**
+     * Find the start of the last line of the file before the given position.
+     * <p>
+     * If the byte before the given position is a new line, the last line is empty and starts at the position itself.
+     */
+    private long lastLineStart( long position, ByteSource reader ) throws IOException {
+        try {
+            return lastNewLineIndex( 0L, position, reader ) + 1L;
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    /**
+     * @return the index of the last new line character between the given indexes (start inclusive, end exclusive),
+     * or -1 if there is none.
+     */
+    private long lastNewLineIndex( long start, long end, ByteSource reader ) throws IOException {
+        int readSize = bufferSize;
+        while ( end > start ) {
+            long chunkStart = Math.max( start, end - readSize );
+            ensureBufferCapacity( readSize, 0 );
+            int bytesRead = reader.read( chunkStart, buffer, 0, ( int ) ( end - chunkStart ) );
+            for ( int i = bytesRead - 1; i >= 0; i-- ) {
+                if ( buffer[ i ] == '\n' ) {
+                    return chunkStart + i;
+                }
             }
+            end = chunkStart;
+            readSize = nextReadSize( readSize );
         }
+        return -1L;
+    }
 
-        long result = index == 0L ? 0L : index + 1L;
+    private int nextReadSize( int readSize ) {
+        return Math.max( bufferSize, Math.min( readSize * 2, MAX_READ_SIZE ) );
+    }
 
-        log.trace( "Line start before {} found at {}", firstLineStartIndex, result );
+    /**
+     * Make sure the buffer can hold at least the given number of bytes.
+     *
+     * @param capacity   minimum capacity required
+     * @param bytesToKeep number of bytes from the start of the current buffer to keep if a new buffer is needed
+     * @return the buffer
+     */
+    private byte[] ensureBufferCapacity( int capacity, int bytesToKeep ) {
+        if ( buffer.length < capacity ) {
+            byte[] newBuffer = new byte[ Math.max( buffer.length * 2, capacity ) ];
+            System.arraycopy( buffer, 0, newBuffer, 0, bytesToKeep );
+            buffer = newBuffer;
+        }
+        return buffer;
+    }
 
-        return result;
+    private void releaseBuffer() {
+        if ( buffer.length > MAX_RETAINED_BUFFER_SIZE ) {
+            log.debug( "Releasing large buffer of {} bytes", buffer.length );
+            buffer = new byte[ bufferSize ];
+        }
     }
 
 }
@@ -9,8 +9,16 @@ import java.util.Optional;
 public final class FileSearcher {
     private static final Logger log = LoggerFactory.getLogger( FileSearcher.class );
 
+    /**
+     * When bisecting, the file is searched page by page once the target is known to be within this many bytes.
+     */
+    static final long MAX_PAGED_SEARCH_BYTES = 64 * 1024;
+
     private final FileContentReader fileReader;
 
+    private int probes;
+    private long bytesProbed;
+
     public FileSearcher( FileContentReader fileReader ) {
         this.fileReader = fileReader;
     }
@@ -58,6 +66,113 @@ public final class FileSearcher {
         };
     }
 
+    /**
+     * Search the file by bisecting it on byte offsets.
+     * <p>
+     * Unlike {@link #search(SearchFunction)}, which searches page by page from the current file window,
+     * this method probes single lines at byte offsets that halve the range where the target may be
+     * in each step, so only a few lines need to be read even on very large files. The file is assumed
+     * to be ordered, as log files are. Once the range is small enough, it is searched page by page.
+     * <p>
+     * Lines with an {@link Comparison#UNKNOWN} comparison are skipped by probing lines at doubling distances
+     * before and after them, up to a quarter of the range. If no line with a known comparison is found
+     * that way, the range before them is probed instead.
+     * <p>
+     * After this method returns, {@link #bisectionStats()} reports how many probes were needed.
+     *
+     * @param searchFunction function comparing the target with each line
+     * @return the search result, as for {@link #search(SearchFunction)}
+     */
+    public Optional<SearchResult> bisect( SearchFunction searchFunction ) {
+        probes = 0;
+        bytesProbed = 0L;
+
+        // lo is the start of the file, or the start of a line the target is after.
+        // hi is an offset the target is probably before, which only limits the range that is bisected.
+        long lo = 0L;
+        long hi = fileReader.contentLength();
+        boolean beforeFirstLine = false;
+
+        try ( var prober = fileReader.openProber() ) {
+            while ( hi - lo > MAX_PAGED_SEARCH_BYTES ) {
+                long mid = lo + ( hi - lo ) / 2;
+                var probe = probe( prober, mid, lo, hi, searchFunction );
+                if ( probe.isEmpty() ) {
+                    hi = mid;
+                } else if ( probe.get().comparison() == Comparison.AFTER ) {
+                    lo = probe.get().start();
+                } else {
+                    hi = probe.get().start();
+                }
+            }
+
+            if ( lo == 0L ) {
+                // search() cannot tell the target is before the first line of the file without moving the file window
+                var first = probeLine( prober, 0L, 1L, searchFunction );
+                beforeFirstLine = first.isPresent() && first.get().comparison() == Comparison.BEFORE;
+            }
+
+            bytesProbed = prober.bytesProbed();
+        }
+
+        log.debug( "Bisection narrowed search down to offsets {}..{} ({} probes, {} bytes probed)",
+                lo, hi, probes, bytesProbed );
+
+        fileReader.goToOffset( lo );
+
+        if ( beforeFirstLine ) {
+            return Optional.of( new SearchResult( 0, ResultCase.BEFORE ) );
+        }
+
+        return search( searchFunction );
+    }
+
+    /**
+     * @return the number of probes and bytes probed by the last call to {@link #bisect(SearchFunction)}.
+     */
+    public BisectionStats bisectionStats() {
+        return new BisectionStats( probes, bytesProbed );
+    }
+
+    /**
+     * Find a line with a known comparison near the middle of the range between lo and hi.
+     * <p>
+     * Lines are probed at doubling distances from the middle, alternating between the lines after and before it,
+     * so that runs of lines with unknown comparisons are skipped with only a few probes. Only lines within a quarter
+     * of the range from the middle are probed, so that each step of a bisection at least halves the range.
+     */
+    private Optional<Probe> probe( LineProber prober, long mid, long lo, long hi, SearchFunction searchFunction ) {
+        long maxDistance = ( hi - lo ) / 4;
+        long distance = 0L;
+        while ( true ) {
+            var after = probeLine( prober, mid + distance, hi, searchFunction );
+            if ( after.isPresent() ) return after;
+            if ( distance > 0L ) {
+                var before = probeLine( prober, mid - distance, hi, searchFunction );
+                if ( before.isPresent() ) return before;
+            }
+            if ( distance == maxDistance ) break;
+            distance = Math.min( maxDistance, distance == 0L ? LineProber.MAX_PROBE_BYTES : distance * 2 );
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Probe the first line starting at or after the given offset, and before the limit, if its comparison is known.
+     */
+    private Optional<Probe> probeLine( LineProber prober, long offset, long limit,
+                                       SearchFunction searchFunction ) {
+        probes++;
+        var line = prober.lineAfter( offset );
+        if ( line.isEmpty() || line.get().start() >= limit ) {
+            return Optional.empty();
+        }
+        var comparison = searchFunction.test( line.get().text() );
+        return comparison == Comparison.UNKNOWN
+                ? Optional.empty()
+                : Optional.of( new Probe( line.get().start(), comparison ) );
+    }
+
     private Optional<SearchResult> searchUp( List<String> currentPage, SearchFunction searchFunction ) {
         log.debug( "Searching up one page" );
 
@@ -167,4 +282,16 @@ public final class FileSearcher {
 
     public record SearchResult(int lineNumber, ResultCase resultCase) {
     }
+
+    /**
+     * Statistics of a bisection search.
+     *
+     * @param probes      number of lines probed
+     * @param bytesProbed number of bytes read by the probes
+     */
+    public record BisectionStats( int probes, long bytesProbed ) {
+    }
+
+    private record Probe( long start, Comparison comparison ) {
+    }
 }
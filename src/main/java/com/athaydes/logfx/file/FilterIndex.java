@@ -0,0 +1,428 @@
+package com.athaydes.logfx.file;
+
+import com.athaydes.logfx.text.LineFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Index of the lines of a file that are accepted by a line filter.
+ * <p>
+ * The file is split into chunks which are scanned in parallel on a {@link ForkJoinPool} shared by all filter indexes
+ * (as the scans block on file reads, they must not run on the common pool). A chunk only reports
+ * the lines that start within it (reading past its end to complete its last line), so chunk borders are
+ * effectively aligned on new lines. The byte offsets of the matching lines are kept, sorted, in a primitive array.
+ * <p>
+ * The file is scanned in batches of growing size, and only as far as needed to answer a lookup, so finding
+ * matches near the top of a file does not require scanning all of it. The index is extended incrementally as
+ * the file grows. If the file shrinks, or it's replaced (see {@link #clear()}), the index is rebuilt from scratch.
+ * <p>
+ * If the filter accepts too many lines, the index gives up and lookups return nothing, in which case callers must
+ * scan the file themselves.
+ * <p>
+ * This class is thread-safe: the index can be updated from a background Thread while being queried from others.
+ */
+final class FilterIndex {
+
+    private static final Logger log = LoggerFactory.getLogger( FilterIndex.class );
+
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    static final int DEFAULT_MAX_MATCHES = 8 * 1024 * 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    // batches grow up to this many chunks per worker
+    private static final int MAX_CHUNKS_PER_WORKER = 16;
+
+    private final ByteSource.Factory sourceFactory;
+    private final Predicate<String> filter;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxMatches;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private long[] offsets = new long[ 64 ];
+    private int count;
+
+    // start of the first line that has not been completely scanned (the last line of the file may still grow)
+    private long indexedBytes;
+
+    // number of bytes of the file whose lines have been scanned, or -1 if nothing has been scanned yet
+    private long scannedLength = -1L;
+
+    private boolean overflow;
+
+    // incremented when the index is cleared, so that scans started before that do not publish their results
+    private long generation;
+
+    /**
+     * The pool shared by all filter indexes, only created when a file is first filtered.
+     */
+    private static final class SharedPool {
+        static final ForkJoinPool pool = newPool();
+    }
+
+    FilterIndex( ByteSource.Factory sourceFactory, Predicate<String> filter ) {
+        this( sourceFactory, filter, SharedPool.pool, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_MATCHES );
+    }
+
+    FilterIndex( ByteSource.Factory sourceFactory, Predicate<String> filter,
+                 ForkJoinPool pool, int chunkSize, int maxMatches ) {
+        if ( chunkSize < 1 ) {
+            throw new IllegalArgumentException( "chunkSize must be positive" );
+        }
+        this.sourceFactory = sourceFactory;
+        this.filter = filter;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * Create the pool to scan files on, bounded to half the available processors so that filtering large files
+     * does not take over the whole machine, however many files are open.
+     *
+     * @return a new pool whose worker Threads are daemons
+     */
+    private static ForkJoinPool newPool() {
+        int parallelism = Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 );
+        return new ForkJoinPool( parallelism, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+            thread.setName( "filter-index-" + thread.getPoolIndex() );
+            thread.setDaemon( true );
+            return thread;
+        }, null, false );
+    }
+
+    Predicate<String> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Update the index with the lines appended to the file since the last update.
+     * <p>
+     * On large files, this may take a long time to return, so it should be called from a background Thread.
+     */
+    void update() {
+        update( () -> false );
+    }
+
+    /**
+     * Find the offsets of the first matching lines starting at or after the given position.
+     * <p>
+     * The index is updated until enough lines are found or the end of the file is reached.
+     *
+     * @param position minimum offset of the lines
+     * @param maxCount maximum number of offsets to return
+     * @return the offsets, in ascending order, or nothing if the index cannot be used
+     */
+    Optional<long[]> offsetsFrom( long position, int maxCount ) {
+        if ( !update( () -> {
+            synchronized ( this ) {
+                return count - lowerBound( position ) >= maxCount;
+            }
+        } ) ) {
+            return Optional.empty();
+        }
+        synchronized ( this ) {
+            int from = lowerBound( position );
+            return Optional.of( Arrays.copyOfRange( offsets, from, Math.min( count, from + maxCount ) ) );
+        }
+    }
+
+    /**
+     * Find the offsets of the last matching lines starting at or before the given position.
+     * <p>
+     * The index is updated until all lines up to the given position have been scanned.
+     *
+     * @param position maximum offset of the lines
+     * @param maxCount maximum number of offsets to return
+     * @return the offsets, in ascending order, or nothing if the index cannot be used
+     */
+    Optional<long[]> offsetsUntil( long position, int maxCount ) {
+        if ( !update( () -> {
+            synchronized ( this ) {
+                return indexedBytes > position;
+            }
+        } ) ) {
+            return Optional.empty();
+        }
+        synchronized ( this ) {
+            int to = lowerBound( position + 1L );
+            return Optional.of( Arrays.copyOfRange( offsets, Math.max( 0, to - maxCount ), to ) );
+        }
+    }
+
+    /**
+     * Clear the index, so that it's rebuilt from the start of the file by the next lookup.
+     * <p>
+     * This should be called when the file is replaced, as the index cannot notice that unless the file shrinks.
+     */
+    synchronized void clear() {
+        if ( overflow ) {
+            offsets = new long[ 64 ];
+            overflow = false;
+        }
+        count = 0;
+        indexedBytes = 0L;
+        scannedLength = -1L;
+        generation++;
+    }
+
+    /**
+     * @return the number of matching lines found so far.
+     */
+    synchronized int matchCount() {
+        return count;
+    }
+
+    /**
+     * Scan batches of the file until the given condition is met or the index is up-to-date.
+     *
+     * @return false if the index cannot be used, true otherwise
+     */
+    private boolean update( BooleanSupplier done ) {
+        long batchSize = ( long ) chunkSize * pool.getParallelism();
+        long maxBatchSize = batchSize * MAX_CHUNKS_PER_WORKER;
+        while ( true ) {
+            updateLock.lock();
+            try ( ByteSource source = sourceFactory.open() ) {
+                long length = source.length();
+                long from;
+                long startGeneration;
+                synchronized ( this ) {
+                    if ( overflow ) {
+                        return false;
+                    }
+                    if ( length < scannedLength ) {
+                        log.debug( "File was truncated, rebuilding filter index" );
+                        count = 0;
+                        indexedBytes = 0L;
+                        scannedLength = -1L;
+                    }
+                    if ( scannedLength == length || done.getAsBoolean() ) {
+                        return true;
+                    }
+                    // the last line is scanned again, as it may have grown
+                    count = lowerBound( indexedBytes );
+                    from = indexedBytes;
+                    startGeneration = generation;
+                }
+
+                long batchEnd = Math.min( length, from + batchSize );
+                scanBatch( from, batchEnd, length, startGeneration );
+                batchSize = Math.min( batchSize * 2, maxBatchSize );
+            } catch ( FileNotFoundException | NoSuchFileException e ) {
+                log.debug( "Unable to update filter index as the file does not exist: {}", e.getMessage() );
+                return false;
+            } catch ( IOException | UncheckedIOException e ) {
+                log.warn( "Unable to update filter index: {}", e.toString() );
+                return false;
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    private void scanBatch( long from, long batchEnd, long length, long startGeneration ) {
+        long startTime = System.currentTimeMillis();
+
+        // the last line of the file starts at most at its end (if the file ends with a new line, it is empty)
+        long end = batchEnd == length ? length + 1L : batchEnd;
+        ChunkResult result = pool.invoke( new ScanTask( from, from, end, length ) );
+
+        synchronized ( this ) {
+            if ( generation != startGeneration ) {
+                log.debug( "Filter index was cleared while scanning, discarding matches" );
+                return;
+            }
+            if ( count + result.matchCount() > maxMatches ) {
+                log.info( "Filter accepts more than {} lines, not indexing it", maxMatches );
+                overflow = true;
+                offsets = new long[ 0 ];
+                count = 0;
+                return;
+            }
+            if ( offsets.length < count + result.matchCount() ) {
+                offsets = Arrays.copyOf( offsets, Math.max( offsets.length * 2, count + result.matchCount() ) );
+            }
+            System.arraycopy( result.matches(), 0, offsets, count, result.matchCount() );
+            count += result.matchCount();
+            indexedBytes = result.resumeAt();
+            scannedLength = result.reachedLimit() ? length : indexedBytes;
+        }
+
+        if ( log.isDebugEnabled() ) {
+            log.debug( "Scanned {} bytes for the filter index in {} ms, {} matching lines so far",
+                    batchEnd - from, System.currentTimeMillis() - startTime, matchCount() );
+        }
+    }
+
+    /**
+     * Scan the lines starting within a chunk of the file.
+     *
+     * @param rangeStart start of the range being scanned, which is known to be a line start
+     * @param start      start of the chunk
+     * @param end        end of the chunk (exclusive)
+     * @param limit      number of bytes of the file to read
+     * @return the result
+     * @throws IOException if an error occurs reading the file
+     */
+    private ChunkResult scanChunk( long rangeStart, long start, long end, long limit ) throws IOException {
+        long[] matches = new long[ 16 ];
+        int matchCount = 0;
+        byte[] buffer = new byte[ SCAN_BUFFER_SIZE ];
+
+        try ( ByteSource source = sourceFactory.open() ) {
+            // until the first line start is found, no line bytes need to be kept
+            long lineStart = start == rangeStart ? start : -1L;
+            long position = lineStart < 0L ? start - 1L : start;
+
+            // file position of the first byte in the buffer
+            long bufferStart = position;
+            int lineStartIndex = 0;
+            int bufferEnd = 0;
+
+            while ( position < limit ) {
+                if ( lineStart < 0L ) {
+                    bufferStart = position;
+                    bufferEnd = 0;
+                } else if ( lineStartIndex > 0 ) {
+                    // discard the bytes of the lines already scanned
+                    System.arraycopy( buffer, lineStartIndex, buffer, 0, bufferEnd - lineStartIndex );
+                    bufferStart += lineStartIndex;
+                    bufferEnd -= lineStartIndex;
+                    lineStartIndex = 0;
+                }
+                if ( bufferEnd == buffer.length ) {
+                    buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+                }
+
+                int bytesRead = source.read( position, buffer, bufferEnd,
+                        ( int ) Math.min( buffer.length - bufferEnd, limit - position ) );
+                if ( bytesRead <= 0 ) {
+                    break;
+                }
+
+                int scanStart = bufferEnd;
+                bufferEnd += bytesRead;
+                position += bytesRead;
+
+                for ( int i = scanStart; i < bufferEnd; i++ ) {
+                    if ( buffer[ i ] == '\n' ) {
+                        if ( lineStart >= 0L && accepts( buffer, lineStartIndex, i ) ) {
+                            if ( matchCount == matches.length ) {
+                                matches = Arrays.copyOf( matches, matchCount * 2 );
+                            }
+                            matches[ matchCount++ ] = lineStart;
+                        }
+                        lineStart = bufferStart + i + 1;
+                        lineStartIndex = i + 1;
+                        if ( lineStart >= end ) {
+                            return new ChunkResult( matches, matchCount, lineStart, false );
+                        }
+                    }
+                }
+            }
+
+            // the last line of the file was reached
+            if ( lineStart >= 0L && accepts( buffer, lineStartIndex, bufferEnd ) ) {
+                if ( matchCount == matches.length ) {
+                    matches = Arrays.copyOf( matches, matchCount + 1 );
+                }
+                matches[ matchCount++ ] = lineStart;
+            }
+            return new ChunkResult( matches, matchCount, lineStart, true );
+        }
+    }
+
+    private boolean accepts( byte[] buffer, int start, int end ) {
+        if ( end > start && buffer[ end - 1 ] == '\r' ) {
+            // do not include the return character in the line
+            end--;
+        }
+        if ( filter instanceof LineFilter lineFilter && !lineFilter.mayMatch( buffer, start, end - start ) ) {
+            return false;
+        }
+        return filter.test( new String( buffer, start, end - start, StandardCharsets.UTF_8 ) );
+    }
+
+    // must be called while holding this instance's monitor
+    private int lowerBound( long offset ) {
+        int index = Arrays.binarySearch( offsets, 0, count, offset );
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FilterIndex{" +
+                "matches=" + count +
+                ", indexedBytes=" + indexedBytes +
+                ", overflow=" + overflow +
+                '}';
+    }
+
+    /**
+     * Result of scanning a chunk of the file.
+     *
+     * @param matches      offsets of the matching lines
+     * @param matchCount   number of offsets in the matches array
+     * @param resumeAt     start of the first line that was not completely scanned,
+     *                     or -1 if no line starts within the chunk
+     * @param reachedLimit whether the scan reached the end of the file
+     */
+    private record ChunkResult( long[] matches, int matchCount, long resumeAt, boolean reachedLimit ) {
+        ChunkResult followedBy( ChunkResult next ) {
+            long[] allMatches = Arrays.copyOf( matches, matchCount + next.matchCount );
+            System.arraycopy( next.matches, 0, allMatches, matchCount, next.matchCount );
+            return new ChunkResult( allMatches, allMatches.length,
+                    next.resumeAt < 0L ? resumeAt : next.resumeAt,
+                    next.reachedLimit );
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final long rangeStart;
+        private final long start;
+        private final long end;
+        private final long limit;
+
+        ScanTask( long rangeStart, long start, long end, long limit ) {
+            this.rangeStart = rangeStart;
+            this.start = start;
+            this.end = end;
+            this.limit = limit;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if ( end - start <= chunkSize ) {
+                try {
+                    return scanChunk( rangeStart, start, end, limit );
+                } catch ( IOException e ) {
+                    throw new UncheckedIOException( e );
+                }
+            }
+            long middle = start + ( end - start ) / 2L;
+            var first = new ScanTask( rangeStart, start, middle, limit );
+            first.fork();
+            ChunkResult second = new ScanTask( rangeStart, middle, end, limit ).compute();
+            return first.join().followedBy( second );
+        }
+    }
+}
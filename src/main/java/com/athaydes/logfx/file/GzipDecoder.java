@@ -0,0 +1,601 @@
+package com.athaydes.logfx.file;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * Decoder of gzip files (which may contain several gzip members).
+ * <p>
+ * Unlike {@link java.util.zip.Inflater}, this decoder reports the boundaries between the deflate blocks of a file
+ * as it decodes it, and it can resume decoding from any of those boundaries given the 32KB of decoded bytes
+ * before it (the window which later blocks may refer back to). This is what allows a {@link GzipIndex} to be built,
+ * so that a gzip file can be read from (close to) any position without decoding it from the start.
+ * <p>
+ * The integrity of a gzip member (its CRC and size) can only be checked when it is decoded from its start.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class GzipDecoder implements Closeable {
+
+    /**
+     * Maximum distance a deflate block may refer back to.
+     */
+    static final int WINDOW_SIZE = 32 * 1024;
+
+    private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+
+    // decoding stops once this many bytes are waiting to be read, so they're not overwritten in the window
+    private static final int MAX_PENDING = WINDOW_SIZE / 2;
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FLAG_HCRC = 2;
+    private static final int FLAG_EXTRA = 4;
+    private static final int FLAG_NAME = 8;
+    private static final int FLAG_COMMENT = 16;
+
+    private static final int[] LENGTH_BASE = {
+            3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+            35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258 };
+    private static final int[] LENGTH_EXTRA = {
+            0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
+            3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0 };
+    private static final int[] DISTANCE_BASE = {
+            1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
+            257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577 };
+    private static final int[] DISTANCE_EXTRA = {
+            0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6,
+            7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13 };
+    private static final int[] CODE_LENGTHS_ORDER = {
+            16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15 };
+
+    private static final Huffman FIXED_LENGTH_CODES = new Huffman( 288 );
+    private static final Huffman FIXED_DISTANCE_CODES = new Huffman( 30 );
+
+    static {
+        byte[] lengths = new byte[ 288 ];
+        Arrays.fill( lengths, 0, 144, ( byte ) 8 );
+        Arrays.fill( lengths, 144, 256, ( byte ) 9 );
+        Arrays.fill( lengths, 256, 280, ( byte ) 7 );
+        Arrays.fill( lengths, 280, 288, ( byte ) 8 );
+        try {
+            FIXED_LENGTH_CODES.build( lengths, 0, 288 );
+            Arrays.fill( lengths, 0, 30, ( byte ) 5 );
+            FIXED_DISTANCE_CODES.build( lengths, 0, 30 );
+        } catch ( ZipException e ) {
+            throw new ExceptionInInitializerError( e );
+        }
+    }
+
+    /**
+     * Listener of the boundaries between deflate blocks.
+     */
+    @FunctionalInterface
+    interface BlockListener {
+
+        /**
+         * Called before a deflate block is decoded.
+         * <p>
+         * The decoder can be resumed from this block given the offsets and its current {@link #window()}.
+         *
+         * @param decoder      the decoder
+         * @param bitOffset    offset of the block in the gzip file, in bits
+         * @param outputOffset offset in the decoded bytes of the first byte the block decodes to
+         */
+        void onBlock( GzipDecoder decoder, long bitOffset, long outputOffset ) throws IOException;
+    }
+
+    private enum State {
+        MEMBER_HEADER, BLOCK_HEADER, STORED, HUFFMAN, MEMBER_TRAILER, END
+    }
+
+    private final FileChannel channel;
+    private final BlockListener listener;
+
+    // input
+    private final byte[] input = new byte[ INPUT_BUFFER_SIZE ];
+    private int inputPosition;
+    private int inputLimit;
+    private long channelPosition;
+    private long bitBuffer;
+    private int bitCount;
+    // zero bytes added to the bit buffer after the end of the file
+    private int padding;
+
+    // output: the last WINDOW_SIZE decoded bytes, some of which may not have been read yet
+    private final byte[] window = new byte[ WINDOW_SIZE ];
+    private long decoded;
+    private long delivered;
+
+    private State state;
+    private boolean lastBlock;
+    private int storedRemaining;
+    private Huffman lengthCodes;
+    private Huffman distanceCodes;
+    private final Huffman dynamicLengthCodes = new Huffman( 288 );
+    private final Huffman dynamicDistanceCodes = new Huffman( 30 );
+    private final Huffman codeLengthCodes = new Huffman( 19 );
+    private final byte[] codeLengths = new byte[ 288 + 32 ];
+
+    // null if the current member was not decoded from its start
+    private CRC32 crc;
+    private long memberStart;
+
+    private GzipDecoder( Path path, BlockListener listener ) throws IOException {
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        this.listener = listener;
+    }
+
+    /**
+     * Open a decoder at the start of a gzip file.
+     *
+     * @param path     of the gzip file
+     * @param listener of the boundaries between deflate blocks (may be null)
+     * @return the decoder
+     * @throws IOException if the file cannot be opened
+     */
+    static GzipDecoder open( Path path, BlockListener listener ) throws IOException {
+        var decoder = new GzipDecoder( path, listener );
+        decoder.state = State.MEMBER_HEADER;
+        return decoder;
+    }
+
+    /**
+     * Open a decoder at the boundary of a deflate block, as reported to a {@link BlockListener}.
+     *
+     * @param path         of the gzip file
+     * @param bitOffset    offset of the block in the gzip file, in bits
+     * @param outputOffset offset in the decoded bytes of the first byte the block decodes to
+     * @param window       the decoded bytes just before the block (up to {@link #WINDOW_SIZE} bytes)
+     * @return the decoder
+     * @throws IOException if the file cannot be opened or read
+     */
+    static GzipDecoder resume( Path path, long bitOffset, long outputOffset, byte[] window ) throws IOException {
+        var decoder = new GzipDecoder( path, null );
+        try {
+            decoder.channelPosition = bitOffset >>> 3;
+            decoder.bits( ( int ) ( bitOffset & 7 ) );
+            for ( int i = 0; i < window.length; i++ ) {
+                decoder.window[ ( int ) ( ( outputOffset - window.length + i ) & WINDOW_MASK ) ] = window[ i ];
+            }
+            decoder.decoded = outputOffset;
+            decoder.delivered = outputOffset;
+            decoder.state = State.BLOCK_HEADER;
+        } catch ( IOException e ) {
+            decoder.close();
+            throw e;
+        }
+        return decoder;
+    }
+
+    /**
+     * @return the offset in the decoded bytes of the next byte to be read
+     */
+    long position() {
+        return delivered;
+    }
+
+    /**
+     * @return a copy of the last decoded bytes (up to {@link #WINDOW_SIZE} bytes), which later blocks may refer to
+     */
+    byte[] window() {
+        int length = ( int ) Math.min( WINDOW_SIZE, decoded );
+        byte[] result = new byte[ length ];
+        int start = ( int ) ( ( decoded - length ) & WINDOW_MASK );
+        int firstPart = Math.min( length, WINDOW_SIZE - start );
+        System.arraycopy( window, start, result, 0, firstPart );
+        System.arraycopy( window, 0, result, firstPart, length - firstPart );
+        return result;
+    }
+
+    /**
+     * Read decoded bytes.
+     *
+     * @param buffer to read into
+     * @param offset into the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 if the end of the file was reached
+     * @throws IOException if the file cannot be read or is not a valid gzip file
+     */
+    int read( byte[] buffer, int offset, int length ) throws IOException {
+        int bytesRead = 0;
+        while ( bytesRead < length ) {
+            long pending = decoded - delivered;
+            if ( pending > 0 ) {
+                int count = ( int ) Math.min( pending, length - bytesRead );
+                int start = ( int ) ( delivered & WINDOW_MASK );
+                int firstPart = Math.min( count, WINDOW_SIZE - start );
+                System.arraycopy( window, start, buffer, offset + bytesRead, firstPart );
+                System.arraycopy( window, 0, buffer, offset + bytesRead + firstPart, count - firstPart );
+                bytesRead += count;
+                delivered += count;
+            } else if ( state == State.END ) {
+                break;
+            } else {
+                decode();
+            }
+        }
+        return bytesRead == 0 && length > 0 ? -1 : bytesRead;
+    }
+
+    private void decode() throws IOException {
+        long start = decoded;
+        switch ( state ) {
+            case MEMBER_HEADER -> readMemberHeader();
+            case BLOCK_HEADER -> readBlockHeader();
+            case STORED -> decodeStored();
+            case HUFFMAN -> decodeHuffman();
+            case MEMBER_TRAILER -> readMemberTrailer();
+            case END -> {
+            }
+        }
+        if ( crc != null && decoded > start ) {
+            int from = ( int ) ( start & WINDOW_MASK );
+            int count = ( int ) ( decoded - start );
+            int firstPart = Math.min( count, WINDOW_SIZE - from );
+            crc.update( window, from, firstPart );
+            crc.update( window, 0, count - firstPart );
+        }
+    }
+
+    private void readMemberHeader() throws IOException {
+        if ( bits( 16 ) != GZIP_MAGIC ) {
+            throw new ZipException( "Not in gzip format" );
+        }
+        if ( bits( 8 ) != 8 ) {
+            throw new ZipException( "Unsupported compression method" );
+        }
+        int flags = bits( 8 );
+        // modification time, extra flags, operating system
+        skipBytes( 6 );
+        if ( ( flags & FLAG_EXTRA ) != 0 ) {
+            skipBytes( bits( 16 ) );
+        }
+        if ( ( flags & FLAG_NAME ) != 0 ) {
+            skipZeroTerminated();
+        }
+        if ( ( flags & FLAG_COMMENT ) != 0 ) {
+            skipZeroTerminated();
+        }
+        if ( ( flags & FLAG_HCRC ) != 0 ) {
+            skipBytes( 2 );
+        }
+        crc = new CRC32();
+        memberStart = decoded;
+        state = State.BLOCK_HEADER;
+    }
+
+    private void readMemberTrailer() throws IOException {
+        alignToByte();
+        long expectedCrc = bits( 16 ) | ( ( long ) bits( 16 ) << 16 );
+        long expectedSize = bits( 16 ) | ( ( long ) bits( 16 ) << 16 );
+        if ( crc != null ) {
+            if ( crc.getValue() != expectedCrc ) {
+                throw new ZipException( "Corrupt gzip file (CRC mismatch)" );
+            }
+            if ( ( ( decoded - memberStart ) & 0xFFFFFFFFL ) != expectedSize ) {
+                throw new ZipException( "Corrupt gzip file (size mismatch)" );
+            }
+        }
+
+        // another gzip member may follow, anything else at the end of the file is ignored
+        ensureBits( 16 );
+        boolean anotherMember = bitCount - padding * 8 >= 16 && ( bitBuffer & 0xFFFF ) == GZIP_MAGIC;
+        state = anotherMember ? State.MEMBER_HEADER : State.END;
+    }
+
+    private void readBlockHeader() throws IOException {
+        if ( listener != null ) {
+            listener.onBlock( this, bitOffset(), decoded );
+        }
+        int header = bits( 3 );
+        lastBlock = ( header & 1 ) != 0;
+        switch ( header >>> 1 ) {
+            case 0 -> {
+                alignToByte();
+                int length = bits( 16 );
+                int lengthComplement = bits( 16 );
+                if ( length != ( ~lengthComplement & 0xFFFF ) ) {
+                    throw new ZipException( "Corrupt gzip file (invalid stored block length)" );
+                }
+                storedRemaining = length;
+                state = State.STORED;
+            }
+            case 1 -> {
+                lengthCodes = FIXED_LENGTH_CODES;
+                distanceCodes = FIXED_DISTANCE_CODES;
+                state = State.HUFFMAN;
+            }
+            case 2 -> {
+                readDynamicCodes();
+                lengthCodes = dynamicLengthCodes;
+                distanceCodes = dynamicDistanceCodes;
+                state = State.HUFFMAN;
+            }
+            default -> throw new ZipException( "Corrupt gzip file (invalid block type)" );
+        }
+    }
+
+    private void endOfBlock() {
+        state = lastBlock ? State.MEMBER_TRAILER : State.BLOCK_HEADER;
+    }
+
+    private void readDynamicCodes() throws IOException {
+        int lengthCount = bits( 5 ) + 257;
+        int distanceCount = bits( 5 ) + 1;
+        int codeLengthCount = bits( 4 ) + 4;
+        if ( lengthCount > 286 || distanceCount > 30 ) {
+            throw new ZipException( "Corrupt gzip file (too many codes)" );
+        }
+
+        Arrays.fill( codeLengths, 0, 19, ( byte ) 0 );
+        for ( int i = 0; i < codeLengthCount; i++ ) {
+            codeLengths[ CODE_LENGTHS_ORDER[ i ] ] = ( byte ) bits( 3 );
+        }
+        codeLengthCodes.build( codeLengths, 0, 19 );
+
+        int total = lengthCount + distanceCount;
+        int i = 0;
+        while ( i < total ) {
+            int symbol = decodeSymbol( codeLengthCodes );
+            if ( symbol < 16 ) {
+                codeLengths[ i++ ] = ( byte ) symbol;
+                continue;
+            }
+            byte length = 0;
+            int repeat;
+            if ( symbol == 16 ) {
+                if ( i == 0 ) {
+                    throw new ZipException( "Corrupt gzip file (repeated length without a previous length)" );
+                }
+                length = codeLengths[ i - 1 ];
+                repeat = 3 + bits( 2 );
+            } else if ( symbol == 17 ) {
+                repeat = 3 + bits( 3 );
+            } else {
+                repeat = 11 + bits( 7 );
+            }
+            if ( i + repeat > total ) {
+                throw new ZipException( "Corrupt gzip file (too many code lengths)" );
+            }
+            Arrays.fill( codeLengths, i, i + repeat, length );
+            i += repeat;
+        }
+        if ( codeLengths[ 256 ] == 0 ) {
+            throw new ZipException( "Corrupt gzip file (no end-of-block code)" );
+        }
+
+        dynamicLengthCodes.build( codeLengths, 0, lengthCount );
+        dynamicDistanceCodes.build( codeLengths, lengthCount, distanceCount );
+    }
+
+    private void decodeStored() throws IOException {
+        while ( storedRemaining > 0 && decoded - delivered < MAX_PENDING ) {
+            window[ ( int ) ( decoded & WINDOW_MASK ) ] = ( byte ) bits( 8 );
+            decoded++;
+            storedRemaining--;
+        }
+        if ( storedRemaining == 0 ) {
+            endOfBlock();
+        }
+    }
+
+    private void decodeHuffman() throws IOException {
+        while ( decoded - delivered < MAX_PENDING ) {
+            int symbol = decodeSymbol( lengthCodes );
+            if ( symbol < 256 ) {
+                window[ ( int ) ( decoded & WINDOW_MASK ) ] = ( byte ) symbol;
+                decoded++;
+            } else if ( symbol == 256 ) {
+                endOfBlock();
+                return;
+            } else {
+                symbol -= 257;
+                if ( symbol >= LENGTH_BASE.length ) {
+                    throw new ZipException( "Corrupt gzip file (invalid length code)" );
+                }
+                int length = LENGTH_BASE[ symbol ] + bits( LENGTH_EXTRA[ symbol ] );
+                int distanceSymbol = decodeSymbol( distanceCodes );
+                if ( distanceSymbol >= DISTANCE_BASE.length ) {
+                    throw new ZipException( "Corrupt gzip file (invalid distance code)" );
+                }
+                int distance = DISTANCE_BASE[ distanceSymbol ] + bits( DISTANCE_EXTRA[ distanceSymbol ] );
+                if ( distance > decoded ) {
+                    throw new ZipException( "Corrupt gzip file (distance too far back)" );
+                }
+                copyMatch( length, distance );
+            }
+        }
+    }
+
+    private void copyMatch( int length, int distance ) {
+        int from = ( int ) ( ( decoded - distance ) & WINDOW_MASK );
+        int to = ( int ) ( decoded & WINDOW_MASK );
+        if ( distance >= length && from + length <= WINDOW_SIZE && to + length <= WINDOW_SIZE ) {
+            // the match does not overlap the bytes it produces
+            System.arraycopy( window, from, window, to, length );
+        } else {
+            for ( int i = 0; i < length; i++ ) {
+                window[ ( to + i ) & WINDOW_MASK ] = window[ ( from + i ) & WINDOW_MASK ];
+            }
+        }
+        decoded += length;
+    }
+
+    private int decodeSymbol( Huffman codes ) throws IOException {
+        ensureBits( Huffman.MAX_BITS );
+        int entry = codes.fast[ ( int ) ( bitBuffer & Huffman.FAST_MASK ) ];
+        if ( entry != 0 ) {
+            consume( entry & 0xF );
+            return entry >>> 4;
+        }
+
+        // the code is longer than the fast lookup table allows, decode it bit by bit
+        long bits = bitBuffer;
+        int code = 0;
+        int first = 0;
+        int index = 0;
+        for ( int length = 1; length <= Huffman.MAX_BITS; length++ ) {
+            code |= ( int ) ( bits & 1 );
+            bits >>>= 1;
+            int count = codes.count[ length ];
+            if ( code - count < first ) {
+                consume( length );
+                return codes.symbols[ index + ( code - first ) ];
+            }
+            index += count;
+            first += count;
+            first <<= 1;
+            code <<= 1;
+        }
+        throw new ZipException( "Corrupt gzip file (invalid Huffman code)" );
+    }
+
+    private long bitOffset() {
+        long bytesConsumed = channelPosition - ( inputLimit - inputPosition );
+        return bytesConsumed * 8 - ( bitCount - padding * 8L );
+    }
+
+    private int bits( int count ) throws IOException {
+        if ( count == 0 ) {
+            return 0;
+        }
+        ensureBits( count );
+        int value = ( int ) ( bitBuffer & ( ( 1L << count ) - 1 ) );
+        consume( count );
+        return value;
+    }
+
+    private void ensureBits( int count ) throws IOException {
+        if ( bitCount >= count ) {
+            return;
+        }
+        while ( bitCount <= 56 ) {
+            if ( inputPosition == inputLimit && !fillInput() ) {
+                // pad with zeros so codes can be looked up near the end of the file, consuming them is an error
+                padding++;
+                bitCount += 8;
+            } else {
+                bitBuffer |= ( long ) ( input[ inputPosition++ ] & 0xFF ) << bitCount;
+                bitCount += 8;
+            }
+        }
+    }
+
+    private boolean fillInput() throws IOException {
+        if ( padding > 0 ) {
+            return false;
+        }
+        int count = channel.read( ByteBuffer.wrap( input ), channelPosition );
+        if ( count <= 0 ) {
+            return false;
+        }
+        channelPosition += count;
+        inputPosition = 0;
+        inputLimit = count;
+        return true;
+    }
+
+    private void consume( int count ) throws EOFException {
+        bitBuffer >>>= count;
+        bitCount -= count;
+        if ( bitCount < padding * 8 ) {
+            throw new EOFException( "Unexpected end of gzip file" );
+        }
+    }
+
+    private void alignToByte() throws EOFException {
+        consume( bitCount & 7 );
+    }
+
+    private void skipBytes( int count ) throws IOException {
+        for ( int i = 0; i < count; i++ ) {
+            bits( 8 );
+        }
+    }
+
+    private void skipZeroTerminated() throws IOException {
+        while ( bits( 8 ) != 0 ) {
+            // skip
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Canonical Huffman code, decoded through a lookup table for short codes.
+     */
+    private static final class Huffman {
+        static final int MAX_BITS = 15;
+        static final int FAST_BITS = 10;
+        static final int FAST_MASK = ( 1 << FAST_BITS ) - 1;
+
+        // indexed by the next FAST_BITS bits of input: (symbol << 4) | code length, or 0 for longer codes
+        final int[] fast = new int[ 1 << FAST_BITS ];
+        final int[] count = new int[ MAX_BITS + 1 ];
+        final int[] symbols;
+        private final int[] offsets = new int[ MAX_BITS + 2 ];
+        private final int[] nextCode = new int[ MAX_BITS + 1 ];
+
+        Huffman( int maxSymbols ) {
+            this.symbols = new int[ maxSymbols ];
+        }
+
+        void build( byte[] lengths, int offset, int symbolCount ) throws ZipException {
+            Arrays.fill( count, 0 );
+            for ( int i = 0; i < symbolCount; i++ ) {
+                count[ lengths[ offset + i ] ]++;
+            }
+            count[ 0 ] = 0;
+
+            int left = 1;
+            for ( int length = 1; length <= MAX_BITS; length++ ) {
+                left <<= 1;
+                left -= count[ length ];
+                if ( left < 0 ) {
+                    throw new ZipException( "Corrupt gzip file (over-subscribed Huffman code)" );
+                }
+            }
+
+            offsets[ 1 ] = 0;
+            for ( int length = 1; length < MAX_BITS; length++ ) {
+                offsets[ length + 1 ] = offsets[ length ] + count[ length ];
+            }
+            for ( int symbol = 0; symbol < symbolCount; symbol++ ) {
+                int length = lengths[ offset + symbol ];
+                if ( length != 0 ) {
+                    symbols[ offsets[ length ]++ ] = symbol;
+                }
+            }
+
+            Arrays.fill( fast, 0 );
+            int code = 0;
+            for ( int length = 1; length <= MAX_BITS; length++ ) {
+                code = ( code + count[ length - 1 ] ) << 1;
+                nextCode[ length ] = code;
+            }
+            for ( int symbol = 0; symbol < symbolCount; symbol++ ) {
+                int length = lengths[ offset + symbol ];
+                if ( length == 0 ) continue;
+                int reversed = Integer.reverse( nextCode[ length ]++ ) >>> ( 32 - length );
+                if ( length <= FAST_BITS ) {
+                    for ( int i = reversed; i < fast.length; i += 1 << length ) {
+                        fast[ i ] = ( symbol << 4 ) | length;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Random access to the decompressed contents of a gzip file, without decompressing it to disk.
+ * <p>
+ * A {@link GzipIndex} of the file is built in a single pass, in the background (see {@link #startIndexing()}).
+ * Once a region of the file is indexed, any position in it can be read by decompressing from the closest checkpoint
+ * of the index, so the work needed for any read is bounded by the spacing between checkpoints. While the index is
+ * being built, only the region indexed so far can be read (see {@link #knownLength()}).
+ * <p>
+ * Bytes are decompressed on demand by a few decompression cursors, which are kept open between reads at the
+ * position where they stopped, so that reading forward from any of them only decompresses the bytes in between.
+ * The blocks decompressed while seeking are offered to the {@link BlockCache}, so that moving back up does not
+ * need to decompress them again.
+ * <p>
+ * This class is thread-safe.
+ */
+final class GzipFile {
+
+    private static final Logger log = LoggerFactory.getLogger( GzipFile.class );
+
+    /**
+     * Maximum number of decompression cursors kept open.
+     */
+    static final int MAX_CURSORS = 4;
+
+    // a single Thread indexes all gzip files in the background
+    private static final ExecutorService indexer = Executors.newSingleThreadExecutor( runnable -> {
+        var thread = new Thread( runnable, "gzip-indexer" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    /**
+     * Identity of the decompressed contents of a gzip file in the {@link BlockCache},
+     * distinct from the identity of the (compressed) file itself.
+     */
+    private record CacheId( Object fileKey ) {
+    }
+
+    private final Object fileKey;
+    private final FileTime lastModified;
+    private final GzipIndex index;
+
+    private volatile boolean closed;
+    private volatile Runnable onIndexProgress = () -> {
+    };
+
+    // guarded by this
+    private Path path;
+    private CompletableFuture<Void> indexing;
+    private boolean missingWhenIndexed;
+    private final List<Cursor> cursors = new ArrayList<>( MAX_CURSORS );
+
+    /**
+     * @param path         path of the gzip file
+     * @param fileKey      key identifying the file, which is kept if the file is renamed (e.g. by log rotation)
+     * @param lastModified last modified time of the file
+     */
+    GzipFile( Path path, Object fileKey, FileTime lastModified ) {
+        this( path, fileKey, lastModified, GzipIndex.DEFAULT_SPACING );
+    }
+
+    GzipFile( Path path, Object fileKey, FileTime lastModified, long indexSpacing ) {
+        this.path = path;
+        this.fileKey = fileKey;
+        this.lastModified = lastModified;
+        this.index = new GzipIndex( indexSpacing );
+    }
+
+    Object fileKey() {
+        return fileKey;
+    }
+
+    GzipIndex index() {
+        return index;
+    }
+
+    /**
+     * Update the path of the file after it was renamed. Cursors already open are not affected.
+     *
+     * @param path new path of the file
+     * @return true if the file could not be indexed because it was renamed before the index was started,
+     * in which case the index can be started again with {@link #startIndexing()}
+     */
+    synchronized boolean renamedTo( Path path ) {
+        this.path = path;
+        if ( missingWhenIndexed ) {
+            missingWhenIndexed = false;
+            indexing = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param onIndexProgress called from the indexing Thread whenever more of the file has been indexed
+     */
+    void setOnIndexProgress( Runnable onIndexProgress ) {
+        this.onIndexProgress = onIndexProgress;
+    }
+
+    /**
+     * Start building the index of the file in the background, unless it's already being built.
+     *
+     * @return the completion of the index
+     */
+    synchronized CompletableFuture<Void> startIndexing() {
+        if ( indexing == null ) {
+            indexing = CompletableFuture.runAsync( this::buildIndex, indexer );
+        }
+        return indexing;
+    }
+
+    private void buildIndex() {
+        Path indexedPath;
+        synchronized ( this ) {
+            indexedPath = path;
+        }
+        while ( true ) {
+            try {
+                index.build( indexedPath, () -> onIndexProgress.run(), () -> closed );
+                return;
+            } catch ( NoSuchFileException e ) {
+                synchronized ( this ) {
+                    if ( path.equals( indexedPath ) ) {
+                        // the file may have been renamed, but its new path is not known yet
+                        missingWhenIndexed = true;
+                        throw new CompletionException( e );
+                    }
+                    indexedPath = path;
+                }
+                log.debug( "Gzip file was renamed before it was indexed, indexing it at {}", indexedPath );
+            } catch ( IOException e ) {
+                throw new CompletionException( e );
+            }
+        }
+    }
+
+    /**
+     * @return true if the index could not be built, e.g. because the file is not a valid gzip file
+     */
+    synchronized boolean indexingFailed() {
+        return indexing != null && indexing.isCompletedExceptionally();
+    }
+
+    /**
+     * @return the length of the decompressed contents of the file indexed so far, which may be read
+     */
+    long knownLength() {
+        return index.indexedLength();
+    }
+
+    /**
+     * @return a source of the decompressed bytes of the file, read through the shared {@link BlockCache}.
+     * As more of the file is indexed, the cache sees its contents as appended to, so blocks read before remain cached.
+     * @throws IOException if the file cannot be read
+     */
+    ByteSource openCached() throws IOException {
+        return BlockCache.shared().open( new CacheId( fileKey ), knownLength(), lastModified, this::source );
+    }
+
+    /**
+     * @return a source of the decompressed bytes of the file. Closing the source does not close the file.
+     */
+    ByteSource source() {
+        return new ByteSource() {
+            @Override
+            public long length() {
+                return knownLength();
+            }
+
+            @Override
+            public int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                return GzipFile.this.read( position, buffer, offset, length );
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private synchronized int read( long position, byte[] buffer, int offset, int count ) throws IOException {
+        long available = knownLength();
+        if ( position >= available ) {
+            return -1;
+        }
+        count = ( int ) Math.min( count, available - position );
+
+        var cursor = takeCursorBefore( position );
+        try {
+            skipTo( cursor, position, available );
+            int bytesRead = 0;
+            while ( bytesRead < count ) {
+                int n = cursor.decoder.read( buffer, offset + bytesRead, count - bytesRead );
+                if ( n <= 0 ) {
+                    break;
+                }
+                bytesRead += n;
+            }
+            keep( cursor );
+            return bytesRead == 0 && count > 0 ? -1 : bytesRead;
+        } catch ( IOException e ) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Take the cursor closest to, but not after, the given position, opening a new one at the closest checkpoint
+     * of the index if it's closer to the position than any cursor.
+     */
+    private Cursor takeCursorBefore( long position ) throws IOException {
+        Cursor best = null;
+        for ( Cursor cursor : cursors ) {
+            long cursorPosition = cursor.decoder.position();
+            if ( cursorPosition <= position && ( best == null || cursorPosition > best.decoder.position() ) ) {
+                best = cursor;
+            }
+        }
+        var checkpoint = index.checkpointBefore( position );
+
+        if ( checkpoint != null && ( best == null || checkpoint.outputOffset() > best.decoder.position() ) ) {
+            log.trace( "Decompressing {} from checkpoint at offset {} to reach offset {}",
+                    path, checkpoint.outputOffset(), position );
+            return new Cursor( checkpoint.resume( path ) );
+        }
+        if ( best != null ) {
+            cursors.remove( best );
+            return best;
+        }
+        log.trace( "Decompressing {} from the start to reach offset {}", path, position );
+        return new Cursor( GzipDecoder.open( path, null ) );
+    }
+
+    private void keep( Cursor cursor ) {
+        // the least recently used cursor is the first one
+        cursors.add( cursor );
+        if ( cursors.size() > MAX_CURSORS ) {
+            cursors.remove( 0 ).close();
+        }
+    }
+
+    private void skipTo( Cursor cursor, long position, long length ) throws IOException {
+        var cacheId = new CacheId( fileKey );
+        var decoder = cursor.decoder;
+        byte[] scratch = null;
+        while ( decoder.position() < position ) {
+            long blockIndex = decoder.position() / BlockCache.BLOCK_SIZE;
+            boolean atBlockStart = decoder.position() == blockIndex * BlockCache.BLOCK_SIZE;
+            int blockLength = ( int ) Math.min( BlockCache.BLOCK_SIZE, length - decoder.position() );
+
+            if ( atBlockStart && position >= decoder.position() + blockLength ) {
+                // the whole block is skipped, keep it as it's likely to be needed when moving back up
+                byte[] block = new byte[ blockLength ];
+                if ( readFully( decoder, block ) < blockLength ) {
+                    throw new IOException( "Unexpected end of gzip file: " + path );
+                }
+                BlockCache.shared().offer( cacheId, length, lastModified, blockIndex, block );
+            } else {
+                if ( scratch == null ) {
+                    scratch = new byte[ BlockCache.BLOCK_SIZE ];
+                }
+                int n = decoder.read( scratch, 0, ( int ) Math.min( scratch.length, position - decoder.position() ) );
+                if ( n <= 0 ) {
+                    throw new IOException( "Unexpected end of gzip file: " + path );
+                }
+            }
+        }
+    }
+
+    private static int readFully( GzipDecoder decoder, byte[] buffer ) throws IOException {
+        int bytesRead = 0;
+        while ( bytesRead < buffer.length ) {
+            int n = decoder.read( buffer, bytesRead, buffer.length - bytesRead );
+            if ( n <= 0 ) {
+                break;
+            }
+            bytesRead += n;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Close all decompression cursors and stop building the index. The file should not be used after this.
+     */
+    synchronized void close() {
+        closed = true;
+        cursors.forEach( Cursor::close );
+        cursors.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "GzipFile{" + fileKey + '}';
+    }
+
+    private record Cursor( GzipDecoder decoder ) implements AutoCloseable {
+        @Override
+        public void close() {
+            try {
+                decoder.close();
+            } catch ( IOException e ) {
+                log.warn( "Problem closing gzip decoder: {}", e.toString() );
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Implementation of {@link FileContentReader} that reads the decompressed contents of a gzip file, without
+ * decompressing it to disk.
+ * <p>
+ * Offsets used by this reader are offsets into the decompressed contents of the file. The {@link GzipIndex}
+ * of the file is built in the background as soon as the reader is created, and until it's complete the file is
+ * presented as if it were growing as more of it is indexed, so the first lines can be shown immediately.
+ * Listeners set with {@link #setOnContentsChanged(Runnable)} are notified as that happens.
+ * <p>
+ * Copies of this reader share the same gzip file and index, which are only released when the original reader
+ * is closed.
+ */
+public class GzipFileReader extends FileReader {
+
+    private static final Logger log = LoggerFactory.getLogger( GzipFileReader.class );
+
+    private final GzipFile gzip;
+    private final boolean ownsGzip;
+
+    public GzipFileReader( File file, int fileWindowSize ) throws IOException {
+        this( file, fileWindowSize, 4096, GzipIndex.DEFAULT_SPACING );
+    }
+
+    GzipFileReader( File file, int fileWindowSize, int bufferSize, long indexSpacing ) throws IOException {
+        super( file, fileWindowSize, bufferSize );
+        var attributes = Files.readAttributes( file.toPath(), BasicFileAttributes.class );
+        var fileKey = attributes.fileKey() == null ? file.getAbsoluteFile() : attributes.fileKey();
+        this.gzip = new GzipFile( file.toPath(), fileKey, attributes.lastModifiedTime(), indexSpacing );
+        this.ownsGzip = true;
+        gzip.startIndexing().whenComplete( ( ignored, error ) -> {
+            if ( error != null ) {
+                log.warn( "Unable to index gzip file {}: {}", file, error.toString() );
+            }
+        } );
+    }
+
+    public GzipFileReader( GzipFileReader other ) {
+        super( other );
+        this.gzip = other.gzip;
+        this.ownsGzip = false;
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file starts with the gzip magic number
+     */
+    static boolean isGzipFile( File file ) {
+        try ( InputStream stream = Files.newInputStream( file.toPath() ) ) {
+            return stream.read() == 0x1f && stream.read() == 0x8b;
+        } catch ( IOException e ) {
+            return false;
+        }
+    }
+
+    GzipIndex index() {
+        return gzip.index();
+    }
+
+    @Override
+    public GzipFileReader makeCopy() {
+        return new GzipFileReader( this );
+    }
+
+    @Override
+    public void setOnContentsChanged( Runnable onContentsChanged ) {
+        gzip.setOnIndexProgress( onContentsChanged );
+    }
+
+    @Override
+    ByteSource openSource() throws IOException {
+        return gzip.openCached();
+    }
+
+    @Override
+    ByteSource openIndexSource() {
+        return gzip.source();
+    }
+
+    @Override
+    long fileLength() {
+        return gzip.knownLength();
+    }
+
+    /**
+     * While the gzip file is being indexed, it looks like it's growing, as more of it can be read.
+     */
+    @Override
+    FileHandles.Identity fileIdentity() throws IOException {
+        if ( !fileExists() ) {
+            throw new IOException( "File does not exist: " + getFile() );
+        }
+        return new FileHandles.Identity( gzip.fileKey(), gzip.knownLength() );
+    }
+
+    @Override
+    public void close() {
+        if ( ownsGzip ) {
+            gzip.close();
+        }
+        super.close();
+    }
+}
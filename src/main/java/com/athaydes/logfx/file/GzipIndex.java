@@ -0,0 +1,192 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Random-access index of a gzip file.
+ * <p>
+ * The index is built in a single pass over the file, recording a checkpoint at the first deflate block boundary
+ * after every {@code spacing} decoded bytes. Each checkpoint holds the position of the block in the compressed file
+ * and the window of decoded bytes just before it, so a {@link GzipDecoder} can resume from it. Reading any position
+ * of the file then only requires decoding at most about {@code spacing} bytes.
+ * <p>
+ * Windows are kept compressed, so each checkpoint takes only a few KB of memory for typical log files.
+ * <p>
+ * The index may be used while it's being built: the checkpoints found so far are available immediately.
+ * <p>
+ * This class is thread-safe.
+ */
+final class GzipIndex {
+
+    private static final Logger log = LoggerFactory.getLogger( GzipIndex.class );
+
+    /**
+     * Default number of decoded bytes between checkpoints.
+     */
+    static final long DEFAULT_SPACING = 4L * 1024L * 1024L;
+
+    /**
+     * A position from which a gzip file can be decoded.
+     *
+     * @param bitOffset        offset of a deflate block in the compressed file, in bits
+     * @param outputOffset     offset of the first byte the block decodes to
+     * @param windowLength     length of the window
+     * @param compressedWindow the decoded bytes just before the block, compressed
+     */
+    record Checkpoint( long bitOffset, long outputOffset, int windowLength, byte[] compressedWindow ) {
+
+        /**
+         * @return the decoded bytes just before the block
+         */
+        byte[] window() throws ZipException {
+            var inflater = new Inflater( true );
+            try {
+                inflater.setInput( compressedWindow );
+                byte[] window = new byte[ windowLength ];
+                int length = 0;
+                while ( length < windowLength && !inflater.finished() ) {
+                    int count = inflater.inflate( window, length, windowLength - length );
+                    if ( count == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) ) {
+                        break;
+                    }
+                    length += count;
+                }
+                if ( length != windowLength ) {
+                    throw new ZipException( "Corrupt gzip index window" );
+                }
+                return window;
+            } catch ( DataFormatException e ) {
+                throw new ZipException( "Corrupt gzip index window: " + e.getMessage() );
+            } finally {
+                inflater.end();
+            }
+        }
+
+        GzipDecoder resume( Path path ) throws IOException {
+            return GzipDecoder.resume( path, bitOffset, outputOffset, window() );
+        }
+    }
+
+    private final long spacing;
+
+    // guarded by this
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private long indexedLength;
+    private boolean complete;
+
+    GzipIndex( long spacing ) {
+        if ( spacing < 1L ) {
+            throw new IllegalArgumentException( "Spacing must be positive" );
+        }
+        this.spacing = spacing;
+    }
+
+    /**
+     * @param position offset in the decoded bytes
+     * @return the last checkpoint at or before the position, or null if there is none
+     */
+    synchronized Checkpoint checkpointBefore( long position ) {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        Checkpoint result = null;
+        while ( low <= high ) {
+            int middle = ( low + high ) >>> 1;
+            var checkpoint = checkpoints.get( middle );
+            if ( checkpoint.outputOffset() <= position ) {
+                result = checkpoint;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    synchronized int checkpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * @return the number of decoded bytes known to exist so far, which is the full decoded length of the file
+     * once the index is complete
+     */
+    synchronized long indexedLength() {
+        return indexedLength;
+    }
+
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Build the index by decoding the whole file in the calling Thread.
+     *
+     * @param path       of the gzip file
+     * @param onProgress called whenever more of the file has been indexed
+     * @param cancelled  checked regularly, so that building the index stops if it returns true
+     * @throws IOException           if the file cannot be read or is not a valid gzip file
+     * @throws CancellationException if building the index was cancelled
+     */
+    void build( Path path, Runnable onProgress, BooleanSupplier cancelled ) throws IOException {
+        long startTime = System.currentTimeMillis();
+        var deflater = new Deflater( Deflater.BEST_SPEED, true );
+        byte[] compressionBuffer = new byte[ GzipDecoder.WINDOW_SIZE + 1024 ];
+
+        GzipDecoder.BlockListener listener = ( decoder, bitOffset, outputOffset ) -> {
+            if ( cancelled.getAsBoolean() ) {
+                throw new CancellationException( "Indexing of gzip file was cancelled: " + path );
+            }
+            if ( outputOffset - lastCheckpointOffset() < spacing ) {
+                return;
+            }
+            byte[] window = decoder.window();
+            deflater.reset();
+            deflater.setInput( window );
+            deflater.finish();
+            int length = deflater.deflate( compressionBuffer );
+            if ( !deflater.finished() ) {
+                throw new IllegalStateException( "Window did not fit compression buffer" );
+            }
+            var compressedWindow = Arrays.copyOf( compressionBuffer, length );
+            synchronized ( this ) {
+                checkpoints.add( new Checkpoint( bitOffset, outputOffset, window.length, compressedWindow ) );
+                indexedLength = outputOffset;
+            }
+            onProgress.run();
+        };
+
+        try ( var decoder = GzipDecoder.open( path, listener ) ) {
+            byte[] scratch = new byte[ 64 * 1024 ];
+            while ( decoder.read( scratch, 0, scratch.length ) > 0 ) {
+                // only indexing
+            }
+            synchronized ( this ) {
+                indexedLength = decoder.position();
+                complete = true;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        log.debug( "Indexed gzip file {} in {} ms: {} decoded bytes, {} checkpoints", path,
+                System.currentTimeMillis() - startTime, indexedLength(), checkpointCount() );
+        onProgress.run();
+    }
+
+    private synchronized long lastCheckpointOffset() {
+        return checkpoints.isEmpty() ? 0L : checkpoints.get( checkpoints.size() - 1 ).outputOffset();
+    }
+}
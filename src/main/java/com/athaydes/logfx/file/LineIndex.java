@@ -0,0 +1,291 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sparse index of the line starts of a file.
+ * <p>
+ * The index records the byte offset of the start of every {@code linesPerCheckpoint}-th line of the file,
+ * so that the offset of any line can be found by seeking to the nearest checkpoint and scanning at most
+ * {@code linesPerCheckpoint} lines. Offsets are kept in a primitive array, so even files with hundreds of
+ * millions of lines only require a few MB of memory to be indexed.
+ * <p>
+ * The file is scanned on demand by calling {@link #update()} (or {@link #updateUntilLine(long)}), which only
+ * reads the bytes appended to the file since the last update. If the file shrinks, or it's replaced
+ * (see {@link #clear()}), the index is rebuilt from scratch.
+ * <p>
+ * Lines are numbered from 1, as in text editors.
+ * <p>
+ * This class is thread-safe: the index can be updated from a background Thread while being queried from others.
+ */
+public final class LineIndex {
+
+    private static final Logger log = LoggerFactory.getLogger( LineIndex.class );
+
+    static final int DEFAULT_LINES_PER_CHECKPOINT = 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 256 * 1024;
+
+    private final ByteSource.Factory sourceFactory;
+    private final int linesPerCheckpoint;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    // checkpoints[ k ] is the offset of line number (k * linesPerCheckpoint + 1)
+    private long[] checkpoints = new long[ 64 ];
+    private int checkpointCount;
+    private long indexedBytes;
+    private long newLineCount;
+
+    // incremented when the index is cleared, so that updates started before that do not publish their results
+    private long generation;
+
+    LineIndex( ByteSource.Factory sourceFactory, int linesPerCheckpoint ) {
+        if ( linesPerCheckpoint < 1 ) {
+            throw new IllegalArgumentException( "linesPerCheckpoint must be positive" );
+        }
+        this.sourceFactory = sourceFactory;
+        this.linesPerCheckpoint = linesPerCheckpoint;
+    }
+
+    /**
+     * Update the index with the bytes appended to the file since the last update.
+     * <p>
+     * On large files, this may take a long time to return, so it should be called from a background Thread.
+     */
+    public void update() {
+        update( Long.MAX_VALUE );
+    }
+
+    /**
+     * Update the index with the bytes appended to the file since the last update, until the given line is found
+     * or the end of the file is reached.
+     * <p>
+     * On large files, this may take a long time to return, so it should be called from a background Thread.
+     *
+     * @param lineNumber number of the line (starting from 1) to index the file until
+     */
+    public void updateUntilLine( long lineNumber ) {
+        if ( lineNumber > lineCount() ) {
+            update( lineNumber );
+        }
+    }
+
+    /**
+     * Clear the index, so that it's rebuilt from the start of the file by the next update.
+     * <p>
+     * This should be called when the file is replaced, as the index cannot notice that unless the file shrinks.
+     */
+    synchronized void clear() {
+        checkpointCount = 0;
+        indexedBytes = 0L;
+        newLineCount = 0L;
+        generation++;
+    }
+
+    /**
+     * @return the number of lines found in the file so far.
+     * A file that ends with a new line character has an empty last line.
+     */
+    public synchronized long lineCount() {
+        return checkpointCount == 0 ? 0L : newLineCount + 1L;
+    }
+
+    /**
+     * @return the number of bytes of the file that have been indexed.
+     */
+    public synchronized long indexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * Find the byte offset at which the given line starts.
+     * <p>
+     * The index is not updated by this method, so that finding a line never requires scanning more than
+     * the lines after the closest checkpoint. Use {@link #updateUntilLine(long)} first to find lines that
+     * have not been indexed yet.
+     *
+     * @param lineNumber number of the line (starting from 1)
+     * @return the offset of the line, or empty if the line has not been indexed
+     */
+    public OptionalLong lineStart( long lineNumber ) {
+        if ( lineNumber < 1L ) {
+            return OptionalLong.empty();
+        }
+
+        long checkpointLine;
+        long checkpointOffset;
+        synchronized ( this ) {
+            if ( lineNumber > lineCount() ) {
+                return OptionalLong.empty();
+            }
+            int checkpoint = ( int ) ( ( lineNumber - 1L ) / linesPerCheckpoint );
+            checkpointLine = ( long ) checkpoint * linesPerCheckpoint + 1L;
+            checkpointOffset = checkpoints[ checkpoint ];
+        }
+
+        if ( checkpointLine == lineNumber ) {
+            return OptionalLong.of( checkpointOffset );
+        }
+
+        try ( ByteSource source = sourceFactory.open() ) {
+            long linesToSkip = lineNumber - checkpointLine;
+            byte[] buffer = new byte[ 8192 ];
+            long position = checkpointOffset;
+            while ( true ) {
+                int bytesRead = source.read( position, buffer, 0, buffer.length );
+                if ( bytesRead <= 0 ) {
+                    return OptionalLong.empty();
+                }
+                for ( int i = 0; i < bytesRead; i++ ) {
+                    if ( buffer[ i ] == '\n' && --linesToSkip == 0L ) {
+                        return OptionalLong.of( position + i + 1 );
+                    }
+                }
+                position += bytesRead;
+            }
+        } catch ( IOException e ) {
+            log.warn( "Error reading file to find start of line {}: {}", lineNumber, e.toString() );
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Find the number of the line containing the given byte offset.
+     *
+     * @param offset byte offset within the file
+     * @return the line number (starting from 1), or empty if the offset has not been indexed yet
+     */
+    public OptionalLong lineNumberAt( long offset ) {
+        long checkpointLine;
+        long checkpointOffset;
+        synchronized ( this ) {
+            if ( offset < 0L || offset > indexedBytes || checkpointCount == 0 ) {
+                return OptionalLong.empty();
+            }
+            int index = Arrays.binarySearch( checkpoints, 0, checkpointCount, offset );
+            int checkpoint = index >= 0 ? index : -index - 2;
+            checkpointLine = ( long ) checkpoint * linesPerCheckpoint + 1L;
+            checkpointOffset = checkpoints[ checkpoint ];
+        }
+
+        if ( checkpointOffset == offset ) {
+            return OptionalLong.of( checkpointLine );
+        }
+
+        try ( ByteSource source = sourceFactory.open() ) {
+            long lineNumber = checkpointLine;
+            byte[] buffer = new byte[ 8192 ];
+            long position = checkpointOffset;
+            while ( position < offset ) {
+                int bytesRead = source.read( position, buffer, 0, ( int ) Math.min( buffer.length, offset - position ) );
+                if ( bytesRead <= 0 ) break;
+                for ( int i = 0; i < bytesRead; i++ ) {
+                    if ( buffer[ i ] == '\n' ) lineNumber++;
+                }
+                position += bytesRead;
+            }
+            return OptionalLong.of( lineNumber );
+        } catch ( IOException e ) {
+            log.warn( "Error reading file to find line number at offset {}: {}", offset, e.toString() );
+            return OptionalLong.empty();
+        }
+    }
+
+    private void update( long untilLineNumber ) {
+        updateLock.lock();
+        try ( ByteSource source = sourceFactory.open() ) {
+            long length = source.length();
+            long position;
+            long newLines;
+            long startGeneration;
+            synchronized ( this ) {
+                if ( length < indexedBytes ) {
+                    log.debug( "File was truncated, rebuilding line index" );
+                    checkpointCount = 0;
+                    indexedBytes = 0L;
+                    newLineCount = 0L;
+                }
+                if ( checkpointCount == 0 && length > 0L ) {
+                    addCheckpoint( 0L );
+                }
+                position = indexedBytes;
+                newLines = newLineCount;
+                startGeneration = generation;
+            }
+
+            if ( position >= length ) {
+                return;
+            }
+
+            long startTime = System.currentTimeMillis();
+            long startPosition = position;
+            byte[] buffer = new byte[ SCAN_BUFFER_SIZE ];
+            long[] newCheckpoints = new long[ 16 ];
+
+            while ( position < length && newLines + 1L < untilLineNumber ) {
+                int bytesRead = source.read( position, buffer, 0, ( int ) Math.min( buffer.length, length - position ) );
+                if ( bytesRead <= 0 ) break;
+                int newCheckpointCount = 0;
+                for ( int i = 0; i < bytesRead; i++ ) {
+                    if ( buffer[ i ] == '\n' ) {
+                        newLines++;
+                        if ( newLines % linesPerCheckpoint == 0L ) {
+                            if ( newCheckpointCount == newCheckpoints.length ) {
+                                newCheckpoints = Arrays.copyOf( newCheckpoints, newCheckpointCount * 2 );
+                            }
+                            newCheckpoints[ newCheckpointCount++ ] = position + i + 1;
+                        }
+                    }
+                }
+                position += bytesRead;
+                synchronized ( this ) {
+                    if ( generation != startGeneration ) {
+                        log.debug( "Line index was cleared while indexing, discarding lines" );
+                        return;
+                    }
+                    for ( int i = 0; i < newCheckpointCount; i++ ) {
+                        addCheckpoint( newCheckpoints[ i ] );
+                    }
+                    indexedBytes = position;
+                    newLineCount = newLines;
+                }
+            }
+
+            if ( log.isDebugEnabled() ) {
+                log.debug( "Indexed {} bytes in {} ms, line count is now {}",
+                        position - startPosition, System.currentTimeMillis() - startTime, newLines + 1L );
+            }
+        } catch ( FileNotFoundException | NoSuchFileException e ) {
+            log.debug( "Unable to update line index as the file does not exist: {}", e.getMessage() );
+        } catch ( IOException e ) {
+            log.warn( "Unable to update line index: {}", e.toString() );
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    // must be called while holding this instance's monitor
+    private void addCheckpoint( long offset ) {
+        if ( checkpointCount == checkpoints.length ) {
+            checkpoints = Arrays.copyOf( checkpoints, checkpointCount * 2 );
+        }
+        checkpoints[ checkpointCount++ ] = offset;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LineIndex{" +
+                "checkpoints=" + checkpointCount +
+                ", indexedBytes=" + indexedBytes +
+                ", lineCount=" + lineCount() +
+                '}';
+    }
+}
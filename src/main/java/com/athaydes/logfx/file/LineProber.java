@@ -0,0 +1,115 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Reads single lines at arbitrary positions of a file, without moving the file window of its reader.
+ * <p>
+ * This allows the file to be probed at many positions, e.g. to bisect it. The file is opened on the first probe
+ * and kept open, together with the buffers used to read it, until the prober is closed.
+ */
+public final class LineProber implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger( LineProber.class );
+
+    /**
+     * The maximum number of bytes read by a single probe. Lines that do not start and end within this many bytes
+     * of the probed offset are not found by the probe.
+     */
+    public static final int MAX_PROBE_BYTES = 8 * 1024;
+
+    private final ByteSource.Factory sourceFactory;
+    private final byte[] chunk;
+    private byte[] prefix = new byte[ 256 ];
+
+    private ByteSource source;
+    private long bytesProbed;
+
+    LineProber( ByteSource.Factory sourceFactory, int bufferSize ) {
+        this.sourceFactory = sourceFactory;
+        this.chunk = new byte[ Math.min( bufferSize, MAX_PROBE_BYTES ) ];
+    }
+
+    /**
+     * Read the first line that starts at or after the given offset.
+     *
+     * @param offset offset from which to look for the start of a line
+     * @return the line, or empty if no line starts at or after the offset, or the line is too far from the offset
+     */
+    public Optional<ProbedLine> lineAfter( long offset ) {
+        try {
+            if ( source == null ) {
+                source = sourceFactory.open();
+            }
+            long length = source.length();
+            int prefixLength = 0;
+
+            // unless probing the start of the file, the line starts after the first new line at or after (offset - 1)
+            long lineStart = offset <= 0L ? 0L : -1L;
+            long scanStart = Math.max( 0L, offset - 1L );
+            long limit = Math.min( length, scanStart + MAX_PROBE_BYTES );
+            long position = scanStart;
+
+            while ( position < limit ) {
+                int bytesRead = source.read( position, chunk, 0, ( int ) Math.min( chunk.length, limit - position ) );
+                if ( bytesRead <= 0 ) break;
+                for ( int i = 0; i < bytesRead; i++ ) {
+                    byte b = chunk[ i ];
+                    if ( lineStart < 0L ) {
+                        if ( b == '\n' ) lineStart = position + i + 1;
+                    } else if ( b == '\n' ) {
+                        bytesProbed += position + i + 1 - scanStart;
+                        return Optional.of( probedLine( lineStart, position + i + 1, prefixLength ) );
+                    } else if ( prefixLength < LogLineRef.MAX_EAGER_BYTES ) {
+                        if ( prefixLength == prefix.length ) {
+                            prefix = Arrays.copyOf( prefix, Math.min( prefix.length * 2, LogLineRef.MAX_EAGER_BYTES ) );
+                        }
+                        prefix[ prefixLength++ ] = b;
+                    }
+                }
+                position += bytesRead;
+            }
+            bytesProbed += position - scanStart;
+
+            // the last line of the file may not end with a new line
+            if ( position == length && lineStart >= 0L && lineStart < length ) {
+                return Optional.of( probedLine( lineStart, length, prefixLength ) );
+            }
+        } catch ( IOException e ) {
+            log.warn( "Error reading line after offset {}: {}", offset, e.toString() );
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the number of bytes read by all probes so far.
+     */
+    public long bytesProbed() {
+        return bytesProbed;
+    }
+
+    @Override
+    public void close() {
+        if ( source != null ) {
+            try {
+                source.close();
+            } catch ( IOException e ) {
+                log.warn( "Error closing probed file: {}", e.toString() );
+            }
+            source = null;
+        }
+    }
+
+    private ProbedLine probedLine( long start, long end, int prefixLength ) {
+        if ( prefixLength > 0 && prefix[ prefixLength - 1 ] == '\r' ) {
+            prefixLength--;
+        }
+        return new ProbedLine( start, end, new String( prefix, 0, prefixLength, StandardCharsets.UTF_8 ) );
+    }
+}
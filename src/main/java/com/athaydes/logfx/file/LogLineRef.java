@@ -0,0 +1,151 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Reference to a line of a file.
+ * <p>
+ * Only the beginning of very long lines is decoded eagerly (enough to display it). The full text of such lines
+ * is decoded from the file only when {@link #text()} is called, and is not retained.
+ */
+public final class LogLineRef {
+
+    private static final Logger log = LoggerFactory.getLogger( LogLineRef.class );
+
+    /**
+     * Maximum number of characters of a line that are displayed.
+     */
+    public static final int MAX_PREFIX_LENGTH = 5000;
+
+    // lines with up to this many bytes are always fully decoded...
+    // any longer line decodes to more than MAX_PREFIX_LENGTH characters, as UTF-8 uses at most 3 bytes per char
+    static final int MAX_EAGER_BYTES = 3 * MAX_PREFIX_LENGTH;
+
+    public static final LogLineRef EMPTY = of( "" );
+
+    private final ByteSource.Factory source;
+    private final long offset;
+    private final int byteLength;
+    private final String prefix;
+
+    private LogLineRef( ByteSource.Factory source, long offset, int byteLength, String prefix ) {
+        this.source = source;
+        this.offset = offset;
+        this.byteLength = byteLength;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Create a reference to a line that is not backed by a file.
+     *
+     * @param text of the line
+     * @return line reference
+     */
+    public static LogLineRef of( String text ) {
+        return new LogLineRef( null, -1L, -1, text );
+    }
+
+    /**
+     * Create a reference to a line read from a file.
+     *
+     * @param source     source of the file bytes, used to decode the full line if necessary
+     * @param offset     offset of the line in the file
+     * @param buffer     buffer containing the line bytes
+     * @param start      start of the line in the buffer
+     * @param byteLength length of the line in bytes, not including new line characters
+     * @return line reference
+     */
+    static LogLineRef of( ByteSource.Factory source, long offset, byte[] buffer, int start, int byteLength ) {
+        if ( byteLength <= MAX_EAGER_BYTES ) {
+            return of( new String( buffer, start, byteLength, StandardCharsets.UTF_8 ) );
+        }
+        String prefix = new String( buffer, start, MAX_EAGER_BYTES, StandardCharsets.UTF_8 );
+        int prefixLength = MAX_PREFIX_LENGTH;
+        if ( Character.isHighSurrogate( prefix.charAt( prefixLength - 1 ) ) ) {
+            prefixLength--;
+        }
+        return new LogLineRef( source, offset, byteLength, prefix.substring( 0, prefixLength ) );
+    }
+
+    /**
+     * @return true if {@link #prefix()} is the full text of the line.
+     */
+    public boolean isComplete() {
+        return source == null;
+    }
+
+    /**
+     * @return the beginning of the line (or the full line if it is complete).
+     */
+    public String prefix() {
+        return prefix;
+    }
+
+    /**
+     * @return the offset of the line in the file, or -1 if this line is not backed by a file.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return the length of the line in bytes, or -1 if this line is not backed by a file.
+     */
+    public int byteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Get the full text of the line.
+     * <p>
+     * If the line is not complete, it is read from the file again. If that fails
+     * (e.g. because the file was truncated), only the line's prefix is returned.
+     *
+     * @return the full text of the line
+     */
+    public String text() {
+        if ( isComplete() ) {
+            return prefix;
+        }
+        try ( ByteSource reader = source.open() ) {
+            byte[] bytes = new byte[ byteLength ];
+            if ( reader.read( offset, bytes, 0, byteLength ) == byteLength ) {
+                return new String( bytes, StandardCharsets.UTF_8 );
+            }
+            log.warn( "Unable to read line at offset {}, file was truncated", offset );
+        } catch ( IOException e ) {
+            log.warn( "Unable to read line at offset {}: {}", offset, e.toString() );
+        }
+        return prefix;
+    }
+
+    /**
+     * Two line references are equal if they refer to the same bytes of the same source and have the same prefix,
+     * hence have the same text.
+     */
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        LogLineRef that = ( LogLineRef ) o;
+        return offset == that.offset &&
+                byteLength == that.byteLength &&
+                source == that.source &&
+                prefix.equals( that.prefix );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( offset, byteLength, prefix );
+    }
+
+    @Override
+    public String toString() {
+        return isComplete() ? prefix : prefix + "...";
+    }
+}
@@ -0,0 +1,69 @@
+package com.athaydes.logfx.file;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Implementation of {@link FileContentReader} that reads the file through a memory mapping.
+ * <p>
+ * Unlike {@link FileReader}, this reader does not open the file on every load operation. The file is
+ * mapped in large windows which are kept between loads, so scrolling through very large files does not
+ * require a system call for every chunk that is read.
+ * <p>
+ * The file is mapped from the channel of the reader's file handle, so the file is only open once, and the reader
+ * notices that the file was replaced in the same way as {@link FileReader} does.
+ * <p>
+ * Copies of this reader share the same mapping, which is only released when the original reader is closed.
+ */
+public class MappedFileReader extends FileReader {
+
+    /**
+     * Default size of each memory-mapped window of the file.
+     */
+    static final long DEFAULT_MAPPING_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private final MappedFileSource source;
+    private final boolean ownsSource;
+
+    public MappedFileReader( File file, int fileWindowSize ) {
+        this( file, fileWindowSize, 4096, DEFAULT_MAPPING_WINDOW_SIZE );
+    }
+
+    MappedFileReader( File file, int fileWindowSize, int bufferSize, long mappingWindowSize ) {
+        super( file, fileWindowSize, bufferSize );
+        this.source = new MappedFileSource( fileHandle(), mappingWindowSize );
+        this.ownsSource = true;
+    }
+
+    public MappedFileReader( MappedFileReader other ) {
+        super( other );
+        this.source = other.source;
+        this.ownsSource = false;
+    }
+
+    @Override
+    public MappedFileReader makeCopy() {
+        return new MappedFileReader( this );
+    }
+
+    @Override
+    ByteSource openSource() throws IOException {
+        return source.open();
+    }
+
+    /**
+     * Reading ahead is not necessary, as the operating system already reads ahead the pages of the mapping,
+     * and doing it from another Thread would compete with this reader for the current mapping window.
+     */
+    @Override
+    void readAhead( ReadAhead.Direction direction, long bytesMoved ) {
+    }
+
+    @Override
+    public void close() {
+        if ( ownsSource ) {
+            source.release();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,168 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link ByteSource} that maps a file into memory, one window at a time.
+ * <p>
+ * The file is mapped from the channel of a {@link FileHandles.FileHandle}, which is shared with the other readers
+ * of the file. The current mapping is kept between reads, so reading bytes that fall within the current window
+ * does not require any system calls. Reads outside the window cause a new window to be mapped around the requested
+ * position, except for reads larger than a window (e.g. very long lines), which are read directly from the channel.
+ * <p>
+ * If the file is truncated, the mapping is discarded. If it is replaced (e.g. by log rotation), the handle opens
+ * the new file, which is then mapped instead.
+ * <p>
+ * This class is thread-safe, so several readers of the same file may share an instance.
+ */
+final class MappedFileSource implements ByteSource {
+
+    private static final Logger log = LoggerFactory.getLogger( MappedFileSource.class );
+
+    private final FileHandles.FileHandle handle;
+    private final long windowSize;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+
+    MappedFileSource( FileHandles.FileHandle handle, long windowSize ) {
+        if ( windowSize < 1L || windowSize > Integer.MAX_VALUE ) {
+            throw new IllegalArgumentException( "Window size must be a positive int" );
+        }
+        this.handle = handle;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Make sure the current file is mapped, discarding the mapping if the file was replaced since the last time
+     * it was checked.
+     *
+     * @return this source
+     * @throws IOException if the file cannot be opened
+     */
+    synchronized MappedFileSource open() throws IOException {
+        var current = handle.channel();
+        if ( current != channel ) {
+            log.debug( "Memory-mapping file {}", handle );
+            unmap();
+            channel = current;
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized long length() throws IOException {
+        try {
+            return ensureChannel().size();
+        } catch ( ClosedChannelException e ) {
+            // the handle closes its channel when the file is replaced
+            return open().channel.size();
+        }
+    }
+
+    @Override
+    public synchronized int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+        try {
+            return readMapped( position, buffer, offset, length );
+        } catch ( ClosedChannelException e ) {
+            // the handle closes its channel when the file is replaced
+            open();
+            return readMapped( position, buffer, offset, length );
+        }
+    }
+
+    private int readMapped( long position, byte[] buffer, int offset, int length ) throws IOException {
+        var fileLength = ensureChannel().size();
+        if ( position >= fileLength ) {
+            return -1;
+        }
+        if ( windowEnd > fileLength ) {
+            log.debug( "File was truncated, discarding current mapping: {}", handle );
+            unmap();
+        }
+        int bytesRead = 0;
+        while ( bytesRead < length && position < fileLength ) {
+            if ( position < windowStart || position >= windowEnd ) {
+                if ( length - bytesRead >= windowSize ) {
+                    return bytesRead + readFromChannel( position, buffer, offset + bytesRead, length - bytesRead );
+                }
+                map( position, fileLength );
+            }
+            int count = ( int ) Math.min( length - bytesRead, windowEnd - position );
+            try {
+                window.get( ( int ) ( position - windowStart ), buffer, offset + bytesRead, count );
+            } catch ( InternalError e ) {
+                // the JVM reports errors accessing pages that no longer exist (file truncated) this way
+                release();
+                throw new IOException( "File changed while being read: " + handle, e );
+            }
+            bytesRead += count;
+            position += count;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Sources are closed by the readers after each load, but the mapping is intentionally kept alive.
+     * Use {@link #release()} to actually release the underlying resources.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Release the memory mapping. The channel belongs to the file handle, which closes it when it's released.
+     * <p>
+     * This source can still be used after being released, in which case the file is mapped again.
+     */
+    synchronized void release() {
+        unmap();
+        channel = null;
+    }
+
+    private FileChannel ensureChannel() throws IOException {
+        if ( channel == null || !channel.isOpen() ) {
+            open();
+        }
+        return channel;
+    }
+
+    private int readFromChannel( long position, byte[] buffer, int offset, int length ) throws IOException {
+        var byteBuffer = ByteBuffer.wrap( buffer, offset, length );
+        while ( byteBuffer.hasRemaining() ) {
+            int count = channel.read( byteBuffer, position + byteBuffer.position() - offset );
+            if ( count < 0 ) break;
+        }
+        return byteBuffer.position() - offset;
+    }
+
+    private void unmap() {
+        window = null;
+        windowStart = 0L;
+        windowEnd = 0L;
+    }
+
+    private void map( long position, long fileLength ) throws IOException {
+        // center the window around the position as readers move both up and down the file
+        long start = Math.max( 0L, position - windowSize / 2 );
+        long size = Math.min( windowSize, fileLength - start );
+        if ( position >= start + size ) {
+            start = Math.max( 0L, fileLength - windowSize );
+            size = fileLength - start;
+        }
+        log.trace( "Mapping window {}..{} of file {}", start, start + size, handle );
+        window = channel.map( FileChannel.MapMode.READ_ONLY, start, size );
+        windowStart = start;
+        windowEnd = start + size;
+    }
+
+}
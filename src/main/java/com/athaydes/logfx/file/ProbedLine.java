@@ -0,0 +1,13 @@
+package com.athaydes.logfx.file;
+
+/**
+ * A line read at an arbitrary position of a file by {@link LineProber#lineAfter(long)}.
+ * <p>
+ * Only the beginning of very long lines is included in the text.
+ *
+ * @param start offset of the first byte of the line
+ * @param end   offset of the first byte after the line, including its line terminator
+ * @param text  text of the line, without its line terminator
+ */
+public record ProbedLine( long start, long end, String text ) {
+}
@@ -0,0 +1,169 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Predictive read-ahead of the regions of a file that a reader is likely to read next.
+ * <p>
+ * Every time the file window moves, the direction and speed of the scroll are used to estimate how many bytes
+ * the next moves will need, and those bytes are read in the background through the reader's {@link ByteSource},
+ * so that they are already in the {@link BlockCache} when the reader needs them.
+ * <p>
+ * While the file window keeps moving in the same direction, each move only reads the bytes not yet read ahead.
+ * Any read-ahead still in progress is abandoned when a new scroll starts (the direction changes, the file window
+ * jumps elsewhere, or it stops moving for a while).
+ */
+final class ReadAhead {
+
+    private static final Logger log = LoggerFactory.getLogger( ReadAhead.class );
+
+    enum Direction {
+        UP, DOWN
+    }
+
+    /**
+     * Maximum number of file windows read ahead.
+     */
+    static final int MAX_WINDOWS = 8;
+
+    /**
+     * Maximum number of bytes read ahead.
+     */
+    static final long MAX_BYTES = 8L * 1024L * 1024L;
+
+    // moves further apart than this are not considered part of the same scroll
+    private static final long SCROLL_TIMEOUT_MS = 1_000L;
+
+    // how far ahead to read, in time, at the current scroll speed
+    private static final long LOOK_AHEAD_MS = 1_000L;
+
+    private static final int READ_SIZE = BlockCache.BLOCK_SIZE;
+
+    // a single Thread reads ahead for all readers
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor( runnable -> {
+        var thread = new Thread( runnable, "read-ahead" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    private final ByteSource.Factory sourceFactory;
+
+    // incremented on every new scroll, so that outdated read-ahead can be abandoned
+    private final AtomicLong generation = new AtomicLong();
+
+    private Direction lastDirection;
+    private long lastMoveTime;
+
+    // scroll speed, in bytes per millisecond
+    private double speed;
+
+    // the region read ahead during the current scroll, so it is not read again
+    private long readStart;
+    private long readEnd;
+
+    private volatile Future<?> pending = CompletableFuture.completedFuture( null );
+
+    ReadAhead( ByteSource.Factory sourceFactory ) {
+        this.sourceFactory = sourceFactory;
+    }
+
+    /**
+     * Notify this read-ahead that the file window has moved.
+     *
+     * @param direction   direction of the move
+     * @param bytesMoved  number of bytes the file window moved by
+     * @param windowStart start of the file window after the move
+     * @param windowEnd   end of the file window after the move
+     * @param fileLength  length of the file
+     */
+    void onMove( Direction direction, long bytesMoved, long windowStart, long windowEnd, long fileLength ) {
+        long now = System.currentTimeMillis();
+        long windowBytes = Math.max( 1L, windowEnd - windowStart );
+
+        boolean sameScroll = direction == lastDirection &&
+                now - lastMoveTime < SCROLL_TIMEOUT_MS &&
+                windowStart <= readEnd && windowEnd >= readStart;
+
+        if ( sameScroll ) {
+            // smooth the speed over the moves of the current scroll
+            double currentSpeed = ( double ) bytesMoved / Math.max( 1L, now - lastMoveTime );
+            speed = ( speed + currentSpeed ) / 2.0;
+        } else {
+            generation.incrementAndGet();
+            pending.cancel( false );
+            speed = 0.0;
+            readStart = windowStart;
+            readEnd = windowEnd;
+        }
+        lastDirection = direction;
+        lastMoveTime = now;
+
+        long bytesAhead = Math.min( Math.min( MAX_BYTES, windowBytes * MAX_WINDOWS ),
+                Math.max( windowBytes, ( long ) ( speed * LOOK_AHEAD_MS ) ) );
+
+        long start;
+        long end;
+        if ( direction == Direction.DOWN ) {
+            start = Math.max( windowEnd, readEnd );
+            end = Math.min( fileLength, windowEnd + bytesAhead );
+        } else {
+            start = Math.max( 0L, windowStart - bytesAhead );
+            end = Math.min( windowStart, readStart );
+        }
+
+        if ( start >= end ) {
+            return;
+        }
+
+        readStart = Math.min( readStart, start );
+        readEnd = Math.max( readEnd, end );
+
+        long currentGeneration = generation.get();
+        log.trace( "Reading ahead {} bytes {} ({}..{})", end - start, direction, start, end );
+        pending = executor.submit( () -> read( direction, start, end, currentGeneration ) );
+    }
+
+    private void read( Direction direction, long start, long end, long readGeneration ) {
+        byte[] buffer = new byte[ READ_SIZE ];
+        try ( ByteSource source = sourceFactory.open() ) {
+            // read the bytes closest to the file window first
+            long remaining = end - start;
+            while ( remaining > 0L ) {
+                if ( generation.get() != readGeneration ) {
+                    log.trace( "New scroll started, abandoning read-ahead of {} bytes", remaining );
+                    return;
+                }
+                int length = ( int ) Math.min( READ_SIZE, remaining );
+                long position = direction == Direction.DOWN ? end - remaining : start + remaining - length;
+                if ( source.read( position, buffer, 0, length ) < 0 ) {
+                    return;
+                }
+                remaining -= length;
+            }
+        } catch ( IOException e ) {
+            log.debug( "Unable to read ahead: {}", e.toString() );
+        }
+    }
+
+    /**
+     * Wait for the current read-ahead to complete.
+     */
+    void awaitPending( long timeout, TimeUnit unit ) throws InterruptedException, TimeoutException {
+        try {
+            pending.get( timeout, unit );
+        } catch ( ExecutionException e ) {
+            log.warn( "Read-ahead failed", e.getCause() );
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.athaydes.logfx.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.OptionalLong;
+
+/**
+ * Implementation of {@link FileContentReader} that reads a log file together with the files it was rotated into,
+ * as if they were a single continuous file.
+ * <p>
+ * Offsets used by this reader (including those of its {@link LineIndex} and {@link TimeIndex}) are virtual offsets
+ * into the {@link RotationSet} of the file, so moving the file window, going to a line or to a date-time work across
+ * all members of the set. Compressed members are decompressed on demand, never to disk.
+ * <p>
+ * Compressed members are only added to the set once they have been indexed in the background, so the newest members
+ * can be read immediately. Listeners set with {@link #setOnContentsChanged(Runnable)} are notified as members are
+ * added.
+ * <p>
+ * When the file is rotated again, or members are added to the set, the set changes identity. As long as the member
+ * the file window is in is still part of the set, the file window moves to where that member now starts, so it
+ * keeps showing the same lines. Otherwise, it's re-anchored as it would be if a single file were replaced.
+ * <p>
+ * Copies of this reader share the same rotation set, which is only released when the original reader is closed.
+ */
+public class RotatedLogReader extends FileReader {
+
+    private final RotationSet rotationSet;
+    private final boolean ownsRotationSet;
+
+    public RotatedLogReader( File file, int fileWindowSize ) {
+        this( file, fileWindowSize, 4096 );
+    }
+
+    RotatedLogReader( File file, int fileWindowSize, int bufferSize ) {
+        super( file, fileWindowSize, bufferSize );
+        this.rotationSet = new RotationSet( file );
+        this.ownsRotationSet = true;
+    }
+
+    public RotatedLogReader( RotatedLogReader other ) {
+        super( other );
+        this.rotationSet = other.rotationSet;
+        this.ownsRotationSet = false;
+    }
+
+    @Override
+    public RotatedLogReader makeCopy() {
+        return new RotatedLogReader( this );
+    }
+
+    @Override
+    public void setOnContentsChanged( Runnable onContentsChanged ) {
+        rotationSet.setOnMembersChanged( onContentsChanged );
+    }
+
+    @Override
+    ByteSource openSource() {
+        return rotationSet.open( true );
+    }
+
+    @Override
+    ByteSource openIndexSource() {
+        return rotationSet.open( false );
+    }
+
+    @Override
+    boolean fileExists() {
+        return !rotationSet.snapshot().members().isEmpty();
+    }
+
+    @Override
+    long fileLength() {
+        return rotationSet.snapshot().length();
+    }
+
+    @Override
+    FileHandles.Identity fileIdentity() throws IOException {
+        var snapshot = rotationSet.snapshot();
+        if ( snapshot.members().isEmpty() ) {
+            throw new IOException( "No member of the rotation set exists: " + getFile() );
+        }
+        return snapshot.identity();
+    }
+
+    @Override
+    OptionalLong translateOffset( IdentityChange change, long offset ) {
+        return RotationSet.translate( change.previous(), change.current(), offset );
+    }
+
+    @Override
+    public void close() {
+        if ( ownsRotationSet ) {
+            rotationSet.close();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,511 @@
+package com.athaydes.logfx.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A live log file together with the files it was rotated into, e.g. {@code app.log}, {@code app.log.1},
+ * {@code app.log.2.gz}, ..., presented as a single continuous source of bytes.
+ * <p>
+ * The members of the set are ordered from the oldest (the one with the highest rotation number) to the live file,
+ * and each member's bytes start where the previous member's bytes end, forming a single virtual offset space.
+ * Members are expected to end with a new line, otherwise the last line of a member is joined with the first line
+ * of the next one.
+ * <p>
+ * Members compressed with gzip are decompressed on demand by a {@link GzipFile}, which is kept for as long as
+ * the file remains in the set (even as it's renamed by further rotations), so its decompression state is not lost.
+ * The length of a compressed member is only known once it's indexed, which happens in the background, so until then
+ * the member and all members older than it are left out of the set. As members are indexed, they are added to the
+ * start of the set, moving the offsets of all newer members (see {@link #translate(FileHandles.Identity,
+ * FileHandles.Identity, long)}), and listeners set with {@link #setOnMembersChanged(Runnable)} are notified.
+ * <p>
+ * This class is thread-safe.
+ */
+final class RotationSet {
+
+    private static final Logger log = LoggerFactory.getLogger( RotationSet.class );
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * A member of the set, within a snapshot.
+     *
+     * @param file   the member file
+     * @param key    key identifying the file
+     * @param start  virtual offset of the first byte of the member
+     * @param length length of the (decompressed) member
+     * @param gzip   the gzip file if the member is compressed, null otherwise
+     */
+    record Member( File file, Object key, long start, long length, GzipFile gzip ) {
+        long end() {
+            return start + length;
+        }
+    }
+
+    /**
+     * Where a member starts, within the identity of a snapshot.
+     *
+     * @param key   key identifying the member file
+     * @param start virtual offset of the first byte of the member
+     */
+    record Placement( Object key, long start ) {
+    }
+
+    /**
+     * A file found in the directory of the set, which is a member of the set once its length is known.
+     *
+     * @param file   the file
+     * @param key    key identifying the file
+     * @param length length of the file
+     * @param gzip   the gzip file if the file is compressed, null otherwise
+     */
+    private record Candidate( File file, Object key, long length, GzipFile gzip ) {
+    }
+
+    /**
+     * The members of the set at some point in time.
+     *
+     * @param members members from the oldest to the live file
+     * @param length  total length of the set
+     */
+    record Snapshot( List<Member> members, long length ) {
+
+        static final Snapshot EMPTY = new Snapshot( List.of(), 0L );
+
+        /**
+         * @return the identity of the set, which changes whenever any member is added, removed or replaced
+         */
+        FileHandles.Identity identity() {
+            return new FileHandles.Identity( members.stream()
+                    .map( member -> new Placement( member.key(), member.start() ) )
+                    .toList(), length );
+        }
+
+        /**
+         * @param position virtual offset
+         * @return index of the member containing the offset, or -1 if it's after the end of the set
+         */
+        int memberAt( long position ) {
+            int low = 0;
+            int high = members.size() - 1;
+            while ( low <= high ) {
+                int middle = ( low + high ) >>> 1;
+                var member = members.get( middle );
+                if ( position < member.start() ) {
+                    high = middle - 1;
+                } else if ( position >= member.end() ) {
+                    low = middle + 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final File liveFile;
+    private final Pattern memberPattern;
+
+    private volatile Runnable onMembersChanged = () -> {
+    };
+
+    // guarded by this
+    private Snapshot snapshot = Snapshot.EMPTY;
+    private List<Candidate> candidates = List.of();
+    private boolean membersIndexed;
+    private Object liveFileKey;
+    private long liveFileLength;
+    private final Map<Path, FileHandles.FileHandle> handles = new HashMap<>();
+    private final Map<Object, GzipFile> gzipFiles = new HashMap<>();
+
+    RotationSet( File liveFile ) {
+        this.liveFile = liveFile.getAbsoluteFile();
+        this.memberPattern = Pattern.compile( Pattern.quote( liveFile.getName() ) + "\\.(\\d+)(\\.gz)?" );
+    }
+
+    File liveFile() {
+        return liveFile;
+    }
+
+    /**
+     * @param liveFile a log file
+     * @return true if the file has at least one rotated member besides itself
+     */
+    static boolean hasRotatedMembers( File liveFile ) {
+        var set = new RotationSet( liveFile );
+        return !set.listRotatedFiles().isEmpty();
+    }
+
+    /**
+     * @param onMembersChanged called from the gzip indexing Thread whenever a compressed member is indexed,
+     *                         so that it can be added to the set
+     */
+    void setOnMembersChanged( Runnable onMembersChanged ) {
+        this.onMembersChanged = onMembersChanged;
+    }
+
+    /**
+     * Get the current members of the set.
+     * <p>
+     * The directory is only listed again if the live file was replaced or truncated (i.e. it was rotated)
+     * since the last snapshot, otherwise only the length of the live file is updated, and any members that were
+     * indexed since the last snapshot are added to it.
+     * <p>
+     * Files are only read while not holding this set's monitor, and this never waits for a member to be indexed.
+     *
+     * @return the current snapshot of the set
+     */
+    Snapshot snapshot() {
+        var liveAttributes = attributesOf( liveFile );
+        var liveKey = liveAttributes == null ? null : keyOf( liveFile, liveAttributes );
+        var liveLength = liveAttributes == null ? -1L : liveAttributes.size();
+
+        List<Candidate> current;
+        synchronized ( this ) {
+            boolean rotated = snapshot.members().isEmpty()
+                    || !Objects.equals( liveKey, liveFileKey ) || liveLength < liveFileLength;
+            if ( !rotated && !membersIndexed ) {
+                if ( liveLength != liveFileLength ) {
+                    var members = new ArrayList<>( snapshot.members() );
+                    var live = members.get( members.size() - 1 );
+                    members.set( members.size() - 1, new Member( live.file(), live.key(), live.start(), liveLength, null ) );
+                    snapshot = new Snapshot( List.copyOf( members ), live.start() + liveLength );
+                    liveFileLength = liveLength;
+                }
+                return snapshot;
+            }
+            current = rotated ? null : candidates;
+
+            // members indexed from now on are only added to the set by the next snapshot
+            membersIndexed = false;
+        }
+
+        if ( current == null ) {
+            current = rescan();
+        }
+
+        var result = snapshotOf( current, liveKey, liveLength );
+
+        synchronized ( this ) {
+            // another Thread may have listed the directory again meanwhile, in which case its snapshot is newer
+            if ( candidates == current ) {
+                snapshot = result;
+                liveFileKey = liveKey;
+                liveFileLength = liveLength;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * List the files of the set again, starting to index any new compressed members.
+     *
+     * @return the files found, from the oldest to the live file
+     */
+    private List<Candidate> rescan() {
+        List<File> files = new ArrayList<>( listRotatedFiles() );
+        files.add( liveFile );
+
+        List<Candidate> found = new ArrayList<>( files.size() );
+        List<BasicFileAttributes> foundAttributes = new ArrayList<>( files.size() );
+        for ( File file : files ) {
+            var attributes = attributesOf( file );
+            if ( attributes == null ) {
+                log.debug( "Rotated file is no longer available: {}", file );
+                continue;
+            }
+            found.add( new Candidate( file, keyOf( file, attributes ), attributes.size(), null ) );
+            foundAttributes.add( attributes );
+        }
+
+        List<Candidate> result = new ArrayList<>( found.size() );
+        List<Candidate> newGzipFiles = new ArrayList<>();
+        List<Candidate> published;
+
+        synchronized ( this ) {
+            Map<Path, FileHandles.FileHandle> usedHandles = new HashMap<>();
+            Map<Object, GzipFile> usedGzipFiles = new HashMap<>();
+
+            for ( int i = 0; i < found.size(); i++ ) {
+                var candidate = found.get( i );
+                var file = candidate.file();
+                if ( file.getName().endsWith( GZIP_EXTENSION ) ) {
+                    var gzip = gzipFiles.remove( candidate.key() );
+                    boolean mustIndex;
+                    if ( gzip == null ) {
+                        gzip = new GzipFile( file.toPath(), candidate.key(), foundAttributes.get( i ).lastModifiedTime() );
+                        mustIndex = true;
+                    } else {
+                        // the file may have been rotated before it could be indexed
+                        mustIndex = gzip.renamedTo( file.toPath() );
+                    }
+                    usedGzipFiles.put( candidate.key(), gzip );
+                    candidate = new Candidate( file, candidate.key(), candidate.length(), gzip );
+                    if ( mustIndex ) {
+                        newGzipFiles.add( candidate );
+                    }
+                } else {
+                    var path = file.toPath();
+                    var handle = handles.remove( path );
+                    usedHandles.put( path, handle == null ? FileHandles.shared().acquire( file ) : handle );
+                }
+                result.add( candidate );
+            }
+
+            // files no longer in the set
+            handles.values().forEach( FileHandles.FileHandle::release );
+            gzipFiles.values().forEach( GzipFile::close );
+            handles.putAll( usedHandles );
+            gzipFiles.putAll( usedGzipFiles );
+            candidates = published = List.copyOf( result );
+        }
+
+        // the newest members are indexed first, as they are added to the set from the live file backwards
+        for ( int i = newGzipFiles.size() - 1; i >= 0; i-- ) {
+            var candidate = newGzipFiles.get( i );
+            candidate.gzip().startIndexing().whenComplete( ( ignored, error ) -> {
+                if ( error != null ) {
+                    log.warn( "Unable to read gzip file {}, skipping it: {}", candidate.file(), error.toString() );
+                }
+                onMemberIndexed();
+            } );
+        }
+
+        return published;
+    }
+
+    private void onMemberIndexed() {
+        synchronized ( this ) {
+            membersIndexed = true;
+        }
+        onMembersChanged.run();
+    }
+
+    /**
+     * Compute the members of the set from the files found in its directory.
+     * <p>
+     * Only the newest files whose length is known are members: compressed files are only members once indexed,
+     * and the files older than a compressed file that is still being indexed are not members yet, so that the
+     * members are always contiguous. Compressed files that cannot be read are skipped.
+     */
+    private static Snapshot snapshotOf( List<Candidate> candidates, Object liveKey, long liveLength ) {
+        List<Candidate> available = new ArrayList<>( candidates.size() );
+        for ( int i = candidates.size() - 1; i >= 0; i-- ) {
+            var candidate = candidates.get( i );
+            var gzip = candidate.gzip();
+            if ( gzip == null ) {
+                available.add( candidate );
+            } else if ( gzip.index().isComplete() ) {
+                available.add( new Candidate( candidate.file(), candidate.key(), gzip.knownLength(), gzip ) );
+            } else if ( !gzip.indexingFailed() ) {
+                break;
+            }
+        }
+
+        List<Member> members = new ArrayList<>( available.size() );
+        long start = 0L;
+        for ( int i = available.size() - 1; i >= 0; i-- ) {
+            var candidate = available.get( i );
+            // the live file may have grown since it was found
+            long length = candidate.gzip() == null && candidate.key().equals( liveKey ) ? liveLength : candidate.length();
+            members.add( new Member( candidate.file(), candidate.key(), start, length, candidate.gzip() ) );
+            start += length;
+        }
+
+        log.debug( "Rotation set has {} members (of {} files), total length {}", members.size(), candidates.size(), start );
+        return new Snapshot( List.copyOf( members ), start );
+    }
+
+    /**
+     * Translate a virtual offset from an earlier identity of a set to its current identity.
+     *
+     * @param previous identity of the set when the offset was found
+     * @param current  current identity of the set
+     * @param offset   virtual offset within the previous identity
+     * @return the offset of the same byte in the current set, or empty if the member containing it is no longer
+     * in the set or is shorter than it was
+     */
+    static OptionalLong translate( FileHandles.Identity previous, FileHandles.Identity current, long offset ) {
+        if ( !( previous.fileKey() instanceof List<?> before ) || !( current.fileKey() instanceof List<?> after ) ) {
+            return OptionalLong.empty();
+        }
+        int index = -1;
+        for ( int i = 0; i < before.size() && ( ( Placement ) before.get( i ) ).start() <= offset; i++ ) {
+            index = i;
+        }
+        if ( index < 0 ) {
+            return OptionalLong.empty();
+        }
+        var placement = ( Placement ) before.get( index );
+        long previousLength = endOf( before, index, previous.size() ) - placement.start();
+        for ( int i = 0; i < after.size(); i++ ) {
+            var moved = ( Placement ) after.get( i );
+            if ( moved.key().equals( placement.key() ) ) {
+                if ( endOf( after, i, current.size() ) - moved.start() < previousLength ) {
+                    return OptionalLong.empty();
+                }
+                return OptionalLong.of( offset - placement.start() + moved.start() );
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    private static long endOf( List<?> placements, int index, long length ) {
+        return index + 1 < placements.size() ? ( ( Placement ) placements.get( index + 1 ) ).start() : length;
+    }
+
+    private List<File> listRotatedFiles() {
+        var directory = liveFile.getParentFile();
+        var files = directory == null ? null : directory.listFiles();
+        if ( files == null ) {
+            return List.of();
+        }
+        Map<Integer, File> filesByNumber = new HashMap<>();
+        for ( File file : files ) {
+            Matcher matcher = memberPattern.matcher( file.getName() );
+            if ( matcher.matches() && file.isFile() ) {
+                int number;
+                try {
+                    number = Integer.parseInt( matcher.group( 1 ) );
+                } catch ( NumberFormatException e ) {
+                    continue;
+                }
+                // while a member is being compressed, both files may exist: prefer the complete one
+                filesByNumber.merge( number, file,
+                        ( a, b ) -> a.getName().endsWith( GZIP_EXTENSION ) ? b : a );
+            }
+        }
+        return filesByNumber.entrySet().stream()
+                .sorted( Map.Entry.<Integer, File>comparingByKey( Comparator.reverseOrder() ) )
+                .map( Map.Entry::getValue )
+                .toList();
+    }
+
+    private static BasicFileAttributes attributesOf( File file ) {
+        try {
+            return Files.readAttributes( file.toPath(), BasicFileAttributes.class );
+        } catch ( IOException e ) {
+            return null;
+        }
+    }
+
+    private static Object keyOf( File file, BasicFileAttributes attributes ) {
+        return attributes.fileKey() == null ? file.getAbsoluteFile() : attributes.fileKey();
+    }
+
+    /**
+     * Open a source of the bytes of the set, as in its current snapshot.
+     *
+     * @param cached whether to read the bytes through the shared {@link BlockCache}
+     * @return source of the bytes of the set
+     */
+    ByteSource open( boolean cached ) {
+        return new ConcatenatedSource( snapshot(), cached );
+    }
+
+    /**
+     * Release all files held by this set.
+     */
+    synchronized void close() {
+        handles.values().forEach( FileHandles.FileHandle::release );
+        gzipFiles.values().forEach( GzipFile::close );
+        handles.clear();
+        gzipFiles.clear();
+        candidates = List.of();
+        snapshot = Snapshot.EMPTY;
+        liveFileKey = null;
+    }
+
+    private synchronized FileHandles.FileHandle handleOf( File file ) {
+        return handles.computeIfAbsent( file.toPath(), ignored -> FileHandles.shared().acquire( file ) );
+    }
+
+    @Override
+    public String toString() {
+        return "RotationSet{" + liveFile + '}';
+    }
+
+    /**
+     * Source of the bytes of all members of a snapshot, opening each member only when it's first read.
+     */
+    private final class ConcatenatedSource implements ByteSource {
+        private final Snapshot snapshot;
+        private final boolean cached;
+        private final ByteSource[] sources;
+
+        ConcatenatedSource( Snapshot snapshot, boolean cached ) {
+            this.snapshot = snapshot;
+            this.cached = cached;
+            this.sources = new ByteSource[ snapshot.members().size() ];
+        }
+
+        @Override
+        public long length() {
+            return snapshot.length();
+        }
+
+        @Override
+        public int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+            int index = snapshot.memberAt( position );
+            if ( index < 0 ) {
+                return -1;
+            }
+            int bytesRead = 0;
+            while ( bytesRead < length && index < sources.length ) {
+                var member = snapshot.members().get( index );
+                long memberPosition = position + bytesRead - member.start();
+                int count = ( int ) Math.min( length - bytesRead, member.length() - memberPosition );
+                int n = count <= 0 ? 0 : source( index ).read( memberPosition, buffer, offset + bytesRead, count );
+                if ( n < count ) {
+                    // the member is shorter than it was when the snapshot was taken
+                    if ( n > 0 ) bytesRead += n;
+                    break;
+                }
+                bytesRead += n;
+                index++;
+            }
+            return bytesRead == 0 && length > 0 ? -1 : bytesRead;
+        }
+
+        private ByteSource source( int index ) throws IOException {
+            var source = sources[ index ];
+            if ( source == null ) {
+                var member = snapshot.members().get( index );
+                if ( member.gzip() != null ) {
+                    source = cached ? member.gzip().openCached() : member.gzip().source();
+                } else {
+                    var handle = handleOf( member.file() );
+                    source = cached
+                            ? BlockCache.shared().open( member.file(), handle::source )
+                            : handle.source();
+                }
+                sources[ index ] = source;
+            }
+            return source;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for ( ByteSource source : sources ) {
+                if ( source != null ) {
+                    source.close();
+                }
+            }
+        }
+    }
+}
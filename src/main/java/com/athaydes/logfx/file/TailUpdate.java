@@ -0,0 +1,14 @@
+package com.athaydes.logfx.file;
+
+import java.util.List;
+
+/**
+ * Lines read from the tail of a file by {@link FileContentReader#followTail()}.
+ *
+ * @param lines       the lines that were read
+ * @param incremental if true, the first line replaces the last line of the previous file window
+ *                    (which may have been incomplete when it was read) and the other lines come after it.
+ *                    Otherwise, the lines are the full, new file window.
+ */
+public record TailUpdate( List<String> lines, boolean incremental ) {
+}
@@ -0,0 +1,337 @@
+package com.athaydes.logfx.file;
+
+import com.athaydes.logfx.text.DateTimeFormatGuess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sparse index of the date-times of a file's lines.
+ * <p>
+ * Every {@code sampleInterval} bytes, the index records the date-time of the first line that has a date-time that can
+ * be parsed with the file's {@link DateTimeFormatGuess}, together with the byte offset of that line. Date-times
+ * (as nanoseconds since the epoch) and offsets are kept in parallel primitive arrays, so the position of any
+ * date-time can be found with a binary search, after which only a small part of the file needs to be scanned.
+ * <p>
+ * Nothing is indexed until the file's date-time format is known (see {@link #setDateTimeFormatGuess(DateTimeFormatGuess)}).
+ * As with {@link LineIndex}, the file is scanned on demand by calling {@link #update()}, which only reads the bytes
+ * appended to the file since the last update. If the file shrinks, the format changes or the index is cleared
+ * (see {@link #clear()}), the index is rebuilt.
+ * <p>
+ * This class is thread-safe: the index can be updated from a background Thread while being queried from others.
+ */
+public final class TimeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger( TimeIndex.class );
+
+    static final int DEFAULT_SAMPLE_INTERVAL = 128 * 1024;
+
+    // number of bytes first read for each sample, which is doubled until a line with a date-time is found...
+    private static final int INITIAL_SAMPLE_BYTES = 4 * 1024;
+
+    // up to this maximum
+    private static final int MAX_SAMPLE_BYTES = 64 * 1024;
+
+    // date-times are expected near the start of a line, so only the beginning of long lines is parsed
+    private static final int MAX_PARSED_LINE_BYTES = 1024;
+
+    // samples are published after this many are found, so that lookups can use them while the file is indexed
+    private static final int SAMPLES_PER_UPDATE = 256;
+
+    private final ByteSource.Factory sourceFactory;
+    private final int sampleInterval;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private DateTimeFormatGuess dateTimeFormatGuess;
+
+    private long[] epochNanos = new long[ 64 ];
+    private long[] offsets = new long[ 64 ];
+    private int count;
+
+    // position from which the next sample is taken
+    private long indexedBytes;
+
+    // incremented when the index is cleared, so that updates started before that do not publish their samples
+    private long generation;
+
+    TimeIndex( ByteSource.Factory sourceFactory, int sampleInterval ) {
+        if ( sampleInterval < 1 ) {
+            throw new IllegalArgumentException( "sampleInterval must be positive" );
+        }
+        this.sourceFactory = sourceFactory;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Set the date-time format of the file.
+     * <p>
+     * If the format is not the same as the current one, the index is cleared.
+     *
+     * @param dateTimeFormatGuess the date-time format (may be null if it is unknown)
+     */
+    public synchronized void setDateTimeFormatGuess( DateTimeFormatGuess dateTimeFormatGuess ) {
+        if ( this.dateTimeFormatGuess != dateTimeFormatGuess ) {
+            this.dateTimeFormatGuess = dateTimeFormatGuess;
+            clear();
+        }
+    }
+
+    /**
+     * Update the index with the bytes appended to the file since the last update.
+     * <p>
+     * On large files, this may take a long time to return, so it should be called from a background Thread.
+     */
+    public void update() {
+        update( Long.MAX_VALUE );
+    }
+
+    /**
+     * @return the number of samples in the index.
+     */
+    public synchronized int sampleCount() {
+        return count;
+    }
+
+    /**
+     * Check whether the index already has a sample at or after the given date-time, in which case
+     * {@link #offsetBefore(ZonedDateTime)} does not need to scan the file.
+     *
+     * @param dateTime date-time to check
+     * @return true if the date-time is within the samples of this index
+     */
+    public synchronized boolean covers( ZonedDateTime dateTime ) {
+        return count > 0 && epochNanos[ count - 1 ] >= DateTimeFormatGuess.toEpochNanos( dateTime );
+    }
+
+    /**
+     * Find the offset of a line from which to scan the file for the given date-time.
+     * <p>
+     * The line is the last sampled line with a date-time before the given one, or the start of the file if the
+     * date-time is before all samples. If the date-time is after all samples, the index is updated until a later
+     * sample is found or the end of the file is reached.
+     *
+     * @param dateTime date-time to find
+     * @return the offset of the line, or empty if the file has no known date-times
+     */
+    public OptionalLong offsetBefore( ZonedDateTime dateTime ) {
+        long target = DateTimeFormatGuess.toEpochNanos( dateTime );
+        update( target );
+        synchronized ( this ) {
+            if ( count == 0 ) {
+                return OptionalLong.empty();
+            }
+            // log files may have a few lines out of order, so this may not be the exact position,
+            // but it's always a good place to start scanning from
+            int index = Arrays.binarySearch( epochNanos, 0, count, target );
+            int before = ( index >= 0 ? index : -index - 1 ) - 1;
+            return OptionalLong.of( before < 0 ? 0L : offsets[ before ] );
+        }
+    }
+
+    /**
+     * Find the latest date-time in the file, parsing lines from the end of the file up.
+     *
+     * @return the latest date-time, or empty if none is found near the end of the file
+     */
+    public Optional<ZonedDateTime> latestDateTime() {
+        DateTimeFormatGuess guess;
+        synchronized ( this ) {
+            guess = dateTimeFormatGuess;
+        }
+        if ( guess == null ) {
+            return Optional.empty();
+        }
+        try ( ByteSource source = sourceFactory.open() ) {
+            long length = source.length();
+            long start = Math.max( 0L, length - MAX_SAMPLE_BYTES );
+            byte[] buffer = new byte[ ( int ) ( length - start ) ];
+            int bytesRead = Math.max( 0, source.read( start, buffer, 0, buffer.length ) );
+            int lineEnd = bytesRead;
+            for ( int i = bytesRead - 1; i >= -1; i-- ) {
+                if ( i < 0 ? start == 0L : buffer[ i ] == '\n' ) {
+                    var dateTime = guess.guessDateTime( lineText( buffer, i + 1, lineEnd ) );
+                    if ( dateTime.isPresent() ) {
+                        return dateTime;
+                    }
+                    lineEnd = i;
+                }
+            }
+        } catch ( IOException e ) {
+            log.warn( "Unable to read the latest date-time in the file: {}", e.toString() );
+        }
+        return Optional.empty();
+    }
+
+    private void update( long untilEpochNanos ) {
+        long startTime = System.currentTimeMillis();
+        long startPosition = -1L;
+        long position = 0L;
+        byte[] buffer = new byte[ MAX_SAMPLE_BYTES ];
+        long[] newEpochNanos = new long[ SAMPLES_PER_UPDATE ];
+        long[] newOffsets = new long[ SAMPLES_PER_UPDATE ];
+
+        // the update lock is only held while a batch of samples is found, so that lookups of date-times
+        // already in the index never wait for a scan of the whole file
+        while ( true ) {
+            synchronized ( this ) {
+                if ( count > 0 && epochNanos[ count - 1 ] >= untilEpochNanos ) {
+                    return;
+                }
+            }
+            updateLock.lock();
+            try ( ByteSource source = sourceFactory.open() ) {
+                long length = source.length();
+                DateTimeFormatGuess guess;
+                long startGeneration;
+                long lastOffset;
+                synchronized ( this ) {
+                    guess = dateTimeFormatGuess;
+                    if ( guess == null ) {
+                        return;
+                    }
+                    if ( length < indexedBytes ) {
+                        log.debug( "File was truncated, rebuilding time index" );
+                        clear();
+                    }
+                    if ( count > 0 && epochNanos[ count - 1 ] >= untilEpochNanos ) {
+                        return;
+                    }
+                    position = indexedBytes;
+                    startGeneration = generation;
+                    lastOffset = count == 0 ? -1L : offsets[ count - 1 ];
+                }
+                if ( startPosition < 0L ) {
+                    startPosition = position;
+                }
+
+                int newCount = 0;
+                boolean done = false;
+
+                while ( !done && newCount < SAMPLES_PER_UPDATE && position < length ) {
+                    // the first line of a sample starts after the first new line at or after (position - 1)
+                    long readStart = Math.max( 0L, position - 1L );
+                    int bytesRead = 0;
+                    int scanned = 0;
+                    int readSize = INITIAL_SAMPLE_BYTES;
+                    int lineStart = position == 0L ? 0 : -1;
+                    boolean sampled = false;
+
+                    // most samples are found within a few lines, so only read more if needed
+                    while ( !sampled ) {
+                        int toRead = ( int ) Math.min( readSize, length - readStart ) - bytesRead;
+                        int n = toRead <= 0 ? -1 : source.read( readStart + bytesRead, buffer, bytesRead, toRead );
+                        if ( n <= 0 ) break;
+                        bytesRead += n;
+
+                        for ( ; scanned < bytesRead && !sampled; scanned++ ) {
+                            if ( buffer[ scanned ] == '\n' ) {
+                                if ( lineStart >= 0 && readStart + lineStart > lastOffset ) {
+                                    long nanos = guess.parseEpochNanos( lineText( buffer, lineStart, scanned ) );
+                                    if ( nanos != DateTimeFormatGuess.NO_DATE_TIME ) {
+                                        lastOffset = readStart + lineStart;
+                                        newEpochNanos[ newCount ] = nanos;
+                                        newOffsets[ newCount++ ] = lastOffset;
+                                        sampled = true;
+                                        done = nanos >= untilEpochNanos;
+                                    }
+                                }
+                                lineStart = scanned + 1;
+                            }
+                        }
+
+                        if ( readSize == MAX_SAMPLE_BYTES ) break;
+                        readSize = Math.min( readSize * 2, MAX_SAMPLE_BYTES );
+                    }
+                    if ( bytesRead <= 0 ) break;
+
+                    if ( !sampled && readStart + bytesRead >= length ) {
+                        // the lines at the end of the file may still be incomplete, try again on the next update
+                        break;
+                    }
+
+                    position += sampleInterval;
+                }
+
+                position = Math.min( position, length );
+                if ( !publish( startGeneration, newEpochNanos, newOffsets, newCount, position ) ) return;
+
+                if ( done || newCount < SAMPLES_PER_UPDATE || position >= length ) {
+                    break;
+                }
+            } catch ( FileNotFoundException | NoSuchFileException e ) {
+                log.debug( "Unable to update time index as the file does not exist: {}", e.getMessage() );
+                return;
+            } catch ( IOException e ) {
+                log.warn( "Unable to update time index: {}", e.toString() );
+                return;
+            } finally {
+                updateLock.unlock();
+            }
+        }
+
+        if ( log.isDebugEnabled() ) {
+            log.debug( "Indexed date-times of {} bytes in {} ms, sample count is now {}",
+                    position - startPosition, System.currentTimeMillis() - startTime, sampleCount() );
+        }
+    }
+
+    /**
+     * Add new samples to the index, unless the index was cleared (e.g. as the date-time format was changed)
+     * while they were being found.
+     *
+     * @return true if the samples were added, false otherwise
+     */
+    private synchronized boolean publish( long startGeneration, long[] newEpochNanos, long[] newOffsets,
+                                          int newCount, long position ) {
+        if ( generation != startGeneration ) {
+            log.debug( "Time index was cleared while indexing, discarding samples" );
+            return false;
+        }
+        if ( count + newCount > epochNanos.length ) {
+            int capacity = Math.max( epochNanos.length * 2, count + newCount );
+            epochNanos = Arrays.copyOf( epochNanos, capacity );
+            offsets = Arrays.copyOf( offsets, capacity );
+        }
+        System.arraycopy( newEpochNanos, 0, epochNanos, count, newCount );
+        System.arraycopy( newOffsets, 0, offsets, count, newCount );
+        count += newCount;
+        indexedBytes = Math.max( indexedBytes, position );
+        return true;
+    }
+
+    /**
+     * Clear the index, so that it's rebuilt from the start of the file by the next update.
+     * <p>
+     * This should be called when the file is replaced, as the index cannot notice that unless the file shrinks.
+     */
+    synchronized void clear() {
+        count = 0;
+        indexedBytes = 0L;
+        generation++;
+    }
+
+    private static String lineText( byte[] buffer, int start, int end ) {
+        if ( end > start && buffer[ end - 1 ] == '\r' ) {
+            end--;
+        }
+        int length = Math.min( end - start, MAX_PARSED_LINE_BYTES );
+        return new String( buffer, start, length, StandardCharsets.UTF_8 );
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TimeIndex{" +
+                "samples=" + count +
+                ", indexedBytes=" + indexedBytes +
+                '}';
+    }
+}
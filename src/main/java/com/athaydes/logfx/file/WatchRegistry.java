@@ -0,0 +1,251 @@
+package com.athaydes.logfx.file;
+
+import com.athaydes.logfx.concurrency.Cancellable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Registry of watched files sharing a single {@link WatchService}.
+ * <p>
+ * Each directory is registered only once, however many files are watched in it, and the events of the directory
+ * are dispatched to the listeners of the files they concern. A single Thread waits for events of all directories,
+ * and a single Thread notifies listeners, so listeners are always notified in order.
+ * <p>
+ * Directories that do not exist (or stop existing) are registered again once they appear.
+ */
+final class WatchRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger( WatchRegistry.class );
+
+    // how often to check whether missing directories have appeared
+    private static final long MISSING_DIRECTORY_CHECK_PERIOD_MS = 1_000L;
+
+    private static final WatchRegistry DEFAULT = new WatchRegistry();
+
+    /**
+     * Listener of changes to a watched file.
+     */
+    interface Listener {
+
+        /**
+         * Called when the directory of the file starts or stops being watched.
+         *
+         * @param watching whether the directory is now being watched
+         */
+        void onWatching( boolean watching );
+
+        /**
+         * Called when the file may have changed.
+         *
+         * @param eventKind name of the kind of event
+         */
+        void onChange( String eventKind );
+    }
+
+    private final class Registration implements Cancellable {
+        private final DirectoryWatch directory;
+        private final Path fileName;
+        private final Listener listener;
+
+        Registration( DirectoryWatch directory, Path fileName, Listener listener ) {
+            this.directory = directory;
+            this.fileName = fileName;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            unregister( this );
+        }
+    }
+
+    private static final class DirectoryWatch {
+        private final Path path;
+        private final List<Registration> registrations = new ArrayList<>( 2 );
+
+        // null while the directory is not being watched
+        private WatchKey key;
+
+        DirectoryWatch( Path path ) {
+            this.path = path;
+        }
+    }
+
+    // all state is guarded by this instance's lock
+    private final Map<Path, DirectoryWatch> directories = new HashMap<>();
+    private final Map<WatchKey, DirectoryWatch> directoriesByKey = new HashMap<>();
+    private WatchService watchService;
+
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor( runnable -> {
+        var thread = new Thread( runnable, "file-watch-notifier" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    private WatchRegistry() {
+    }
+
+    /**
+     * @return the registry shared by the whole application
+     */
+    static WatchRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Start watching a file.
+     * <p>
+     * The listener is notified asynchronously once the file's directory is being watched.
+     *
+     * @param file     to watch, which must have a parent directory
+     * @param listener of changes
+     * @return handle to stop watching the file
+     */
+    synchronized Cancellable register( Path file, Listener listener ) {
+        var absoluteFile = file.toAbsolutePath().normalize();
+        var directoryPath = absoluteFile.getParent();
+        if ( directoryPath == null ) {
+            throw new IllegalArgumentException( "Cannot watch file without a parent directory: " + file );
+        }
+        ensureStarted();
+
+        var directory = directories.computeIfAbsent( directoryPath, DirectoryWatch::new );
+        var registration = new Registration( directory, absoluteFile.getFileName(), listener );
+        directory.registrations.add( registration );
+
+        if ( directory.key != null ) {
+            notifier.execute( () -> listener.onWatching( true ) );
+        } else {
+            tryToWatch( directory );
+        }
+        return registration;
+    }
+
+    private synchronized void unregister( Registration registration ) {
+        var directory = registration.directory;
+        if ( directory.registrations.remove( registration ) && directory.registrations.isEmpty() ) {
+            log.debug( "No more files to watch in directory {}", directory.path );
+            directories.remove( directory.path );
+            if ( directory.key != null ) {
+                directoriesByKey.remove( directory.key );
+                directory.key.cancel();
+                directory.key = null;
+            }
+        }
+    }
+
+    private void ensureStarted() {
+        if ( watchService != null ) return;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to create WatchService", e );
+        }
+        var thread = new Thread( this::watch, "file-watch-registry" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private void tryToWatch( DirectoryWatch directory ) {
+        if ( !directory.path.toFile().isDirectory() ) {
+            log.debug( "Cannot watch directory as it does not exist yet: {}", directory.path );
+            return;
+        }
+        try {
+            directory.key = directory.path.register( watchService, new WatchEvent.Kind<?>[]{
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.OVERFLOW,
+                    StandardWatchEventKinds.ENTRY_DELETE
+            } );
+        } catch ( IOException e ) {
+            log.warn( "Problem watching directory [{}]: {}", directory.path, e.toString() );
+            return;
+        }
+        log.info( "Watching directory {}", directory.path );
+        directoriesByKey.put( directory.key, directory );
+        notifyListeners( directory.registrations, listener -> listener.onWatching( true ) );
+    }
+
+    private synchronized void watchMissingDirectories() {
+        for ( DirectoryWatch directory : directories.values() ) {
+            if ( directory.key == null ) {
+                tryToWatch( directory );
+            }
+        }
+    }
+
+    private void watch() {
+        log.debug( "File watch registry Thread started" );
+        while ( true ) {
+            WatchKey key;
+            try {
+                key = watchService.poll( MISSING_DIRECTORY_CHECK_PERIOD_MS, TimeUnit.MILLISECONDS );
+            } catch ( InterruptedException | ClosedWatchServiceException e ) {
+                log.warn( "File watch registry Thread stopped: {}", e.toString() );
+                return;
+            }
+            if ( key != null ) {
+                handle( key );
+            }
+            watchMissingDirectories();
+        }
+    }
+
+    private synchronized void handle( WatchKey key ) {
+        var directory = directoriesByKey.get( key );
+        var events = key.pollEvents();
+        if ( directory == null ) {
+            // the directory is no longer watched
+            return;
+        }
+        log.trace( "Watch key: {}, events: {}", key, events.size() );
+
+        for ( WatchEvent<?> event : events ) {
+            var kind = event.kind().name();
+            if ( event.kind() == StandardWatchEventKinds.OVERFLOW ) {
+                // events were lost, any file may have changed
+                notifyListeners( directory.registrations, listener -> listener.onChange( kind ) );
+            } else {
+                // we only register event kinds for which the context is always a Path.
+                Path changed = ( Path ) event.context();
+                for ( Registration registration : directory.registrations ) {
+                    if ( registration.fileName.equals( changed.getFileName() ) ) {
+                        notifier.execute( () -> registration.listener.onChange( kind ) );
+                    }
+                }
+            }
+        }
+
+        if ( !key.reset() ) {
+            log.info( "Key has been unregistered! Cannot watch directory until it is created again: {}",
+                    directory.path );
+            directoriesByKey.remove( key );
+            directory.key = null;
+            notifyListeners( directory.registrations, listener -> listener.onWatching( false ) );
+        }
+    }
+
+    private void notifyListeners( List<Registration> registrations, Consumer<Listener> notification ) {
+        for ( Registration registration : registrations ) {
+            notifier.execute( () -> notification.accept( registration.listener ) );
+        }
+    }
+}
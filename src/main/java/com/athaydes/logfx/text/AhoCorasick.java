@@ -0,0 +1,159 @@
+package com.athaydes.logfx.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton finding which of a set of literals occur in a text, with a single pass over the text.
+ * <p>
+ * Each literal has an id, and several literals may share the same id.
+ */
+final class AhoCorasick {
+
+    private static final int[] NONE = new int[ 0 ];
+
+    // the transitions of each state, with the characters sorted so they can be binary searched
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failures;
+
+    // the ids of the literals found when reaching each state, including those found via failure links
+    private final int[][] outputs;
+
+    /**
+     * @param literals the literals to find, which must not be empty
+     * @param ids      the id of each literal
+     */
+    AhoCorasick( List<String> literals, int[] ids ) {
+        if ( literals.size() != ids.length ) {
+            throw new IllegalArgumentException( "Expected one id for each literal" );
+        }
+
+        var trie = new ArrayList<Node>();
+        trie.add( new Node() );
+        for ( int i = 0; i < literals.size(); i++ ) {
+            var literal = literals.get( i );
+            if ( literal.isEmpty() ) {
+                throw new IllegalArgumentException( "Cannot search for empty literal" );
+            }
+            int state = 0;
+            for ( int j = 0; j < literal.length(); j++ ) {
+                char c = literal.charAt( j );
+                int next = trie.get( state ).next( c );
+                if ( next < 0 ) {
+                    next = trie.size();
+                    trie.add( new Node() );
+                    trie.get( state ).add( c, next );
+                }
+                state = next;
+            }
+            trie.get( state ).addOutput( ids[ i ] );
+        }
+
+        int stateCount = trie.size();
+        keys = new char[ stateCount ][];
+        targets = new int[ stateCount ][];
+        failures = new int[ stateCount ];
+        outputs = new int[ stateCount ][];
+
+        for ( int state = 0; state < stateCount; state++ ) {
+            var node = trie.get( state );
+            keys[ state ] = Arrays.copyOf( node.keys, node.size );
+            targets[ state ] = Arrays.copyOf( node.targets, node.size );
+        }
+
+        // breadth-first, so the failure state of each state is complete before the state itself
+        outputs[ 0 ] = trie.get( 0 ).outputs();
+        var queue = new ArrayDeque<Integer>();
+        for ( int child : targets[ 0 ] ) {
+            failures[ child ] = 0;
+            queue.add( child );
+        }
+        while ( !queue.isEmpty() ) {
+            int state = queue.poll();
+            outputs[ state ] = union( trie.get( state ).outputs(), outputs[ failures[ state ] ] );
+            for ( int i = 0; i < keys[ state ].length; i++ ) {
+                char c = keys[ state ][ i ];
+                int child = targets[ state ][ i ];
+                int failure = failures[ state ];
+                while ( failure != 0 && next( failure, c ) < 0 ) {
+                    failure = failures[ failure ];
+                }
+                int failureTarget = next( failure, c );
+                failures[ child ] = failureTarget < 0 ? 0 : failureTarget;
+                queue.add( child );
+            }
+        }
+    }
+
+    /**
+     * Find the literals that occur in the given text.
+     *
+     * @param text  to search
+     * @param found set to true at the id of each literal found in the text
+     */
+    void findAll( CharSequence text, boolean[] found ) {
+        int state = 0;
+        for ( int i = 0; i < text.length(); i++ ) {
+            char c = text.charAt( i );
+            int next = next( state, c );
+            while ( next < 0 && state != 0 ) {
+                state = failures[ state ];
+                next = next( state, c );
+            }
+            state = next < 0 ? 0 : next;
+            for ( int id : outputs[ state ] ) {
+                found[ id ] = true;
+            }
+        }
+    }
+
+    private int next( int state, char c ) {
+        int index = Arrays.binarySearch( keys[ state ], c );
+        return index < 0 ? -1 : targets[ state ][ index ];
+    }
+
+    private static int[] union( int[] a, int[] b ) {
+        if ( a.length == 0 ) return b;
+        if ( b.length == 0 ) return a;
+        int[] result = Arrays.copyOf( a, a.length + b.length );
+        System.arraycopy( b, 0, result, a.length, b.length );
+        return result;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[ 2 ];
+        private int[] targets = new int[ 2 ];
+        private int size;
+        private int[] outputs = NONE;
+
+        int next( char c ) {
+            int index = Arrays.binarySearch( keys, 0, size, c );
+            return index < 0 ? -1 : targets[ index ];
+        }
+
+        void add( char c, int target ) {
+            int index = -Arrays.binarySearch( keys, 0, size, c ) - 1;
+            if ( size == keys.length ) {
+                keys = Arrays.copyOf( keys, size * 2 );
+                targets = Arrays.copyOf( targets, size * 2 );
+            }
+            System.arraycopy( keys, index, keys, index + 1, size - index );
+            System.arraycopy( targets, index, targets, index + 1, size - index );
+            keys[ index ] = c;
+            targets[ index ] = target;
+            size++;
+        }
+
+        void addOutput( int id ) {
+            outputs = Arrays.copyOf( outputs, outputs.length + 1 );
+            outputs[ outputs.length - 1 ] = id;
+        }
+
+        int[] outputs() {
+            return outputs;
+        }
+    }
+}
@@ -8,6 +8,11 @@ import java.util.Optional;
  */
 public interface DateTimeFormatGuess {
 
+    /**
+     * Value returned by {@link #parseEpochNanos(CharSequence)} when a line does not contain a date-time.
+     */
+    long NO_DATE_TIME = Long.MIN_VALUE;
+
     /**
      * Convert the given line to a date-time if possible.
      *
@@ -17,4 +22,45 @@ public interface DateTimeFormatGuess {
      */
     Optional<ZonedDateTime> guessDateTime( String line );
 
+    /**
+     * Convert the given line to the number of nanoseconds since the epoch of its date-time, if possible.
+     * <p>
+     * This is equivalent to {@link #guessDateTime(String)}, but implementations may avoid creating intermediate
+     * objects, which matters when many lines must be parsed.
+     *
+     * @param line log line that might contain a date-time
+     * @return the epoch-nanos of the date-time if the line contained it in a format this guess could understand,
+     * {@link #NO_DATE_TIME} otherwise. Date-times too far from the epoch are clamped to the representable range.
+     */
+    default long parseEpochNanos( CharSequence line ) {
+        var dateTime = guessDateTime( line.toString() );
+        if ( dateTime.isEmpty() ) {
+            return NO_DATE_TIME;
+        }
+        return toEpochNanos( dateTime.get() );
+    }
+
+    /**
+     * @param dateTime date-time
+     * @return the number of nanoseconds since the epoch of the date-time, clamped as by
+     * {@link #toEpochNanos(long, int)}
+     */
+    static long toEpochNanos( ZonedDateTime dateTime ) {
+        return toEpochNanos( dateTime.toEpochSecond(), dateTime.getNano() );
+    }
+
+    /**
+     * @param epochSecond seconds since the epoch
+     * @param nano        nanoseconds within the second
+     * @return the number of nanoseconds since the epoch, clamped to the range of values that
+     * can be returned by {@link #parseEpochNanos(CharSequence)}
+     */
+    static long toEpochNanos( long epochSecond, int nano ) {
+        try {
+            return Math.addExact( Math.multiplyExact( epochSecond, 1_000_000_000L ), nano );
+        } catch ( ArithmeticException e ) {
+            return epochSecond < 0 ? NO_DATE_TIME + 1 : Long.MAX_VALUE;
+        }
+    }
+
 }
@@ -3,6 +3,7 @@ package com.athaydes.logfx.text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.CharBuffer;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -121,7 +122,7 @@ public final class DateTimeFormatGuesser {
     public Optional<DateTimeFormatGuess> guessDateTimeFormats( Iterable<String> lines ) {
         Map<DateTimeFormatGuess, Integer> countByGuess = new HashMap<>( 3 );
 
-        var guessers = multiGuess.getGuesses();
+        var guessers = multiGuess.currentGuesses();
 
         log.trace( "Trying to guess date-time formats in log using {} guesses", guessers.size() );
 
@@ -178,9 +179,20 @@ public final class DateTimeFormatGuesser {
         return guesses;
     }
 
+    /**
+     * A guess that tries several guesses, returning the date-time found by the first one that matches a line.
+     * <p>
+     * As most lines in a log file have the same format, the guess that matched the previous line is tried first.
+     * <p>
+     * Guesses with a hand-written parser for their format are replaced with a {@link StandardParserGuess}
+     * once every time the guesses change.
+     */
     public static final class MultiDateTimeFormatGuess implements DateTimeFormatGuess {
         private final AtomicReference<Collection<? extends DateTimeFormatGuess>> guesses;
 
+        private volatile ResolvedGuesses resolvedGuesses;
+        private volatile LastMatch lastMatch;
+
         public MultiDateTimeFormatGuess( AtomicReference<Collection<? extends DateTimeFormatGuess>> guesses ) {
             this.guesses = guesses;
         }
@@ -191,18 +203,83 @@ public final class DateTimeFormatGuesser {
 
         @Override
         public Optional<ZonedDateTime> guessDateTime( String line ) {
-            var effectiveLine = line.substring( 0, Math.min( MAX_CHARS_TO_LOOK_FOR_DATE, line.length() ) );
+            var effectiveLine = line.length() > MAX_CHARS_TO_LOOK_FOR_DATE
+                    ? line.substring( 0, MAX_CHARS_TO_LOOK_FOR_DATE )
+                    : line;
+
+            var currentGuesses = currentGuesses();
+            var lastGuess = lastGuess( currentGuesses );
+            if ( lastGuess != null ) {
+                var result = lastGuess.guessDateTime( effectiveLine );
+                if ( result.isPresent() ) return result;
+            }
+            for ( var guess : currentGuesses ) {
+                if ( guess == lastGuess ) continue;
+                var result = guess.guessDateTime( effectiveLine );
+                if ( result.isPresent() ) {
+                    lastMatch = new LastMatch( currentGuesses, guess );
+                    return result;
+                }
+            }
+            return Optional.empty();
+        }
 
-            return guesses.get().stream()
-                    .map( guesser -> guesser.guessDateTime( effectiveLine ) )
-                    .filter( Optional::isPresent )
-                    .map( Optional::get )
-                    .findFirst();
+        @Override
+        public long parseEpochNanos( CharSequence line ) {
+            var effectiveLine = line.length() > MAX_CHARS_TO_LOOK_FOR_DATE
+                    ? CharBuffer.wrap( line, 0, MAX_CHARS_TO_LOOK_FOR_DATE )
+                    : line;
+
+            var currentGuesses = currentGuesses();
+            var lastGuess = lastGuess( currentGuesses );
+            if ( lastGuess != null ) {
+                long result = lastGuess.parseEpochNanos( effectiveLine );
+                if ( result != NO_DATE_TIME ) return result;
+            }
+            for ( var guess : currentGuesses ) {
+                if ( guess == lastGuess ) continue;
+                long result = guess.parseEpochNanos( effectiveLine );
+                if ( result != NO_DATE_TIME ) {
+                    lastMatch = new LastMatch( currentGuesses, guess );
+                    return result;
+                }
+            }
+            return NO_DATE_TIME;
         }
 
         public Collection<? extends DateTimeFormatGuess> getGuesses() {
             return guesses.get();
         }
+
+        /**
+         * @return the current guesses, using the hand-written parser of each guess that has one.
+         */
+        List<DateTimeFormatGuess> currentGuesses() {
+            var current = guesses.get();
+            var resolved = resolvedGuesses;
+            if ( resolved == null || resolved.guesses() != current ) {
+                resolved = new ResolvedGuesses( current, current.stream()
+                        .map( StandardParserGuess::withStandardParser )
+                        .toList() );
+                resolvedGuesses = resolved;
+            }
+            return resolved.withParsers();
+        }
+
+        /**
+         * @return the guess that matched the last line, or null if no line matched since the guesses were last set.
+         */
+        private DateTimeFormatGuess lastGuess( Collection<? extends DateTimeFormatGuess> currentGuesses ) {
+            var match = lastMatch;
+            return match != null && match.guesses() == currentGuesses ? match.guess() : null;
+        }
+
+        private record ResolvedGuesses( Collection<? extends DateTimeFormatGuess> guesses,
+                                        List<DateTimeFormatGuess> withParsers ) {
+        }
+
+        private record LastMatch( Collection<? extends DateTimeFormatGuess> guesses, DateTimeFormatGuess guess ) {
+        }
     }
 
 }
@@ -4,6 +4,7 @@ import com.athaydes.logfx.data.LogLineColors;
 import javafx.scene.paint.Paint;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 /**
@@ -18,6 +19,8 @@ public final class HighlightExpression {
     private final Paint bkgColor;
     private final Paint fillColor;
     private final boolean isFiltered;
+    private final String requiredLiteral;
+    private final LogLineColors logLineColors;
 
     public HighlightExpression( String expression, Paint bkgColor, Paint fillColor, boolean isFiltered ) {
         this( Pattern.compile( expression ), bkgColor, fillColor, isFiltered );
@@ -28,6 +31,8 @@ public final class HighlightExpression {
         this.bkgColor = bkgColor;
         this.fillColor = fillColor;
         this.isFiltered = isFiltered;
+        this.requiredLiteral = PatternLiterals.requiredLiteral( expression ).orElse( null );
+        this.logLineColors = new LogLineColors( bkgColor, fillColor );
     }
 
     public Paint getBkgColor() {
@@ -46,8 +51,15 @@ public final class HighlightExpression {
         return isFiltered;
     }
 
+    /**
+     * @return literal text that any line matching this expression must contain, if any.
+     */
+    public Optional<String> getRequiredLiteral() {
+        return Optional.ofNullable( requiredLiteral );
+    }
+
     public LogLineColors getLogLineColors() {
-        return new LogLineColors( bkgColor, fillColor );
+        return logLineColors;
     }
 
     public boolean matches( String text ) {
@@ -0,0 +1,84 @@
+package com.athaydes.logfx.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds the first of a list of {@link HighlightExpression}s that matches a line.
+ * <p>
+ * The literals of all expressions are searched for with a single pass over the line. Expressions that only
+ * match a literal need nothing else, and the regular expressions of the other expressions only run
+ * if the line contains the literal they require (if they require any) and no earlier expression matched.
+ * <p>
+ * Instances of this class are immutable and can be used from any Thread.
+ */
+public final class HighlightMatcher {
+
+    private final List<HighlightExpression> expressions;
+
+    // whether each expression matches exactly when its literal is found
+    private final boolean[] literalOnly;
+
+    // whether each expression can only match if its literal is found
+    private final boolean[] requiresLiteral;
+
+    // null if no expression has a literal
+    private final AhoCorasick literalSearch;
+
+    public HighlightMatcher( List<HighlightExpression> expressions ) {
+        this.expressions = List.copyOf( expressions );
+        this.literalOnly = new boolean[ this.expressions.size() ];
+        this.requiresLiteral = new boolean[ this.expressions.size() ];
+
+        var literals = new ArrayList<String>();
+        var ids = new int[ this.expressions.size() ];
+        for ( int i = 0; i < this.expressions.size(); i++ ) {
+            var expression = this.expressions.get( i );
+            Optional<String> literal = PatternLiterals.literalOf( expression.getPattern() );
+            if ( literal.isPresent() ) {
+                literalOnly[ i ] = true;
+            } else {
+                literal = expression.getRequiredLiteral();
+            }
+            if ( literal.isPresent() ) {
+                requiresLiteral[ i ] = true;
+                ids[ literals.size() ] = i;
+                literals.add( literal.get() );
+            }
+        }
+
+        this.literalSearch = literals.isEmpty()
+                ? null
+                : new AhoCorasick( literals, Arrays.copyOf( ids, literals.size() ) );
+    }
+
+    /**
+     * @param line to match
+     * @return the index of the first expression matching the line, or -1 if none matches
+     */
+    public int firstMatch( String line ) {
+        if ( line == null ) {
+            line = "";
+        }
+        boolean[] found = null;
+        if ( literalSearch != null ) {
+            found = new boolean[ expressions.size() ];
+            literalSearch.findAll( line, found );
+        }
+        for ( int i = 0; i < expressions.size(); i++ ) {
+            if ( requiresLiteral[ i ] && !found[ i ] ) {
+                continue;
+            }
+            if ( literalOnly[ i ] || expressions.get( i ).matches( line ) ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public List<HighlightExpression> getExpressions() {
+        return expressions;
+    }
+}
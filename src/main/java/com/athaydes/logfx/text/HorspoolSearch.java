@@ -0,0 +1,54 @@
+package com.athaydes.logfx.text;
+
+import java.util.Arrays;
+
+/**
+ * Boyer-Moore-Horspool search for a sequence of bytes.
+ * <p>
+ * This is used to search for literal text directly in the bytes of a file, before they are decoded.
+ */
+final class HorspoolSearch {
+
+    private final byte[] needle;
+    private final int[] shifts = new int[ 256 ];
+
+    HorspoolSearch( byte[] needle ) {
+        if ( needle.length == 0 ) {
+            throw new IllegalArgumentException( "Cannot search for empty sequence" );
+        }
+        this.needle = needle;
+        int last = needle.length - 1;
+        Arrays.fill( shifts, needle.length );
+        for ( int i = 0; i < last; i++ ) {
+            shifts[ needle[ i ] & 0xFF ] = last - i;
+        }
+    }
+
+    /**
+     * @param bytes to search
+     * @param start index to start searching from
+     * @param end   index to stop searching at (exclusive)
+     * @return the index of the first occurrence of the needle, or -1 if it is not found
+     */
+    int indexOf( byte[] bytes, int start, int end ) {
+        int last = needle.length - 1;
+        int i = start;
+        while ( i <= end - needle.length ) {
+            byte b = bytes[ i + last ];
+            if ( b == needle[ last ] && matchesAt( bytes, i ) ) {
+                return i;
+            }
+            i += shifts[ b & 0xFF ];
+        }
+        return -1;
+    }
+
+    private boolean matchesAt( byte[] bytes, int index ) {
+        for ( int j = needle.length - 2; j >= 0; j-- ) {
+            if ( bytes[ index + j ] != needle[ j ] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
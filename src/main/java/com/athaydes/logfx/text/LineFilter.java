@@ -0,0 +1,91 @@
+package com.athaydes.logfx.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Line filter that accepts lines matching any of a list of {@link HighlightExpression}s.
+ * <p>
+ * If every expression requires some literal text to match, the raw bytes of a line can be checked with
+ * {@link #mayMatch(byte[], int, int)} before decoding it, so that most lines can be rejected without
+ * running any regular expression.
+ * <p>
+ * Two filters are equal if they use the same regular expressions, regardless of the colors of the expressions.
+ */
+public final class LineFilter implements Predicate<String> {
+
+    private final List<HighlightExpression> expressions;
+
+    // the regular expressions, including their flags, are all that matters for equality
+    private final List<String> patterns;
+
+    // null if at least one expression does not require any literal
+    private final List<HorspoolSearch> literalSearches;
+
+    public LineFilter( List<HighlightExpression> expressions ) {
+        this.expressions = List.copyOf( expressions );
+        this.literalSearches = literalSearchesFor( this.expressions );
+        this.patterns = this.expressions.stream()
+                .map( e -> e.getPattern().flags() + "/" + e.getPattern().pattern() )
+                .toList();
+    }
+
+    private static List<HorspoolSearch> literalSearchesFor( List<HighlightExpression> expressions ) {
+        var result = new ArrayList<HorspoolSearch>( expressions.size() );
+        for ( HighlightExpression expression : expressions ) {
+            Optional<String> literal = expression.getRequiredLiteral();
+            if ( literal.isEmpty() ) {
+                return null;
+            }
+            result.add( new HorspoolSearch( literal.get().getBytes( StandardCharsets.UTF_8 ) ) );
+        }
+        return result;
+    }
+
+    @Override
+    public boolean test( String line ) {
+        for ( HighlightExpression expression : expressions ) {
+            if ( expression.matches( line ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a line, given as UTF-8 bytes, may be accepted by this filter.
+     *
+     * @param bytes  buffer containing the line
+     * @param start  start index of the line
+     * @param length length of the line
+     * @return false if the line is certainly not accepted by this filter, true if it may be.
+     */
+    public boolean mayMatch( byte[] bytes, int start, int length ) {
+        if ( literalSearches == null ) {
+            return true;
+        }
+        for ( HorspoolSearch search : literalSearches ) {
+            if ( search.indexOf( bytes, start, start + length ) >= 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        LineFilter that = ( LineFilter ) o;
+        return patterns.equals( that.patterns );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( patterns );
+    }
+}
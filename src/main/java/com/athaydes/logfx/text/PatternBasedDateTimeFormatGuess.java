@@ -16,6 +16,10 @@ import java.util.regex.Pattern;
  * and a formatter which can then parse the date-time.
  * <p>
  * The pattern must use the given group to extract the date-time.
+ * <p>
+ * When used by a {@link DateTimeFormatGuesser.MultiDateTimeFormatGuess}, guesses with the same pattern and formatter
+ * as one of the {@link DateTimeFormatGuesser#standardGuesses()} parse lines with a hand-written parser for their
+ * format instead.
  *
  * @param name            name for this guess
  * @param linePattern     pattern that can extract a date-time from a log line
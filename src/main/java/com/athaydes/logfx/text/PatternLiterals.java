@@ -0,0 +1,309 @@
+package com.athaydes.logfx.text;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Finds literal text that any match of a regular expression must contain.
+ * <p>
+ * The analysis is conservative: whenever the expression uses a construct that is not understood
+ * (flags, top-level alternation, some escapes), no literal is returned.
+ */
+final class PatternLiterals {
+
+    private PatternLiterals() {
+    }
+
+    /**
+     * @param pattern regular expression
+     * @return the literal text matched by the pattern, if the pattern only matches that literal
+     */
+    static Optional<String> literalOf( Pattern pattern ) {
+        if ( pattern.flags() != 0 ) {
+            return Optional.empty();
+        }
+        var regex = pattern.pattern();
+        var literal = new StringBuilder( regex.length() );
+
+        int i = 0;
+        while ( i < regex.length() ) {
+            char c = regex.charAt( i );
+            if ( c == '\\' ) {
+                if ( i + 1 >= regex.length() ) {
+                    return Optional.empty();
+                }
+                char next = regex.charAt( i + 1 );
+                if ( next == 'Q' ) {
+                    int end = regex.indexOf( "\\E", i + 2 );
+                    if ( end < 0 ) end = regex.length();
+                    literal.append( regex, i + 2, end );
+                    i = Math.min( regex.length(), end + 2 );
+                } else if ( Character.isLetterOrDigit( next ) ) {
+                    return Optional.empty();
+                } else {
+                    literal.append( next );
+                    i += 2;
+                }
+            } else if ( "|*+?{}()[].^$".indexOf( c ) >= 0 ) {
+                return Optional.empty();
+            } else {
+                literal.append( c );
+                i++;
+            }
+        }
+
+        return literal.isEmpty() ? Optional.empty() : Optional.of( literal.toString() );
+    }
+
+    /**
+     * @param pattern regular expression
+     * @return the longest literal that any match of the pattern must contain, if any can be found
+     */
+    static Optional<String> requiredLiteral( Pattern pattern ) {
+        if ( pattern.flags() != 0 ) {
+            return Optional.empty();
+        }
+        var regex = pattern.pattern();
+        var longest = "";
+        var current = new StringBuilder();
+
+        int i = 0;
+        while ( i < regex.length() ) {
+            char c = regex.charAt( i );
+
+            // length of the last literal atom added to current, or 0 if the last atom was not a literal
+            int atomLength = 0;
+
+            switch ( c ) {
+                case '|', '*', '+', '?', '{' -> {
+                    // alternation at the top level, or quantifier without an atom
+                    return Optional.empty();
+                }
+                case '(' -> {
+                    if ( hasInlineFlags( regex, i ) ) {
+                        return Optional.empty();
+                    }
+                    i = skipGroup( regex, i );
+                    longest = commit( current, longest );
+                }
+                case '[' -> {
+                    i = skipCharacterClass( regex, i );
+                    longest = commit( current, longest );
+                }
+                case '\\' -> {
+                    if ( i + 1 >= regex.length() ) {
+                        return Optional.empty();
+                    }
+                    char next = regex.charAt( i + 1 );
+                    if ( next == 'Q' ) {
+                        int end = regex.indexOf( "\\E", i + 2 );
+                        if ( end < 0 ) end = regex.length();
+                        var quoted = regex.substring( i + 2, end );
+                        current.append( quoted );
+                        atomLength = quoted.isEmpty() ? 0 : Character.charCount( quoted.codePointBefore( quoted.length() ) );
+                        i = Math.min( regex.length(), end + 2 );
+                    } else if ( Character.isLetterOrDigit( next ) ) {
+                        i = skipEscape( regex, i );
+                        if ( i < 0 ) {
+                            return Optional.empty();
+                        }
+                        longest = commit( current, longest );
+                    } else {
+                        current.append( next );
+                        atomLength = 1;
+                        i += 2;
+                    }
+                }
+                case '.', '^', '$' -> {
+                    i++;
+                    longest = commit( current, longest );
+                }
+                default -> {
+                    int codePoint = regex.codePointAt( i );
+                    current.appendCodePoint( codePoint );
+                    atomLength = Character.charCount( codePoint );
+                    i += atomLength;
+                }
+            }
+
+            if ( i < 0 ) {
+                return Optional.empty();
+            }
+
+            // check if the atom is quantified
+            if ( i < regex.length() && isQuantifier( regex.charAt( i ) ) ) {
+                int minimum = minimumRepetitions( regex, i );
+                if ( minimum < 0 ) {
+                    return Optional.empty();
+                }
+                i = skipQuantifier( regex, i );
+                if ( minimum == 0 ) {
+                    // the atom is optional
+                    current.setLength( current.length() - atomLength );
+                }
+                // the atom may repeat, so it cannot be joined with what comes after it
+                longest = commit( current, longest );
+            }
+        }
+
+        longest = commit( current, longest );
+        return longest.isEmpty() ? Optional.empty() : Optional.of( longest );
+    }
+
+    private static String commit( StringBuilder current, String longest ) {
+        var result = current.length() > longest.length() ? current.toString() : longest;
+        current.setLength( 0 );
+        return result;
+    }
+
+    private static boolean isQuantifier( char c ) {
+        return c == '*' || c == '+' || c == '?' || c == '{';
+    }
+
+    private static int minimumRepetitions( String regex, int i ) {
+        return switch ( regex.charAt( i ) ) {
+            case '*', '?' -> 0;
+            case '+' -> 1;
+            default -> {
+                int end = i + 1;
+                while ( end < regex.length() && Character.isDigit( regex.charAt( end ) ) ) end++;
+                if ( end == i + 1 ) yield -1;
+                try {
+                    yield Integer.parseInt( regex.substring( i + 1, end ) );
+                } catch ( NumberFormatException e ) {
+                    yield -1;
+                }
+            }
+        };
+    }
+
+    private static int skipQuantifier( String regex, int i ) {
+        if ( regex.charAt( i ) == '{' ) {
+            int end = regex.indexOf( '}', i );
+            i = end < 0 ? regex.length() : end + 1;
+        } else {
+            i++;
+        }
+        // lazy or possessive quantifier
+        if ( i < regex.length() && ( regex.charAt( i ) == '?' || regex.charAt( i ) == '+' ) ) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean hasInlineFlags( String regex, int i ) {
+        if ( i + 2 >= regex.length() || regex.charAt( i + 1 ) != '?' ) {
+            return false;
+        }
+        char c = regex.charAt( i + 2 );
+        return c != ':' && c != '=' && c != '!' && c != '<' && c != '>';
+    }
+
+    /**
+     * @return the index after the group starting at the given index, or -1 if the group is not closed
+     */
+    private static int skipGroup( String regex, int i ) {
+        int depth = 0;
+        while ( i < regex.length() ) {
+            char c = regex.charAt( i );
+            if ( c == '\\' ) {
+                if ( isQuote( regex, i ) ) return -1;
+                i += 2;
+                continue;
+            }
+            if ( c == '[' ) {
+                i = skipCharacterClass( regex, i );
+                if ( i < 0 ) return -1;
+                continue;
+            }
+            if ( c == '(' ) {
+                depth++;
+            } else if ( c == ')' ) {
+                depth--;
+                if ( depth == 0 ) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the character class starting at the given index, or -1 if it is not closed
+     */
+    private static int skipCharacterClass( String regex, int i ) {
+        int depth = 1;
+        i++;
+        if ( i < regex.length() && regex.charAt( i ) == '^' ) i++;
+        // a closing bracket right at the start is a literal
+        if ( i < regex.length() && regex.charAt( i ) == ']' ) i++;
+        while ( i < regex.length() ) {
+            char c = regex.charAt( i );
+            if ( c == '\\' ) {
+                if ( isQuote( regex, i ) ) return -1;
+                i += 2;
+                continue;
+            }
+            if ( c == '[' ) {
+                depth++;
+            } else if ( c == ']' ) {
+                depth--;
+                if ( depth == 0 ) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the escape sequence (backslash followed by a letter or digit) at the given index,
+     * or -1 if it cannot be parsed
+     */
+    private static int skipEscape( String regex, int i ) {
+        char c = regex.charAt( i + 1 );
+        i += 2;
+        switch ( c ) {
+            case 'x' -> {
+                return i < regex.length() && regex.charAt( i ) == '{' ? skipPast( regex, i, '}' ) : i + 2;
+            }
+            case 'u' -> {
+                return i + 4;
+            }
+            case 'c' -> {
+                return i + 1;
+            }
+            case '0' -> {
+                int end = i;
+                while ( end < regex.length() && end < i + 3 && regex.charAt( end ) >= '0' && regex.charAt( end ) <= '7' ) {
+                    end++;
+                }
+                return end;
+            }
+            case 'p', 'P', 'N' -> {
+                return i < regex.length() && regex.charAt( i ) == '{' ? skipPast( regex, i, '}' ) : i + 1;
+            }
+            case 'k' -> {
+                return i < regex.length() && regex.charAt( i ) == '<' ? skipPast( regex, i, '>' ) : -1;
+            }
+            default -> {
+                if ( Character.isDigit( c ) ) {
+                    // back-reference
+                    while ( i < regex.length() && Character.isDigit( regex.charAt( i ) ) ) i++;
+                }
+                return i;
+            }
+        }
+    }
+
+    private static boolean isQuote( String regex, int i ) {
+        return i + 1 < regex.length() && regex.charAt( i + 1 ) == 'Q';
+    }
+
+    private static int skipPast( String regex, int i, char end ) {
+        int index = regex.indexOf( end, i );
+        return index < 0 ? -1 : index + 1;
+    }
+}
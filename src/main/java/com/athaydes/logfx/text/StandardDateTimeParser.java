@@ -0,0 +1,857 @@
+package com.athaydes.logfx.text;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.time.format.ResolverStyle;
+import java.time.format.TextStyle;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Hand-written parsers for the date-time formats of {@link DateTimeFormatGuesser#standardGuesses()}.
+ * <p>
+ * Each parser mirrors the line pattern and the formatter of one standard guess, but reads the date-time fields
+ * directly from the line, without regular expressions, formatters or intermediate Strings.
+ * <p>
+ * Only the usual shape of each format is parsed. When a line matches the line pattern of the guess in some other way
+ * (e.g. with unusual spacing or field widths), the parser returns {@link #UNSUPPORTED} so that the guess can fall back
+ * to its regex and formatter, keeping the results exactly the same as theirs.
+ */
+enum StandardDateTimeParser {
+
+    // 2024-07-02T14:20:14:009+0000
+    ISO2( "ISO2", false ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            int i = start;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 1 || yearDigits > 4 || !charIs( s, i + yearDigits, '-' ) ) return NO_MATCH;
+            f.year = number( s, i, yearDigits );
+            i += yearDigits + 1;
+            int monthDigits = digitRun( s, i );
+            if ( monthDigits < 1 || monthDigits > 4 || !charIs( s, i + monthDigits, '-' ) ) return NO_MATCH;
+            f.month = number( s, i, monthDigits );
+            i += monthDigits + 1;
+            int dayDigits = digitRun( s, i );
+            if ( dayDigits < 1 || dayDigits > 4 || !charIs( s, i + dayDigits, 'T' ) ) return NO_MATCH;
+            f.day = number( s, i, dayDigits );
+            i += dayDigits + 1;
+            i = parseTime( s, i, f, ':' );
+            if ( i < 0 ) return NO_MATCH;
+            int fractionDigits = digitRun( s, i );
+            if ( fractionDigits < 1 || fractionDigits > 9 ) return NO_MATCH;
+            f.nano = fraction( s, i, fractionDigits );
+            i += fractionDigits;
+            int spaces = spaceRun( s, i );
+            if ( spaces > 2 || !isSign( s, i + spaces ) ) return NO_MATCH;
+            int signAt = i + spaces;
+            if ( digitRun( s, signAt + 1 ) < 4 ) return NO_MATCH;
+
+            // the line matches the pattern, check that the formatter would parse it the usual way
+            if ( yearDigits != 4 || monthDigits > 2 || dayDigits > 2 || fractionDigits > 3 || spaces != 0 ) {
+                return UNSUPPORTED;
+            }
+            if ( !setOffset( f, s, signAt, 2, true ) ) return UNSUPPORTED;
+            return finish( s, signAt + 5, f );
+        }
+    },
+
+    // 2017-09-11T18:13:57.483+02:00
+    ISO( "ISO", false ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            int i = start;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 1 || yearDigits > 4 || !charIs( s, i + yearDigits, '-' ) ) return NO_MATCH;
+            f.year = number( s, i, yearDigits );
+            i += yearDigits + 1;
+            int monthDigits = digitRun( s, i );
+            if ( monthDigits < 1 || monthDigits > 4 || !charIs( s, i + monthDigits, '-' ) ) return NO_MATCH;
+            f.month = number( s, i, monthDigits );
+            i += monthDigits + 1;
+            int dayDigits = digitRun( s, i );
+            if ( dayDigits < 1 || dayDigits > 4 || !charIs( s, i + dayDigits, 'T' ) ) return NO_MATCH;
+            f.day = number( s, i, dayDigits );
+            i += dayDigits + 1;
+            i = parseTime( s, i, f, NONE );
+            if ( i == NO_MATCH_INDEX ) return NO_MATCH;
+            if ( i == UNSUPPORTED_INDEX ) return UNSUPPORTED;
+            if ( charIs( s, i, '.' ) && digitRun( s, i + 1 ) > 0 ) {
+                int fractionDigits = digitRun( s, i + 1 );
+                if ( fractionDigits > 3 ) return UNSUPPORTED;
+                f.nano = fraction( s, i + 1, fractionDigits );
+                i += fractionDigits + 1;
+            }
+            if ( yearDigits != 4 || monthDigits > 2 || dayDigits > 2 ) return UNSUPPORTED;
+            int tz = offsetZone( s, i );
+            if ( tz == NO_MATCH_INDEX ) {
+                return finish( s, i, f );
+            }
+            // only +HH:MM is parsed the usual way by the formatter's zone text
+            if ( tzSpaces( tz ) != 0 || tzFirstDigits( tz ) != 2 || !tzColon( tz ) || tzSecondDigits( tz ) != 2 ) {
+                return UNSUPPORTED;
+            }
+            if ( !setOffset( f, s, i, 3, true ) ) return UNSUPPORTED;
+            return finish( s, i + 6, f );
+        }
+    },
+
+    // Tue Aug 11 21:55:22 CEST 2020
+    COMMON( "Common", true ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            // the day-of-week is optional, but the pattern tries to match it first
+            if ( isWord( s, start ) && isWord( s, start + 1 ) && isWord( s, start + 2 ) && isSpace( s, start + 3 ) ) {
+                int spaces = spaceRun( s, start + 3 );
+                int result = parseRest( s, start + 3 + spaces, f );
+                if ( result != NO_MATCH ) {
+                    if ( result == UNSUPPORTED || spaces != 1 || !charIs( s, start + 3, ' ' ) ) return UNSUPPORTED;
+                    f.dayOfWeek = nameIndex( s, start, DAYS );
+                    return f.dayOfWeek == 0 ? UNSUPPORTED : MATCH;
+                }
+                f.reset();
+            }
+            return parseRest( s, start, f );
+        }
+
+        private int parseRest( CharSequence s, int start, Fields f ) {
+            int i = start;
+            if ( !( isWord( s, i ) && isWord( s, i + 1 ) && isWord( s, i + 2 ) && isSpace( s, i + 3 ) ) ) {
+                return NO_MATCH;
+            }
+            f.month = nameIndex( s, i, MONTHS );
+            int spaces1 = spaceRun( s, i + 3 );
+            i += 3 + spaces1;
+            int dayDigits = digitRun( s, i );
+            if ( dayDigits < 1 || dayDigits > 2 || !isSpace( s, i + dayDigits ) ) return NO_MATCH;
+            f.day = number( s, i, dayDigits );
+            i += dayDigits;
+            int spaces2 = spaceRun( s, i );
+            i += spaces2;
+            int timeStart = i;
+            i = parseTime( s, i, f, SPACE );
+            if ( i < 0 ) return NO_MATCH;
+            boolean twoDigitTime = i - timeStart == 8;
+            int spaces3 = spaceRun( s, i );
+            i += spaces3;
+            int zoneStart = i;
+            int zoneLength = wordRun( s, i );
+            if ( zoneLength < 1 || zoneLength > 10 || !isSpace( s, i + zoneLength ) ) return NO_MATCH;
+            i += zoneLength;
+            int spaces4 = spaceRun( s, i );
+            i += spaces4;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 2 ) return NO_MATCH;
+
+            // the line matches the pattern, check that the formatter would parse it the usual way
+            if ( f.month == 0 || dayDigits != 2 || !twoDigitTime || yearDigits < 4 ||
+                    !singleSpaces( s, start + 3, spaces1 ) || !singleSpaces( s, timeStart - spaces2, spaces2 ) ||
+                    !singleSpaces( s, zoneStart - spaces3, spaces3 ) || !singleSpaces( s, zoneStart + zoneLength, spaces4 ) ) {
+                return UNSUPPORTED;
+            }
+            f.year = number( s, i, 4 );
+            f.zone = ZoneNames.find( s, zoneStart, zoneLength, f.locale );
+            if ( f.zone == null ) return UNSUPPORTED;
+            return finish( s, i + 4, f );
+        }
+    },
+
+    // 10/Oct/2000:13:55:36 -0700
+    NCSA( "NCSA", true ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            int i = start;
+            int dayLength = wordRun( s, i );
+            if ( dayLength < 1 || dayLength > 10 || !isDateSeparator( s, i + dayLength ) ) return NO_MATCH;
+            boolean usualDay = dayLength <= 2 && digitRun( s, i ) == dayLength;
+            if ( usualDay ) f.day = number( s, i, dayLength );
+            boolean usualSeparators = charIs( s, i + dayLength, '/' );
+            i += dayLength + 1;
+            int monthLength = wordRun( s, i );
+            if ( monthLength < 1 || monthLength > 10 || !isDateSeparator( s, i + monthLength ) ) return NO_MATCH;
+            if ( monthLength == 3 ) f.month = nameIndex( s, i, MONTHS );
+            usualSeparators &= charIs( s, i + monthLength, '/' );
+            i += monthLength + 1;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 2 || yearDigits > 4 ) return NO_MATCH;
+            f.year = number( s, i, yearDigits );
+            i += yearDigits;
+            char separator = i < s.length() ? s.charAt( i ) : 0;
+            int separatorLength;
+            if ( ( separator == 'T' || separator == ':' || isSpace( separator ) ) && isDigit( s, i + 1 ) ) {
+                separatorLength = 1;
+            } else if ( isSpace( separator ) && isSpace( s, i + 1 ) && isDigit( s, i + 2 ) ) {
+                separatorLength = 2;
+            } else {
+                return NO_MATCH;
+            }
+            i += separatorLength;
+            i = parseTime( s, i, f, NONE );
+            if ( i == NO_MATCH_INDEX ) return NO_MATCH;
+            if ( i == UNSUPPORTED_INDEX ) return UNSUPPORTED;
+
+            // the line matches the pattern, check that the formatter would parse it the usual way
+            if ( !usualDay || f.month == 0 || !usualSeparators || yearDigits != 4 || separator != ':' ) {
+                return UNSUPPORTED;
+            }
+            int tz = offsetZone( s, i );
+            if ( tz == NO_MATCH_INDEX ) {
+                return finish( s, i, f );
+            }
+            // only ' +HHMM' is parsed the usual way by the formatter
+            if ( tzSpaces( tz ) != 1 || !charIs( s, i, ' ' ) || tzFirstDigits( tz ) != 2 || tzColon( tz ) ||
+                    tzSecondDigits( tz ) != 2 ) {
+                return UNSUPPORTED;
+            }
+            if ( !setOffset( f, s, i + 1, 2, true ) ) return UNSUPPORTED;
+            return finish( s, i + 6, f );
+        }
+    },
+
+    // Tue, 3 Jun 2008 11:05:30 GMT
+    RFC_1123( "RFC-1123", false ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            int i = start;
+            if ( !( isWord( s, i ) && isWord( s, i + 1 ) && isWord( s, i + 2 ) && charIs( s, i + 3, ',' ) ) ) {
+                return NO_MATCH;
+            }
+            f.dayOfWeek = nameIndex( s, i, DAYS );
+            i += 4;
+            int spaces1 = spaceRun( s, i );
+            if ( spaces1 < 1 ) return NO_MATCH;
+            i += spaces1;
+            int dayDigits = digitRun( s, i );
+            if ( dayDigits < 1 || dayDigits > 2 || !isSpace( s, i + dayDigits ) ) return NO_MATCH;
+            f.day = number( s, i, dayDigits );
+            i += dayDigits;
+            int spaces2 = spaceRun( s, i );
+            i += spaces2;
+            int monthLength = wordRun( s, i );
+            if ( monthLength < 1 || monthLength > 10 || !isSpace( s, i + monthLength ) ) return NO_MATCH;
+            if ( monthLength == 3 ) f.month = nameIndex( s, i, MONTHS );
+            i += monthLength;
+            int spaces3 = spaceRun( s, i );
+            i += spaces3;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 2 || yearDigits > 4 || !isSpace( s, i + yearDigits ) ) return NO_MATCH;
+            f.year = number( s, i, yearDigits );
+            i += yearDigits;
+            int spaces4 = spaceRun( s, i );
+            i += spaces4;
+            int timeStart = i;
+            i = parseTime( s, i, f, SPACE );
+            if ( i < 0 ) return NO_MATCH;
+            boolean twoDigitTime = i - timeStart == 8;
+            int spaces5 = spaceRun( s, i );
+            i += spaces5;
+            int tzStart = i;
+            boolean gmt = charIs( s, i, 'G' ) && charIs( s, i + 1, 'M' ) && charIs( s, i + 2, 'T' );
+            if ( !gmt && !( isSign( s, i ) && digitRun( s, i + 1 ) >= 4 ) ) return NO_MATCH;
+
+            // the line matches the pattern, check that the formatter would parse it the usual way
+            if ( f.dayOfWeek == 0 || f.month == 0 || yearDigits != 4 || !twoDigitTime ||
+                    !singleSpaces( s, start + 4, spaces1 ) || !singleSpaces( s, timeStart - spaces4, spaces4 ) ||
+                    !singleSpaces( s, tzStart - spaces5, spaces5 ) || spaces2 != 1 || spaces3 != 1 ||
+                    !charIs( s, start + 4 + spaces1 + dayDigits, ' ' ) ||
+                    !charIs( s, start + 4 + spaces1 + dayDigits + 1 + monthLength, ' ' ) ) {
+                return UNSUPPORTED;
+            }
+            if ( gmt ) {
+                f.hasOffset = true;
+                f.offsetSeconds = 0;
+                return finish( s, tzStart + 3, f );
+            }
+            if ( !setOffset( f, s, tzStart, 2, true ) ) return UNSUPPORTED;
+            return finish( s, tzStart + 5, f );
+        }
+    },
+
+    // 2020-06-21 18:33:34-07
+    APPLE( "APPLE", false ) {
+        @Override
+        int parseAt( CharSequence s, int start, Fields f ) {
+            int i = start;
+            int yearDigits = digitRun( s, i );
+            if ( yearDigits < 1 || yearDigits > 4 || !charIs( s, i + yearDigits, '-' ) ) return NO_MATCH;
+            f.year = number( s, i, yearDigits );
+            i += yearDigits + 1;
+            int monthDigits = digitRun( s, i );
+            if ( monthDigits < 1 || monthDigits > 2 || !charIs( s, i + monthDigits, '-' ) ) return NO_MATCH;
+            f.month = number( s, i, monthDigits );
+            i += monthDigits + 1;
+            int dayDigits = digitRun( s, i );
+            if ( dayDigits < 1 || dayDigits > 2 || !isSpace( s, i + dayDigits ) ) return NO_MATCH;
+            f.day = number( s, i, dayDigits );
+            i += dayDigits;
+            int spaces = spaceRun( s, i );
+            boolean singleSpace = spaces == 1 && charIs( s, i, ' ' );
+            i += spaces;
+            i = parseTime( s, i, f, ZONE_OR_FRACTION );
+            if ( i < 0 ) return NO_MATCH;
+            int fractionDigits = 0;
+            if ( charIs( s, i, '.' ) ) {
+                fractionDigits = digitRun( s, i + 1 );
+                if ( fractionDigits < 1 || fractionDigits > 9 ) return NO_MATCH;
+                f.nano = fraction( s, i + 1, Math.min( fractionDigits, 3 ) );
+                i += fractionDigits + 1;
+            }
+            if ( !isSign( s, i ) ) return NO_MATCH;
+            int offsetDigits = digitRun( s, i + 1 );
+            if ( offsetDigits < 1 ) return NO_MATCH;
+
+            // the line matches the pattern, check that the formatter would parse it the usual way
+            if ( yearDigits != 4 || !singleSpace || fractionDigits > 3 || offsetDigits < 2 ) return UNSUPPORTED;
+            if ( !setOffset( f, s, i, 0, false ) ) return UNSUPPORTED;
+            return finish( s, i + 3, f );
+        }
+    };
+
+    /**
+     * The line matches the format and its fields were parsed.
+     */
+    static final int MATCH = 1;
+
+    /**
+     * The line does not match the line pattern of the format.
+     */
+    static final int NO_MATCH = 0;
+
+    /**
+     * The line matches the line pattern of the format, but must be parsed by the formatter of the guess.
+     */
+    static final int UNSUPPORTED = -1;
+
+    // the line pattern of all formats allow a prefix of up to 20 of these characters before the date-time
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    private static final int NO_MATCH_INDEX = -1;
+    private static final int UNSUPPORTED_INDEX = -2;
+
+    // characters that must follow the seconds of the time
+    private static final int NONE = 0;
+    private static final int SPACE = 1;
+    private static final int ZONE_OR_FRACTION = 2;
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    private static final String[] DAYS = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+
+    private static final ThreadLocal<Fields> FIELDS = ThreadLocal.withInitial( Fields::new );
+
+    private final String guessName;
+    private final boolean usesNames;
+
+    StandardDateTimeParser( String guessName, boolean usesNames ) {
+        this.guessName = guessName;
+        this.usesNames = usesNames;
+    }
+
+    /**
+     * Parse the date-time fields of the line into the given fields, starting at the given position.
+     *
+     * @return {@link #MATCH}, {@link #NO_MATCH} or {@link #UNSUPPORTED}
+     */
+    abstract int parseAt( CharSequence line, int start, Fields fields );
+
+    /**
+     * Find the parser that parses lines exactly as the given guess does.
+     *
+     * @param guess date-time format guess
+     * @return the parser, or empty if the guess is not one of the standard guesses
+     */
+    static Optional<StandardDateTimeParser> forGuess( PatternBasedDateTimeFormatGuess guess ) {
+        if ( guess.linePattern().flags() != 0 ) return Optional.empty();
+        for ( var standard : StandardGuesses.GUESSES ) {
+            if ( standard.linePattern().pattern().equals( guess.linePattern().pattern() ) &&
+                    standard.formatterString().equals( guess.formatterString() ) ) {
+                for ( var parser : values() ) {
+                    if ( parser.guessName.equals( standard.name() ) &&
+                            parser.canReplace( standard.formatter(), guess.formatter() ) ) {
+                        return Optional.of( parser );
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean canReplace( DateTimeFormatter standard, DateTimeFormatter formatter ) {
+        if ( standard == formatter ) {
+            return !usesNames || hasEnglishNames( formatter.getLocale() );
+        }
+        // RFC-1123 is a built-in formatter, which cannot be created from a pattern
+        return this != RFC_1123 &&
+                formatter.toString().equals( standard.toString() ) &&
+                formatter.getZone() == null &&
+                formatter.getChronology() == null &&
+                formatter.getResolverStyle() == ResolverStyle.SMART &&
+                formatter.getDecimalStyle().equals( DecimalStyle.STANDARD ) &&
+                ( !usesNames || hasEnglishNames( formatter.getLocale() ) );
+    }
+
+    /**
+     * Parse the line.
+     *
+     * @param line   the line
+     * @param fields the fields of the date-time found in the line, set if the result is {@link #MATCH}
+     * @return {@link #MATCH}, {@link #NO_MATCH} or {@link #UNSUPPORTED}
+     */
+    int parse( CharSequence line, Fields fields ) {
+        int maxStart = 0;
+        int maxPrefixLength = Math.min( MAX_PREFIX_LENGTH, line.length() );
+        while ( maxStart < maxPrefixLength && isPrefix( line.charAt( maxStart ) ) ) {
+            maxStart++;
+        }
+        // the prefix is greedy, so the longest prefix after which the date-time matches is used
+        for ( int start = maxStart; start >= 0; start-- ) {
+            fields.reset();
+            int result = parseAt( line, start, fields );
+            if ( result != NO_MATCH ) {
+                return result == MATCH && fields.isValid() ? MATCH : UNSUPPORTED;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * @return the fields of the calling Thread, which can be reused by every parse in that Thread.
+     */
+    static Fields fields( Locale locale ) {
+        var fields = FIELDS.get();
+        fields.locale = locale;
+        return fields;
+    }
+
+    private static boolean hasEnglishNames( Locale locale ) {
+        for ( var month : Month.values() ) {
+            if ( !month.getDisplayName( TextStyle.SHORT, locale ).equals( MONTHS[ month.ordinal() ] ) ) return false;
+        }
+        for ( var day : DayOfWeek.values() ) {
+            if ( !day.getDisplayName( TextStyle.SHORT, locale ).equals( DAYS[ day.ordinal() ] ) ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse a time with 1 or 2 digits for each field, separated by ':', followed by the given separator.
+     *
+     * @return the index after the time, or a negative value if the time does not match
+     */
+    private static int parseTime( CharSequence s, int i, Fields f, int next ) {
+        int hourDigits = digitRun( s, i );
+        if ( hourDigits < 1 || hourDigits > 2 || !charIs( s, i + hourDigits, ':' ) ) return NO_MATCH_INDEX;
+        f.hour = number( s, i, hourDigits );
+        i += hourDigits + 1;
+        int minuteDigits = digitRun( s, i );
+        if ( minuteDigits < 1 || minuteDigits > 2 || !charIs( s, i + minuteDigits, ':' ) ) return NO_MATCH_INDEX;
+        f.minute = number( s, i, minuteDigits );
+        i += minuteDigits + 1;
+        int secondDigits = digitRun( s, i );
+        if ( secondDigits < 1 ) return NO_MATCH_INDEX;
+        if ( secondDigits > 2 ) {
+            // when nothing needs to follow, the pattern matches the first 2 digits, but it's unusual
+            return next == NONE ? UNSUPPORTED_INDEX : NO_MATCH_INDEX;
+        }
+        f.second = number( s, i, secondDigits );
+        i += secondDigits;
+        if ( next == ':' ) {
+            return charIs( s, i, ':' ) ? i + 1 : NO_MATCH_INDEX;
+        }
+        if ( next == SPACE && !isSpace( s, i ) ) return NO_MATCH_INDEX;
+        if ( next == ZONE_OR_FRACTION && !( charIs( s, i, '.' ) || isSign( s, i ) ) ) return NO_MATCH_INDEX;
+        return i;
+    }
+
+    /**
+     * Match an optional zone offset with the pattern {@code \s{0,2}[+-]\d{1,2}(:)?\d{1,2}}.
+     * <p>
+     * As the pattern is followed by {@code .*}, the first alternative that matches is the one used by the pattern.
+     *
+     * @return the matched alternative, see {@link #tzSpaces(int)} and related methods, or {@link #NO_MATCH_INDEX}
+     */
+    private static int offsetZone( CharSequence s, int i ) {
+        int spaces = spaceRun( s, i );
+        if ( spaces > 2 || !isSign( s, i + spaces ) ) return NO_MATCH_INDEX;
+        int digitsStart = i + spaces + 1;
+        int digits = digitRun( s, digitsStart );
+        for ( int first = 2; first >= 1; first-- ) {
+            if ( digits < first ) continue;
+            if ( charIs( s, digitsStart + first, ':' ) ) {
+                int second = digitRun( s, digitsStart + first + 1 );
+                if ( second > 0 ) return tz( spaces, first, true, Math.min( second, 2 ) );
+            }
+            if ( digits > first ) {
+                return tz( spaces, first, false, Math.min( digits - first, 2 ) );
+            }
+        }
+        return NO_MATCH_INDEX;
+    }
+
+    private static int tz( int spaces, int firstDigits, boolean colon, int secondDigits ) {
+        return spaces | ( firstDigits << 2 ) | ( colon ? 1 << 4 : 0 ) | ( secondDigits << 5 );
+    }
+
+    private static int tzSpaces( int tz ) {
+        return tz & 3;
+    }
+
+    private static int tzFirstDigits( int tz ) {
+        return ( tz >> 2 ) & 3;
+    }
+
+    private static boolean tzColon( int tz ) {
+        return ( tz & ( 1 << 4 ) ) != 0;
+    }
+
+    private static int tzSecondDigits( int tz ) {
+        return ( tz >> 5 ) & 3;
+    }
+
+    /**
+     * Set the offset of the fields from a sign followed by 2 hour digits and, optionally, 2 minute digits.
+     *
+     * @param minutesAt position of the minutes relative to the hours (or 0 if there are no minutes)
+     * @return true if the offset is valid, false otherwise
+     */
+    private static boolean setOffset( Fields f, CharSequence s, int signAt, int minutesAt, boolean hasMinutes ) {
+        int hours = number( s, signAt + 1, 2 );
+        int minutes = hasMinutes ? number( s, signAt + 1 + minutesAt, 2 ) : 0;
+        if ( hours > 18 || minutes > 59 || ( hours == 18 && minutes > 0 ) ) return false;
+        int seconds = hours * 3600 + minutes * 60;
+        f.hasOffset = true;
+        f.offsetSeconds = s.charAt( signAt ) == '-' ? -seconds : seconds;
+        return true;
+    }
+
+    /**
+     * Check that the rest of the line can be matched by the {@code .*} at the end of the line pattern.
+     */
+    private static int finish( CharSequence s, int end, Fields f ) {
+        for ( int i = end; i < s.length(); i++ ) {
+            char c = s.charAt( i );
+            if ( c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029' ) {
+                return UNSUPPORTED;
+            }
+        }
+        return MATCH;
+    }
+
+    private static boolean singleSpaces( CharSequence s, int i, int spaces ) {
+        return spaces == 1 && charIs( s, i, ' ' );
+    }
+
+    private static int nameIndex( CharSequence s, int i, String[] names ) {
+        for ( int n = 0; n < names.length; n++ ) {
+            String name = names[ n ];
+            if ( s.charAt( i ) == name.charAt( 0 ) && s.charAt( i + 1 ) == name.charAt( 1 ) &&
+                    s.charAt( i + 2 ) == name.charAt( 2 ) ) {
+                return n + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int number( CharSequence s, int i, int digits ) {
+        int result = 0;
+        for ( int j = i; j < i + digits; j++ ) {
+            result = result * 10 + ( s.charAt( j ) - '0' );
+        }
+        return result;
+    }
+
+    private static int fraction( CharSequence s, int i, int digits ) {
+        int result = number( s, i, digits );
+        for ( int j = digits; j < 9; j++ ) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static int digitRun( CharSequence s, int i ) {
+        int j = i;
+        while ( isDigit( s, j ) ) j++;
+        return j - i;
+    }
+
+    private static int wordRun( CharSequence s, int i ) {
+        int j = i;
+        while ( isWord( s, j ) ) j++;
+        return j - i;
+    }
+
+    private static int spaceRun( CharSequence s, int i ) {
+        int j = i;
+        while ( isSpace( s, j ) ) j++;
+        return j - i;
+    }
+
+    private static boolean charIs( CharSequence s, int i, char c ) {
+        return i < s.length() && s.charAt( i ) == c;
+    }
+
+    private static boolean isDigit( CharSequence s, int i ) {
+        if ( i >= s.length() ) return false;
+        char c = s.charAt( i );
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSign( CharSequence s, int i ) {
+        return charIs( s, i, '+' ) || charIs( s, i, '-' );
+    }
+
+    private static boolean isDateSeparator( CharSequence s, int i ) {
+        return charIs( s, i, '/' ) || charIs( s, i, '-' ) || charIs( s, i, '.' );
+    }
+
+    // regex \w
+    private static boolean isWord( CharSequence s, int i ) {
+        if ( i >= s.length() ) return false;
+        char c = s.charAt( i );
+        return ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) || ( c >= '0' && c <= '9' ) || c == '_';
+    }
+
+    // regex \s
+    private static boolean isSpace( CharSequence s, int i ) {
+        return i < s.length() && isSpace( s.charAt( i ) );
+    }
+
+    private static boolean isSpace( char c ) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // regex [a-zA-Z\[\]_ -]
+    private static boolean isPrefix( char c ) {
+        return ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) ||
+                c == '[' || c == ']' || c == '_' || c == ' ' || c == '-';
+    }
+
+    /**
+     * The fields of a date-time parsed from a line.
+     */
+    static final class Fields {
+        int year;
+        int month;
+        int day;
+        int hour;
+        int minute;
+        int second;
+        int nano;
+
+        // 1 (Monday) to 7 (Sunday), or 0 if the line does not include the day-of-week
+        int dayOfWeek;
+
+        boolean hasOffset;
+        int offsetSeconds;
+
+        // zone given by name, or null if the line has an offset or no zone at all
+        ZoneId zone;
+
+        // locale of the formatter whose format is being parsed
+        Locale locale;
+
+        // the system default zone is resolved once, as looking it up allocates a copy of the default TimeZone
+        private ZoneId defaultZone;
+
+        // the rules of the last zone used, and the range of local epoch-seconds (without gaps or overlaps)
+        // in which its offset is known, as log lines mostly have date-times close to each other
+        private ZoneId rulesZone;
+        private ZoneRules rules;
+        private long knownOffsetFrom;
+        private long knownOffsetUntil;
+        private int knownOffsetSeconds;
+
+        void reset() {
+            year = 0;
+            month = 0;
+            day = 0;
+            hour = 0;
+            minute = 0;
+            second = 0;
+            nano = 0;
+            dayOfWeek = 0;
+            hasOffset = false;
+            offsetSeconds = 0;
+            zone = null;
+        }
+
+        /**
+         * Check the fields the same way the formatters do, so that lines with invalid values can be parsed by them.
+         */
+        boolean isValid() {
+            if ( year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth( year, month ) ||
+                    hour > 23 || minute > 59 || second > 59 ) {
+                return false;
+            }
+            return dayOfWeek == 0 || dayOfWeek == Math.floorMod( epochDay() + 3, 7 ) + 1;
+        }
+
+        long epochDay() {
+            long y = year;
+            long total = 365 * y + ( y + 3 ) / 4 - ( y + 99 ) / 100 + ( y + 399 ) / 400;
+            total += ( 367L * month - 362 ) / 12;
+            total += day - 1;
+            if ( month > 2 ) {
+                total--;
+                if ( !isLeapYear( year ) ) total--;
+            }
+            // days from year 0 to 1970
+            return total - 719528L;
+        }
+
+        /**
+         * @return the epoch-second of the date-time, using the system default zone if the line had no zone
+         */
+        long epochSecond() {
+            long localSecond = epochDay() * 86400L + hour * 3600L + minute * 60L + second;
+            if ( hasOffset ) {
+                return localSecond - offsetSeconds;
+            }
+            var effectiveZone = effectiveZone();
+            if ( !effectiveZone.equals( rulesZone ) ) {
+                rulesZone = effectiveZone;
+                rules = effectiveZone.getRules();
+                knownOffsetFrom = 0L;
+                knownOffsetUntil = 0L;
+            }
+            if ( localSecond < knownOffsetFrom || localSecond >= knownOffsetUntil ) {
+                if ( !findOffsetAround( localSecond ) ) {
+                    // gaps and overlaps must be resolved as ZonedDateTime does
+                    return toZonedDateTime().toEpochSecond();
+                }
+            }
+            return localSecond - knownOffsetSeconds;
+        }
+
+        /**
+         * Find the offset of the zone rules at the given local epoch-second, and the range around it in which the
+         * offset does not change.
+         *
+         * @return false if the local date-time is in a gap or overlap, in which case the offset is not known
+         */
+        private boolean findOffsetAround( long localSecond ) {
+            if ( rules.isFixedOffset() ) {
+                knownOffsetSeconds = rules.getOffset( Instant.EPOCH ).getTotalSeconds();
+                knownOffsetFrom = Long.MIN_VALUE;
+                knownOffsetUntil = Long.MAX_VALUE;
+                return true;
+            }
+            var localDateTime = LocalDateTime.ofEpochSecond( localSecond, 0, ZoneOffset.UTC );
+            if ( rules.getTransition( localDateTime ) != null ) {
+                return false;
+            }
+            var offset = rules.getOffset( localDateTime );
+            var instant = Instant.ofEpochSecond( localSecond - offset.getTotalSeconds() );
+
+            // the last transition at or before the instant, and the first one after it
+            var previous = rules.previousTransition( instant.plusSeconds( 1L ) );
+            var next = rules.nextTransition( instant );
+            knownOffsetFrom = previous == null ? Long.MIN_VALUE : Math.max(
+                    localEpochSecond( previous.getDateTimeBefore() ), localEpochSecond( previous.getDateTimeAfter() ) );
+            knownOffsetUntil = next == null ? Long.MAX_VALUE : Math.min(
+                    localEpochSecond( next.getDateTimeBefore() ), localEpochSecond( next.getDateTimeAfter() ) );
+            knownOffsetSeconds = offset.getTotalSeconds();
+            return true;
+        }
+
+        private static long localEpochSecond( LocalDateTime dateTime ) {
+            return dateTime.toEpochSecond( ZoneOffset.UTC );
+        }
+
+        private ZoneId effectiveZone() {
+            if ( zone != null ) {
+                return zone;
+            }
+            if ( defaultZone == null ) {
+                defaultZone = ZoneId.systemDefault();
+            }
+            return defaultZone;
+        }
+
+        long epochNanos() {
+            return DateTimeFormatGuess.toEpochNanos( epochSecond(), nano );
+        }
+
+        ZonedDateTime toZonedDateTime() {
+            var dateTime = LocalDateTime.of( year, month, day, hour, minute, second, nano );
+            if ( hasOffset ) {
+                return ZonedDateTime.of( dateTime, ZoneOffset.ofTotalSeconds( offsetSeconds ) );
+            }
+            return ZonedDateTime.of( dateTime, effectiveZone() );
+        }
+
+        private static boolean isLeapYear( int year ) {
+            return ( year & 3 ) == 0 && ( year % 100 != 0 || year % 400 == 0 );
+        }
+
+        private static int lengthOfMonth( int year, int month ) {
+            return switch ( month ) {
+                case 2 -> isLeapYear( year ) ? 29 : 28;
+                case 4, 6, 9, 11 -> 30;
+                default -> 31;
+            };
+        }
+    }
+
+    /**
+     * Cache of the zones found by name in lines, as parsed by formatters with the given locale.
+     */
+    private static final class ZoneNames {
+        private static final int MAX_SIZE = 64;
+
+        private record Entry( String name, Locale locale, ZoneId zone ) {
+        }
+
+        private static volatile Entry[] entries = new Entry[ 0 ];
+
+        static ZoneId find( CharSequence s, int start, int length, Locale locale ) {
+            for ( var entry : entries ) {
+                if ( entry.name().length() == length && entry.locale().equals( locale ) &&
+                        regionMatches( s, start, entry.name() ) ) {
+                    return entry.zone();
+                }
+            }
+            var name = s.subSequence( start, start + length ).toString();
+            ZoneId zone;
+            try {
+                // names are parsed differently at the end of the text, so parse them followed by a year as in lines
+                zone = DateTimeFormatter.ofPattern( "zzz yyyy", locale ).parse( name + " 2000", ZoneId::from );
+            } catch ( DateTimeException e ) {
+                zone = null;
+            }
+            add( new Entry( name, locale, zone ) );
+            return zone;
+        }
+
+        private static synchronized void add( Entry entry ) {
+            if ( entries.length < MAX_SIZE ) {
+                var newEntries = Arrays.copyOf( entries, entries.length + 1 );
+                newEntries[ entries.length ] = entry;
+                entries = newEntries;
+            }
+        }
+
+        private static boolean regionMatches( CharSequence s, int start, String name ) {
+            for ( int i = 0; i < name.length(); i++ ) {
+                if ( s.charAt( start + i ) != name.charAt( i ) ) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class StandardGuesses {
+        static final List<PatternBasedDateTimeFormatGuess> GUESSES = DateTimeFormatGuesser.standardGuesses();
+    }
+}
@@ -0,0 +1,60 @@
+package com.athaydes.logfx.text;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+/**
+ * A {@link PatternBasedDateTimeFormatGuess} with the same line pattern and formatter as one of the
+ * {@link DateTimeFormatGuesser#standardGuesses()}, which parses lines with the hand-written parser for its format,
+ * using the pattern and formatter only for lines the parser does not support.
+ */
+final class StandardParserGuess implements DateTimeFormatGuess {
+
+    private final PatternBasedDateTimeFormatGuess guess;
+    private final StandardDateTimeParser parser;
+
+    private StandardParserGuess( PatternBasedDateTimeFormatGuess guess, StandardDateTimeParser parser ) {
+        this.guess = guess;
+        this.parser = parser;
+    }
+
+    /**
+     * Find the parser for the given guess once, so that it does not need to be found for every line.
+     *
+     * @param guess date-time format guess
+     * @return a guess using the parser for the format of the given guess if there is one,
+     * or the given guess otherwise.
+     */
+    static DateTimeFormatGuess withStandardParser( DateTimeFormatGuess guess ) {
+        if ( guess instanceof PatternBasedDateTimeFormatGuess patternGuess ) {
+            var parser = StandardDateTimeParser.forGuess( patternGuess );
+            if ( parser.isPresent() ) {
+                return new StandardParserGuess( patternGuess, parser.get() );
+            }
+        }
+        return guess;
+    }
+
+    @Override
+    public Optional<ZonedDateTime> guessDateTime( String line ) {
+        var fields = StandardDateTimeParser.fields( guess.formatter().getLocale() );
+        int result = parser.parse( line, fields );
+        if ( result == StandardDateTimeParser.MATCH ) return Optional.of( fields.toZonedDateTime() );
+        if ( result == StandardDateTimeParser.NO_MATCH ) return Optional.empty();
+        return guess.guessDateTime( line );
+    }
+
+    @Override
+    public long parseEpochNanos( CharSequence line ) {
+        var fields = StandardDateTimeParser.fields( guess.formatter().getLocale() );
+        int result = parser.parse( line, fields );
+        if ( result == StandardDateTimeParser.MATCH ) return fields.epochNanos();
+        if ( result == StandardDateTimeParser.NO_MATCH ) return NO_DATE_TIME;
+        return guess.parseEpochNanos( line );
+    }
+
+    @Override
+    public String toString() {
+        return guess.toString();
+    }
+}
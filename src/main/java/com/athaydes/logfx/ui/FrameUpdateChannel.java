@@ -0,0 +1,174 @@
+package com.athaydes.logfx.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Channel of updates to the UI that are applied at most once per JavaFX pulse.
+ * <p>
+ * Updates may be posted from any Thread. Only the latest pending update is kept: posting an update
+ * supersedes the pending one (which is merged into the new one), so when updates arrive faster than
+ * frames are rendered, the stale ones are dropped instead of queueing up in the JavaFX Thread.
+ *
+ * @param <T> type of update
+ */
+final class FrameUpdateChannel<T> {
+
+    private static final Logger log = LoggerFactory.getLogger( FrameUpdateChannel.class );
+
+    private record Pending<T>( T update, long generation, int superseded ) {
+    }
+
+    /**
+     * The frames on which updates are applied.
+     */
+    interface Frames {
+
+        /**
+         * Run an action on the Thread on which frames are rendered.
+         *
+         * @param action to run
+         */
+        void runLater( Runnable action );
+
+        /**
+         * Call the given action on every frame until {@link #stop()} is called.
+         * Must be called from the Thread on which frames are rendered.
+         *
+         * @param onFrame called on every frame
+         */
+        void start( Runnable onFrame );
+
+        /**
+         * Stop calling the action given to {@link #start(Runnable)}.
+         * Must be called from the Thread on which frames are rendered.
+         */
+        void stop();
+    }
+
+    /**
+     * The frames rendered by JavaFX, i.e. its pulses.
+     */
+    private static final class JavaFXFrames implements Frames {
+        private AnimationTimer timer;
+
+        @Override
+        public void runLater( Runnable action ) {
+            Platform.runLater( action );
+        }
+
+        @Override
+        @MustCallOnJavaFXThread
+        public void start( Runnable onFrame ) {
+            if ( timer == null ) {
+                timer = new AnimationTimer() {
+                    @Override
+                    public void handle( long now ) {
+                        onFrame.run();
+                    }
+                };
+            }
+            timer.start();
+        }
+
+        @Override
+        @MustCallOnJavaFXThread
+        public void stop() {
+            if ( timer != null ) {
+                timer.stop();
+            }
+        }
+    }
+
+    private final Consumer<T> applier;
+    private final BinaryOperator<T> merger;
+    private final Frames frames;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Pending<T>> pending = new AtomicReference<>();
+
+    // only accessed from the JavaFX Thread
+    private final Queue<AfterUpdate> afterUpdates = new ArrayDeque<>( 2 );
+    private long appliedGeneration;
+
+    private record AfterUpdate( long generation, Runnable action ) {
+    }
+
+    /**
+     * @param applier applies an update, always called from the JavaFX Thread
+     * @param merger  merges a superseded update (first argument) into the update that replaces it (second argument)
+     */
+    FrameUpdateChannel( Consumer<T> applier, BinaryOperator<T> merger ) {
+        this( applier, merger, new JavaFXFrames() );
+    }
+
+    FrameUpdateChannel( Consumer<T> applier, BinaryOperator<T> merger, Frames frames ) {
+        this.applier = applier;
+        this.merger = merger;
+        this.frames = frames;
+    }
+
+    /**
+     * Post an update to be applied on the next pulse, superseding any update still pending.
+     *
+     * @param update to apply
+     */
+    void post( T update ) {
+        var updateGeneration = generation.incrementAndGet();
+        var previous = pending.getAndUpdate( current -> current == null
+                ? new Pending<>( update, updateGeneration, 0 )
+                : new Pending<>( merger.apply( current.update(), update ),
+                Math.max( current.generation(), updateGeneration ), current.superseded() + 1 ) );
+        if ( previous == null ) {
+            // the channel was idle, make sure it's flushed on the next pulse
+            frames.runLater( () -> frames.start( this::flush ) );
+        }
+    }
+
+    /**
+     * Run an action in the JavaFX Thread once all updates posted so far have been applied.
+     *
+     * @param action to run
+     */
+    void runAfterPostedUpdates( Runnable action ) {
+        var target = generation.get();
+        frames.runLater( () -> {
+            if ( appliedGeneration >= target ) {
+                action.run();
+            } else {
+                afterUpdates.add( new AfterUpdate( target, action ) );
+            }
+        } );
+    }
+
+    @MustCallOnJavaFXThread
+    private void flush() {
+        var update = pending.getAndSet( null );
+        if ( update == null ) {
+            // nothing happened since the last pulse, stop until the next update is posted
+            frames.stop();
+            return;
+        }
+
+        if ( update.superseded() > 0 ) {
+            log.trace( "Dropped {} superseded updates", update.superseded() );
+        }
+
+        try {
+            applier.accept( update.update() );
+        } finally {
+            appliedGeneration = update.generation();
+            while ( !afterUpdates.isEmpty() && afterUpdates.peek().generation() <= appliedGeneration ) {
+                afterUpdates.poll().action().run();
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.athaydes.logfx.ui;
 
 import com.athaydes.logfx.ResourceUtils;
-import com.athaydes.logfx.concurrency.TaskRunner;
 import com.athaydes.logfx.config.Properties;
 import com.athaydes.logfx.file.FileChangeWatcher;
 import javafx.application.Platform;
@@ -74,7 +73,6 @@ public class FxUtils {
             if ( Properties.isRefreshStylesheet() ) {
                 FileChangeWatcher stylesheetWatcher = new FileChangeWatcher(
                         Properties.getCustomStylesheet().get(),
-                        TaskRunner.getGlobalInstance(),
                         resetStylesheet );
 
                 scene.getWindow().setOnCloseRequest( event -> stylesheetWatcher.close() );
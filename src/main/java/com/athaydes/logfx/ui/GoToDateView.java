@@ -16,6 +16,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.StageStyle;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -31,6 +32,15 @@ import static java.util.stream.Collectors.toList;
  */
 class GoToDateView {
 
+    private record LastDuration( String label, Duration duration ) {
+    }
+
+    private static final List<LastDuration> LAST_DURATIONS = List.of(
+            new LastDuration( "5 min", Duration.ofMinutes( 5 ) ),
+            new LastDuration( "15 min", Duration.ofMinutes( 15 ) ),
+            new LastDuration( "1 hour", Duration.ofHours( 1 ) ),
+            new LastDuration( "1 day", Duration.ofDays( 1 ) ) );
+
     private final Dialog dialog;
 
     GoToDateView( LogView selectedLogView,
@@ -59,18 +69,21 @@ class GoToDateView {
         Button goButton = new Button( "Go" );
         goButton.disableProperty().bind( dateTimeField.validProperty().not() );
 
+        Supplier<List<LogViewWrapper>> selectedViews = () -> {
+            List<LogViewWrapper> viewWrappers = new ArrayList<>( 3 );
+            if ( goToAll.isSelected() ) {
+                viewWrappers.addAll( logViewsGetter.get() );
+            } else if ( selectedLogView != null ) {
+                viewWrappers.addAll( logViewsGetter.get().stream()
+                        .filter( wrapper -> wrapper.getLogView() == selectedLogView )
+                        .collect( toList() ) );
+            }
+            return viewWrappers;
+        };
+
         EventHandler<ActionEvent> goAction = event -> {
             dateTimeField.getValue().ifPresent( dateTime -> {
-                List<LogViewWrapper> viewWrappers = new ArrayList<>( 3 );
-                if ( goToAll.isSelected() ) {
-                    viewWrappers.addAll( logViewsGetter.get() );
-                } else if ( selectedLogView != null ) {
-                    viewWrappers.addAll( logViewsGetter.get().stream()
-                            .filter( wrapper -> wrapper.getLogView() == selectedLogView )
-                            .collect( toList() ) );
-                }
-
-                for ( LogViewWrapper wrapper : viewWrappers ) {
+                for ( LogViewWrapper wrapper : selectedViews.get() ) {
                     Platform.runLater( () -> wrapper.getLogView()
                             .goTo( dateTime, wrapper::scrollTo ) );
                 }
@@ -79,6 +92,22 @@ class GoToDateView {
             dialog.hide();
         };
 
+        Label lastLabel = new Label( "Go to last:" );
+        HBox lastBox = new HBox( 10 );
+        for ( var lastDuration : LAST_DURATIONS ) {
+            Button lastButton = new Button( lastDuration.label() );
+            lastButton.setTooltip( new Tooltip( "Go to the last " + lastDuration.label() +
+                    " before the latest date-time in the log" ) );
+            lastButton.setOnAction( event -> {
+                for ( LogViewWrapper wrapper : selectedViews.get() ) {
+                    Platform.runLater( () -> wrapper.getLogView()
+                            .goToBeforeLatest( lastDuration.duration(), wrapper::scrollTo ) );
+                }
+                dialog.hide();
+            } );
+            lastBox.getChildren().add( lastButton );
+        }
+
         dateTimeField.setOnAction( goAction );
         goButton.setOnAction( goAction );
 
@@ -89,7 +118,7 @@ class GoToDateView {
         HBox buttonBox = new HBox( 10 );
         buttonBox.getChildren().addAll( goButton, goToAll );
 
-        root.getChildren().addAll( dateLabel, dateTimeField, buttonBox );
+        root.getChildren().addAll( dateLabel, dateTimeField, buttonBox, lastLabel, lastBox );
     }
 
     void show() {
@@ -0,0 +1,62 @@
+package com.athaydes.logfx.ui;
+
+import com.athaydes.logfx.ui.LogViewPane.LogViewWrapper;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.StageStyle;
+
+/**
+ * A view that allows the user to select a line number to go to in an opened log file.
+ */
+class GoToLineView {
+
+    private static long lastLineNumber = 1L;
+
+    private final Dialog dialog;
+
+    GoToLineView( LogViewWrapper wrapper ) {
+        VBox root = new VBox( 20 );
+
+        dialog = new Dialog( root );
+        dialog.setStyle( StageStyle.UNDECORATED );
+        dialog.setResizable( false );
+
+        LogView logView = wrapper.getLogView();
+        long lineCount = logView.indexedLineCount();
+
+        Label lineLabel = new Label( lineCount > 0L
+                ? "Go to line (indexed lines: " + lineCount + "):"
+                : "Go to line:" );
+
+        var lineNumber = new SimpleLongProperty( lastLineNumber );
+        LongField lineField = new LongField( lineNumber );
+        lineField.setMinWidth( 240.0 );
+
+        Button goButton = new Button( "Go" );
+
+        EventHandler<ActionEvent> goAction = event -> {
+            lastLineNumber = Math.max( 1L, lineNumber.get() );
+            logView.goToLine( lastLineNumber, wrapper::scrollTo );
+            dialog.hide();
+        };
+
+        lineField.setOnAction( goAction );
+        goButton.setOnAction( goAction );
+
+        dialog.dialogStage.focusedProperty().addListener( ( obs, oldVal, newVal ) -> {
+            if ( !newVal ) dialog.hide();
+        } );
+
+        root.getChildren().addAll( lineLabel, lineField, new HBox( 10, goButton ) );
+    }
+
+    void show() {
+        dialog.show();
+    }
+
+}
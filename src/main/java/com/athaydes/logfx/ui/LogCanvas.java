@@ -0,0 +1,452 @@
+package com.athaydes.logfx.ui;
+
+import com.athaydes.logfx.ResourceUtils;
+import com.athaydes.logfx.binding.BindableValue;
+import com.athaydes.logfx.data.LogLineColors;
+import com.athaydes.logfx.file.LogLineRef;
+import javafx.animation.Interpolator;
+import javafx.animation.Transition;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.binding.NumberBinding;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
+import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.ImagePattern;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Draws the rows of a {@link LogView} onto a {@link Canvas}, as an alternative to using a {@link LogLine} node
+ * for each row.
+ * <p>
+ * Only the part of the rows visible through the enclosing {@link ScrollPane} is drawn, so the canvas is never
+ * larger than the viewport. The font is assumed to be monospace, so the width of a row is computed from
+ * the glyph metrics measured once for each font.
+ */
+final class LogCanvas extends Region {
+
+    private static final double H_PADDING = 5.0;
+    private static final double TIME_GAP_TEXT_X = 100.0;
+    private static final Font TIME_GAP_FONT = Font.font( 10 );
+    private static final Color TIME_GAP_BG = Color.web( "#efefefff" );
+
+    private final BindableValue<Font> fontValue;
+    private final Canvas canvas = new Canvas();
+    private final List<Row> rows;
+
+    // the top of each row, followed by the total height of all rows
+    private final double[] rowTops;
+    private final Image timeGapImage;
+    private final InvalidationListener fontListener = ( ignore ) -> updateFontMetrics();
+    private final InvalidationListener viewportListener = ( ignore ) -> redraw();
+
+    private double charWidth;
+    private double lineHeight;
+    private double timeGapHeight;
+    private double maxTextWidth;
+    private boolean geometryChanged = true;
+    private ScrollPane scrollPane;
+    private TextField editor;
+    private Row editedRow;
+
+    LogCanvas( BindableValue<Font> fontValue,
+               int rowCount,
+               NumberBinding widthProperty,
+               LogLineColors colors ) {
+        this.fontValue = fontValue;
+        this.rowTops = new double[ rowCount + 1 ];
+        this.timeGapImage = new Image( ResourceUtils.resourcePath( "images/timegap.png" ) );
+
+        var rowList = new ArrayList<Row>( rowCount );
+        for ( int i = 0; i < rowCount; i++ ) {
+            rowList.add( new Row( i, colors ) );
+        }
+        this.rows = rowList;
+
+        canvas.setManaged( false );
+        getChildren().add( canvas );
+        minWidthProperty().bind( widthProperty );
+
+        updateFontMetrics();
+        fontValue.addListener( new WeakInvalidationListener( fontListener ) );
+
+        sceneProperty().addListener( ( ignore ) -> updateScrollPane() );
+
+        setOnMouseClicked( event -> {
+            if ( event.getClickCount() > 1 ) rowAt( event.getY() ).ifPresent( this::startEditing );
+        } );
+    }
+
+    List<Row> getRows() {
+        return Collections.unmodifiableList( rows );
+    }
+
+    /**
+     * Rotate the rows, so that each row moves down by the given distance (or up, if it is negative),
+     * and the rows at the end move to the other end.
+     */
+    @MustCallOnJavaFXThread
+    void rotate( int distance ) {
+        Collections.rotate( rows, distance );
+        invalidateGeometry();
+    }
+
+    /**
+     * @param y vertical position in the coordinates of this node
+     * @return the row at the given position, if any
+     */
+    Optional<Row> rowAt( double y ) {
+        updateGeometry();
+        if ( rows.isEmpty() || y < 0 || y >= rowTops[ rows.size() ] ) {
+            return Optional.empty();
+        }
+        return Optional.of( rows.get( rowIndexAt( y ) ) );
+    }
+
+    private int rowIndexAt( double y ) {
+        int index = Arrays.binarySearch( rowTops, 0, rows.size(), y );
+        if ( index < 0 ) {
+            // the row containing y is the one before the insertion point
+            index = -index - 2;
+        }
+        return Math.max( 0, Math.min( index, rows.size() - 1 ) );
+    }
+
+    private void updateFontMetrics() {
+        var sample = "0123456789";
+        var text = new Text( sample );
+        text.setFont( fontValue.getValue() );
+        charWidth = text.getLayoutBounds().getWidth() / sample.length();
+        lineHeight = text.getLayoutBounds().getHeight();
+
+        var timeGapText = new Text( sample );
+        timeGapText.setFont( TIME_GAP_FONT );
+        timeGapHeight = timeGapText.getLayoutBounds().getHeight();
+
+        invalidateGeometry();
+    }
+
+    private void updateGeometry() {
+        if ( !geometryChanged ) return;
+        geometryChanged = false;
+
+        double top = 0.0;
+        int maxLength = 0;
+        for ( int i = 0; i < rows.size(); i++ ) {
+            var row = rows.get( i );
+            rowTops[ i ] = top;
+            top += row.height();
+            maxLength = Math.max( maxLength, row.text.length() );
+        }
+        rowTops[ rows.size() ] = top;
+        maxTextWidth = maxLength * charWidth;
+    }
+
+    private void updateScrollPane() {
+        if ( scrollPane != null ) {
+            scrollPane.viewportBoundsProperty().removeListener( viewportListener );
+            scrollPane = null;
+        }
+        if ( getScene() != null ) {
+            for ( Parent parent = getParent(); parent != null; parent = parent.getParent() ) {
+                if ( parent instanceof ScrollPane pane ) {
+                    scrollPane = pane;
+                    pane.viewportBoundsProperty().addListener( viewportListener );
+                    break;
+                }
+            }
+        }
+        redraw();
+    }
+
+    /**
+     * @return the bounds of this node that are visible through the enclosing {@link ScrollPane}.
+     */
+    private Bounds visibleBounds() {
+        var bounds = getLayoutBounds();
+        var content = scrollPane == null ? null : scrollPane.getContent();
+        if ( content == null ) return bounds;
+
+        // the viewport bounds are the position of the content relative to the viewport
+        var viewport = scrollPane.getViewportBounds();
+        var visible = sceneToLocal( content.localToScene( new BoundingBox(
+                -viewport.getMinX(), -viewport.getMinY(), viewport.getWidth(), viewport.getHeight() ) ) );
+        if ( visible == null ) return bounds;
+
+        double minX = Math.max( bounds.getMinX(), visible.getMinX() );
+        double minY = Math.max( bounds.getMinY(), visible.getMinY() );
+        double maxX = Math.min( bounds.getMaxX(), visible.getMaxX() );
+        double maxY = Math.min( bounds.getMaxY(), visible.getMaxY() );
+        return new BoundingBox( minX, minY, Math.max( 0.0, maxX - minX ), Math.max( 0.0, maxY - minY ) );
+    }
+
+    /**
+     * Draw the rows again on the next pulse, without changing the layout of any other node.
+     */
+    private void redraw() {
+        setNeedsLayout( true );
+    }
+
+    private void invalidateGeometry() {
+        geometryChanged = true;
+        requestLayout();
+    }
+
+    @Override
+    protected double computePrefWidth( double height ) {
+        updateGeometry();
+        return maxTextWidth + 2 * H_PADDING;
+    }
+
+    @Override
+    protected double computePrefHeight( double width ) {
+        updateGeometry();
+        return rowTops[ rows.size() ];
+    }
+
+    @Override
+    protected double computeMinHeight( double width ) {
+        return computePrefHeight( width );
+    }
+
+    @Override
+    protected void layoutChildren() {
+        updateGeometry();
+        var visible = visibleBounds();
+        double x = Math.floor( visible.getMinX() );
+        double y = Math.floor( visible.getMinY() );
+        canvas.relocate( x, y );
+        canvas.setWidth( Math.ceil( visible.getMaxX() ) - x );
+        canvas.setHeight( Math.ceil( visible.getMaxY() ) - y );
+        draw();
+
+        if ( editor != null ) {
+            double editorY = rowTops[ editedRow.lineIndex ] + editedRow.timeGapHeight();
+            editor.resizeRelocate( 0.0, editorY,
+                    Math.max( getWidth(), editor.prefWidth( -1 ) ), editor.prefHeight( -1 ) );
+        }
+    }
+
+    private void draw() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        double left = canvas.getLayoutX();
+        double top = canvas.getLayoutY();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+
+        graphics.clearRect( 0, 0, width, height );
+        if ( rows.isEmpty() ) return;
+
+        graphics.setTextBaseline( VPos.TOP );
+        var font = fontValue.getValue();
+
+        for ( int i = rowIndexAt( top ); i < rows.size() && rowTops[ i ] < top + height; i++ ) {
+            var row = rows.get( i );
+            double y = rowTops[ i ] - top;
+
+            if ( row.timeGapText != null ) {
+                graphics.setFill( TIME_GAP_BG );
+                graphics.fillRect( 0, y, width, timeGapHeight );
+                if ( !timeGapImage.isError() ) {
+                    graphics.setFill( new ImagePattern( timeGapImage, -left, y,
+                            timeGapImage.getWidth(), timeGapImage.getHeight(), false ) );
+                    graphics.fillRect( 0, y, width, timeGapHeight );
+                }
+                graphics.setFill( Color.BLACK );
+                graphics.setFont( TIME_GAP_FONT );
+                graphics.fillText( row.timeGapText, TIME_GAP_TEXT_X - left, y );
+                y += timeGapHeight;
+            }
+
+            graphics.setFill( row.background() );
+            graphics.fillRect( 0, y, width, lineHeight );
+            graphics.setFill( row.textFill() );
+            graphics.setFont( font );
+            graphics.fillText( row.text, H_PADDING - left, y );
+        }
+    }
+
+    @MustCallOnJavaFXThread
+    private void startEditing( Row row ) {
+        stopEditing();
+        var textField = new TextField( row.getText() );
+        textField.setFont( fontValue.getValue() );
+        textField.setManaged( false );
+        textField.focusedProperty().addListener( ( ignore ) -> {
+            if ( !textField.isFocused() ) stopEditing();
+        } );
+        textField.setOnKeyPressed( event -> {
+            if ( event.getCode() == KeyCode.ESCAPE ) {
+                // focus on something else in order to trigger the listener above
+                requestFocus();
+            }
+        } );
+        editor = textField;
+        editedRow = row;
+        getChildren().add( textField );
+        requestLayout();
+        Platform.runLater( textField::requestFocus );
+    }
+
+    @MustCallOnJavaFXThread
+    private void stopEditing() {
+        var textField = editor;
+        if ( textField != null ) {
+            editor = null;
+            editedRow = null;
+            getChildren().remove( textField );
+        }
+    }
+
+    /**
+     * A row drawn by a {@link LogCanvas}.
+     */
+    final class Row implements LogRow {
+
+        private int lineIndex;
+        private LogLineRef line = LogLineRef.EMPTY;
+        private String text = "";
+        private String timeGapText;
+        private LogLineColors colors;
+        private boolean isSelected;
+
+        // set while the row is being animated
+        private Paint animatedBackground;
+
+        private Row( int lineIndex, LogLineColors colors ) {
+            this.lineIndex = lineIndex;
+            this.colors = colors;
+        }
+
+        @Override
+        public Node getNode() {
+            return LogCanvas.this;
+        }
+
+        @Override
+        public int getLineIndex() {
+            return lineIndex;
+        }
+
+        @Override
+        public void setLineIndex( int lineIndex ) {
+            this.lineIndex = lineIndex;
+        }
+
+        /**
+         * @return the full text of this line, which may require reading it from the file if it is very long.
+         */
+        @Override
+        public String getText() {
+            return line.text();
+        }
+
+        @Override
+        public LogLineRef getLine() {
+            return line;
+        }
+
+        @MustCallOnJavaFXThread
+        @Override
+        public void setText( LogLineRef line, LogLineColors colors, Duration timeGap ) {
+            var text = LogLine.displayText( line );
+            var timeGapText = timeGap == null ? null : LogLine.timeGapText( timeGap );
+            boolean sizeChanged = text.length() != this.text.length() ||
+                    ( timeGapText == null ) != ( this.timeGapText == null );
+
+            this.line = line;
+            this.colors = colors;
+            this.text = text;
+            this.timeGapText = timeGapText;
+
+            if ( sizeChanged ) {
+                invalidateGeometry();
+            } else {
+                redraw();
+            }
+        }
+
+        @MustCallOnJavaFXThread
+        @Override
+        public void setSelect( boolean select ) {
+            this.isSelected = select;
+            redraw();
+        }
+
+        @MustCallOnJavaFXThread
+        @Override
+        public void animate( Color color ) {
+            new BackgroundTransition( this, color ).play();
+        }
+
+        private double timeGapHeight() {
+            return timeGapText == null ? 0.0 : LogCanvas.this.timeGapHeight;
+        }
+
+        private double height() {
+            return timeGapHeight() + lineHeight;
+        }
+
+        private Paint background() {
+            if ( animatedBackground != null ) return animatedBackground;
+            return isSelected ? LogLine.SELECTION_BG : colors.getBackground();
+        }
+
+        private Paint textFill() {
+            return isSelected ? LogLine.SELECTION_TEXT : colors.getFill();
+        }
+    }
+
+    private final class BackgroundTransition extends Transition {
+        private final Row row;
+        private final Color originalBkgColor;
+        private final Color targetColor;
+
+        BackgroundTransition( Row row, Color targetColor ) {
+            this.row = row;
+            this.originalBkgColor = row.background() instanceof Color c ? c : Color.WHITE;
+
+            if ( targetColor.equals( originalBkgColor ) ) {
+                this.targetColor = targetColor.invert();
+            } else {
+                this.targetColor = targetColor;
+            }
+
+            setCycleDuration( javafx.util.Duration.millis( 650 ) );
+            setInterpolator( Interpolator.EASE_OUT );
+            setCycleCount( 6 );
+            setAutoReverse( true );
+            setOnFinished( event -> {
+                row.animatedBackground = null;
+                redraw();
+            } );
+        }
+
+        @Override
+        protected void interpolate( double frac ) {
+            row.animatedBackground = originalBkgColor.interpolate( targetColor, frac );
+            redraw();
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package com.athaydes.logfx.ui;
 
 import com.athaydes.logfx.binding.BindableValue;
 import com.athaydes.logfx.data.LogLineColors;
+import com.athaydes.logfx.file.LogLineRef;
 import javafx.animation.Animation;
 import javafx.animation.Interpolator;
 import javafx.animation.Transition;
@@ -25,15 +26,15 @@ import java.time.Duration;
 /**
  * Node holding a single log line in a {@link LogView}.
  */
-class LogLine extends VBox implements SelectionHandler.SelectableNode {
+class LogLine extends VBox implements LogRow {
 
-    private static final int MAX_LINE_LENGTH = 5000;
+    private static final int MAX_LINE_LENGTH = LogLineRef.MAX_PREFIX_LENGTH;
 
-    private static final Color SELECTION_BG = Color.web( "#039ED3" );
-    private static final Color SELECTION_TEXT = SELECTION_BG.deriveColor( 0, 1, 0.2, 1 );
+    static final Color SELECTION_BG = Color.web( "#039ED3" );
+    static final Color SELECTION_TEXT = SELECTION_BG.deriveColor( 0, 1, 0.2, 1 );
 
-    private final int lineIndex;
-    private String fullText = "";
+    private int lineIndex;
+    private LogLineRef line = LogLineRef.EMPTY;
     private boolean displayTimeGap;
     private final StackPane lineContainer;
     private final Text textNode;
@@ -85,9 +86,22 @@ class LogLine extends VBox implements SelectionHandler.SelectableNode {
         return lineIndex;
     }
 
+    @Override
+    public void setLineIndex( int lineIndex ) {
+        this.lineIndex = lineIndex;
+    }
+
+    /**
+     * @return the full text of this line, which may require reading it from the file if it is very long.
+     */
     @Override
     public String getText() {
-        return fullText;
+        return line.text();
+    }
+
+    @Override
+    public LogLineRef getLine() {
+        return line;
     }
 
     private void swapSelectableText() {
@@ -114,7 +128,7 @@ class LogLine extends VBox implements SelectionHandler.SelectableNode {
     @MustCallOnJavaFXThread
     private void setLineEditingChildren() {
         getChildren().clear();
-        var textField = new TextField( fullText );
+        var textField = new TextField( line.text() );
         textField.setFont( fontValue.getValue() );
         textField.minWidthProperty().bind( lineContainer.minWidthProperty() );
         textField.focusedProperty().addListener( ( ignore ) -> {
@@ -130,21 +144,12 @@ class LogLine extends VBox implements SelectionHandler.SelectableNode {
         Platform.runLater( textField::requestFocus );
     }
 
-    /**
-     * Set the text value.
-     *
-     * @param text    text value
-     * @param colors  colors of this line
-     * @param timeGap time gap duration, or null to not display a time gap
-     */
     @MustCallOnJavaFXThread
-    void setText( String text, LogLineColors colors, Duration timeGap ) {
-        this.fullText = text;
+    @Override
+    public void setText( LogLineRef line, LogLineColors colors, Duration timeGap ) {
+        this.line = line;
         this.currentColors = colors;
-        var uiText = fullText.length() > MAX_LINE_LENGTH
-                ? fullText.substring( 0, MAX_LINE_LENGTH ) + "..."
-                : fullText;
-        textNode.setText( uiText );
+        textNode.setText( displayText( line ) );
 
         if ( !isSelected ) {
             applyHighlightColors();
@@ -154,7 +159,7 @@ class LogLine extends VBox implements SelectionHandler.SelectableNode {
         if ( displayTimeGap != this.displayTimeGap ) {
             this.displayTimeGap = displayTimeGap;
             if ( displayTimeGap ) {
-                this.timeGap.setText( "Time gap: " + timeGap.toMillis() + "ms" );
+                this.timeGap.setText( timeGapText( timeGap ) );
                 getChildren().add( 0, this.timeGap );
             } else {
                 assert ( getChildren().size() == 2 );
@@ -187,8 +192,23 @@ class LogLine extends VBox implements SelectionHandler.SelectableNode {
         textNode.setFill( SELECTION_TEXT );
     }
 
+    /**
+     * @return the text to display for a line, truncated if the line is too long.
+     */
+    static String displayText( LogLineRef line ) {
+        var text = line.prefix();
+        return text.length() > MAX_LINE_LENGTH
+                ? text.substring( 0, MAX_LINE_LENGTH ) + "..."
+                : line.isComplete() ? text : text + "...";
+    }
+
+    static String timeGapText( Duration timeGap ) {
+        return "Time gap: " + timeGap.toMillis() + "ms";
+    }
+
     @MustCallOnJavaFXThread
-    void animate( Color color ) {
+    @Override
+    public void animate( Color color ) {
         Animation animation = new BackgroundTransition( color );
         animation.play();
     }
@@ -0,0 +1,39 @@
+package com.athaydes.logfx.ui;
+
+import com.athaydes.logfx.data.LogLineColors;
+import com.athaydes.logfx.file.LogLineRef;
+import javafx.scene.paint.Color;
+
+import java.time.Duration;
+
+/**
+ * A row of a {@link LogView}, displaying a single log line.
+ * <p>
+ * Rows may be nodes, as {@link LogLine}, or be drawn by a {@link LogCanvas}.
+ */
+interface LogRow extends SelectionHandler.SelectableNode {
+
+    LogLineRef getLine();
+
+    /**
+     * Set the index of this row in the view, which changes when the rows are rotated.
+     */
+    @MustCallOnJavaFXThread
+    void setLineIndex( int lineIndex );
+
+    /**
+     * Set the line value.
+     *
+     * @param line    the line
+     * @param colors  colors of this line
+     * @param timeGap time gap duration, or null to not display a time gap
+     */
+    @MustCallOnJavaFXThread
+    void setText( LogLineRef line, LogLineColors colors, Duration timeGap );
+
+    /**
+     * Flash the background of this row with the given color to draw attention to it.
+     */
+    @MustCallOnJavaFXThread
+    void animate( Color color );
+}
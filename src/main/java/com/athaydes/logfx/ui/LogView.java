@@ -3,17 +3,22 @@ package com.athaydes.logfx.ui;
 import com.athaydes.logfx.concurrency.IdentifiableRunnable;
 import com.athaydes.logfx.concurrency.TaskRunner;
 import com.athaydes.logfx.config.Config;
-import com.athaydes.logfx.data.LinesScroller;
-import com.athaydes.logfx.data.LinesSetter;
+import com.athaydes.logfx.data.LinesWindow;
 import com.athaydes.logfx.data.LogFile;
 import com.athaydes.logfx.data.LogLineColors;
+import com.athaydes.logfx.file.FileChangeEvent;
 import com.athaydes.logfx.file.FileChangeWatcher;
 import com.athaydes.logfx.file.FileContentReader;
+import com.athaydes.logfx.file.FileLines;
 import com.athaydes.logfx.file.FileSearcher;
+import com.athaydes.logfx.file.LogLineRef;
+import com.athaydes.logfx.file.TailUpdate;
 import com.athaydes.logfx.iterable.ObservableListView;
 import com.athaydes.logfx.text.DateTimeFormatGuess;
 import com.athaydes.logfx.text.DateTimeFormatGuesser;
 import com.athaydes.logfx.text.HighlightExpression;
+import com.athaydes.logfx.text.HighlightMatcher;
+import com.athaydes.logfx.text.LineFilter;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
@@ -23,6 +28,7 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.layout.VBox;
@@ -35,6 +41,8 @@ import java.io.File;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -42,8 +50,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.IntConsumer;
@@ -61,7 +69,17 @@ public class LogView extends VBox implements SelectableContainer {
 
     public static final int MAX_LINES = 512;
 
+    // a single Thread indexes the lines of all open files, one file at a time
+    private static final ExecutorService lineIndexExecutor = Executors.newSingleThreadExecutor( runnable -> {
+        var thread = new Thread( runnable, "line-indexer" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
     private final ExecutorService fileReaderExecutor = Executors.newSingleThreadExecutor();
+
+    // tasks of this view on the lineIndexExecutor, cancelled when the file reader is closed
+    private final List<Future<?>> lineIndexTasks = new ArrayList<>(); // guarded by itself
     private final BooleanProperty tailingFile = new SimpleBooleanProperty( false );
     private final BooleanProperty allowRefresh = new SimpleBooleanProperty( true );
     private final BooleanProperty showTimeGap;
@@ -73,15 +91,38 @@ public class LogView extends VBox implements SelectableContainer {
     private final TaskRunner taskRunner;
     private final SelectionHandler selectionHandler;
     private final DateTimeFormatGuesser.MultiDateTimeFormatGuess dateTimeFormatGuesser;
-    private final LinesScroller linesScroller = new LinesScroller( MAX_LINES, this::lineContent,
-            new LinesSetter( this::updateLines ) );
-    private final ReentrantLock linesLock = new ReentrantLock( true );
+
+    // the lines in the view, with their colors and time gaps, only accessed from the fileReaderExecutor Thread
+    private final LinesWindow<RowContent> window = LinesWindow.of( List.of(), MAX_LINES, RowContent.NONE );
+    private final Runnable updateLineIndex;
+    private final Runnable refreshOnFileUpdate;
+    private final Runnable refreshOnFileRewrite;
+    private final NumberBinding width;
+
+    // the rows may be read from any Thread, but are only replaced in the JavaFX Thread
+    private volatile List<LogRow> rows = List.of();
+
+    // the same rows, observed by the SelectionHandler
+    private final ObservableList<LogRow> selectableRows = FXCollections.observableArrayList();
+
+    // only set when the rows are drawn on a canvas
+    private LogCanvas logCanvas;
+
+    // what each row currently displays, only accessed from the JavaFX Thread
+    private final RowContent[] rowContents = new RowContent[ MAX_LINES ];
+
+    // updates are applied at most once per frame, dropping the ones superseded by a later update
+    private final FrameUpdateChannel<ViewUpdate> viewUpdates =
+            new FrameUpdateChannel<>( this::apply, ViewUpdate::supersededBy );
 
     private volatile Consumer<Boolean> onFileExists = ( ignore ) -> {
     };
 
     private volatile Runnable onFileUpdate = DO_NOTHING;
 
+    // the line filter used the last time the file was read
+    private volatile Predicate<String> lineFilter;
+
     // this will be set from the FileReader Thread, but may be reset to null from the JavaFX Thread
     // when the guess list is modified.
     private volatile DateTimeFormatGuess dateTimeFormatGuess = null;
@@ -90,6 +131,7 @@ public class LogView extends VBox implements SelectableContainer {
     };
     private final InvalidationListener expressionsChangeListener;
     private final InvalidationListener highlightGroupChangeListener;
+    private final InvalidationListener rendererChangeListener;
 
     @MustCallOnJavaFXThread
     public LogView( Config config,
@@ -104,8 +146,11 @@ public class LogView extends VBox implements SelectableContainer {
         this.taskRunner = taskRunner;
         this.selectionHandler = new SelectionHandler( this );
         this.logFile = logFile;
+        this.updateLineIndex = () -> runOnLineIndexer( fileContentReader::updateLineIndex );
+        this.refreshOnFileUpdate = () -> immediateOnFileChange( DO_NOTHING, true );
+        this.refreshOnFileRewrite = () -> immediateOnFileChange( DO_NOTHING, false );
 
-        this.expressionsChangeListener = ( Observable o ) -> immediateOnFileChange();
+        this.expressionsChangeListener = ( Observable o ) -> onExpressionsChange();
 
         logFile.highlightGroupProperty().addListener( expressionsChangeListener );
 
@@ -123,19 +168,19 @@ public class LogView extends VBox implements SelectableContainer {
 
         this.highlightGroupChangeListener = ( Observable o ) -> {
             highlighter.updateGroupFrom( logFile );
-            immediateOnFileChange();
+            onHighlightingChange();
+        };
+
+        this.rendererChangeListener = ( Observable o ) -> {
+            setCanvasRendering( config.canvasRenderingProperty().get() );
+            refreshView();
         };
 
         wireListeners();
 
-        final NumberBinding width = Bindings.max( widthProperty(), widthProperty );
+        this.width = Bindings.max( widthProperty(), widthProperty );
 
-        LogLineColors logLineColors = highlighter.logLineColorsFor( "" );
-
-        for ( int i = 0; i < MAX_LINES; i++ ) {
-            getChildren().add( new LogLine( config.fontProperty(), i, width,
-                    logLineColors.getBackground(), logLineColors.getFill() ) );
-        }
+        setCanvasRendering( config.canvasRenderingProperty().get() );
 
         tailingFile.addListener( event -> {
             if ( tailingFile.get() ) {
@@ -147,9 +192,11 @@ public class LogView extends VBox implements SelectableContainer {
             log.debug( "Forgetting current list of DateTimeFormatGuess for file {} because list was modified",
                     fileContentReader.getFile() );
             this.dateTimeFormatGuess = null;
+            fileContentReader.getTimeIndex().setDateTimeFormatGuess( null );
         } );
 
-        this.fileChangeWatcher = new FileChangeWatcher( logFile.file, taskRunner, this::onFileChange );
+        this.fileChangeWatcher = new FileChangeWatcher( logFile.file, event -> onFileChange( event ) );
+        fileContentReader.setOnContentsChanged( this::onFileChange );
     }
 
     @Override
@@ -171,8 +218,16 @@ public class LogView extends VBox implements SelectableContainer {
     }
 
     @Override
-    public ObservableListView<? extends SelectionHandler.SelectableNode, Node> getSelectables() {
-        return new ObservableListView<>( SelectionHandler.SelectableNode.class, getChildrenUnmodifiable() );
+    public ObservableListView<? extends SelectionHandler.SelectableNode, ?> getSelectables() {
+        return new ObservableListView<>( SelectionHandler.SelectableNode.class, selectableRows );
+    }
+
+    @Override
+    public Optional<SelectionHandler.SelectableNode> selectableAt( double x, double y ) {
+        var canvas = logCanvas;
+        if ( canvas == null ) return Optional.empty();
+        return canvas.rowAt( canvas.parentToLocal( x, y ).getY() )
+                .map( SelectionHandler.SelectableNode.class::cast );
     }
 
     @Override
@@ -186,19 +241,19 @@ public class LogView extends VBox implements SelectableContainer {
     }
 
     public Optional<Pair<SelectionHandler.SelectableNode, SelectionHandler.SelectableNode>> getSelectableEnds() {
-        var children = getChildren();
-        if ( !children.isEmpty() ) {
-            return Optional.of( new Pair<>( lineAt( 0 ), lineAt( children.size() - 1 ) ) );
+        var rows = this.rows;
+        if ( !rows.isEmpty() ) {
+            return Optional.of( new Pair<>( rows.get( 0 ), rows.get( rows.size() - 1 ) ) );
         }
         return Optional.empty();
     }
 
     private CompletionStage<SelectionHandler.SelectableNode> loadNextSelectable( boolean up ) {
         var future = new CompletableFuture<SelectionHandler.SelectableNode>();
-        moveBy( 1, up, () -> Platform.runLater( () -> {
-            var children = getChildren();
-            if ( !children.isEmpty() ) {
-                future.complete( lineAt( up ? 0 : children.size() - 1 ) );
+        moveBy( 1, up, () -> viewUpdates.runAfterPostedUpdates( () -> {
+            var rows = this.rows;
+            if ( !rows.isEmpty() ) {
+                future.complete( rows.get( up ? 0 : rows.size() - 1 ) );
             }
         } ) );
         return future;
@@ -214,6 +269,7 @@ public class LogView extends VBox implements SelectableContainer {
 
     void loadFileContents() {
         immediateOnFileChange();
+        taskRunner.runWithMaxFrequency( updateLineIndex, 5_000L, 0L );
     }
 
     void setOnFileExists( Consumer<Boolean> onFileExists ) {
@@ -250,10 +306,6 @@ public class LogView extends VBox implements SelectableContainer {
 
             moveBy( lines, deltaY > 0.0, () -> useScrollFactor.accept( scrollFactor ) );
         } ), 50L, 0L );
-
-        // much less frequently, also refresh the view to update time gaps
-        taskRunner.runWithMaxFrequency( new IdentifiableRunnable( "update-time-gaps", this::refreshView ),
-                1_500L, 250L );
     }
 
     private void moveBy( int lines, boolean up, Runnable then ) {
@@ -290,17 +342,16 @@ public class LogView extends VBox implements SelectableContainer {
     }
 
     /**
-     * Refresh the view without reloading from the file.
+     * Refresh the view without reloading from the file, finding the colors and time gaps of all lines again.
      */
     void refreshView() {
         if ( fileReaderExecutor.isShutdown() ) return;
         fileReaderExecutor.execute( () -> {
-            linesLock.lock();
-            try {
-                updateWith( getLines() );
-            } finally {
-                linesLock.unlock();
+            var lines = new ArrayList<LogLineRef>( MAX_LINES );
+            for ( int i = 0; i < MAX_LINES; i++ ) {
+                lines.add( window.get( i ).line() );
             }
+            updateAllLines( lines );
         } );
     }
 
@@ -319,84 +370,159 @@ public class LogView extends VBox implements SelectableContainer {
 
     void goTo( ZonedDateTime dateTime, IntConsumer whenDoneAcceptLineNumber ) {
         fileReaderExecutor.execute( () -> {
-            if ( dateTimeFormatGuess == null ) {
-                findFileDateTimeFormatterFromFileContents( Optional.empty() );
+            if ( ensureDateTimeFormatGuess() ) {
+                searchDateTime( dateTime, whenDoneAcceptLineNumber );
             }
-            if ( dateTimeFormatGuess == null ) {
-                log.warn( "Could not guess date-time format from this log file, " +
-                        "will not be able to find log lines by date" );
-                Dialog.showMessage( "Unable to guess date-time format in file\n" +
-                        logFile.file.getName(), Dialog.MessageLevel.INFO );
-                return;
-            }
-
-            long startTime = System.currentTimeMillis();
+        } );
+    }
 
-            FileContentReader searchReader = fileContentReader.makeCopy();
-            var searcher = new FileSearcher( searchReader );
-            var comparisonsCount = new AtomicLong( 0 );
-
-            var searchResult = searcher.search( line -> {
-                var lineDateTime = dateTimeFormatGuess.guessDateTime( line );
-                if ( lineDateTime.isEmpty() ) return FileSearcher.Comparison.UNKNOWN;
-                comparisonsCount.incrementAndGet();
-                return FileSearcher.Comparison.of( dateTime.compareTo( lineDateTime.get() ) );
-            } );
-            if ( searchResult.isEmpty() ) {
-                log.warn( "Failed to find date-time in log, could not recognize dates in the log (took {} ms)",
-                        System.currentTimeMillis() - startTime );
-
-                Dialog.showMessage( "Unable to go to date-time.\n" +
-                        "The date-times in the file could not be recognized.", Dialog.MessageLevel.WARNING );
+    /**
+     * Go to the first line logged within the given duration before the latest date-time in the file.
+     *
+     * @param duration                 how long before the latest date-time to go to
+     * @param whenDoneAcceptLineNumber called with the number of the line found in the file window
+     */
+    void goToBeforeLatest( Duration duration, IntConsumer whenDoneAcceptLineNumber ) {
+        fileReaderExecutor.execute( () -> {
+            if ( !ensureDateTimeFormatGuess() ) return;
+            var latestDateTime = fileContentReader.getTimeIndex().latestDateTime();
+            if ( latestDateTime.isEmpty() ) {
+                log.warn( "Could not find the latest date-time in the log" );
+                Dialog.showMessage( "Unable to find the latest date-time in file\n" +
+                        logFile.file.getName(), Dialog.MessageLevel.WARNING );
                 return;
             }
-
-            // the searchReader found a result, so we need to copy its state to the original reader
-            fileContentReader.copyState( searchReader );
-            final var result = searchResult.get();
-            if ( log.isInfoEnabled() ) {
-                log.info( "Successfully found date (took {} ms, {} comparisons): {}, result: {}",
-                        System.currentTimeMillis() - startTime, comparisonsCount.get(), dateTime, result );
-            }
-            onFileChange( () -> Platform.runLater( () -> {
-                LogLine line = lineAt( result.lineNumber() );
-                line.animate( result.resultCase() != FileSearcher.ResultCase.AT ? Color.RED : Color.LAWNGREEN );
-                whenDoneAcceptLineNumber.accept( result.lineNumber() );
-            } ) );
+            searchDateTime( latestDateTime.get().minus( duration ), whenDoneAcceptLineNumber );
         } );
     }
 
-    void onFileUpdate( Runnable onFileUpdate ) {
-        this.onFileUpdate = onFileUpdate;
+    // must be called from fileReaderExecutor Thread
+    private boolean ensureDateTimeFormatGuess() {
+        if ( dateTimeFormatGuess == null ) {
+            findFileDateTimeFormatterFromFileContents( Optional.empty() );
+        }
+        if ( dateTimeFormatGuess == null ) {
+            log.warn( "Could not guess date-time format from this log file, " +
+                    "will not be able to find log lines by date" );
+            Dialog.showMessage( "Unable to guess date-time format in file\n" +
+                    logFile.file.getName(), Dialog.MessageLevel.INFO );
+            return false;
+        }
+        return true;
     }
 
-    private String lineContent( int index ) {
-        return lineAt( index ).getText();
-    }
+    // must be called from fileReaderExecutor Thread
+    private void searchDateTime( ZonedDateTime dateTime, IntConsumer whenDoneAcceptLineNumber ) {
+        var formatGuess = dateTimeFormatGuess;
+        if ( formatGuess == null ) return;
 
-    private List<String> getLines() {
-        var result = new ArrayList<String>( MAX_LINES );
-        for ( int i = 0; i < MAX_LINES; i++ ) {
-            result.add( lineContent( i ) );
+        long startTime = System.currentTimeMillis();
+
+        FileContentReader searchReader = fileContentReader.makeCopy();
+        var searcher = new FileSearcher( searchReader );
+        var comparisonsCount = new AtomicLong( 0 );
+
+        long targetEpochNanos = DateTimeFormatGuess.toEpochNanos( dateTime );
+
+        FileSearcher.SearchFunction searchFunction = line -> {
+            long lineEpochNanos = formatGuess.parseEpochNanos( line );
+            if ( lineEpochNanos == DateTimeFormatGuess.NO_DATE_TIME ) return FileSearcher.Comparison.UNKNOWN;
+            comparisonsCount.incrementAndGet();
+            return FileSearcher.Comparison.of( Long.compare( targetEpochNanos, lineEpochNanos ) );
+        };
+
+        Optional<FileSearcher.SearchResult> searchResult;
+        if ( searchReader.getTimeIndex().covers( dateTime ) ) {
+            // start searching from the closest line in the time index, so only a small part of the file is scanned
+            searchReader.goToDateTime( dateTime );
+            searchResult = searcher.search( searchFunction );
+        } else {
+            // the time index has not reached the date-time yet, bisect the file instead of waiting for it
+            searchResult = searcher.bisect( searchFunction );
+            log.debug( "Bisection stats: {}", searcher.bisectionStats() );
         }
-        return result;
-    }
+        if ( searchResult.isEmpty() ) {
+            log.warn( "Failed to find date-time in log, could not recognize dates in the log (took {} ms)",
+                    System.currentTimeMillis() - startTime );
 
-    private void updateLines( List<LinesSetter.LineChange> changes ) {
-        var allLines = new String[ MAX_LINES ];
-        for ( var change : changes ) {
-            allLines[ change.index() ] = change.text();
+            Dialog.showMessage( "Unable to go to date-time.\n" +
+                    "The date-times in the file could not be recognized.", Dialog.MessageLevel.WARNING );
+            return;
         }
+
+        // the searchReader found a result, so we need to copy its state to the original reader
+        fileContentReader.copyState( searchReader );
+        final var result = searchResult.get();
+        if ( log.isInfoEnabled() ) {
+            log.info( "Successfully found date (took {} ms, {} comparisons): {}, result: {}",
+                    System.currentTimeMillis() - startTime, comparisonsCount.get(), dateTime, result );
+        }
+        onFileChange( () -> viewUpdates.runAfterPostedUpdates( () -> {
+            LogRow line = lineAt( result.lineNumber() );
+            line.animate( result.resultCase() != FileSearcher.ResultCase.AT ? Color.RED : Color.LAWNGREEN );
+            whenDoneAcceptLineNumber.accept( result.lineNumber() );
+        } ) );
+    }
+
+    void goToLine( long lineNumber, IntConsumer whenDoneAcceptLineNumber ) {
+        goToLine( lineNumber, whenDoneAcceptLineNumber, false );
+    }
+
+    private void goToLine( long lineNumber, IntConsumer whenDoneAcceptLineNumber, boolean indexed ) {
         fileReaderExecutor.execute( () -> {
-            linesLock.lock();
-            try {
-                updateWith( List.of( allLines ) );
-            } finally {
-                linesLock.unlock();
+            long startTime = System.currentTimeMillis();
+            if ( !fileContentReader.goToLine( lineNumber ) ) {
+                if ( indexed ) {
+                    log.warn( "Unable to index the file until line {}", lineNumber );
+                } else {
+                    // index the file in the background, so that the file window can still move meanwhile
+                    log.debug( "Line {} has not been indexed yet, indexing file until it is found", lineNumber );
+                    runOnLineIndexer( () -> {
+                        fileContentReader.getLineIndex().updateUntilLine( lineNumber );
+                        synchronized ( lineIndexTasks ) {
+                            // the reader may have been closed while the file was indexed
+                            if ( !fileReaderExecutor.isShutdown() ) {
+                                goToLine( lineNumber, whenDoneAcceptLineNumber, true );
+                            }
+                        }
+                    } );
+                }
+                return;
             }
+            log.debug( "Found line {} in {} ms", lineNumber, System.currentTimeMillis() - startTime );
+            onFileChange( () -> viewUpdates.runAfterPostedUpdates( () -> {
+                lineAt( 0 ).animate( Color.LAWNGREEN );
+                whenDoneAcceptLineNumber.accept( 0 );
+            } ) );
         } );
     }
 
+    /**
+     * Run a task on the lineIndexExecutor, unless the file reader of this view has been closed.
+     */
+    private void runOnLineIndexer( Runnable task ) {
+        synchronized ( lineIndexTasks ) {
+            if ( fileReaderExecutor.isShutdown() ) return;
+            lineIndexTasks.removeIf( Future::isDone );
+            lineIndexTasks.add( lineIndexExecutor.submit( () -> {
+                if ( !fileReaderExecutor.isShutdown() ) {
+                    task.run();
+                }
+            } ) );
+        }
+    }
+
+    /**
+     * @return the number of lines in the file found so far by the background indexer.
+     */
+    long indexedLineCount() {
+        return fileContentReader.getLineIndex().lineCount();
+    }
+
+    void onFileUpdate( Runnable onFileUpdate ) {
+        this.onFileUpdate = onFileUpdate;
+    }
+
     // must be called from fileReaderExecutor Thread
     private DateTimeFormatGuess findFileDateTimeFormatterFromFileContents(
             @SuppressWarnings( "OptionalUsedAsFieldOrParameterType" ) Optional<List<String>> lines ) {
@@ -411,6 +537,7 @@ public class LogView extends VBox implements SelectableContainer {
                     log.debug( "Updating List of DateTime guesses for file {}: {}", fileContentReader.getFile(),
                             result );
                     dateTimeFormatGuess = result;
+                    fileContentReader.getTimeIndex().setDateTimeFormatGuess( result );
                 }
             } else {
                 result = dateTimeFormatGuess;
@@ -423,125 +550,382 @@ public class LogView extends VBox implements SelectableContainer {
         return result;
     }
 
+    // Must call from the fileReaderExecutor Thread
     private void addTopLines( List<String> topLines ) {
         log.debug( "Setting {} top lines", topLines.size() );
-        Platform.runLater( () -> linesScroller.setTopLines( topLines ) );
+        if ( topLines.isEmpty() ) return;
+        var lines = FileLines.refsOf( topLines );
+        int count = Math.min( MAX_LINES, lines.size() );
+        boolean formatKnown = dateTimeFormatGuess != null;
+        var timeGaps = timeGapsFinder( lines );
+        var contents = contentsOf( lines.subList( 0, count ), timeGaps, DateTimeFormatGuess.NO_DATE_TIME );
+        int shift = window.addTopLines( contents );
+
+        var changes = new ArrayList<RowChange>( count + 1 );
+        for ( int i = 0; i < count; i++ ) {
+            changes.add( new RowChange( i, contents.get( i ) ) );
+        }
+
+        // the first line below the new lines that has a date-time now has a previous line to find its time gap from
+        long previousTime = timeGaps == null ? DateTimeFormatGuess.NO_DATE_TIME : latestTime( window, count );
+        if ( previousTime != DateTimeFormatGuess.NO_DATE_TIME ) {
+            for ( int i = count; i < MAX_LINES; i++ ) {
+                var content = window.get( i );
+                if ( content.time() != DateTimeFormatGuess.NO_DATE_TIME ) {
+                    var updated = content.withTimeGap( timeGaps.gapBetween( previousTime, content.time() ) );
+                    if ( !updated.equals( content ) ) {
+                        window.set( i, updated );
+                        changes.add( new RowChange( i, updated ) );
+                    }
+                    break;
+                }
+            }
+        }
+
+        post( new ViewUpdate( changes, shift ), timeGaps != null && !formatKnown );
     }
 
+    // Must call from the fileReaderExecutor Thread
     private void addBottomLines( List<String> bottomLines ) {
-        log.debug( "Setting {} bottom lines", bottomLines.size() );
-        Platform.runLater( () -> linesScroller.setBottomLines( bottomLines ) );
+        addBottomLines( FileLines.refsOf( bottomLines ), 0 );
+    }
+
+    // Must call from the fileReaderExecutor Thread
+    private void addBottomLines( List<LogLineRef> lines, int overlap ) {
+        log.debug( "Setting {} bottom lines", lines.size() - overlap );
+        if ( lines.isEmpty() ) return;
+        int count = Math.min( MAX_LINES, lines.size() );
+        boolean formatKnown = dateTimeFormatGuess != null;
+        var timeGaps = timeGapsFinder( lines );
+
+        // the time gap of the first new line is found from the closest line before it with a date-time
+        long previousTime = count == MAX_LINES || timeGaps == null
+                ? DateTimeFormatGuess.NO_DATE_TIME
+                : latestTime( window, MAX_LINES - overlap );
+        var contents = contentsOf( lines.subList( lines.size() - count, lines.size() ), timeGaps, previousTime );
+        int shift = window.addBottomLines( contents, overlap );
+
+        var changes = new ArrayList<RowChange>( count );
+        for ( int i = 0; i < count; i++ ) {
+            changes.add( new RowChange( MAX_LINES - count + i, contents.get( i ) ) );
+        }
+
+        post( new ViewUpdate( changes, -shift ), timeGaps != null && !formatKnown );
     }
 
     private void onFileChange() {
         onFileUpdate.run();
         if ( allowRefresh.get() ) {
-            taskRunner.runWithMaxFrequency( this::immediateOnFileChange, 2_000L, 0L );
+            // when tailing, only the appended lines are read, so the view can be updated more often
+            taskRunner.runWithMaxFrequency( refreshOnFileUpdate, tailingFile.get() ? 500L : 2_000L, 0L );
+        }
+        taskRunner.runWithMaxFrequency( updateLineIndex, 5_000L, 0L );
+    }
+
+    private void onFileChange( FileChangeEvent event ) {
+        if ( event.kind() == FileChangeEvent.Kind.APPEND || !tailingFile.get() ) {
+            onFileChange();
+            return;
+        }
+
+        // the file was truncated, replaced or deleted, so the tail cannot be followed incrementally
+        log.debug( "File {} changed ({}), reading its tail again", logFile.file, event.kind() );
+        onFileUpdate.run();
+        if ( allowRefresh.get() ) {
+            taskRunner.runWithMaxFrequency( refreshOnFileRewrite, 500L, 0L );
         }
+        taskRunner.runWithMaxFrequency( updateLineIndex, 5_000L, 0L );
     }
 
     private void onFileChange( Runnable andThen ) {
         if ( allowRefresh.get() ) {
-            taskRunner.runWithMaxFrequency( () -> immediateOnFileChange( andThen ), 2_000L, 0L );
+            taskRunner.runWithMaxFrequency( () -> immediateOnFileChange( andThen, false ), 2_000L, 0L );
         }
     }
 
     private void immediateOnFileChange() {
-        immediateOnFileChange( DO_NOTHING );
+        immediateOnFileChange( DO_NOTHING, false );
     }
 
-    private void immediateOnFileChange( Runnable andThen ) {
+    @MustCallOnJavaFXThread
+    private void onExpressionsChange() {
+        highlighter.update();
+        onHighlightingChange();
+    }
+
+    /**
+     * Recolor the lines currently displayed if the line filter did not change,
+     * otherwise read the lines from the file again.
+     */
+    @MustCallOnJavaFXThread
+    private void onHighlightingChange() {
+        if ( Objects.equals( highlighter.getLineFilter().orElse( null ), lineFilter ) ) {
+            log.debug( "Line filter did not change, recoloring lines without reading file {}", logFile.file );
+            refreshView();
+        } else {
+            immediateOnFileChange();
+        }
+    }
+
+    /**
+     * Refresh the view with the current file contents.
+     *
+     * @param andThen         action to run after the file has been read
+     * @param incrementalTail whether, if tailing the file, only lines appended since the last update may be read.
+     *                        If false, the whole view is refreshed (e.g. because the expressions have changed).
+     */
+    private void immediateOnFileChange( Runnable andThen, boolean incrementalTail ) {
         if ( fileReaderExecutor.isShutdown() ) return;
         Predicate<String> filter = highlighter.getLineFilter().orElse( null );
+        lineFilter = filter;
         fileReaderExecutor.execute( () -> {
             fileContentReader.setLineFilter( filter );
+            final boolean fileExists;
             if ( tailingFileProperty().get() ) {
-                fileContentReader.tail();
-            }
-            Optional<? extends List<String>> lines = fileContentReader.refresh();
-            lines.ifPresent( it -> {
-                linesLock.lock();
-                try {
-                    updateWith( it );
-                } finally {
-                    linesLock.unlock();
+                if ( !incrementalTail ) {
+                    // forget the previous tail so it is read again from scratch
+                    fileContentReader.tail();
                 }
-            } );
+                Optional<TailUpdate> update = fileContentReader.followTail();
+                update.ifPresent( this::updateWith );
+                fileExists = update.isPresent();
+            } else {
+                Optional<? extends List<String>> lines = fileContentReader.refresh();
+                lines.ifPresent( this::updateWith );
+                fileExists = lines.isPresent();
+            }
             try {
-                onFileExists.accept( lines.isPresent() );
+                onFileExists.accept( fileExists );
             } finally {
                 andThen.run();
             }
         } );
     }
 
-    // Must call from the fileReaderExecutor Threads, caller should acquire the linesLock!!
-    private void updateWith( List<String> lines ) {
-        Objects.requireNonNull( lines );
-        log.debug( "Refreshing view with {} lines", lines.size() );
-        final var minTimeGap = Duration.ofMillis( getMinTimeGap().get() );
-        final DateTimeFormatGuess timeFormatGuess;
-        if ( showTimeGap.get() ) {
-            timeFormatGuess = findFileDateTimeFormatterFromFileContents( Optional.of( lines ) );
+    // Must call from the fileReaderExecutor Threads
+    private void updateWith( TailUpdate update ) {
+        if ( update.incremental() ) {
+            if ( !update.lines().isEmpty() ) {
+                log.debug( "Appending {} lines to the tail of the view", update.lines().size() - 1 );
+                // the first line replaces the current last line, which may have changed
+                addBottomLines( FileLines.refsOf( update.lines() ), 1 );
+            }
         } else {
-            timeFormatGuess = null;
+            updateWith( update.lines() );
         }
+    }
 
-        Duration[] timeGaps = timeFormatGuess == null
-                ? null
-                : computeTimeGaps( timeFormatGuess, minTimeGap, lines );
+    // Must call from the fileReaderExecutor Thread
+    private void updateWith( List<String> lines ) {
+        updateAllLines( FileLines.refsOf( lines ) );
+    }
 
-        Platform.runLater( () -> {
-            var startTime = System.currentTimeMillis();
-            var index = 0;
-            for ( ; index < lines.size(); index++ ) {
-                final String lineText = lines.get( index );
+    /**
+     * Replace all lines of the view, finding the colors and time gaps of all of them.
+     */
+    // Must call from the fileReaderExecutor Thread
+    private void updateAllLines( List<LogLineRef> lines ) {
+        log.debug( "Refreshing view with {} lines", lines.size() );
+        var contents = contentsOf( lines.subList( 0, Math.min( MAX_LINES, lines.size() ) ),
+                timeGapsFinder( lines ), DateTimeFormatGuess.NO_DATE_TIME );
+        window.setAll( contents, RowContent.empty( highlighter.logLineColorsFor( "" ) ) );
 
-                // null line: leave the line alone and proceed
-                if ( lineText == null ) {
-                    continue;
+        var changes = new ArrayList<RowChange>( MAX_LINES );
+        for ( int i = 0; i < MAX_LINES; i++ ) {
+            changes.add( new RowChange( i, window.get( i ) ) );
+        }
+        viewUpdates.post( new ViewUpdate( changes, 0 ) );
+    }
+
+    /**
+     * Post an update of the rows that changed after lines were added to the window.
+     *
+     * @param update         the update
+     * @param formatJustFound whether the date-time format of the file was only found from the added lines, in which
+     *                       case all lines are updated, as the time gaps of the other lines are not known
+     */
+    // Must call from the fileReaderExecutor Thread
+    private void post( ViewUpdate update, boolean formatJustFound ) {
+        viewUpdates.post( update );
+        if ( formatJustFound ) {
+            log.debug( "Found the date-time format of the file, finding the time gaps of all lines" );
+            refreshView();
+        }
+    }
+
+    /**
+     * Find the content of the rows that display the given lines: their colors and, if shown, their time gaps.
+     *
+     * @param lines        the lines
+     * @param timeGaps     finder of time gaps, or null if time gaps are not shown
+     * @param previousTime date-time of the closest line before the given lines that has a date-time, if known
+     * @return the content of each line
+     */
+    // Must call from the fileReaderExecutor Thread
+    private List<RowContent> contentsOf( List<LogLineRef> lines, TimeGapsFinder timeGaps, long previousTime ) {
+        var result = new ArrayList<RowContent>( lines.size() );
+        for ( LogLineRef line : lines ) {
+            // only the displayed part of each line is used to find colors and time gaps
+            var text = line.prefix();
+            var colors = highlighter.logLineColorsFor( text );
+            if ( timeGaps == null ) {
+                result.add( new RowContent( line, colors, null, DateTimeFormatGuess.NO_DATE_TIME ) );
+            } else {
+                long time = timeGaps.timeOf( text );
+                result.add( new RowContent( line, colors, timeGaps.gapBetween( previousTime, time ), time ) );
+                if ( time != DateTimeFormatGuess.NO_DATE_TIME ) {
+                    previousTime = time;
                 }
+            }
+        }
+        return result;
+    }
 
-                lineAt( index ).setText( lineText,
-                        highlighter.logLineColorsFor( lineText ),
-                        timeGaps == null ? null : timeGaps[ index ] );
+    /**
+     * @return the finder of time gaps between lines, or null if time gaps are not shown or the date-time format
+     * of the file is not known (the given lines are used to guess the format if necessary)
+     */
+    // Must call from the fileReaderExecutor Thread
+    private TimeGapsFinder timeGapsFinder( List<LogLineRef> lines ) {
+        if ( !showTimeGap.get() ) {
+            return null;
+        }
+        var formatGuess = dateTimeFormatGuess;
+        if ( formatGuess == null ) {
+            var texts = new ArrayList<String>( lines.size() );
+            for ( LogLineRef line : lines ) {
+                texts.add( line.prefix() );
             }
+            formatGuess = findFileDateTimeFormatterFromFileContents( Optional.of( texts ) );
+        }
+        return formatGuess == null
+                ? null
+                : new TimeGapsFinder( formatGuess, Duration.ofMillis( getMinTimeGap().get() ).toNanos() );
+    }
 
-            // fill the remaining lines with the empty String
-            for ( ; index < MAX_LINES; index++ ) {
-                lineAt( index ).setText( "", highlighter.logLineColorsFor( "" ), null );
+    /**
+     * @return the date-time of the last line with a date-time before the given index of the window,
+     * or {@link DateTimeFormatGuess#NO_DATE_TIME} if there is no such line
+     */
+    private static long latestTime( LinesWindow<RowContent> window, int index ) {
+        for ( int i = index - 1; i >= 0; i-- ) {
+            long time = window.get( i ).time();
+            if ( time != DateTimeFormatGuess.NO_DATE_TIME ) {
+                return time;
             }
-            log.debug( "Refreshed all lines in {} ms", System.currentTimeMillis() - startTime );
-        } );
+        }
+        return DateTimeFormatGuess.NO_DATE_TIME;
     }
 
-    private static Duration[] computeTimeGaps( DateTimeFormatGuess timeFormatGuess,
-                                               Duration minTimeGap,
-                                               List<String> lines ) {
+    @MustCallOnJavaFXThread
+    private void apply( ViewUpdate update ) {
         var startTime = System.currentTimeMillis();
-        var result = new Duration[ lines.size() ];
-        ZonedDateTime previousTime = null;
-        for ( int i = 0; i < lines.size(); i++ ) {
-            var lineText = lines.get( i );
-            if ( lineText == null ) continue;
-            var time = timeFormatGuess.guessDateTime( lineText ).orElse( null );
-            var timeGap = previousTime == null || time == null ? null :
-                    getIfGreater( minTimeGap, Duration.between( previousTime, time ) );
-            result[ i ] = timeGap;
-            if ( time != null ) previousTime = time;
-        }
-        log.debug( "Computed time gaps in {} ms", System.currentTimeMillis() - startTime );
+        rotateRows( update.rotation() );
+        var updatedRows = 0;
+        for ( RowChange change : update.changes() ) {
+            if ( updateRow( change.index(), change.content() ) ) {
+                updatedRows++;
+            }
+        }
+        log.debug( "Refreshed {} of {} changed lines in {} ms", updatedRows, update.changes().size(),
+                System.currentTimeMillis() - startTime );
+    }
 
-        return result;
+    /**
+     * Rotate the rows so that each row keeps displaying the same line after the lines moved by the given distance.
+     * The rows that move from one end to the other are the ones that will display the new lines.
+     */
+    @MustCallOnJavaFXThread
+    private void rotateRows( int distance ) {
+        // rotating by the whole number of rows has no effect, so only rotate by the shortest equivalent distance
+        distance = Math.floorMod( distance, MAX_LINES );
+        if ( distance > MAX_LINES / 2 ) distance -= MAX_LINES;
+        if ( distance == 0 ) return;
+
+        var rotated = new ArrayList<>( rows );
+        Collections.rotate( rotated, distance );
+        Collections.rotate( Arrays.asList( rowContents ), distance );
+        for ( int i = 0; i < rotated.size(); i++ ) {
+            rotated.get( i ).setLineIndex( i );
+        }
+
+        if ( logCanvas == null ) {
+            // only move the nodes that go from one end to the other
+            var children = getChildren();
+            int size = children.size();
+            if ( distance > 0 ) {
+                var moved = new ArrayList<>( children.subList( size - distance, size ) );
+                children.remove( size - distance, size );
+                children.addAll( 0, moved );
+            } else {
+                var moved = new ArrayList<>( children.subList( 0, -distance ) );
+                children.remove( 0, -distance );
+                children.addAll( moved );
+            }
+        } else {
+            logCanvas.rotate( distance );
+        }
+
+        rows = List.copyOf( rotated );
+        selectableRows.setAll( rotated );
     }
 
-    private static Duration getIfGreater( Duration minTimeGap, Duration duration ) {
-        if ( duration == null ) return null;
-        return duration.compareTo( minTimeGap ) > 0 ? duration : null;
+    /**
+     * Update a row only if its content or style changed since it was last updated.
+     *
+     * @return true if the row was updated
+     */
+    @MustCallOnJavaFXThread
+    private boolean updateRow( int index, RowContent content ) {
+        if ( content.equals( rowContents[ index ] ) ) {
+            return false;
+        }
+        rowContents[ index ] = content;
+        lineAt( index ).setText( content.line(), content.colors(), content.timeGap() );
+        return true;
     }
 
-    private LogLine lineAt( int index ) {
-        return ( LogLine ) getChildren().get( index );
+    private LogRow lineAt( int index ) {
+        return rows.get( index );
+    }
+
+    /**
+     * Replace the rows of this view with either {@link LogLine} nodes or rows drawn by a {@link LogCanvas},
+     * keeping the lines currently displayed.
+     */
+    @MustCallOnJavaFXThread
+    private void setCanvasRendering( boolean canvasRendering ) {
+        if ( !rows.isEmpty() && canvasRendering == ( logCanvas != null ) ) return;
+
+        log.debug( "Using {} to display file {}", canvasRendering ? "canvas" : "nodes", logFile.file );
+
+        LogLineColors logLineColors = highlighter.logLineColorsFor( "" );
+        List<LogRow> newRows;
+
+        if ( canvasRendering ) {
+            logCanvas = new LogCanvas( config.fontProperty(), MAX_LINES, width, logLineColors );
+            newRows = List.copyOf( logCanvas.getRows() );
+            getChildren().setAll( logCanvas );
+        } else {
+            logCanvas = null;
+            var lines = new ArrayList<LogLine>( MAX_LINES );
+            for ( int i = 0; i < MAX_LINES; i++ ) {
+                lines.add( new LogLine( config.fontProperty(), i, width,
+                        logLineColors.getBackground(), logLineColors.getFill() ) );
+            }
+            newRows = List.copyOf( lines );
+            getChildren().setAll( lines );
+        }
+
+        var previousRows = rows;
+        for ( int i = 0; i < previousRows.size(); i++ ) {
+            var line = previousRows.get( i ).getLine();
+            newRows.get( i ).setText( line, highlighter.logLineColorsFor( line.prefix() ), null );
+        }
+
+        rows = newRows;
+        selectableRows.setAll( newRows );
+        Arrays.fill( rowContents, null );
     }
 
     File getFile() {
@@ -557,7 +941,17 @@ public class LogView extends VBox implements SelectableContainer {
             removeListeners();
         } finally {
             fileChangeWatcher.close();
-            fileReaderExecutor.shutdown();
+            synchronized ( lineIndexTasks ) {
+                if ( !fileReaderExecutor.isShutdown() ) {
+                    // close the reader only after any pending reads have completed
+                    fileReaderExecutor.execute( fileContentReader::close );
+                    fileReaderExecutor.shutdown();
+                }
+
+                // do not interrupt a running task, as that would close the channel it is reading from
+                lineIndexTasks.forEach( task -> task.cancel( false ) );
+                lineIndexTasks.clear();
+            }
         }
     }
 
@@ -565,6 +959,7 @@ public class LogView extends VBox implements SelectableContainer {
         logFile.highlightGroupProperty().addListener( highlightGroupChangeListener );
         config.standardLogColorsProperty().addListener( expressionsChangeListener );
         config.filtersEnabledProperty().addListener( expressionsChangeListener );
+        config.canvasRenderingProperty().addListener( rendererChangeListener );
     }
 
     private void removeListeners() {
@@ -572,6 +967,94 @@ public class LogView extends VBox implements SelectableContainer {
         logFile.highlightGroupProperty().removeListener( highlightGroupChangeListener );
         config.standardLogColorsProperty().removeListener( expressionsChangeListener );
         config.filtersEnabledProperty().removeListener( expressionsChangeListener );
+        config.canvasRenderingProperty().removeListener( rendererChangeListener );
+    }
+
+    /**
+     * The content and style of a row, used to avoid updating rows that have not changed.
+     * <p>
+     * The content of each line is kept in the window, so that it's only computed for the lines added to it.
+     *
+     * @param time date-time of the line, or {@link DateTimeFormatGuess#NO_DATE_TIME} if it has none or
+     *             time gaps are not shown
+     */
+    private record RowContent( LogLineRef line, LogLineColors colors, Duration timeGap, long time ) {
+
+        // content of the rows before the view is first updated
+        static final RowContent NONE = new RowContent( LogLineRef.EMPTY, null, null, DateTimeFormatGuess.NO_DATE_TIME );
+
+        static RowContent empty( LogLineColors colors ) {
+            return new RowContent( LogLineRef.EMPTY, colors, null, DateTimeFormatGuess.NO_DATE_TIME );
+        }
+
+        RowContent withTimeGap( Duration timeGap ) {
+            return new RowContent( line, colors, timeGap, time );
+        }
+    }
+
+    /**
+     * A row whose content changed.
+     */
+    private record RowChange( int index, RowContent content ) {
+    }
+
+    /**
+     * An update of the rows of the view, posted to the JavaFX Thread through a {@link FrameUpdateChannel}.
+     * <p>
+     * Only the rows whose content changed are included, so the cost of an update is proportional to the number of
+     * lines added to the view, not to its size.
+     *
+     * @param changes  the rows that changed, in the positions they have after the rotation
+     * @param rotation number of rows the existing rows are moved by before the update is applied
+     */
+    private record ViewUpdate( List<RowChange> changes, int rotation ) {
+
+        /**
+         * @return an update with the changes of both updates, rotating the rows by both updates' rotation as
+         * this update was never applied
+         */
+        ViewUpdate supersededBy( ViewUpdate update ) {
+            // rows changed by the given update were moved (or written) after the changes of this update
+            var changed = new boolean[ MAX_LINES ];
+            var merged = new ArrayList<RowChange>( update.changes.size() + changes.size() );
+            for ( RowChange change : update.changes ) {
+                changed[ change.index() ] = true;
+                merged.add( change );
+            }
+            for ( RowChange change : changes ) {
+                int index = Math.floorMod( change.index() + update.rotation, MAX_LINES );
+                if ( !changed[ index ] ) {
+                    changed[ index ] = true;
+                    merged.add( new RowChange( index, change.content() ) );
+                }
+            }
+            return new ViewUpdate( merged, rotation + update.rotation );
+        }
+    }
+
+    /**
+     * Finds the time gaps between lines, using the date-time format of the file.
+     */
+    private record TimeGapsFinder( DateTimeFormatGuess formatGuess, long minTimeGapNanos ) {
+
+        long timeOf( String text ) {
+            return formatGuess.parseEpochNanos( text );
+        }
+
+        /**
+         * @return the time gap between a line and the closest line before it with a date-time, if it exceeds the
+         * minimum time gap, otherwise null
+         */
+        Duration gapBetween( long previousTime, long time ) {
+            if ( previousTime == DateTimeFormatGuess.NO_DATE_TIME || time == DateTimeFormatGuess.NO_DATE_TIME ||
+                    time - previousTime <= minTimeGapNanos ) {
+                return null;
+            }
+            return Duration.ofNanos( time - previousTime );
+        }
+    }
+
+    private record Highlighting( HighlightMatcher matcher, LogLineColors standardColors ) {
     }
 
     private static final class LogLineHighlighter {
@@ -580,28 +1063,43 @@ public class LogView extends VBox implements SelectableContainer {
         private final InvalidationListener expressionsChangeListener;
         private ObservableList<HighlightExpression> observableExpressions;
 
+        // the expressions and standard colors are copied so lines can be highlighted from any Thread
+        private volatile Highlighting highlighting;
+
         LogLineHighlighter( Config config, InvalidationListener expressionsChangeListener, LogFile logFile ) {
             this.config = config;
             this.expressionsChangeListener = expressionsChangeListener;
             updateGroupFrom( logFile );
         }
 
+        /**
+         * Find the colors of the first expression matching the text, or the standard colors if none matches.
+         * <p>
+         * This method can be called from any Thread.
+         */
         LogLineColors logLineColorsFor( String text ) {
-            for ( HighlightExpression expression : observableExpressions ) {
-                if ( expression.matches( text ) ) {
-                    return expression.getLogLineColors();
-                }
-            }
-            return config.standardLogColorsProperty().get();
+            var highlighting = this.highlighting;
+            int index = highlighting.matcher().firstMatch( text );
+            return index < 0
+                    ? highlighting.standardColors()
+                    : highlighting.matcher().getExpressions().get( index ).getLogLineColors();
+        }
+
+        /**
+         * Copy the current expressions and standard colors, which must be done whenever they change.
+         */
+        @MustCallOnJavaFXThread
+        void update() {
+            highlighting = new Highlighting( new HighlightMatcher( observableExpressions ),
+                    config.standardLogColorsProperty().get() );
         }
 
         Optional<Predicate<String>> getLineFilter() {
             if ( config.filtersEnabledProperty().get() ) {
-                List<HighlightExpression> filteredExpressions = observableExpressions.stream()
+                List<HighlightExpression> filteredExpressions = highlighting.matcher().getExpressions().stream()
                         .filter( HighlightExpression::isFiltered )
                         .toList();
-                return Optional.of( ( line ) -> filteredExpressions.stream()
-                        .anyMatch( ( exp ) -> exp.matches( line ) ) );
+                return Optional.of( new LineFilter( filteredExpressions ) );
             } else {
                 return Optional.empty();
             }
@@ -620,6 +1118,7 @@ public class LogView extends VBox implements SelectableContainer {
 
             // observableExpressions cannot be null here
             observableExpressions.addListener( expressionsChangeListener );
+            update();
         }
 
         void unwireListeners() {
@@ -159,6 +159,17 @@ public final class LogViewPane {
             }
         } );
 
+        MenuItem goToLineMenuItem = new MenuItem( "To line number" );
+        goToLineMenuItem.setAccelerator( new KeyCodeCombination( KeyCode.L, KeyCombination.SHORTCUT_DOWN ) );
+        goToLineMenuItem.setOnAction( event -> {
+            Optional<LogViewWrapper> wrapper = getFocusedView();
+            if ( wrapper.isPresent() ) {
+                wrapper.get().toLineNumber();
+            } else {
+                Dialog.showMessage( "No file pane selected", Dialog.MessageLevel.INFO );
+            }
+        } );
+
         MenuItem changeHighlightGroup = new MenuItem( "Select highlight group" );
         changeHighlightGroup.setAccelerator( new KeyCodeCombination( KeyCode.J, KeyCombination.SHORTCUT_DOWN ) );
         changeHighlightGroup.setOnAction( event -> {
@@ -196,7 +207,8 @@ public final class LogViewPane {
                 copyMenuItem,
                 selectAllMenuItem,
                 new SeparatorMenuItem(),
-                toTopMenuItem, tailMenuItem, pageUpMenuItem, pageDownMenuItem, goToDateMenuItem, changeHighlightGroup,
+                toTopMenuItem, tailMenuItem, pageUpMenuItem, pageDownMenuItem, goToDateMenuItem, goToLineMenuItem,
+                changeHighlightGroup,
                 new SeparatorMenuItem(),
                 pauseMenuItem, timeGapMenuItem,
                 new SeparatorMenuItem(),
@@ -555,6 +567,12 @@ public final class LogViewPane {
             goToView.show();
         }
 
+        @MustCallOnJavaFXThread
+        void toLineNumber() {
+            stopTailingFile();
+            new GoToLineView( this ).show();
+        }
+
         @MustCallOnJavaFXThread
         void toTop() {
             stopTailingFile();
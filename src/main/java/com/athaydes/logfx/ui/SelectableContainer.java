@@ -3,17 +3,40 @@ package com.athaydes.logfx.ui;
 import com.athaydes.logfx.iterable.ObservableListView;
 import javafx.scene.Node;
 
+import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 
 interface SelectableContainer {
 
     Node getNode();
 
-    ObservableListView<? extends SelectionHandler.SelectableNode, Node> getSelectables();
+    ObservableListView<? extends SelectionHandler.SelectableNode, ?> getSelectables();
 
     CompletionStage<SelectionHandler.SelectableNode> nextSelectable();
 
     CompletionStage<SelectionHandler.SelectableNode> previousSelectable();
 
     void scrollToView( SelectionHandler.SelectableNode node );
+
+    /**
+     * Start a full press-drag-release gesture on this container's node, so that drag events are delivered
+     * to the nodes the mouse is dragged over.
+     */
+    default void startFullDrag() {
+        getNode().startFullDrag();
+    }
+
+    /**
+     * Find the selectable at a position within this container.
+     * <p>
+     * This is only needed for selectables that are not nodes themselves, as these cannot be found from
+     * the target of mouse events.
+     *
+     * @param x horizontal position in the coordinates of this container's node
+     * @param y vertical position in the coordinates of this container's node
+     * @return the selectable at the given position, if any
+     */
+    default Optional<SelectionHandler.SelectableNode> selectableAt( double x, double y ) {
+        return Optional.empty();
+    }
 }
@@ -8,9 +8,12 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseDragEvent;
 import javafx.scene.input.MouseEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +30,7 @@ final class SelectionHandler {
     private final SelectableContainer root;
 
     private SelectableNode dragEventStartedOnNode;
+    private SelectableNode lastDragTarget;
 
     SelectionHandler( SelectableContainer root ) {
         this.root = root;
@@ -34,16 +38,20 @@ final class SelectionHandler {
         node.setOnDragDetected( this::onDragDetected );
         node.setOnMouseReleased( this::onMouseReleased );
         node.setOnMouseExited( this::onMouseReleased );
+        node.setOnMouseDragOver( this::onMouseDragOver );
 
-        root.getSelectables().getList().addListener( ( ListChangeListener<Node> ) change -> {
+        root.getSelectables().getList().addListener( ( ListChangeListener<Object> ) change -> {
             if ( change.next() ) {
-                for ( Node newNode : change.getAddedSubList() ) {
+                for ( Object newNode : change.getAddedSubList() ) {
                     if ( newNode instanceof SelectableNode selectableNode ) {
                         enableDragEventsOn( selectableNode );
                     }
                 }
-                for ( Node removedNode : change.getRemoved() ) {
-                    if ( removedNode instanceof SelectableNode selectableNode ) {
+                // nodes that are only moved within the list are removed and added back in the same change
+                var addedNodes = Collections.newSetFromMap( new IdentityHashMap<>() );
+                addedNodes.addAll( change.getAddedSubList() );
+                for ( Object removedNode : change.getRemoved() ) {
+                    if ( removedNode instanceof SelectableNode selectableNode && !addedNodes.contains( removedNode ) ) {
                         disableDragEventsOn( selectableNode );
                     }
                 }
@@ -52,11 +60,12 @@ final class SelectionHandler {
     }
 
     private void onDragDetected( MouseEvent event ) {
-        Node target = getTargetNode( event.getTarget() );
+        SelectableNode target = getTarget( event );
 
-        if ( target instanceof SelectableNode selectableNode ) {
-            dragEventStartedOnNode = selectableNode;
-            root.getNode().startFullDrag();
+        if ( target != null ) {
+            dragEventStartedOnNode = target;
+            lastDragTarget = target;
+            root.startFullDrag();
 
             // when we start dragging, we want to make sure only one node is selected
             selectionManager.unselectAll();
@@ -71,8 +80,11 @@ final class SelectionHandler {
         // only handle event if the node was not being dragged
         if ( event.getButton() == MouseButton.PRIMARY &&
                 dragEventStartedOnNode == null ) {
-            Node target = getTargetNode( event.getTarget() );
-            if ( target instanceof SelectableNode selectableTarget ) {
+            // the mouse leaving the root node is not over any selectable
+            SelectableNode selectableTarget = event.getEventType() == MouseEvent.MOUSE_EXITED
+                    ? null
+                    : getTarget( event );
+            if ( selectableTarget != null ) {
                 // select only this node, unless it was selected before
                 boolean wasSelected = getSelectedItems().contains( selectableTarget );
                 selectionManager.unselectAll();
@@ -83,6 +95,31 @@ final class SelectionHandler {
         }
 
         dragEventStartedOnNode = null;
+        lastDragTarget = null;
+    }
+
+    private void onMouseDragOver( MouseDragEvent event ) {
+        // selectables that are nodes receive their own drag events, see enableDragEventsOn()
+        if ( dragEventStartedOnNode == null || getTargetNode( event.getTarget() ) instanceof SelectableNode ) {
+            return;
+        }
+        root.selectableAt( event.getX(), event.getY() ).ifPresent( target -> {
+            if ( target != lastDragTarget ) {
+                lastDragTarget = target;
+                selectAllBetween( target, dragEventStartedOnNode );
+            }
+        } );
+    }
+
+    /**
+     * Find the selectable targeted by a mouse event, either as the target node itself or by its position
+     * within the root container.
+     */
+    private SelectableNode getTarget( MouseEvent event ) {
+        if ( getTargetNode( event.getTarget() ) instanceof SelectableNode selectableNode ) {
+            return selectableNode;
+        }
+        return root.selectableAt( event.getX(), event.getY() ).orElse( null );
     }
 
     private Node getTargetNode( Object objectTarget ) {
@@ -149,6 +186,8 @@ final class SelectionHandler {
     }
 
     private void enableDragEventsOn( SelectableNode node ) {
+        // selectables drawn by another node are found by position instead, see onMouseDragOver()
+        if ( node.getNode() != node ) return;
         node.getNode().setOnMouseDragEntered( event -> {
             if ( dragEventStartedOnNode != null ) {
                 selectAllBetween( node, dragEventStartedOnNode );
@@ -158,7 +197,9 @@ final class SelectionHandler {
     }
 
     private void disableDragEventsOn( SelectableNode node ) {
-        node.getNode().setOnMouseDragEntered( null );
+        if ( node.getNode() == node ) {
+            node.getNode().setOnMouseDragEntered( null );
+        }
         selectionManager.select( node, false );
     }
 
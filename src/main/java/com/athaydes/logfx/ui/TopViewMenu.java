@@ -64,11 +64,15 @@ public final class TopViewMenu extends Menu {
         filter.setMnemonicParsing( true );
         filter.selectedProperty().bindBidirectional( config.filtersEnabledProperty() );
 
+        CheckMenuItem canvasRendering = new CheckMenuItem( "Draw lines on canvas" );
+        canvasRendering.selectedProperty().bindBidirectional( config.canvasRenderingProperty() );
+
         MenuItem showContextMenu = new MenuItem( "Show Context Menu" );
         showContextMenu.setAccelerator( new KeyCodeCombination( KeyCode.E, KeyCombination.SHORTCUT_DOWN ) );
         showContextMenu.setOnAction( event -> logsPane.showContextMenu() );
 
-        getItems().addAll( highlight, dateTimeMenu, orientation, distributePanesMenuItem, font, filter, showContextMenu );
+        getItems().addAll( highlight, dateTimeMenu, orientation, distributePanesMenuItem, font, filter,
+                canvasRendering, showContextMenu );
     }
 
     public Consumer<LogView> getEditGroupCallback() {
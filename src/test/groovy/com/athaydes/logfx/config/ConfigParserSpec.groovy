@@ -164,6 +164,7 @@ class ConfigParserSpec extends Specification {
         config.paneDividerPositions.collect() == [ 0.4840163934426229 as double ]
         config.font.value?.name == 'Monospaced Regular'
         config.font.value?.size == 13.0 as double
+        !config.canvasRendering.get()
     }
 
     def "Can parse simple V3 configuration with named highlight rules"() {
@@ -189,6 +190,7 @@ class ConfigParserSpec extends Specification {
         |  window 20.4 10.2 600.0 245.6
         |  pane-dividers 0.4840163934426229
         |  font 13.0 Monospaced
+        |  renderer canvas
         |""".stripMargin()
 
         when: 'the config is parsed'
@@ -219,6 +221,7 @@ class ConfigParserSpec extends Specification {
         config.font.value?.name == 'Monospaced Regular'
         config.font.value?.size == 13.0 as double
         config.windowBounds.get() == new BoundingBox( 20.4, 10.2, 600.0, 245.6 )
+        config.canvasRendering.get()
 
         and: 'The highlightGroups can return the correct rules by group name'
         config.highlightGroups.getDefault().collect() == defaultHighlights
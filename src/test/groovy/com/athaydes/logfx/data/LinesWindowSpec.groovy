@@ -0,0 +1,122 @@
+package com.athaydes.logfx.data
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+class LinesWindowSpec extends Specification {
+
+    @Subject
+    def window = LinesWindow.of( ( 1..100 ).collect { it.toString() }, 100, '' )
+
+    def 'LinesWindow is filled with the filler line when not enough lines are given'() {
+        when: 'a window is created with less lines than it can hold'
+        def smallWindow = LinesWindow.of( [ 'a', 'b' ], 4, '' )
+
+        then: 'the remaining lines are filled with the filler line'
+        smallWindow.toList() == [ 'a', 'b', '', '' ]
+
+        when: 'all lines of the window are replaced'
+        smallWindow.addTopLines( [ 'x' ] )
+        smallWindow.setAll( [ 'c' ], '-' )
+
+        then: 'the window contains the new lines, filled with the filler line'
+        smallWindow.toList() == [ 'c', '-', '-', '-' ]
+    }
+
+    def 'LinesWindow must be able to scroll by adding lines on the top'() {
+        when: '10 lines are added to the top of the window'
+        def shift = window.addTopLines( ( 'a'..'j' ).toList() )
+
+        then: 'the window scrolls up by pushing its lines down to accommodate the new lines on the top'
+        def lines = window.toList()
+        lines.size() == 100
+        lines[ 0..9 ] == ( 'a'..'j' ).toList()
+        lines[ 10..99 ] == ( 1..90 ).collect { it.toString() }
+        shift == 10
+    }
+
+    def 'LinesWindow must be able to scroll by adding lines on the bottom'() {
+        when: '10 lines are added to the bottom of the window'
+        def shift = window.addBottomLines( ( 'a'..'j' ).toList(), 0 )
+
+        then: 'the window scrolls down by pushing its lines up to accommodate the new lines on the bottom'
+        def lines = window.toList()
+        lines.size() == 100
+        lines[ 0..89 ] == ( 11..100 ).collect { it.toString() }
+        lines[ 90..99 ] == ( 'a'..'j' ).toList()
+        shift == 10
+    }
+
+    def 'Adding more lines that a LinesWindow can hold on the top results in the top part of the lines being accepted'() {
+        when: 'more lines that the window can hold are added on the top'
+        def shift = window.addTopLines( ( 1000..1140 ).collect { it.toString() } )
+
+        then: 'the top lines of the added lines should be accepted'
+        window.toList() == ( 1000..1099 ).collect { it.toString() }
+        shift == 100
+    }
+
+    def 'Adding more lines that a LinesWindow can hold on the bottom results in the bottom part of the lines being accepted'() {
+        when: 'more lines that the window can hold are added on the bottom'
+        def shift = window.addBottomLines( ( 250..500 ).collect { it.toString() }, 0 )
+
+        then: 'the bottom lines of the added lines should be accepted'
+        window.toList() == ( 401..500 ).collect { it.toString() }
+        shift == 100
+    }
+
+    def 'LinesWindow can replace its bottom lines while adding lines on the bottom'() {
+        when: '3 lines are added to the bottom of the window, the first one replacing the current last line'
+        def shift = window.addBottomLines( [ '100+', 'a', 'b' ], 1 )
+
+        then: 'the window scrolls down by 2 lines and the last line is replaced'
+        def lines = window.toList()
+        lines.size() == 100
+        lines[ 0..96 ] == ( 3..99 ).collect { it.toString() }
+        lines[ 97..99 ] == [ '100+', 'a', 'b' ]
+        shift == 2
+    }
+
+    def 'LinesWindow can replace its bottom lines without scrolling'() {
+        when: 'a single line replacing the current last line is added to the bottom of the window'
+        def shift = window.addBottomLines( [ 'new' ], 1 )
+
+        then: 'only the last line changes'
+        def lines = window.toList()
+        lines[ 0..98 ] == ( 1..99 ).collect { it.toString() }
+        lines[ 99 ] == 'new'
+        shift == 0
+    }
+
+    def 'LinesWindow can replace any of its lines'() {
+        when: 'lines are replaced after the window scrolled'
+        window.addBottomLines( [ 'a', 'b' ], 0 )
+        window.set( 0, 'first' )
+        window.set( 99, 'last' )
+
+        then: 'the lines at the given positions are replaced'
+        window.toList() == [ 'first' ] + ( 4..100 ).collect { it.toString() } + [ 'a', 'last' ]
+    }
+
+    def 'LinesWindow keeps its lines in order after many changes on both ends'() {
+        given: 'a list mirroring the expected contents of the window'
+        def expected = window.toList()
+        def random = new Random( 7 )
+
+        when: 'lines are repeatedly added to the top and bottom of the window'
+        200.times { n ->
+            def newLines = ( 0..<random.nextInt( 30 ) ).collect { "$n-$it".toString() }
+            if ( random.nextBoolean() ) {
+                window.addTopLines( newLines )
+                expected = ( newLines + expected ).take( 100 )
+            } else {
+                window.addBottomLines( newLines, 0 )
+                expected = ( expected + newLines ).takeRight( 100 )
+            }
+        }
+
+        then: 'the window contains the expected lines'
+        window.toList() == expected
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static com.athaydes.logfx.file.BlockCache.BLOCK_SIZE
+
+class BlockCacheSpec extends Specification {
+
+    @Shared
+    File file = Files.createTempFile( 'block-cache', '.log' ).toFile()
+
+    def setup() {
+        file.delete()
+        file.deleteOnExit()
+    }
+
+    static byte[] bytes( int size ) {
+        def result = new byte[ size ]
+        for ( int i = 0; i < size; i++ ) {
+            result[ i ] = ( byte ) ( 'a' as char ) + i % 26
+        }
+        result
+    }
+
+    static byte[] read( BlockCache cache, File file, long position, int length ) {
+        cache.open( file, new RawSourceFactory( file: file ) ).withCloseable { source ->
+            def buffer = new byte[ length ]
+            int bytesRead = source.read( position, buffer, 0, length )
+            bytesRead < 0 ? new byte[ 0 ] : Arrays.copyOf( buffer, bytesRead )
+        }
+    }
+
+    def "Reads across blocks return the same bytes as the file"() {
+        given: 'a file with 3 and a half blocks'
+        def contents = bytes( BLOCK_SIZE * 3 + BLOCK_SIZE.intdiv( 2 ) )
+        file.bytes = contents
+
+        and: 'a block cache that can hold all blocks'
+        def cache = new BlockCache( BLOCK_SIZE * 10 )
+
+        expect: 'reads return the requested bytes, up to the end of the file'
+        read( cache, file, position, length ) == Arrays.copyOfRange( contents,
+                ( int ) Math.min( position, contents.size() ),
+                ( int ) Math.min( position + length, contents.size() ) )
+
+        where:
+        position                   | length
+        0L                         | 10
+        BLOCK_SIZE - 5L            | 10
+        100L                       | BLOCK_SIZE * 3
+        BLOCK_SIZE * 3L            | BLOCK_SIZE
+        BLOCK_SIZE * 3L + 10L      | BLOCK_SIZE * 2
+        BLOCK_SIZE * 4L            | 10
+    }
+
+    def "Blocks read once are read from the cache until the file is modified"() {
+        given: 'a file with 1 block'
+        file.bytes = bytes( BLOCK_SIZE )
+
+        and: 'a block cache'
+        def cache = new BlockCache( BLOCK_SIZE * 10 )
+
+        when: 'the first block is read twice'
+        def first = read( cache, file, 0L, 100 )
+        def second = read( cache, file, 10L, 100 )
+
+        then: 'the block is read from the file once, then from the cache'
+        first == Arrays.copyOfRange( file.bytes, 0, 100 )
+        second == Arrays.copyOfRange( file.bytes, 10, 110 )
+        cache.misses() == 1L
+        cache.hits() == 1L
+
+        when: 'the file is appended to and the same block is read again'
+        file << 'more bytes'
+        read( cache, file, 0L, 100 )
+
+        then: 'the block is still read from the cache'
+        cache.misses() == 1L
+        cache.hits() == 2L
+
+        when: 'the file is replaced with different contents of the same length'
+        def newContents = ( 'z' * ( BLOCK_SIZE + 'more bytes'.size() ) ).bytes
+        file.bytes = newContents
+        file.setLastModified( file.lastModified() + 10_000L )
+
+        then: 'the new contents are read'
+        read( cache, file, 0L, 100 ) == Arrays.copyOfRange( newContents, 0, 100 )
+    }
+
+    def "Only the incomplete last block is read again after the file is appended to"() {
+        given: 'a file with 2 and a half blocks'
+        def contents = bytes( BLOCK_SIZE * 2 + BLOCK_SIZE.intdiv( 2 ) )
+        file.bytes = contents
+
+        and: 'a block cache with all blocks of the file'
+        def cache = new BlockCache( BLOCK_SIZE * 10 )
+        read( cache, file, 0L, contents.size() )
+
+        when: 'bytes are appended to the file and the whole file is read again'
+        def appended = 'z' * 100
+        file << appended
+        def result = read( cache, file, 0L, contents.size() + appended.size() )
+
+        then: 'the new contents are read'
+        result == file.bytes
+
+        and: 'only the last block was read from the file again'
+        cache.misses() == 4L
+        cache.hits() == 2L
+    }
+
+    def "All blocks of a file are read again after it's replaced by a longer file with the same identity"() {
+        given: 'a file with 1 and a half blocks'
+        file.bytes = bytes( BLOCK_SIZE + BLOCK_SIZE.intdiv( 2 ) )
+
+        and: 'a block cache with all blocks of the file'
+        def cache = new BlockCache( BLOCK_SIZE * 10 )
+        read( cache, file, 0L, BLOCK_SIZE * 2 )
+
+        when: 'the file contents are replaced with longer, different contents (as when its inode is reused)'
+        def newContents = ( 'z' * ( BLOCK_SIZE * 2 ) ).bytes
+        file.bytes = newContents
+
+        then: 'the new contents are read'
+        read( cache, file, 0L, newContents.size() ) == newContents
+        cache.misses() == 4L
+        cache.hits() == 0L
+    }
+
+    def "All blocks of a file are read again after the file is truncated"() {
+        given: 'a file with 2 blocks'
+        file.bytes = bytes( BLOCK_SIZE * 2 )
+
+        and: 'a block cache with all blocks of the file'
+        def cache = new BlockCache( BLOCK_SIZE * 10 )
+        read( cache, file, 0L, BLOCK_SIZE * 2 )
+
+        when: 'the file is truncated, then grows back with different contents'
+        def source = cache.open( file, new RawSourceFactory( file: file ) )
+        def newContents = ( 'z' * ( BLOCK_SIZE + 10 ) ).bytes
+        file.bytes = new byte[ 0 ]
+        read( cache, file, 0L, 10 )
+        file.bytes = newContents
+
+        and: 'a source opened before the truncation reads the file'
+        def buffer = new byte[ 100 ]
+        source.read( BLOCK_SIZE - 50L, buffer, 0, buffer.size() )
+        source.close()
+
+        then: 'the blocks read through the old source are not cached'
+        cache.cachedBytes() == 0L
+
+        when: 'the file is read again'
+        def result = read( cache, file, 0L, newContents.size() )
+
+        then: 'the new contents are read'
+        result == newContents
+        cache.cachedBytes() == newContents.size()
+    }
+
+    def "Least recently used blocks are evicted when the cache is full"() {
+        given: 'a file with 4 blocks'
+        file.bytes = bytes( BLOCK_SIZE * 4 )
+
+        and: 'a block cache that can only hold 2 blocks'
+        def cache = new BlockCache( BLOCK_SIZE * 2 )
+
+        when: 'blocks 0, 1, 0 and 2 are read'
+        [ 0, 1, 0, 2 ].each { read( cache, file, it * BLOCK_SIZE, 1 ) }
+
+        then: 'only the 2 most recently used blocks are kept'
+        cache.cachedBytes() == BLOCK_SIZE * 2L
+        cache.misses() == 3L
+        cache.hits() == 1L
+
+        when: 'blocks 0 and 1 are read again'
+        read( cache, file, 0L, 1 )
+        read( cache, file, BLOCK_SIZE, 1 )
+
+        then: 'block 0 is still cached, but block 1 was evicted'
+        cache.hits() == 2L
+        cache.misses() == 4L
+    }
+
+    def "A cache smaller than a block is disabled"() {
+        given: 'a file with 1 block'
+        file.bytes = bytes( BLOCK_SIZE )
+
+        and: 'a block cache that cannot hold a block'
+        def cache = new BlockCache( 0L )
+
+        when: 'the file is read twice'
+        read( cache, file, 0L, 10 )
+        def result = read( cache, file, 0L, 10 )
+
+        then: 'the bytes are read from the file, without using the cache'
+        result == Arrays.copyOfRange( file.bytes, 0, 10 )
+        cache.hits() == 0L
+        cache.misses() == 0L
+    }
+
+}
+
+class RawSourceFactory implements ByteSource.Factory {
+    File file
+
+    @Override
+    ByteSource open() throws IOException {
+        def randomAccessFile = new RandomAccessFile( file, 'r' )
+        new ByteSource() {
+            @Override
+            long length() throws IOException {
+                randomAccessFile.length()
+            }
+
+            @Override
+            int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                randomAccessFile.seek( position )
+                randomAccessFile.read( buffer, offset, length )
+            }
+
+            @Override
+            void close() throws IOException {
+                randomAccessFile.close()
+            }
+        }
+    }
+}
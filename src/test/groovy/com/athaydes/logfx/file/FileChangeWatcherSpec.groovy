@@ -1,16 +1,14 @@
 package com.athaydes.logfx.file
 
-import com.athaydes.logfx.concurrency.TaskRunner
 import groovy.transform.CompileStatic
 import org.junit.jupiter.api.condition.OS
-import spock.lang.AutoCleanup
-import spock.lang.Shared
 import spock.lang.Specification
 
 import java.nio.file.Files
 import java.time.Duration
 import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
 
 import static com.google.code.tempusfugit.temporal.Duration.millis
 import static com.google.code.tempusfugit.temporal.Timeout.timeout
@@ -18,17 +16,13 @@ import static com.google.code.tempusfugit.temporal.WaitFor.waitOrTimeout
 
 class FileChangeWatcherSpec extends Specification {
 
-    @Shared
-    @AutoCleanup( "shutdown" )
-    TaskRunner taskRunner = new TaskRunner()
-
     LinkedBlockingQueue eventQueue = new LinkedBlockingQueue()
 
     @CompileStatic
     private FileChangeWatcher createFileChangeWatcher( File file ) {
-        new FileChangeWatcher( file, taskRunner, {
-            eventQueue.offer( true )
-        } )
+        new FileChangeWatcher( file, { FileChangeEvent event ->
+            eventQueue.offer( event )
+        } as Consumer<FileChangeEvent> )
     }
 
     def setupSpec() {
@@ -270,6 +264,113 @@ class FileChangeWatcherSpec extends Specification {
         println "Got first file change notification in ${System.currentTimeMillis() - time} ms"
     }
 
+    def "FileWatcher reports how the file changed"() {
+        given: 'An existing file'
+        def file = Files.createTempFile( 'FileChangeWatcherSpec', '.log' ).toFile()
+        file.text = 'hello'
+
+        and: 'A FileChangeWatcher watches over it, informing the test when it changes'
+        def fileWatcher = createFileChangeWatcher( file )
+
+        and: 'We wait for the watcher to start up'
+        waitOrTimeout( { fileWatcher.isWatching() }, timeout( millis( 400L ) ) )
+        FileChangeEvent initialEvent = eventQueue.poll( 1, TimeUnit.SECONDS )
+
+        expect: 'The initial event reports the current size of the file'
+        initialEvent.kind() == FileChangeEvent.Kind.REPLACE
+        initialEvent.size() == 5
+
+        when: 'The file is appended to'
+        file << ' world'
+
+        then: 'An append is reported, with the previous and new size of the file'
+        FileChangeEvent append = eventQueue.poll( 4, TimeUnit.SECONDS )
+        append.kind() == FileChangeEvent.Kind.APPEND
+        append.previousSize() == 5
+        append.size() == 11
+        append.lastModified() > 0
+
+        when: 'The file is truncated'
+        eventQueue.clear()
+        new RandomAccessFile( file, 'rw' ).withCloseable { it.setLength( 2 ) }
+
+        then: 'A truncation is reported'
+        FileChangeEvent truncation = eventQueue.poll( 4, TimeUnit.SECONDS )
+        truncation.kind() == FileChangeEvent.Kind.TRUNCATE
+        truncation.previousSize() == 11
+        truncation.size() == 2
+
+        when: 'The file is deleted'
+        eventQueue.clear()
+        assert file.delete()
+
+        then: 'A deletion is reported'
+        FileChangeEvent deletion = eventQueue.poll( 4, TimeUnit.SECONDS )
+        deletion.kind() == FileChangeEvent.Kind.DELETE
+        deletion.previousSize() == 2
+        deletion.size() == -1
+
+        cleanup:
+        fileWatcher?.close()
+    }
+
+    def "Changes between file states are classified by size, file key and modification time"() {
+        expect:
+        FileChangeEvent.between( previous, current )?.kind() == expectedKind
+
+        where:
+        previous                                      | current                                       || expectedKind
+        FileChangeEvent.State.MISSING                 | FileChangeEvent.State.MISSING                 || null
+        FileChangeEvent.State.MISSING                 | new FileChangeEvent.State( true, 0, 1, 1 )    || FileChangeEvent.Kind.REPLACE
+        new FileChangeEvent.State( true, 5, 1, 1 )    | FileChangeEvent.State.MISSING                 || FileChangeEvent.Kind.DELETE
+        new FileChangeEvent.State( true, 5, 1, 1 )    | new FileChangeEvent.State( true, 5, 1, 1 )    || null
+        new FileChangeEvent.State( true, 5, 1, 1 )    | new FileChangeEvent.State( true, 9, 2, 1 )    || FileChangeEvent.Kind.APPEND
+        new FileChangeEvent.State( true, 5, 1, 1 )    | new FileChangeEvent.State( true, 2, 2, 1 )    || FileChangeEvent.Kind.TRUNCATE
+        new FileChangeEvent.State( true, 5, 1, 1 )    | new FileChangeEvent.State( true, 9, 2, 2 )    || FileChangeEvent.Kind.REPLACE
+        new FileChangeEvent.State( true, 5, 1, 1 )    | new FileChangeEvent.State( true, 5, 2, 1 )    || FileChangeEvent.Kind.REPLACE
+        new FileChangeEvent.State( true, 5, 1, null ) | new FileChangeEvent.State( true, 9, 2, null ) || FileChangeEvent.Kind.APPEND
+    }
+
+    def "FileWatchers of files in the same directory only see changes to their own file"() {
+        given: 'Two existing files in the same directory'
+        def tempDir = Files.createTempDirectory( 'FileChangeWatcherSpec' ).toFile()
+        tempDir.deleteOnExit()
+        def file1 = new File( tempDir, 'file1.log' )
+        def file2 = new File( tempDir, 'file2.log' )
+        assert file1.createNewFile() && file2.createNewFile()
+
+        and: 'A FileChangeWatcher watches over each of them, informing the test which file changed'
+        def changes = new LinkedBlockingQueue<String>()
+        def watcher1 = new FileChangeWatcher( file1, { changes.offer( 'file1' ) } as Runnable )
+        def watcher2 = new FileChangeWatcher( file2, { changes.offer( 'file2' ) } as Runnable )
+
+        and: 'We wait for the watchers to start up'
+        waitOrTimeout( { watcher1.isWatching() && watcher2.isWatching() }, timeout( millis( 400L ) ) )
+        assert [ changes.poll( 1, TimeUnit.SECONDS ), changes.poll( 1, TimeUnit.SECONDS ) ].toSet() ==
+                [ 'file1', 'file2' ].toSet()
+
+        when: 'The second file changes'
+        file2 << 'hi'
+
+        then: 'Only the watcher of the second file is notified'
+        changes.poll( 4, TimeUnit.SECONDS ) == 'file2'
+        changes.poll( 500, TimeUnit.MILLISECONDS ) in [ null, 'file2' ]
+
+        when: 'The watcher of the second file is closed, and both files change'
+        watcher2.close()
+        changes.clear()
+        file2 << 'bye'
+        file1 << 'bye'
+
+        then: 'Only the watcher of the first file is notified'
+        changes.poll( 4, TimeUnit.SECONDS ) == 'file1'
+        changes.poll( 500, TimeUnit.MILLISECONDS ) in [ null, 'file1' ]
+
+        cleanup:
+        watcher1?.close()
+        watcher2?.close()
+    }
+
     def "FileWatcher can STOP watching file when it is closed"() {
         given: 'An existing file'
         def file = Files.createTempFile( 'FileChangeWatcherSpec', '.log' ).toFile()
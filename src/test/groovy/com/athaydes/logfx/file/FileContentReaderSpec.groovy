@@ -16,9 +16,13 @@ class FileContentReaderSpec extends Specification {
         file.deleteOnExit()
     }
 
+    FileContentReader createReader( File file, int windowSize, int bufferSize = 4096 ) {
+        new FileReader( file, windowSize, bufferSize )
+    }
+
     def "Can read the tail of a single-line file spanning multiple buffers"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         when: 'A file with a very long line is created'
         file << ( 'Z' * 100 )
@@ -33,7 +37,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Can read the tail of a multi-line file with some lines spanning multiple buffers"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         when: 'A file with some long and short lines is created'
         file << ( 'Z' * 100 ) << '\n' << 'abc' << '\n\n' << ( 'X' * 10 ) << '\n'
@@ -49,7 +53,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the tail of a short file with a short buffer"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, windowSize, 8 )
+        FileContentReader reader = createReader( file, windowSize, 8 )
 
         when: 'A file with 10 lines is created'
         file << ( 1..10 ).join( '\n' )
@@ -73,7 +77,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the tail of a short file with the default buffer"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, windowSize )
+        FileContentReader reader = createReader( file, windowSize )
 
         when: 'A file with 10 lines is created'
         file << ( 1..10 ).join( '\n' )
@@ -97,7 +101,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the tail of a long file"() {
         given: 'a file reader with a default buffer'
-        FileContentReader reader = new FileReader( file, windowSize )
+        FileContentReader reader = createReader( file, windowSize )
 
         when: 'A file with 100,000 lines is created'
         file << ( 1..100_000 ).join( '\n' )
@@ -121,7 +125,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the top of a long file"() {
         given: 'a file reader with a default buffer'
-        FileContentReader reader = new FileReader( file, windowSize )
+        FileContentReader reader = createReader( file, windowSize )
 
         when: 'A file with 100,000 lines is created'
         file << ( 1..100_000 ).join( '\n' )
@@ -145,7 +149,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the tail of a long file, then move up using a large or small buffer"() {
         given: 'a file reader with a buffer of size #bufferSize'
-        FileContentReader reader = new FileReader( file, windowSize, bufferSize )
+        FileContentReader reader = createReader( file, windowSize, bufferSize )
 
         when: 'A file with 100,000 lines is created'
         file << ( 1..100_000 ).join( '\n' )
@@ -186,7 +190,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read the top of a long file, then move down using a large or small buffer"() {
         given: 'a file reader with a buffer of size #bufferSize'
-        FileContentReader reader = new FileReader( file, windowSize, bufferSize )
+        FileContentReader reader = createReader( file, windowSize, bufferSize )
 
         when: 'A file with 100,000 lines is created'
         file << ( 1..100_000 ).join( '\n' )
@@ -227,7 +231,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Refresh at top should cause the previously read lines to be read again"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -250,7 +254,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Refresh at tail should cause the previously read lines to be read again"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -280,7 +284,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving down a small amount of lines returns the expected lines and moves the file window accordingly"() {
         given: 'a file reader with a short byte buffer and file window'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -311,7 +315,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving up a small amount of lines returns the expected lines and moves the file window accordingly"() {
         given: 'a file reader with a short byte buffer and file window'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -345,7 +349,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving up after file boundaries does not cause errors"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -384,7 +388,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving down after file boundaries does not cause errors"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -423,7 +427,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving down more lines than the size of the file window is allowed and the file window moves as expected"() {
         given: 'a file reader with a short byte buffer and file window'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -444,7 +448,7 @@ class FileContentReaderSpec extends Specification {
 
     def "Moving up more lines than the size of the file window is allowed and the file window moves as expected"() {
         given: 'a file reader with a short byte buffer and file window'
-        FileContentReader reader = new FileReader( file, 3, 8 )
+        FileContentReader reader = createReader( file, 3, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -466,7 +470,7 @@ class FileContentReaderSpec extends Specification {
 
     def "It is possible to refresh from the tail after a file change"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -513,7 +517,7 @@ class FileContentReaderSpec extends Specification {
 
     def "It is possible to refresh from the top after a file change"() {
         given: 'a file reader with a short byte buffer'
-        FileContentReader reader = new FileReader( file, 5, 8 )
+        FileContentReader reader = createReader( file, 5, 8 )
 
         and: 'A file with 10 lines is created'
         file << ( 0..9 ).collect { def s = it.toString(); s.padLeft( 3, s ) }.join( '\n' )
@@ -554,7 +558,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read and move down then up through Windows log file, handling line endings correctly"() {
         given: 'a file reader with a windows size of #windowSize and byte buffer of size #bufferSize'
-        FileContentReader reader = new FileReader( file, windowSize, bufferSize )
+        FileContentReader reader = createReader( file, windowSize, bufferSize )
 
         and: 'A Windows log file with 10 lines is created'
         def lineCreator = { it.toString() * 10 }
@@ -597,7 +601,7 @@ class FileContentReaderSpec extends Specification {
     @Unroll
     def "Can read and move up then down through Windows log file, handling line endings correctly"() {
         given: 'a file reader with a windows size of #windowSize and byte buffer of size #bufferSize'
-        FileContentReader reader = new FileReader( file, windowSize, bufferSize )
+        FileContentReader reader = createReader( file, windowSize, bufferSize )
 
         and: 'A Windows log file with 10 lines is created'
         def lineCreator = { it.toString() * 10 }
@@ -639,4 +643,280 @@ class FileContentReaderSpec extends Specification {
         4          | 4096
     }
 
-}
\ No newline at end of file
+    @Unroll
+    def "Can go to line number #lineNumber"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 3, 8 )
+
+        and: 'A file with 10 lines is created and indexed'
+        file << ( 1..10 ).join( '\n' )
+        reader.updateLineIndex()
+
+        when: 'The reader goes to a line'
+        def moved = reader.goToLine( lineNumber )
+        def lines = reader.refresh()
+
+        then: 'The expected lines are returned'
+        moved
+        lines.isPresent()
+        lines.get() == expectedLines
+
+        and: 'The reader can move up from there'
+        reader.moveUp( 1 ).get() == expectedLineAbove
+
+        where:
+        lineNumber || expectedLines     | expectedLineAbove
+        1          || [ '1', '2', '3' ] | [ ]
+        2          || [ '2', '3', '4' ] | [ '1' ]
+        5          || [ '5', '6', '7' ] | [ '4' ]
+        8          || [ '8', '9', '10' ] | [ '7' ]
+        9          || [ '8', '9', '10' ] | [ '7' ]
+        10         || [ '8', '9', '10' ] | [ '7' ]
+        11         || [ '8', '9', '10' ] | [ '7' ]
+        1000       || [ '8', '9', '10' ] | [ '7' ]
+    }
+
+    def "Can go to a line far into a long file"() {
+        given: 'a file reader with a default buffer'
+        FileContentReader reader = createReader( file, 3 )
+
+        and: 'A file with 100,000 lines is created'
+        file << ( 1..100_000 ).join( '\n' )
+
+        and: 'the file is only indexed until a line before the one to go to'
+        reader.lineIndex.updateUntilLine( 1000 )
+
+        when: 'The reader goes to a line far into the file'
+        def moved = reader.goToLine( 48_000 )
+
+        then: 'The file window is not moved, as the line has not been indexed yet'
+        !moved
+        reader.refresh().get() == [ '1', '2', '3' ]
+
+        when: 'The file is indexed until the line and the reader goes to it again'
+        reader.lineIndex.updateUntilLine( 48_000 )
+        moved = reader.goToLine( 48_000 )
+        def lines = reader.refresh()
+
+        then: 'The expected lines are returned'
+        moved
+        lines.isPresent()
+        lines.get() == [ '48000', '48001', '48002' ]
+
+        and: 'The reader can move down from there'
+        reader.moveDown( 2 ).get() == [ '48003', '48004' ]
+    }
+
+    @Unroll
+    def "Can read very long lines from the top and from the bottom (buffer size = #bufferSize)"() {
+        given: 'a file reader'
+        FileContentReader reader = createReader( file, 3, bufferSize )
+
+        and: 'A file with some very long lines, using Windows line endings'
+        def longLines = [ 'A' * 30_000, 'short', 'B' * 100_000, 'C' * 7, 'D' * 300_000 ]
+        file << longLines.join( '\r\n' )
+
+        when: 'The reader moves to the top'
+        reader.top()
+        def top = reader.refresh()
+
+        then: 'The first lines are returned'
+        top.isPresent()
+        top.get() == longLines[ 0..2 ]
+
+        when: 'The reader moves down'
+        def bottom = reader.moveDown( 2 )
+
+        then: 'The last lines are returned'
+        bottom.isPresent()
+        bottom.get() == longLines[ 3..4 ]
+
+        when: 'The reader moves to the tail'
+        reader.tail()
+        def tail = reader.refresh()
+
+        then: 'The last lines are returned'
+        tail.isPresent()
+        tail.get() == longLines[ 2..4 ]
+
+        when: 'The reader moves up'
+        def lines = reader.moveUp( 2 )
+
+        then: 'The first lines are returned'
+        lines.isPresent()
+        lines.get() == longLines[ 0..1 ]
+
+        where:
+        bufferSize << [ 8, 4096 ]
+    }
+
+    def "Only the beginning of very long lines is decoded until their full text is requested"() {
+        given: 'a file reader'
+        FileContentReader reader = createReader( file, 3 )
+
+        and: 'A file with a very long line between short lines'
+        def longLine = ( 'Ab€' * 100_000 )
+        file << [ 'first', longLine, 'last' ].join( '\n' )
+
+        when: 'The reader reads the file'
+        reader.top()
+        def lines = FileLines.refsOf( reader.refresh().get() )
+
+        then: 'The short lines are complete'
+        lines[ 0 ].complete
+        lines[ 0 ].prefix() == 'first'
+        lines[ 2 ].complete
+        lines[ 2 ].prefix() == 'last'
+
+        and: 'Only the beginning of the long line is decoded'
+        !lines[ 1 ].complete
+        lines[ 1 ].prefix() == longLine.substring( 0, LogLineRef.MAX_PREFIX_LENGTH )
+        lines[ 1 ].offset() == 'first\n'.size()
+        lines[ 1 ].byteLength() == longLine.getBytes( 'UTF-8' ).size()
+
+        and: 'The full text of the long line can be obtained'
+        lines[ 1 ].text().size() == longLine.size()
+        lines[ 1 ].text() == longLine
+
+        and: 'Reading the same lines again gives equal references'
+        FileLines.refsOf( reader.refresh().get() ) == lines
+        lines[ 1 ] != LogLineRef.of( lines[ 1 ].prefix() )
+    }
+
+    def "Can follow the tail of a file as lines are appended to it"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 4, 8 )
+
+        and: 'A file with 5 lines, the last one incomplete'
+        file << '1\n2\n3\n4\n5'
+
+        when: 'The reader starts following the tail'
+        def update = reader.followTail()
+
+        then: 'The full file window is returned'
+        update.isPresent()
+        update.get() == new TailUpdate( [ '2', '3', '4', '5' ], false )
+
+        when: 'Nothing changes and the reader follows the tail again'
+        update = reader.followTail()
+
+        then: 'An empty incremental update is returned'
+        update.get() == new TailUpdate( [ ], true )
+
+        when: 'The last line is completed and more lines are appended'
+        file << '55\n6\n7\n'
+        update = reader.followTail()
+
+        then: 'The last line is read again, followed by the new lines'
+        update.get() == new TailUpdate( [ '555', '6', '7', '' ], true )
+
+        when: 'Another line is appended'
+        file << '8\r\n'
+        update = reader.followTail()
+
+        then: 'The last (empty) line is replaced by the new line'
+        update.get() == new TailUpdate( [ '8', '' ], true )
+
+        when: 'The reader moves up from the tail'
+        def lines = reader.moveUp( 2 )
+
+        then: 'The lines immediately before the file window are returned'
+        lines.get() == [ '4', '555' ]
+    }
+
+    def "Following the tail skips to the newest file window when more lines are appended than it can hold"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 3, 8 )
+
+        and: 'A file with 2 lines'
+        file << 'a\nb\n'
+
+        when: 'The reader starts following the tail'
+        def update = reader.followTail()
+
+        then: 'The full file window is returned'
+        update.get() == new TailUpdate( [ 'a', 'b', '' ], false )
+
+        when: 'Many lines are appended'
+        file << ( 1..10 ).join( '\n' )
+        update = reader.followTail()
+
+        then: 'The newest file window is returned'
+        update.get() == new TailUpdate( [ '8', '9', '10' ], false )
+
+        and: 'The reader can move up from there'
+        reader.moveUp( 1 ).get() == [ '7' ]
+    }
+
+    def "Following the tail reads the whole file window again after the file is truncated"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 3, 8 )
+
+        and: 'A file with 5 lines'
+        file << ( 1..5 ).join( '\n' )
+
+        when: 'The reader starts following the tail'
+        def update = reader.followTail()
+
+        then: 'The full file window is returned'
+        update.get() == new TailUpdate( [ '3', '4', '5' ], false )
+
+        when: 'The file is truncated and a new line is written to it'
+        file.text = 'new'
+        update = reader.followTail()
+
+        then: 'The full file window is read again'
+        update.get() == new TailUpdate( [ 'new' ], false )
+    }
+
+    def "Refreshing after the file is truncated moves the file window to the top of the file"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 3, 8 )
+
+        and: 'A file with 20 lines, whose file window is in the middle of the file'
+        file << ( 1..20 ).join( '\n' )
+        reader.updateLineIndex()
+        reader.goToLine( 10 )
+
+        expect: 'The file window shows the lines in the middle of the file'
+        reader.refresh().get() == [ '10', '11', '12' ]
+
+        when: 'The file is truncated (e.g. by copytruncate) and new lines are written to it'
+        new RandomAccessFile( file, 'rw' ).withCloseable { it.setLength( 0 ) }
+        file << [ 'a', 'b', 'c', 'd' ].join( '\n' )
+
+        then: 'The file window is refreshed from the top of the file'
+        reader.refresh().get() == [ 'a', 'b', 'c' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Following the tail reads the new file after the file is replaced by log rotation"() {
+        given: 'a file reader with a short byte buffer'
+        FileContentReader reader = createReader( file, 3, 8 )
+
+        and: 'A file with 5 lines'
+        file << ( 1..5 ).join( '\n' )
+        def rotated = new File( file.parentFile, file.name + '.1' )
+        rotated.deleteOnExit()
+
+        when: 'The reader starts following the tail'
+        def update = reader.followTail()
+
+        then: 'The full file window is returned'
+        update.get() == new TailUpdate( [ '3', '4', '5' ], false )
+
+        when: 'The file is renamed and a new, larger file is created in its place'
+        assert file.renameTo( rotated )
+        file << ( 'a'..'j' ).join( '\n' )
+        update = reader.followTail()
+
+        then: 'The tail of the new file is read'
+        update.get() == new TailUpdate( [ 'h', 'i', 'j' ], false )
+
+        cleanup:
+        reader?.close()
+        rotated.delete()
+    }
+}
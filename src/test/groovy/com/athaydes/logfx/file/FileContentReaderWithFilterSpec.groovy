@@ -1,5 +1,8 @@
 package com.athaydes.logfx.file
 
+import com.athaydes.logfx.text.HighlightExpression
+import com.athaydes.logfx.text.LineFilter
+import javafx.scene.paint.Color
 import spock.lang.Shared
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -141,4 +144,44 @@ class FileContentReaderWithFilterSpec extends Specification {
         '30'            | [ 'line 30' ]
     }
 
+    def "FileReader should find the filtered lines at the tail as the file grows"() {
+        given: 'A FileReader with a filter of highlight expressions'
+        FileContentReader reader = new FileReader( file, 3, 16 )
+        reader.lineFilter = new LineFilter( [ new HighlightExpression( 'ERROR \\d+', Color.RED, Color.RED, true ) ] )
+
+        and: 'the File contains 100 lines, with an error every 10 lines'
+        ( 1..100 ).each { line ->
+            file << ( line % 10 == 0 ? "ERROR $line" : "INFO $line" ) << '\n'
+        }
+
+        when: 'we read the tail of the file'
+        reader.tail()
+        def tail = reader.refresh()
+
+        then: 'it should contain the last errors'
+        tail.isPresent()
+        tail.get() == [ 'ERROR 80', 'ERROR 90', 'ERROR 100' ]
+
+        when: 'more lines are appended to the file and the index is updated'
+        ( 101..120 ).each { line ->
+            file << ( line % 10 == 0 ? "ERROR $line" : "INFO $line" ) << '\n'
+        }
+        reader.updateLineIndex()
+
+        and: 'we read the tail of the file again'
+        reader.tail()
+        tail = reader.refresh()
+
+        then: 'it should contain the new errors'
+        tail.isPresent()
+        tail.get() == [ 'ERROR 100', 'ERROR 110', 'ERROR 120' ]
+
+        when: 'we move up 2 lines'
+        def up = reader.moveUp( 2 )
+
+        then: 'the previous errors are returned'
+        up.isPresent()
+        up.get() == [ 'ERROR 80', 'ERROR 90' ]
+    }
+
 }
@@ -0,0 +1,133 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+
+import java.nio.channels.ClosedChannelException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+class FileHandlesSpec extends Specification {
+
+    def handles = new FileHandles()
+
+    def "A single handle is kept open for each file until all readers release it"() {
+        given: 'A file'
+        def file = Files.createTempFile( 'file-handles', '.log' ).toFile()
+        file.deleteOnExit()
+        file.text = 'hello'
+
+        when: 'The file handle is acquired twice'
+        def handle1 = handles.acquire( file )
+        def handle2 = handles.acquire( file )
+
+        then: 'The same handle is returned both times'
+        handle1.is( handle2 )
+        handles.openHandleCount() == 1
+
+        when: 'The handle is released once'
+        handle1.release()
+
+        then: 'The handle is still open'
+        handles.openHandleCount() == 1
+        read( handle2 ) == 'hello'
+
+        when: 'The handle is released again'
+        handle2.release()
+
+        then: 'The handle is closed'
+        handles.openHandleCount() == 0
+    }
+
+    def "A handle re-opens the file after it is replaced"() {
+        given: 'A file and its handle'
+        def dir = Files.createTempDirectory( 'file-handles' ).toFile()
+        def file = new File( dir, 'app.log' )
+        def rotated = new File( dir, 'app.log.1' )
+        file.text = 'old contents'
+        def handle = handles.acquire( file )
+        def identity = handle.identity()
+
+        expect: 'The file can be read'
+        read( handle ) == 'old contents'
+
+        when: 'The file is renamed and another file is created in its place'
+        assert file.renameTo( rotated )
+        file.text = 'new'
+        def newIdentity = handle.identity()
+
+        then: 'The new file is read'
+        read( handle ) == 'new'
+
+        and: 'The identity of the file shows it was replaced, unless the file system has no file keys'
+        newIdentity.size() == 3
+        identity.fileKey() == null || newIdentity.isReplacementOf( identity )
+
+        cleanup:
+        handle?.release()
+        file.delete()
+        rotated.delete()
+        dir.delete()
+    }
+
+    def "The identity of a file shows when it was truncated"() {
+        given: 'A file and its handle'
+        def file = Files.createTempFile( 'file-handles', '.log' ).toFile()
+        file.deleteOnExit()
+        file.text = 'hello world'
+        def handle = handles.acquire( file )
+        def identity = handle.identity()
+
+        when: 'The file is truncated'
+        new RandomAccessFile( file, 'rw' ).withCloseable { it.setLength( 5 ) }
+        def newIdentity = handle.identity()
+
+        then: 'The identity shows the file was truncated, not replaced'
+        newIdentity.isTruncationOf( identity )
+        !newIdentity.isReplacementOf( identity )
+        read( handle ) == 'hello'
+
+        cleanup:
+        handle?.release()
+    }
+
+    def "A released handle does not open the file again"() {
+        given: 'A file and its handle, with an open source'
+        def file = Files.createTempFile( 'file-handles', '.log' ).toFile()
+        file.deleteOnExit()
+        file.text = 'hello'
+        def handle = handles.acquire( file )
+        def source = handle.source()
+
+        when: 'The handle is released'
+        handle.release()
+
+        then: 'The handle is closed'
+        handles.openHandleCount() == 0
+
+        when: 'The source opened before the handle was released is read'
+        source.read( 0L, new byte[ 5 ], 0, 5 )
+
+        then: 'The read fails instead of opening the file again'
+        thrown( ClosedChannelException )
+
+        when: 'A new source is requested'
+        handle.source()
+
+        then: 'It fails as well'
+        thrown( ClosedChannelException )
+
+        when: 'The identity of the file is requested'
+        handle.identity()
+
+        then: 'It fails as well'
+        thrown( ClosedChannelException )
+    }
+
+    private static String read( FileHandles.FileHandle handle ) {
+        handle.source().withCloseable { source ->
+            def bytes = new byte[ source.length() ]
+            source.read( 0L, bytes, 0, bytes.length )
+            new String( bytes, StandardCharsets.UTF_8 )
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+
+class FileLineStartsSpec extends Specification {
+
+    def "Line starts are kept sorted, without duplicates"() {
+        given: 'line starts with space for 5 indexes'
+        def lineStarts = new FileLineStarts( 5 )
+
+        when: 'indexes are added to both ends, in the middle, and repeated'
+        lineStarts.addLast( 10 )
+        lineStarts.addLast( 20 )
+        lineStarts.addFirst( 5 )
+        lineStarts.addLast( 20 )
+        lineStarts.addFirst( 15 )
+
+        then: 'the indexes are sorted and not repeated'
+        lineStarts.toString() == 'FileLineStarts{indexes=[5, 10, 15, 20]}'
+        lineStarts.first == 5
+        lineStarts.last == 20
+    }
+
+    def "Adding indexes at the end drops the first ones when full"() {
+        given: 'line starts with space for 3 indexes'
+        def lineStarts = new FileLineStarts( 3 )
+
+        when: 'many indexes are added at the end, wrapping around the buffer several times'
+        ( 1..10 ).each { lineStarts.addLast( it ) }
+
+        then: 'only the last 3 indexes are kept'
+        lineStarts.toString() == 'FileLineStarts{indexes=[8, 9, 10]}'
+    }
+
+    def "Adding indexes at the beginning drops the last ones when full"() {
+        given: 'line starts with space for 3 indexes'
+        def lineStarts = new FileLineStarts( 3 )
+
+        when: 'many indexes are added at the beginning, wrapping around the buffer several times'
+        ( 10..1 ).each { lineStarts.addFirst( it ) }
+
+        then: 'only the first 3 indexes are kept'
+        lineStarts.toString() == 'FileLineStarts{indexes=[1, 2, 3]}'
+    }
+
+    def "Indexes can be removed from either end"() {
+        given: 'line starts with 5 indexes'
+        def lineStarts = new FileLineStarts( 5 )
+        ( 1..5 ).each { lineStarts.addLast( it * 10 ) }
+
+        when: 'indexes from 35 are removed'
+        lineStarts.removeFrom( 35 )
+
+        then: 'the indexes before 35 are kept'
+        lineStarts.toString() == 'FileLineStarts{indexes=[10, 20, 30]}'
+
+        when: 'only the last 2 indexes are retained'
+        lineStarts.retainLast( 2 )
+
+        then: 'the first index is removed'
+        lineStarts.toString() == 'FileLineStarts{indexes=[20, 30]}'
+
+        when: 'the line starts are cleared'
+        lineStarts.clear()
+
+        then: 'there are no indexes left'
+        lineStarts.toString() == 'FileLineStarts{indexes=[]}'
+        lineStarts.first == 0
+        lineStarts.last == 0
+    }
+
+    def "Copies are independent of each other"() {
+        given: 'line starts with a few indexes'
+        def lineStarts = new FileLineStarts( 4 )
+        ( 1..3 ).each { lineStarts.addLast( it ) }
+
+        when: 'a copy is made and both are modified'
+        def copy = lineStarts.makeCopy()
+        copy.addLast( 4 )
+        copy.addLast( 5 )
+        lineStarts.addFirst( 0 )
+
+        then: 'each one has only its own modifications'
+        lineStarts.toString() == 'FileLineStarts{indexes=[0, 1, 2, 3]}'
+        copy.toString() == 'FileLineStarts{indexes=[2, 3, 4, 5]}'
+
+        when: 'the state of the copy is copied back into the original, then the copy is modified'
+        lineStarts.copyState( copy )
+        copy.clear()
+        copy.addLast( 100 )
+
+        then: 'the original keeps the state it copied'
+        lineStarts.toString() == 'FileLineStarts{indexes=[2, 3, 4, 5]}'
+        copy.toString() == 'FileLineStarts{indexes=[100]}'
+    }
+
+}
@@ -2,6 +2,8 @@ package com.athaydes.logfx.file
 
 import spock.lang.Specification
 
+import java.nio.file.Files
+
 class FileSearcherSpec extends Specification {
 
     def 'Can find easy target down'() {
@@ -218,4 +220,127 @@ class FileSearcherSpec extends Specification {
         'def'  | [ 'def', 'ghi' ] || new FileSearcher.SearchResult( 0, FileSearcher.ResultCase.AFTER )
     }
 
+    def 'Can find target by bisecting a large file'() {
+        given: 'A file with many numbered lines, and runs of lines without numbers every 1000 lines'
+        def file = Files.createTempFile( 'file-searcher', '.log' ).toFile()
+        file.deleteOnExit()
+        file.withWriter { writer ->
+            for ( int i = 0; i < 100_000; i++ ) {
+                writer.write( String.format( '%06d some log message%n', i * 2 ) )
+                if ( i % 1000 == 999 ) {
+                    20.times { writer.write( '    at some.stack.Trace(Trace.java:10)\n' ) }
+                }
+            }
+        }
+
+        and: 'A file searcher'
+        def reader = new FileReader( file, 10 )
+        def searcher = new FileSearcher( reader )
+
+        when: 'We bisect the file'
+        def result = searcher.bisect { line ->
+            line.startsWith( ' ' )
+                    ? FileSearcher.Comparison.UNKNOWN
+                    : FileSearcher.Comparison.of( target <=> Integer.parseInt( line.substring( 0, 6 ) ) )
+        }
+
+        then: 'We find the expected result'
+        result.isPresent()
+        result.get().resultCase() == expectedCase
+
+        and: 'the file window contains the expected line at the result line number'
+        def lines = reader.refresh().get()
+        lines[ result.get().lineNumber() ].startsWith( expectedLine )
+
+        and: 'only a small part of the file was read to find it'
+        def stats = searcher.bisectionStats()
+        stats.probes() < 100
+        stats.bytesProbed() < file.length().intdiv( 100 )
+
+        cleanup:
+        file.delete()
+
+        where:
+        target  || expectedCase                     | expectedLine
+        0       || FileSearcher.ResultCase.AT       | '000000'
+        2       || FileSearcher.ResultCase.AT       | '000002'
+        100_000 || FileSearcher.ResultCase.AT       | '100000'
+        100_001 || FileSearcher.ResultCase.BEFORE   | '100002'
+        199_998 || FileSearcher.ResultCase.AT       | '199998'
+        999_999 || FileSearcher.ResultCase.AFTER    | '199998'
+        -1      || FileSearcher.ResultCase.BEFORE   | '000000'
+    }
+
+    def 'Bisection probes around long runs of lines without known comparisons'() {
+        given: 'A file where each numbered line is followed by a long stack trace'
+        def file = Files.createTempFile( 'file-searcher', '.log' ).toFile()
+        file.deleteOnExit()
+        file.withWriter { writer ->
+            for ( int i = 0; i < 2000; i++ ) {
+                writer.write( String.format( '%06d some log message%n', i ) )
+                200.times { writer.write( '    at some.stack.Trace(Trace.java:10)\n' ) }
+            }
+        }
+
+        and: 'A file searcher'
+        def reader = new FileReader( file, 10 )
+        def searcher = new FileSearcher( reader )
+
+        when: 'We bisect the file'
+        def result = searcher.bisect { line ->
+            line.startsWith( ' ' )
+                    ? FileSearcher.Comparison.UNKNOWN
+                    : FileSearcher.Comparison.of( target <=> Integer.parseInt( line.substring( 0, 6 ) ) )
+        }
+
+        then: 'We find the expected line'
+        result.isPresent()
+        result.get().resultCase() == FileSearcher.ResultCase.AT
+        reader.refresh().get()[ result.get().lineNumber() ].startsWith( String.format( '%06d', target ) )
+
+        and: 'the runs of lines without numbers were not probed line by line'
+        def stats = searcher.bisectionStats()
+        stats.probes() < 100
+        stats.bytesProbed() < file.length().intdiv( 20 )
+
+        cleanup:
+        file.delete()
+
+        where:
+        target << [ 0, 1, 777, 1998, 1999 ]
+    }
+
+    def 'Bisection skips ranges without known lines'() {
+        given: 'A file with a huge run of lines without numbers in the middle'
+        def file = Files.createTempFile( 'file-searcher', '.log' ).toFile()
+        file.deleteOnExit()
+        file.withWriter { writer ->
+            for ( int i = 0; i < 1000; i++ ) writer.write( String.format( '%06d before%n', i ) )
+            for ( int i = 0; i < 10_000; i++ ) writer.write( 'no number here\n' )
+            for ( int i = 1000; i < 2000; i++ ) writer.write( String.format( '%06d after%n', i ) )
+        }
+
+        and: 'A file searcher'
+        def reader = new FileReader( file, 10 )
+        def searcher = new FileSearcher( reader )
+
+        when: 'We bisect the file'
+        def result = searcher.bisect { line ->
+            line.startsWith( 'no' )
+                    ? FileSearcher.Comparison.UNKNOWN
+                    : FileSearcher.Comparison.of( target <=> Integer.parseInt( line.substring( 0, 6 ) ) )
+        }
+
+        then: 'We find the expected line'
+        result.isPresent()
+        result.get().resultCase() == FileSearcher.ResultCase.AT
+        reader.refresh().get()[ result.get().lineNumber() ].startsWith( String.format( '%06d', target ) )
+
+        cleanup:
+        file.delete()
+
+        where:
+        target << [ 0, 500, 999, 1000, 1500, 1999 ]
+    }
+
 }
@@ -0,0 +1,157 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.util.concurrent.ForkJoinPool
+import java.util.function.Predicate
+
+class FilterIndexSpec extends Specification {
+
+    @Shared
+    File file = Files.createTempFile( 'filter-index', '.log' ).toFile()
+
+    @Shared
+    ForkJoinPool pool = new ForkJoinPool( 4 )
+
+    def setup() {
+        file.delete()
+        file.deleteOnExit()
+    }
+
+    def cleanupSpec() {
+        pool.shutdown()
+    }
+
+    def createIndex( Predicate<String> filter, int chunkSize, int maxMatches = 1000 ) {
+        new FilterIndex( new TestSourceFactory( file: file ), filter, pool, chunkSize, maxMatches )
+    }
+
+    static List<Long> expectedOffsets( String text, Predicate<String> filter ) {
+        def result = [ ]
+        long offset = 0L
+        text.split( '\n', -1 ).each { line ->
+            if ( filter.test( line.endsWith( '\r' ) ? line[ 0..<-1 ] : line ) ) {
+                result << offset
+            }
+            offset += line.size() + 1
+        }
+        result
+    }
+
+    @Unroll
+    def "Can find all lines accepted by a filter with chunks of #chunkSize bytes"() {
+        given: 'a file with lines of different lengths, some of them longer than a chunk'
+        def lines = ( 1..200 ).collect { "${it}:" + ( 'x' * ( ( it * 7 ) % 45 ) ) }
+        file.text = lines.join( '\n' )
+
+        and: 'a filter and an index for the file'
+        Predicate<String> filter = { String line -> line.startsWith( '1' ) || line.size() > 40 }
+        def index = createIndex( filter, chunkSize )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'all accepted lines are found'
+        index.offsetsFrom( 0L, 1000 ).get().toList() == expectedOffsets( file.text, filter )
+
+        where:
+        chunkSize << [ 1, 7, 64, 1000, 100_000 ]
+    }
+
+    def "Can find accepted lines before and after a position"() {
+        given: 'a file with 100 lines of 10 bytes each (including the new line)'
+        file.text = ( 1..100 ).collect { String.format( 'line %04d', it ) }.join( '\n' ) + '\n'
+
+        and: 'an index of the lines ending with 5'
+        def index = createIndex( { String line -> line.endsWith( '5' ) } as Predicate<String>, 32 )
+
+        expect: 'the first accepted lines from a position can be found'
+        index.offsetsFrom( 0L, 3 ).get().toList() == [ 40L, 140L, 240L ]
+        index.offsetsFrom( 41L, 2 ).get().toList() == [ 140L, 240L ]
+        index.offsetsFrom( 950L, 5 ).get().toList() == [ ]
+
+        and: 'the last accepted lines until a position can be found'
+        index.offsetsUntil( 140L, 5 ).get().toList() == [ 40L, 140L ]
+        index.offsetsUntil( 139L, 5 ).get().toList() == [ 40L ]
+        index.offsetsUntil( file.length(), 2 ).get().toList() == [ 840L, 940L ]
+    }
+
+    def "Only the lines needed to answer a lookup are scanned"() {
+        given: 'a file with 1000 lines'
+        file.text = ( 1..1000 ).collect { "line $it" }.join( '\n' )
+
+        and: 'an index of the lines containing 1 with chunks of 16 bytes'
+        def index = createIndex( { String line -> line.contains( '1' ) } as Predicate<String>, 16 )
+
+        when: 'the first 2 accepted lines are looked up'
+        def offsets = index.offsetsFrom( 0L, 2 )
+
+        then: 'they are found without scanning the whole file'
+        offsets.get().size() == 2
+        index.matchCount() < 100
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'all accepted lines are found'
+        index.matchCount() == ( 1..1000 ).count { "$it".contains( '1' ) }
+    }
+
+    def "The index is extended as the file grows and rebuilt when it is truncated"() {
+        given: 'a file whose last line is incomplete'
+        file.text = 'ERROR 1\nINFO 2\r\nERR'
+
+        and: 'an index of the lines containing ERROR'
+        def index = createIndex( { String line -> line.contains( 'ERROR' ) } as Predicate<String>, 4 )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'the complete line is found'
+        index.offsetsFrom( 0L, 10 ).get().toList() == [ 0L ]
+
+        when: 'the last line is completed and more lines are appended'
+        file << 'OR 3\r\nDEBUG 4\nERROR 5'
+        index.update()
+
+        then: 'the new lines are found'
+        index.offsetsFrom( 0L, 10 ).get().toList() == expectedOffsets( file.text, index.filter )
+
+        when: 'the file is truncated'
+        file.text = 'DEBUG\nERROR'
+        index.update()
+
+        then: 'the index is rebuilt'
+        index.offsetsFrom( 0L, 10 ).get().toList() == [ 6L ]
+    }
+
+    def "The empty line after the last new line of a file can be accepted"() {
+        given: 'a file that ends with a new line'
+        file.text = 'a\n\nb\n'
+
+        and: 'an index of the empty lines'
+        def index = createIndex( { String line -> line.isEmpty() } as Predicate<String>, 2 )
+
+        expect: 'all empty lines are found'
+        index.offsetsUntil( file.length(), 10 ).get().toList() == [ 2L, 5L ]
+    }
+
+    def "The index cannot be used if the filter accepts too many lines"() {
+        given: 'a file with 100 lines'
+        file.text = ( 1..100 ).collect { "line $it" }.join( '\n' )
+
+        and: 'an index of a filter accepting every line, but allowing only 50 matches'
+        def index = createIndex( { String line -> true } as Predicate<String>, 64, 50 )
+
+        expect: 'lookups near the top of the file can be answered before too many lines are found'
+        index.offsetsFrom( 0L, 2 ).get().toList() == [ 0L, 7L ]
+
+        and: 'lookups requiring the whole file to be scanned return nothing'
+        !index.offsetsUntil( file.length(), 2 ).present
+        !index.offsetsFrom( 0L, 2 ).present
+    }
+
+}
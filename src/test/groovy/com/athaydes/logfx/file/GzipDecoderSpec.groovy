@@ -0,0 +1,164 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.ZipException
+
+class GzipDecoderSpec extends Specification {
+
+    File file = Files.createTempFile( 'gzip-decoder', '.gz' ).toFile()
+
+    def cleanup() {
+        file.delete()
+    }
+
+    static byte[] sampleBytes( int lineCount ) {
+        def random = new Random( 42 )
+        def builder = new StringBuilder()
+        lineCount.times { i ->
+            builder.append( "2024-01-01 00:00:${i % 60} [thread-${random.nextInt( 8 )}] " )
+            builder.append( 'INFO message number ' ).append( i ).append( ' ' )
+            // some random bytes, so there are literals as well as matches
+            random.nextInt( 40 ).times { builder.append( ( char ) ( 97 + random.nextInt( 26 ) ) ) }
+            builder.append( '\n' )
+        }
+        builder.toString().bytes
+    }
+
+    static byte[] concat( List<byte[]> parts ) {
+        def out = new ByteArrayOutputStream()
+        parts.each { out.write( it ) }
+        out.toByteArray()
+    }
+
+    void writeGzip( List<byte[]> members, int level = Deflater.DEFAULT_COMPRESSION ) {
+        file.withOutputStream { out ->
+            for ( member in members ) {
+                out.write( gzipMember( member, level ) )
+            }
+        }
+    }
+
+    static byte[] gzipMember( byte[] bytes, int level ) {
+        def out = new ByteArrayOutputStream()
+        out.write( [ 0x1f, 0x8b, 8, 0, 0, 0, 0, 0, 0, 0xff ] as byte[] )
+        def deflater = new Deflater( level, true )
+        new DeflaterOutputStream( out, deflater ).with {
+            write( bytes )
+            finish()
+        }
+        deflater.end()
+        def crc = new CRC32()
+        crc.update( bytes )
+        def trailer = ByteBuffer.allocate( 8 ).order( ByteOrder.LITTLE_ENDIAN )
+        trailer.putInt( ( int ) crc.value ).putInt( bytes.length )
+        out.write( trailer.array() )
+        out.toByteArray()
+    }
+
+    byte[] decodeAll( GzipDecoder decoder, int readSize = 1000 ) {
+        def result = new ByteArrayOutputStream()
+        byte[] buffer = new byte[ readSize ]
+        int n
+        while ( ( n = decoder.read( buffer, 0, buffer.length ) ) > 0 ) {
+            result.write( buffer, 0, n )
+        }
+        result.toByteArray()
+    }
+
+    @Unroll
+    def "Can decode a gzip file compressed with level #level"() {
+        given: 'a gzip file'
+        def bytes = sampleBytes( 20_000 )
+        writeGzip( [ bytes ], level )
+
+        when: 'the file is decoded'
+        def decoder = GzipDecoder.open( file.toPath(), null )
+        def decoded = decodeAll( decoder )
+
+        then: 'the original bytes are decoded'
+        decoded == bytes
+        decoder.position() == bytes.length
+
+        cleanup:
+        decoder?.close()
+
+        where:
+        level << [ Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION ]
+    }
+
+    def "Can decode a gzip file with several members"() {
+        given: 'a gzip file with 3 members'
+        def bytes = [ sampleBytes( 100 ), new byte[ 0 ], sampleBytes( 5_000 ) ]
+        writeGzip( bytes )
+
+        when: 'the file is decoded'
+        def decoder = GzipDecoder.open( file.toPath(), null )
+        def decoded = decodeAll( decoder, 77 )
+
+        then: 'the bytes of all members are decoded'
+        decoded == concat( bytes )
+
+        cleanup:
+        decoder?.close()
+    }
+
+    def "Decoding can be resumed from any block boundary"() {
+        given: 'a gzip file with several members'
+        def bytes = [ sampleBytes( 20_000 ), sampleBytes( 10_000 ) ]
+        writeGzip( bytes )
+        byte[] allBytes = concat( bytes )
+
+        and: 'the block boundaries and windows reported while decoding it'
+        def boundaries = [ ]
+        def decoder = GzipDecoder.open( file.toPath(), { d, bitOffset, outputOffset ->
+            boundaries << [ bitOffset, outputOffset, d.window() ]
+        } as GzipDecoder.BlockListener )
+        decodeAll( decoder )
+        decoder.close()
+
+        expect: 'several blocks were found'
+        boundaries.size() > 4
+
+        and: 'decoding from each boundary produces the rest of the file'
+        boundaries.every { long bitOffset, long outputOffset, byte[] window ->
+            def resumed = GzipDecoder.resume( file.toPath(), bitOffset, outputOffset, window )
+            try {
+                resumed.position() == outputOffset &&
+                        decodeAll( resumed ) == Arrays.copyOfRange( allBytes, ( int ) outputOffset, allBytes.length )
+            } finally {
+                resumed.close()
+            }
+        }
+    }
+
+    def "An error is raised if the file is not a valid gzip file"() {
+        given: 'a truncated gzip file'
+        def gzipBytes = gzipMember( sampleBytes( 1000 ), Deflater.DEFAULT_COMPRESSION )
+        file.bytes = Arrays.copyOf( gzipBytes, gzipBytes.length.intdiv( 2 ) )
+
+        when: 'the file is decoded'
+        def decoder = GzipDecoder.open( file.toPath(), null )
+        decodeAll( decoder )
+
+        then: 'an error is raised'
+        thrown EOFException
+
+        when: 'a file that is not a gzip file is decoded'
+        file.text = 'hello world'
+        decodeAll( GzipDecoder.open( file.toPath(), null ) )
+
+        then: 'an error is raised'
+        thrown ZipException
+
+        cleanup:
+        decoder?.close()
+    }
+}
@@ -0,0 +1,149 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPOutputStream
+
+class GzipFileReaderSpec extends Specification {
+
+    static final ZonedDateTime START = ZonedDateTime.of( 2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC )
+    static final int LINE_COUNT = 50_000
+
+    File file = Files.createTempFile( 'gzip-file-reader', '.log.gz' ).toFile()
+
+    def setup() {
+        file.withOutputStream { out ->
+            new GZIPOutputStream( out ).withCloseable { gzip ->
+                for ( int i = 0; i < LINE_COUNT; i++ ) {
+                    gzip.write( ( line( i ) + '\n' ).bytes )
+                }
+            }
+        }
+    }
+
+    def cleanup() {
+        file.delete()
+    }
+
+    static String line( int second ) {
+        "${START.plusSeconds( second ).toLocalDateTime()} line $second".toString()
+    }
+
+    static int secondOf( String line ) {
+        Integer.parseInt( line.substring( line.lastIndexOf( ' ' ) + 1 ) )
+    }
+
+    GzipFileReader indexedReader( int windowSize ) {
+        def reader = new GzipFileReader( file, windowSize, 4096, 64 * 1024 )
+        long deadline = System.currentTimeMillis() + 10_000
+        while ( !reader.index().isComplete() && System.currentTimeMillis() < deadline ) {
+            TimeUnit.MILLISECONDS.sleep( 10 )
+        }
+        assert reader.index().isComplete()
+        reader
+    }
+
+    def "Gzip files are recognized by their contents"() {
+        given: 'a file that is not compressed'
+        def plain = Files.createTempFile( 'plain', '.log' ).toFile()
+        plain.text = 'hello\n'
+
+        expect:
+        GzipFileReader.isGzipFile( file )
+        !GzipFileReader.isGzipFile( plain )
+
+        and: 'the appropriate reader is created for each file'
+        FileContentReader.create( file, 10 ) instanceof GzipFileReader
+        !( FileContentReader.create( plain, 10 ) instanceof GzipFileReader )
+
+        cleanup:
+        plain.delete()
+    }
+
+    def "The decompressed contents of a gzip file can be read from the top, tail and any position"() {
+        given: 'a reader whose index is complete'
+        def reader = indexedReader( 10 )
+
+        expect: 'the index has a checkpoint at the first block after every 64KB of decompressed bytes'
+        reader.index().checkpointCount() > 5
+
+        when: 'the top of the file is read'
+        reader.top()
+
+        then: 'the first lines are read'
+        reader.refresh().get() == ( 0..<10 ).collect { line( it ) }
+
+        and: 'moving down reads the next lines'
+        reader.moveDown( 5 ).get() == ( 10..<15 ).collect { line( it ) }
+
+        when: 'the tail of the file is read'
+        reader.tail()
+
+        then: 'the last lines are read'
+        reader.refresh().get() == ( LINE_COUNT - 9..<LINE_COUNT ).collect { line( it ) } + [ '' ]
+
+        and: 'moving up reads the previous lines'
+        reader.moveUp( 5 ).get() == ( LINE_COUNT - 14..<LINE_COUNT - 9 ).collect { line( it ) }
+
+        when: 'we go to an offset in the middle of the file'
+        reader.goToOffset( reader.contentLength().intdiv( 2 ) )
+        def lines = reader.refresh().get()
+
+        then: 'lines from the middle of the file are read'
+        def first = secondOf( lines[ 0 ] )
+        lines == ( first..<first + 10 ).collect { line( it ) }
+        first > LINE_COUNT / 3
+        first < LINE_COUNT * 2 / 3
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Can go to a date-time in a gzip file"() {
+        given: 'a reader whose indexes are up-to-date'
+        def reader = indexedReader( 10 )
+        reader.timeIndex.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+        reader.updateLineIndex()
+
+        expect: 'all lines are counted'
+        reader.lineIndex.lineCount() == LINE_COUNT + 1
+
+        when: 'the exact line with a date-time is searched for'
+        def target = START.plusSeconds( 31_234 )
+        reader.goToDateTime( target )
+        def result = new FileSearcher( reader ).bisect { line ->
+            FileSearcher.Comparison.of( target <=> new LineStartDateTimeGuess().guessDateTime( line ).get() )
+        }
+
+        then: 'the line is found'
+        result.isPresent()
+        reader.refresh().get()[ result.get().lineNumber() ] == line( 31_234 )
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "The file grows as it is indexed and listeners are notified"() {
+        given: 'a gzip file that records its known length whenever more of it is indexed'
+        def gzip = new GzipFile( file.toPath(), file.absoluteFile, null, 64 * 1024 )
+        def knownLengths = [ ]
+        gzip.setOnIndexProgress { knownLengths << gzip.knownLength() }
+
+        when: 'the file is indexed'
+        gzip.startIndexing().get( 10, TimeUnit.SECONDS )
+
+        then: 'the known length grew as the file was indexed, up to its full length'
+        knownLengths.size() > 5
+        knownLengths == knownLengths.toSorted()
+        knownLengths.first() < knownLengths.last()
+        knownLengths.last() == ( 0..<LINE_COUNT ).sum { line( it ).length() + 1 }
+        gzip.index().isComplete()
+
+        cleanup:
+        gzip?.close()
+    }
+}
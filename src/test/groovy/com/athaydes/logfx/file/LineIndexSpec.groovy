@@ -0,0 +1,156 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.file.Files
+
+class LineIndexSpec extends Specification {
+
+    @Shared
+    File file = Files.createTempFile( 'line-index', '.log' ).toFile()
+
+    def setup() {
+        file.delete()
+        file.deleteOnExit()
+    }
+
+    def createIndex( int linesPerCheckpoint ) {
+        new LineIndex( new TestSourceFactory( file: file ), linesPerCheckpoint )
+    }
+
+    def "An empty or non-existing file has no lines"() {
+        given: 'an index for a file that does not exist'
+        def index = createIndex( 4 )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'there are no lines'
+        index.lineCount() == 0L
+        !index.lineStart( 1L ).present
+
+        when: 'the file is created empty'
+        file.text = ''
+        index.update()
+
+        then: 'there are still no lines'
+        index.lineCount() == 0L
+    }
+
+    @Unroll
+    def "Can find the start of every line of a file with #linesPerCheckpoint lines per checkpoint"() {
+        given: 'a file with lines of different lengths'
+        def lines = ( 1..100 ).collect { 'x' * ( it % 7 ) }
+        file.text = lines.join( '\n' )
+
+        and: 'the expected line starts'
+        def expectedStarts = [ 0L ]
+        lines.each { expectedStarts << expectedStarts.last() + it.size() + 1 }
+
+        and: 'an index for the file'
+        def index = createIndex( linesPerCheckpoint )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'all lines are counted'
+        index.lineCount() == 100L
+        index.indexedBytes() == file.length()
+
+        and: 'the start of every line can be found'
+        ( 1..100 ).each { n ->
+            assert index.lineStart( n ).asLong == expectedStarts[ n - 1 ]
+        }
+
+        and: 'the line number at each line start is correct'
+        ( 1..100 ).each { n ->
+            assert index.lineNumberAt( expectedStarts[ n - 1 ] ).asLong == n
+        }
+
+        and: 'lines that do not exist cannot be found'
+        !index.lineStart( 0L ).present
+        !index.lineStart( 101L ).present
+
+        where:
+        linesPerCheckpoint << [ 1, 2, 3, 10, 1024 ]
+    }
+
+    def "The index is updated incrementally as the file grows"() {
+        given: 'a file with 10 lines'
+        file.text = ( 1..10 ).join( '\n' ) + '\n'
+
+        and: 'an up-to-date index for the file'
+        def index = createIndex( 3 )
+        index.update()
+
+        expect: 'the index to know all lines (including the empty last line)'
+        index.lineCount() == 11L
+
+        when: 'more lines are appended to the file and the index is updated'
+        file << ( 11..20 ).join( '\n' )
+        index.update()
+
+        then: 'the new lines are indexed'
+        index.lineCount() == 20L
+        index.lineStart( 11L ).asLong == ( 1..10 ).join( '\n' ).size() + 1L
+        index.lineNumberAt( file.length() - 1 ).asLong == 20L
+    }
+
+    def "The index is rebuilt when the file is truncated"() {
+        given: 'a file with 10 lines'
+        file.text = ( 1..10 ).join( '\n' )
+
+        and: 'an up-to-date index for the file'
+        def index = createIndex( 2 )
+        index.update()
+
+        when: 'the file is truncated and the index updated'
+        file.text = 'a\nb'
+        index.update()
+
+        then: 'the index reflects the new file contents'
+        index.lineCount() == 2L
+        index.lineStart( 2L ).asLong == 2L
+    }
+
+    def "Lines that have not been indexed yet are not found"() {
+        given: 'a file with many lines'
+        file.text = ( 1..100_000 ).join( '\n' )
+
+        and: 'an index for the file that was never updated'
+        def index = createIndex( 16 )
+
+        when: 'the start of a line is requested'
+        def start = index.lineStart( 10L )
+
+        then: 'the line is not found, as the file is not scanned to find it'
+        !start.present
+        index.indexedBytes() == 0L
+    }
+
+    def "Updating the index until a line only indexes the file as far as required"() {
+        given: 'a file with many lines'
+        file.text = ( 1..100_000 ).join( '\n' )
+
+        and: 'an index for the file that was never updated'
+        def index = createIndex( 16 )
+
+        when: 'the index is updated until an early line'
+        index.updateUntilLine( 10L )
+
+        then: 'the line is found without indexing the whole file'
+        index.lineStart( 10L ).asLong == ( 1..9 ).join( '\n' ).size() + 1L
+        index.indexedBytes() < file.length()
+    }
+}
+
+class TestSourceFactory implements ByteSource.Factory {
+    File file
+
+    @Override
+    ByteSource open() throws IOException {
+        new FileReader( file, 1 ).openSource()
+    }
+}
@@ -0,0 +1,108 @@
+package com.athaydes.logfx.file
+
+import java.nio.file.Files
+
+/**
+ * Runs all {@link FileContentReaderSpec} features against the {@link MappedFileReader}.
+ * <p>
+ * A tiny mapping window is used so that reads frequently cross window boundaries.
+ */
+class MappedFileReaderSpec extends FileContentReaderSpec {
+
+    @Override
+    FileContentReader createReader( File file, int windowSize, int bufferSize = 4096 ) {
+        new MappedFileReader( file, windowSize, bufferSize, 64 )
+    }
+
+    def "Mapped reader can see lines appended to the file after it has been mapped"() {
+        given: 'a mapped reader on a file with 3 lines'
+        FileContentReader reader = createReader( file, 3, 8 )
+        file << 'a\nb\nc\n'
+
+        when: 'the tail is read'
+        reader.tail()
+        def tail = reader.refresh()
+
+        then: 'the last lines are returned'
+        tail.get() == [ 'b', 'c', '' ]
+
+        when: 'more lines are appended and the tail is read again'
+        file << 'd\ne\n'
+        reader.tail()
+        tail = reader.refresh()
+
+        then: 'the new lines are returned'
+        tail.get() == [ 'd', 'e', '' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Mapped reader can recover after the file is truncated"() {
+        given: 'a mapped reader on a file with many lines'
+        FileContentReader reader = createReader( file, 2, 8 )
+        file << ( 1..100 ).join( '\n' )
+
+        when: 'the tail is read'
+        reader.tail()
+        def tail = reader.refresh()
+
+        then: 'the last lines are returned'
+        tail.get() == [ '99', '100' ]
+
+        when: 'the file is truncated and new contents written to it'
+        file.text = 'x\ny\nz'
+        reader.tail()
+        tail = reader.refresh()
+
+        then: 'the new contents are returned'
+        tail.get() == [ 'y', 'z' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Copies of a mapped reader keep working after the copy is closed"() {
+        given: 'a mapped reader and a copy of it'
+        def reader = createReader( file, 2, 8 )
+        file << ( 1..10 ).join( '\n' )
+        reader.top()
+        def copy = reader.makeCopy()
+
+        when: 'the copy is closed'
+        copy.close()
+
+        then: 'the original reader can still read the file'
+        reader.refresh().get() == [ '1', '2' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Mapped reader maps the channel of its file handle, which follows the file when it is replaced"() {
+        given: 'a mapped reader on a file in its own directory'
+        def dir = Files.createTempDirectory( 'mapped-reader' ).toFile()
+        def logFile = new File( dir, 'app.log' )
+        logFile.text = ( 1..10 ).join( '\n' )
+        def reader = new MappedFileReader( logFile, 2, 8, 64 )
+
+        when: 'the tail is read'
+        reader.tail()
+
+        then: 'the last lines are returned, read from the channel of the file handle'
+        reader.refresh().get() == [ '9', '10' ]
+        reader.source.channel.is( reader.fileHandle().channel() )
+
+        when: 'the file is rotated and a new file is created in its place'
+        assert logFile.renameTo( new File( dir, 'app.log.1' ) )
+        logFile.text = 'a\nb\nc'
+
+        then: 'the reader notices the file was replaced and reads the new file'
+        reader.refresh().get() == [ 'a', 'b' ]
+        reader.source.channel.is( reader.fileHandle().channel() )
+
+        cleanup:
+        reader?.close()
+        dir.deleteDir()
+    }
+}
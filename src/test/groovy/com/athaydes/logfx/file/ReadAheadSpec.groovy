@@ -0,0 +1,102 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+import static com.athaydes.logfx.file.BlockCache.BLOCK_SIZE
+import static com.athaydes.logfx.file.ReadAhead.Direction.DOWN
+import static com.athaydes.logfx.file.ReadAhead.Direction.UP
+
+class ReadAheadSpec extends Specification {
+
+    final long fileLength = 100L * BLOCK_SIZE
+    final recorder = new RecordingSourceFactory( length: fileLength )
+    final readAhead = new ReadAhead( recorder )
+
+    def "Reads ahead one file window below the file window when it starts moving down"() {
+        when: 'the file window moves down'
+        readAhead.onMove( DOWN, 1000L, 10_000L, 20_000L, fileLength )
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        then: 'one file window below it is read'
+        recorder.ranges == [ 20_000L..<30_000L ]
+    }
+
+    def "Reads ahead one file window above the file window when it starts moving up"() {
+        when: 'the file window moves up'
+        readAhead.onMove( UP, 1000L, 3 * BLOCK_SIZE, 4 * BLOCK_SIZE, fileLength )
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        then: 'one file window above it is read, the closest bytes first'
+        recorder.ranges == [ ( 2L * BLOCK_SIZE )..<( 3L * BLOCK_SIZE ) ]
+    }
+
+    def "Reads ahead more file windows as the scroll gets faster, without reading any bytes twice"() {
+        when: 'the file window moves down several times, quickly'
+        long windowStart = 0L
+        5.times {
+            windowStart += 50_000L
+            readAhead.onMove( DOWN, 50_000L, windowStart, windowStart + 100_000L, fileLength )
+        }
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        then: 'the bytes read ahead are contiguous'
+        def ranges = recorder.ranges
+        ranges.first().from == 150_000L
+        ranges.collect { it.to }.dropRight( 1 ) == ranges.drop( 1 ).collect { it.from }
+
+        and: 'more than one file window ahead is read, but no more than the maximum'
+        def lastWindowEnd = windowStart + 100_000L
+        ranges.last().to > lastWindowEnd + 100_000L
+        ranges.last().to <= lastWindowEnd + ReadAhead.MAX_WINDOWS * 100_000L
+    }
+
+    def "Does not read ahead beyond the boundaries of the file"() {
+        when: 'the file window moves down close to the end of the file'
+        readAhead.onMove( DOWN, 1000L, fileLength - 2000L, fileLength - 1000L, fileLength )
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        and: 'the file window moves up close to the start of the file'
+        readAhead.onMove( UP, 1000L, 500L, 1500L, fileLength )
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        then: 'only the bytes within the file are read'
+        recorder.ranges == [ ( fileLength - 1000L )..<fileLength, 0L..<500L ]
+    }
+
+    def "Does not read ahead when the file window is already at the end of the file"() {
+        when: 'the file window moves down to the end of the file'
+        readAhead.onMove( DOWN, 1000L, fileLength - 1000L, fileLength, fileLength )
+        readAhead.awaitPending( 5, TimeUnit.SECONDS )
+
+        then: 'nothing is read'
+        recorder.ranges.isEmpty()
+    }
+
+}
+
+class RecordingSourceFactory implements ByteSource.Factory {
+    long length
+    final List<Range<Long>> ranges = [ ].asSynchronized()
+
+    @Override
+    ByteSource open() throws IOException {
+        new ByteSource() {
+            @Override
+            long length() throws IOException {
+                RecordingSourceFactory.this.length
+            }
+
+            @Override
+            int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                ranges << ( position..<( position + length ) )
+                length
+            }
+
+            @Override
+            void close() throws IOException {
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.athaydes.logfx.file
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.GZIPOutputStream
+
+class RotatedLogReaderSpec extends Specification {
+
+    static final ZonedDateTime START = ZonedDateTime.of( 2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC )
+
+    File dir = Files.createTempDirectory( 'rotated-logs' ).toFile()
+    File liveFile = new File( dir, 'app.log' )
+
+    def cleanup() {
+        dir.deleteDir()
+    }
+
+    static String line( int second ) {
+        "${START.plusSeconds( second ).toLocalDateTime()} line $second".toString()
+    }
+
+    static int secondOf( String line ) {
+        Integer.parseInt( line.substring( line.lastIndexOf( ' ' ) + 1 ) )
+    }
+
+    static long lengthOf( int fromSecond, int toSecond ) {
+        ( fromSecond..<toSecond ).sum { line( it ).length() + 1 } as long
+    }
+
+    /**
+     * Waits until the compressed members of the set have been indexed, so that the set has the given length.
+     */
+    static void awaitLength( RotatedLogReader reader, long length ) {
+        def deadline = System.currentTimeMillis() + 10_000
+        while ( reader.fileLength() != length && System.currentTimeMillis() < deadline ) {
+            sleep 10
+        }
+        assert reader.fileLength() == length
+    }
+
+    /**
+     * Writes one line per second, from the first to the last given second (exclusive).
+     */
+    void writeMember( String name, int fromSecond, int toSecond ) {
+        def text = ( fromSecond..<toSecond ).collect { line( it ) + '\n' }.join( '' )
+        def file = new File( dir, name )
+        if ( name.endsWith( '.gz' ) ) {
+            file.withOutputStream { out ->
+                new GZIPOutputStream( out ).withCloseable { it.write( text.bytes ) }
+            }
+        } else {
+            file.text = text
+        }
+    }
+
+    def "The members of a rotation set are read as a single file, from the oldest to the live file"() {
+        given: 'a rotation set with compressed and uncompressed members'
+        writeMember( 'app.log.3.gz', 0, 100 )
+        writeMember( 'app.log.2.gz', 100, 200 )
+        writeMember( 'app.log.1', 200, 300 )
+        writeMember( 'app.log', 300, 400 )
+
+        and: 'a file that is not part of the set'
+        new File( dir, 'app.log.old' ).text = 'not a member\n'
+
+        and: 'a reader of the set whose compressed members have been indexed'
+        def reader = new RotatedLogReader( liveFile, 30, 64 )
+        awaitLength( reader, lengthOf( 0, 400 ) )
+
+        when: 'the whole set is read from the top'
+        reader.top()
+        def lines = new ArrayList<String>( reader.refresh().get() )
+        while ( true ) {
+            def next = reader.moveDown( 30 ).get()
+            if ( next.isEmpty() ) break
+            lines.addAll( next )
+        }
+
+        then: 'all lines of all members are read in order'
+        lines == ( 0..<400 ).collect { line( it ) }
+
+        when: 'the whole set is read from the tail'
+        reader.tail()
+        lines = new ArrayList<String>( reader.refresh().get() )
+        while ( true ) {
+            def previous = reader.moveUp( 30 ).get()
+            if ( previous.isEmpty() ) break
+            lines.addAll( 0, previous )
+        }
+
+        then: 'all lines of all members are read in order'
+        lines == ( 0..<400 ).collect { line( it ) } + [ '' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Can go to a date-time that is in a compressed member"() {
+        given: 'a rotation set with compressed and uncompressed members'
+        writeMember( 'app.log.2.gz', 0, 10_000 )
+        writeMember( 'app.log.1.gz', 10_000, 20_000 )
+        writeMember( 'app.log', 20_000, 30_000 )
+
+        and: 'a reader of the set whose indexes are up-to-date'
+        def reader = new RotatedLogReader( liveFile, 10 )
+        awaitLength( reader, lengthOf( 0, 30_000 ) )
+        reader.timeIndex.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+        reader.updateLineIndex()
+
+        expect: 'lines are counted across all members'
+        reader.lineIndex.lineCount() == 30_001
+
+        when: 'we go to a date-time in a compressed member'
+        def target = START.plusSeconds( 15_000 )
+        def found = reader.goToDateTime( target )
+        def lines = reader.refresh().get()
+
+        then: 'the file window is placed before the date-time, close to it'
+        found
+        def firstSecond = secondOf( lines[ 0 ] )
+        firstSecond <= 15_000
+        firstSecond > 15_000 - 5_000
+
+        when: 'the exact line is searched for by bisecting the set'
+        def result = new FileSearcher( reader ).bisect { line ->
+            FileSearcher.Comparison.of( target <=> new LineStartDateTimeGuess().guessDateTime( line ).get() )
+        }
+
+        then: 'the line is found'
+        result.isPresent()
+        reader.refresh().get()[ result.get().lineNumber() ] == line( 15_000 )
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "The set is re-anchored when the live file is rotated"() {
+        given: 'a rotation set'
+        writeMember( 'app.log.1.gz', 0, 10 )
+        writeMember( 'app.log', 10, 20 )
+
+        and: 'a reader following the tail of the set'
+        def reader = new RotatedLogReader( liveFile, 5 )
+        def tail = reader.followTail()
+
+        expect: 'the tail of the live file is read'
+        tail.get().lines() == ( 16..<20 ).collect { line( it ) } + [ '' ]
+
+        when: 'the live file is rotated'
+        assert new File( dir, 'app.log.1.gz' ).renameTo( new File( dir, 'app.log.2.gz' ) )
+        assert liveFile.renameTo( new File( dir, 'app.log.1' ) )
+        writeMember( 'app.log', 20, 23 )
+        tail = reader.followTail()
+
+        then: 'the new tail of the set is read, including the rotated member'
+        !tail.get().incremental()
+        tail.get().lines() == ( 19..<23 ).collect { line( it ) } + [ '' ]
+
+        when: 'the compressed member is indexed and the top of the set is read'
+        awaitLength( reader, lengthOf( 0, 23 ) )
+        reader.top()
+
+        then: 'the oldest member is read first'
+        reader.refresh().get() == ( 0..<5 ).collect { line( it ) }
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "The file window keeps showing the same lines when the live file is rotated"() {
+        given: 'a rotation set'
+        writeMember( 'app.log.1', 0, 100 )
+        writeMember( 'app.log', 100, 200 )
+
+        and: 'a reader whose file window is in the live file'
+        def reader = new RotatedLogReader( liveFile, 10 )
+        reader.top()
+        reader.refresh()
+        15.times { reader.moveDown( 10 ) }
+
+        expect: 'the lines of the file window are read'
+        reader.refresh().get() == ( 150..<160 ).collect { line( it ) }
+
+        when: 'the live file is rotated'
+        assert new File( dir, 'app.log.1' ).renameTo( new File( dir, 'app.log.2' ) )
+        assert liveFile.renameTo( new File( dir, 'app.log.1' ) )
+        writeMember( 'app.log', 200, 210 )
+
+        then: 'the file window still shows the same lines, now in a rotated member'
+        reader.refresh().get() == ( 150..<160 ).collect { line( it ) }
+
+        when: 'the tail of the set is read'
+        reader.tail()
+
+        then: 'the new live file is read'
+        reader.refresh().get() == ( 201..<210 ).collect { line( it ) } + [ '' ]
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "Compressed members are added to the set once indexed, without moving the file window"() {
+        given: 'the indexing of gzip files is held up'
+        def indexingAllowed = new CountDownLatch( 1 )
+        GzipFile.indexer.submit { indexingAllowed.await() }
+
+        and: 'a rotation set with a compressed member'
+        writeMember( 'app.log.1.gz', 0, 100 )
+        writeMember( 'app.log', 100, 200 )
+
+        and: 'a reader notifying when its contents change'
+        def reader = new RotatedLogReader( liveFile, 10 )
+        def contentsChanged = new AtomicBoolean()
+        reader.setOnContentsChanged { contentsChanged.set( true ) }
+
+        when: 'the file window is moved within the set before the compressed member is indexed'
+        reader.top()
+        reader.refresh()
+        5.times { reader.moveDown( 10 ) }
+        reader.updateLineIndex()
+
+        then: 'only the live file is in the set'
+        reader.refresh().get() == ( 150..<160 ).collect { line( it ) }
+        reader.lineIndex.lineCount() == 101
+
+        when: 'the compressed member is indexed'
+        indexingAllowed.countDown()
+        awaitLength( reader, lengthOf( 0, 200 ) )
+
+        then: 'the reader is notified'
+        contentsChanged.get()
+
+        and: 'the file window still shows the same lines'
+        reader.refresh().get() == ( 150..<160 ).collect { line( it ) }
+
+        when: 'the line index is updated'
+        reader.updateLineIndex()
+
+        then: 'the lines of all members are counted'
+        reader.lineIndex.lineCount() == 201
+
+        when: 'the top of the set is read'
+        reader.top()
+
+        then: 'the compressed member is read first'
+        reader.refresh().get() == ( 0..<10 ).collect { line( it ) }
+
+        cleanup:
+        indexingAllowed.countDown()
+        reader?.close()
+    }
+
+    def "A compressed member renamed by a rotation before it was indexed is still added to the set"() {
+        given: 'the indexing of gzip files is held up'
+        def indexingAllowed = new CountDownLatch( 1 )
+        GzipFile.indexer.submit { indexingAllowed.await() }
+
+        and: 'a rotation set with a compressed member'
+        writeMember( 'app.log.1.gz', 0, 100 )
+        writeMember( 'app.log', 100, 200 )
+
+        and: 'a reader of the set, which starts indexing the compressed member'
+        def reader = new RotatedLogReader( liveFile, 10 )
+        assert reader.fileLength() == lengthOf( 100, 200 )
+
+        when: 'the live file is rotated before the compressed member is indexed'
+        assert new File( dir, 'app.log.1.gz' ).renameTo( new File( dir, 'app.log.2.gz' ) )
+        assert liveFile.renameTo( new File( dir, 'app.log.1' ) )
+        writeMember( 'app.log', 200, 210 )
+
+        and: 'the indexer tries to index the compressed member at its previous path'
+        indexingAllowed.countDown()
+        GzipFile.indexer.submit {}.get()
+
+        then: 'all members of the set are eventually read'
+        awaitLength( reader, lengthOf( 0, 210 ) )
+        reader.top()
+        reader.refresh().get() == ( 0..<10 ).collect { line( it ) }
+
+        cleanup:
+        indexingAllowed.countDown()
+        reader?.close()
+    }
+}
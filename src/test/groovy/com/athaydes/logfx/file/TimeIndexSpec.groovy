@@ -0,0 +1,321 @@
+package com.athaydes.logfx.file
+
+import com.athaydes.logfx.text.DateTimeFormatGuess
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.LocalDateTime
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.time.format.DateTimeParseException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class TimeIndexSpec extends Specification {
+
+    static final ZonedDateTime START = ZonedDateTime.of( 2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC )
+
+    @Shared
+    File file = Files.createTempFile( 'time-index', '.log' ).toFile()
+
+    def setup() {
+        file.delete()
+        file.deleteOnExit()
+    }
+
+    /**
+     * Writes one line per second, starting at the given second, each with the given number of bytes.
+     */
+    void writeLines( int fromSecond, int lineCount, int lineLength = 100 ) {
+        file.withWriterAppend { writer ->
+            for ( int i = fromSecond; i < fromSecond + lineCount; i++ ) {
+                def prefix = "${START.plusSeconds( i ).toLocalDateTime()} line $i "
+                writer.write( prefix.padRight( lineLength - 1, '.' ) + '\n' )
+            }
+        }
+    }
+
+    long offsetOfLine( int lineIndex, int lineLength = 100 ) {
+        lineIndex * ( long ) lineLength
+    }
+
+    def "Nothing is indexed until the date-time format is known"() {
+        given: 'a file with lines with date-times'
+        writeLines( 0, 100 )
+
+        and: 'a time index without a date-time format'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 1000 )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'the index is empty'
+        index.sampleCount() == 0
+        !index.offsetBefore( START ).present
+
+        when: 'the date-time format is set'
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+        index.update()
+
+        then: 'the file is sampled every 1000 bytes'
+        index.sampleCount() == 10
+    }
+
+    def "The offset of the last sampled line before a date-time is found"() {
+        given: 'a file with 1000 lines of 100 bytes, one line per second'
+        writeLines( 0, 1000 )
+
+        and: 'a time index sampling every 1000 bytes (10 lines)'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 1000 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        expect: 'the offset of the last sample strictly before each date-time is returned'
+        index.offsetBefore( START.plusSeconds( second ) ).asLong == offsetOfLine( expectedLine )
+
+        where:
+        second | expectedLine
+        -10    | 0
+        0      | 0
+        1      | 0
+        10     | 0
+        11     | 10
+        25     | 20
+        500    | 490
+        501    | 500
+        999    | 990
+        5000   | 990
+    }
+
+    def "The index is only updated as far as needed to find a date-time"() {
+        given: 'a file with 1000 lines of 100 bytes, one line per second'
+        writeLines( 0, 1000 )
+
+        and: 'a time index sampling every 1000 bytes (10 lines)'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 1000 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        when: 'a date-time near the start of the file is looked up'
+        def offset = index.offsetBefore( START.plusSeconds( 35 ) )
+
+        then: 'the offset is found'
+        offset.asLong == offsetOfLine( 30 )
+
+        and: 'only the start of the file was indexed'
+        index.sampleCount() == 5
+
+        when: 'the index is fully updated'
+        index.update()
+
+        then: 'all samples are found'
+        index.sampleCount() == 100
+    }
+
+    def "The index is updated incrementally as the file grows and rebuilt when it is truncated"() {
+        given: 'a file with 100 lines of 100 bytes, one line per second'
+        writeLines( 0, 100 )
+
+        and: 'an up-to-date time index sampling every 1000 bytes (10 lines)'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 1000 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+        index.update()
+
+        when: 'more lines are appended to the file'
+        writeLines( 100, 100 )
+        index.update()
+
+        then: 'the new lines are indexed'
+        index.sampleCount() == 20
+        index.offsetBefore( START.plusSeconds( 155 ) ).asLong == offsetOfLine( 150 )
+
+        when: 'the file is truncated and lines with later date-times are written to it'
+        file.delete()
+        writeLines( 1000, 30 )
+        index.update()
+
+        then: 'the index is rebuilt'
+        index.sampleCount() == 3
+        index.offsetBefore( START.plusSeconds( 1015 ) ).asLong == offsetOfLine( 10 )
+    }
+
+    def "Lines without a date-time are not sampled"() {
+        given: 'a file with some lines without date-times'
+        file.text = 'no date-time here\n' * 20 +
+                "${START.toLocalDateTime()} first\n" +
+                'no date-time here\n' * 20 +
+                "${START.plusMinutes( 1 ).toLocalDateTime()} second\n"
+
+        and: 'a time index sampling every 100 bytes'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 100 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'only the 2 lines with date-times are sampled'
+        index.sampleCount() == 2
+        index.offsetBefore( START.plusSeconds( 30 ) ).asLong == file.text.indexOf( START.toLocalDateTime().toString() )
+    }
+
+    def "Only a small part of the file is read for each sample"() {
+        given: 'a file with 10MB of lines with date-times'
+        writeLines( 0, 100_000 )
+
+        and: 'a time index sampling every 128KB which counts the bytes it reads'
+        def sourceFactory = new CountingSourceFactory( file: file )
+        def index = new TimeIndex( sourceFactory, 128 * 1024 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'the whole file is sampled'
+        index.sampleCount() == 77
+
+        and: 'only a few KB are read for each sample'
+        sourceFactory.bytesRead <= index.sampleCount() * 4 * 1024
+    }
+
+    def "More of the file is read for a sample if its first lines do not have a date-time"() {
+        given: 'a file with 20KB of lines without date-times between lines with date-times'
+        file.text = "${START.toLocalDateTime()} first\n" +
+                'no date-time here\n' * 1200 +
+                "${START.plusMinutes( 1 ).toLocalDateTime()} second\n"
+
+        and: 'a time index sampling every 100 bytes'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 100 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        when: 'the index is updated'
+        index.update()
+
+        then: 'both lines with date-times are sampled'
+        index.sampleCount() == 2
+        index.offsetBefore( START.plusMinutes( 2 ) ).asLong == file.text.indexOf( 'no date-time here\n' * 1200 ) + 1200 * 18
+    }
+
+    def "Date-times already in the index are found while the index is being updated"() {
+        given: 'a file with 1000 lines of 100 bytes, one line per second'
+        writeLines( 0, 1000 )
+
+        and: 'a time index sampling every line, whose reads block after the first 300 lines'
+        def sourceFactory = new BlockingSourceFactory( file: file, blockFrom: offsetOfLine( 300 ) )
+        def index = new TimeIndex( sourceFactory, 100 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        when: 'the whole index is updated in the background, until its reads block'
+        def update = CompletableFuture.runAsync { index.update() }
+        assert sourceFactory.blocked.await( 5, TimeUnit.SECONDS )
+
+        then: 'the first batch of samples is in the index'
+        index.sampleCount() == 256
+        index.covers( START.plusSeconds( 100 ) )
+
+        when: 'a date-time in the index is looked up'
+        def offset = CompletableFuture.supplyAsync { index.offsetBefore( START.plusSeconds( 100 ) ) }
+                .get( 5, TimeUnit.SECONDS )
+
+        then: 'it is found without waiting for the update'
+        offset.asLong == offsetOfLine( 99 )
+
+        when: 'the update is allowed to continue'
+        sourceFactory.allowed.countDown()
+        update.get( 5, TimeUnit.SECONDS )
+
+        then: 'the whole file is sampled'
+        index.sampleCount() == 1000
+
+        cleanup:
+        sourceFactory.allowed.countDown()
+    }
+
+    def "The latest date-time is found from the end of the file"() {
+        given: 'a file whose last lines do not have date-times'
+        writeLines( 0, 100 )
+        file << 'trailing line\nanother trailing line'
+
+        and: 'a time index'
+        def index = new TimeIndex( new TestSourceFactory( file: file ), 1000 )
+        index.setDateTimeFormatGuess( new LineStartDateTimeGuess() )
+
+        expect: 'the date-time of the last line with a date-time is found'
+        index.latestDateTime() == Optional.of( START.plusSeconds( 99 ) )
+    }
+
+}
+
+class LineStartDateTimeGuess implements DateTimeFormatGuess {
+    @Override
+    Optional<ZonedDateTime> guessDateTime( String line ) {
+        def space = line.indexOf( ' ' )
+        if ( space < 0 ) return Optional.empty()
+        try {
+            Optional.of( LocalDateTime.parse( line.substring( 0, space ) ).atZone( ZoneOffset.UTC ) )
+        } catch ( DateTimeParseException ignored ) {
+            Optional.empty()
+        }
+    }
+}
+
+class CountingSourceFactory implements ByteSource.Factory {
+    File file
+    long bytesRead
+
+    @Override
+    ByteSource open() throws IOException {
+        def source = new FileReader( file, 1 ).openSource()
+        new ByteSource() {
+            @Override
+            long length() throws IOException {
+                source.length()
+            }
+
+            @Override
+            int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                bytesRead += length
+                source.read( position, buffer, offset, length )
+            }
+
+            @Override
+            void close() throws IOException {
+                source.close()
+            }
+        }
+    }
+}
+
+/**
+ * Source factory whose sources block reads from a given offset until allowed to continue.
+ */
+class BlockingSourceFactory implements ByteSource.Factory {
+    File file
+    long blockFrom
+    final CountDownLatch blocked = new CountDownLatch( 1 )
+    final CountDownLatch allowed = new CountDownLatch( 1 )
+
+    @Override
+    ByteSource open() throws IOException {
+        def source = new FileReader( file, 1 ).openSource()
+        new ByteSource() {
+            @Override
+            long length() throws IOException {
+                source.length()
+            }
+
+            @Override
+            int read( long position, byte[] buffer, int offset, int length ) throws IOException {
+                if ( position >= blockFrom ) {
+                    blocked.countDown()
+                    allowed.await()
+                }
+                source.read( position, buffer, offset, length )
+            }
+
+            @Override
+            void close() throws IOException {
+                source.close()
+            }
+        }
+    }
+}
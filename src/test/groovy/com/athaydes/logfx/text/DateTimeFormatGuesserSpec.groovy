@@ -10,6 +10,7 @@ import java.time.ZoneId
 import java.time.ZonedDateTime
 import java.time.format.DateTimeFormatter
 import java.time.format.DateTimeParseException
+import java.util.concurrent.atomic.AtomicReference
 import java.util.regex.Pattern
 
 import static com.athaydes.logfx.text.PatternBasedDateTimeFormatGuess.DATE_TIME_GROUP
@@ -160,6 +161,68 @@ class DateTimeFormatGuesserSpec extends Specification {
 
     }
 
+    def "Multi-guess tries the guess that matched the last line first"() {
+        given: 'two guesses that parse the same lines differently'
+        def early = new PatternBasedDateTimeFormatGuess( 'early', Pattern.compile(
+                namedGroup( DATE_TIME_GROUP, '\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}' ) + namedGroup( TIMEZONE_GROUP, 'Z' ) + '?(:\\d{2})? .*' ),
+                'yyyy-MM-dd HH:mm' )
+        def late = new PatternBasedDateTimeFormatGuess( 'late', Pattern.compile(
+                namedGroup( DATE_TIME_GROUP, '\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}(:\\d{2})?' ) + namedGroup( TIMEZONE_GROUP, 'Z' ) + '?.*' ),
+                'yyyy-MM-dd HH:mm[:ss]' )
+
+        and: 'a multi-guess trying the early guess first'
+        def multiGuess = new DateTimeFormatGuesser.MultiDateTimeFormatGuess( [ early, late ] )
+
+        when: 'a line matching both guesses is parsed'
+        def firstResult = multiGuess.parseEpochNanos( '2020-01-02 10:20:30 first' )
+
+        then: 'the early guess parses it, ignoring the seconds'
+        firstResult == epochNanos( '2020-01-02T10:20:00' )
+
+        when: 'a line only the late guess can parse is parsed'
+        def secondResult = multiGuess.guessDateTime( '2020-01-02 10:20:30' )
+
+        then: 'the late guess parses it'
+        secondResult.get().toInstant() == dateTime( '2020-01-02T10:20:30' )
+
+        when: 'the first line is parsed again'
+        def thirdResult = multiGuess.parseEpochNanos( '2020-01-02 10:20:30 first' )
+
+        then: 'the late guess, which matched the last line, parses it'
+        thirdResult == epochNanos( '2020-01-02T10:20:30' )
+
+        and: 'lines without date-times are still not parsed'
+        multiGuess.parseEpochNanos( 'no date here' ) == DateTimeFormatGuess.NO_DATE_TIME
+        !multiGuess.guessDateTime( 'no date here' ).present
+    }
+
+    def "Multi-guess finds the parsers of the standard guesses once every time the guesses change"() {
+        given: 'a multi-guess with the standard guesses'
+        def guesses = new AtomicReference<Collection<? extends DateTimeFormatGuess>>( DateTimeFormatGuesser.standardGuesses() )
+        def multiGuess = new DateTimeFormatGuesser.MultiDateTimeFormatGuess( guesses )
+
+        when: 'the current guesses are requested twice'
+        def current = multiGuess.currentGuesses()
+
+        then: 'all standard guesses use a parser, found only once'
+        current.size() == 6
+        current.every { it instanceof StandardParserGuess }
+        multiGuess.currentGuesses().is( current )
+
+        and: 'lines are parsed by the parsers'
+        multiGuess.parseEpochNanos( '2017-09-11T18:13:57.483+02:00 TRACE' ) == epochNanos( '2017-09-11T16:13:57.483Z' )
+
+        when: 'the guesses change'
+        def custom = new PatternBasedDateTimeFormatGuess( 'custom',
+                Pattern.compile( namedGroup( DATE_TIME_GROUP, '\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}' ) + namedGroup( TIMEZONE_GROUP, 'Z' ) + '?.*' ),
+                'yyyy-MM-dd HH:mm' )
+        guesses.set( [ DateTimeFormatGuesser.standardGuesses()[ 1 ], custom ] )
+
+        then: 'the parsers are found for the new guesses'
+        multiGuess.currentGuesses()*.class == [ StandardParserGuess, PatternBasedDateTimeFormatGuess ]
+        multiGuess.parseEpochNanos( '2020-01-02 10:20 msg' ) == epochNanos( '2020-01-02T10:20:00' )
+    }
+
     @CompileStatic
     private static List<String> generateRandomLines( int count ) {
         Random rand = new Random()
@@ -187,6 +250,11 @@ class DateTimeFormatGuesserSpec extends Specification {
         return 'unknown'
     }
 
+    private static long epochNanos( String value ) {
+        def instant = dateTime( value )
+        return DateTimeFormatGuess.toEpochNanos( instant.epochSecond, instant.nano )
+    }
+
     private static Instant dateTime( String value ) {
         try {
             return ZonedDateTime.parse( value, DateTimeFormatter.ISO_DATE_TIME ).toInstant()
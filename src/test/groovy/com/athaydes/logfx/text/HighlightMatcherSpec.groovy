@@ -0,0 +1,108 @@
+package com.athaydes.logfx.text
+
+import javafx.scene.paint.Color
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.regex.Pattern
+
+class HighlightMatcherSpec extends Specification {
+
+    @Unroll
+    def "The literal matched by the expression '#regex' is '#expectedLiteral'"() {
+        expect:
+        PatternLiterals.literalOf( Pattern.compile( regex ) ) == Optional.ofNullable( expectedLiteral )
+
+        where:
+        regex              | expectedLiteral
+        'ERROR'            | 'ERROR'
+        'hello world'      | 'hello world'
+        '\\[main\\]'       | '[main]'
+        '\\Q1.2.3\\E done' | '1.2.3 done'
+        ''                 | null
+        'ERR.R'            | null
+        'ERROR|WARN'       | null
+        'ERRORS?'          | null
+        '^ERROR'           | null
+        'a\\d'             | null
+        '(ERROR)'          | null
+    }
+
+    def "Expressions compiled with flags are not matched as literals"() {
+        expect:
+        !PatternLiterals.literalOf( Pattern.compile( 'error', Pattern.CASE_INSENSITIVE ) ).present
+    }
+
+    def "The Aho-Corasick automaton finds all literals in a text"() {
+        given: 'an automaton for literals that overlap with each other'
+        def literals = [ 'he', 'she', 'his', 'hers', 'e' ]
+        def search = new AhoCorasick( literals, [ 0, 1, 2, 3, 4 ] as int[] )
+
+        when: 'a text is searched'
+        def found = new boolean[ literals.size() ]
+        search.findAll( text, found )
+
+        then: 'the literals in the text are found'
+        ( 0..<literals.size() ).findAll { found[ it ] }.collect { literals[ it ] } == expected
+
+        where:
+        text      | expected
+        'ushers'  | [ 'he', 'she', 'hers', 'e' ]
+        'this'    | [ 'his' ]
+        'h e s'   | [ 'e' ]
+        ''        | [ ]
+        'hhhhers' | [ 'he', 'hers', 'e' ]
+    }
+
+    @Unroll
+    def "The first matching expression wins: '#line'"() {
+        given: 'expressions mixing literals and regular expressions, some of which overlap'
+        def matcher = new HighlightMatcher( [
+                expression( 'WARN [0-9]+' ),
+                expression( 'ERROR' ),
+                expression( 'WARN' ),
+                expression( '.*ERROR.*' ),
+                expression( '(?i)debug' ),
+                expression( '\\d{4}-\\d{2}' ),
+        ] )
+
+        expect:
+        matcher.firstMatch( line ) == expectedIndex
+
+        where:
+        line                    || expectedIndex
+        'WARN 12 ERROR'         || 0
+        'WARN ERROR'            || 1
+        'a WARN'                || 2
+        'nothing'               || -1
+        'DeBuG 2020-10'         || 4
+        'at 2020-10'            || 5
+        ''                      || -1
+        null                    || -1
+    }
+
+    def "Matching gives the same result as trying each expression in turn"() {
+        given: 'many expressions, some of which are literals and some of which require literals'
+        def expressions = [
+                'ERROR', 'WARN', 'INFO [a-z]+', '\\[main\\]', 'Exception', '(?i)timeout', 'foo|bar',
+                'o{2}', 'ab?c', 'WARNING', 'ING', '\\d+ms', 'hello world', 'x', 'RR'
+        ].collect { expression( it ) }
+        def matcher = new HighlightMatcher( expressions )
+
+        and: 'lines made of the words used by the expressions'
+        def words = [ 'ERROR', 'WARN', 'WARNING', 'INFO', 'abc', 'ac', '[main]', 'main', 'TimeOut', 'foo',
+                      'boo', '10ms', 'hello', 'world', 'x', 'R', ' ', 'exception' ]
+        def random = new Random( 42 )
+
+        expect: 'the matcher finds the same expression as trying them in order'
+        1_000.times {
+            def line = ( 0..<random.nextInt( 6 ) ).collect { words[ random.nextInt( words.size() ) ] }.join( ' ' )
+            def expected = expressions.findIndexOf { it.matches( line ) }
+            assert matcher.firstMatch( line ) == expected: "line: '$line'"
+        }
+    }
+
+    private static HighlightExpression expression( String regex ) {
+        new HighlightExpression( regex, Color.BLACK, Color.WHITE, false )
+    }
+}
@@ -0,0 +1,113 @@
+package com.athaydes.logfx.text
+
+import javafx.scene.paint.Color
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.util.regex.Pattern
+
+class LineFilterSpec extends Specification {
+
+    static HighlightExpression expression( String regex ) {
+        new HighlightExpression( regex, Color.BLACK, Color.WHITE, true )
+    }
+
+    @Unroll
+    def "The literal required by the expression '#regex' is '#expectedLiteral'"() {
+        when: 'the required literal of an expression is computed'
+        def literal = expression( regex ).requiredLiteral
+
+        then: 'the expected literal is found'
+        literal == Optional.ofNullable( expectedLiteral )
+
+        where:
+        regex                             || expectedLiteral
+        'ERROR'                           || 'ERROR'
+        'requestId='                      || 'requestId='
+        'requestId=\\d+'                  || 'requestId='
+        '.*WARN.*'                        || 'WARN'
+        '^\\[main\\] INFO'                || '[main] INFO'
+        'colou?r'                         || 'colo'
+        'abc*de'                          || 'ab'
+        'ab+cd'                           || 'ab'
+        'a{0,2}bcd'                       || 'bcd'
+        'x{2}yz'                          || 'yz'
+        '(foo|bar)baz'                    || 'baz'
+        '[A-Z]+ failed: \\w+'             || ' failed: '
+        '\\Qa.b*c\\E+d'                   || 'a.b*c'
+        '\\x41BC'                         || 'BC'
+        '\\p{Lu}rror'                     || 'rror'
+        'héllo wörld'                     || 'héllo wörld'
+        'ERROR|WARN'                      || null
+        '(?i)error'                       || null
+        '.*'                              || null
+        ''                                || null
+        '\\d+'                            || null
+        '(\\Q)\\E)abc'                    || null
+    }
+
+    def "Expressions compiled with flags do not require any literal"() {
+        when: 'an expression is compiled with the case-insensitive flag'
+        def exp = new HighlightExpression( Pattern.compile( 'error', Pattern.CASE_INSENSITIVE ),
+                Color.BLACK, Color.WHITE, true )
+
+        then: 'it does not require any literal'
+        !exp.requiredLiteral.isPresent()
+    }
+
+    @Unroll
+    def "A line filter can reject lines based on their bytes: #line"() {
+        given: 'a filter with expressions that require literals'
+        def filter = new LineFilter( [ expression( 'ERROR \\d+' ), expression( 'requestId=\\w+' ) ] )
+
+        and: 'a buffer containing the line between other bytes'
+        def bytes = "xxx${line}yyy".getBytes( StandardCharsets.UTF_8 )
+        def length = line.getBytes( StandardCharsets.UTF_8 ).size()
+
+        expect: 'the line may only match if it contains a literal'
+        filter.mayMatch( bytes, 3, length ) == mayMatch
+
+        and: 'the filter accepts the line only if an expression matches it'
+        filter.test( line ) == matches
+
+        where:
+        line                      || mayMatch | matches
+        'ERROR 42'                || true     | true
+        'ERROR'                   || false    | false
+        'an ERROR happened'       || true     | false
+        'a requestId=abc here'    || true     | true
+        'requestId'               || false    | false
+        'INFO everything is fine' || false    | false
+        'ERRO'                    || false    | false
+        ''                        || false    | false
+    }
+
+    def "A line filter cannot reject lines based on their bytes if any expression requires no literal"() {
+        given: 'a filter with an expression that requires no literal'
+        def filter = new LineFilter( [ expression( 'ERROR' ), expression( '\\d{3}' ) ] )
+
+        and: 'a line that contains no literal'
+        def bytes = 'code 404'.getBytes( StandardCharsets.UTF_8 )
+
+        expect: 'the line may match'
+        filter.mayMatch( bytes, 0, bytes.size() )
+        filter.test( 'code 404' )
+    }
+
+    def "Line filters are equal if they use the same regular expressions, regardless of colors"() {
+        given: 'a filter'
+        def filter = new LineFilter( [ expression( 'ERROR' ), expression( 'WARN' ) ] )
+
+        expect: 'a filter with the same expressions in other colors is equal to it'
+        filter == new LineFilter( [ new HighlightExpression( 'ERROR', Color.RED, Color.BLUE, true ),
+                                    new HighlightExpression( 'WARN', Color.YELLOW, Color.BLACK, true ) ] )
+
+        and: 'filters with other expressions or flags are not equal to it'
+        filter != new LineFilter( [ expression( 'ERROR' ) ] )
+        filter != new LineFilter( [ expression( 'ERROR' ), expression( 'WARNING' ) ] )
+        filter != new LineFilter( [ expression( 'ERROR' ),
+                                    new HighlightExpression( Pattern.compile( 'WARN', Pattern.CASE_INSENSITIVE ),
+                                            Color.BLACK, Color.WHITE, true ) ] )
+    }
+}
@@ -0,0 +1,217 @@
+package com.athaydes.logfx.text
+
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.util.regex.Pattern
+
+class StandardDateTimeParserSpec extends Specification {
+
+    static final Locale systemDefaultLocale = Locale.getDefault()
+
+    @Shared
+    List<PatternBasedDateTimeFormatGuess> guesses
+
+    def setupSpec() {
+        Locale.setDefault( Locale.ENGLISH )
+        guesses = DateTimeFormatGuesser.standardGuesses()
+    }
+
+    def cleanupSpec() {
+        Locale.setDefault( systemDefaultLocale )
+    }
+
+    @Unroll
+    def "The usual shape of the #name format is parsed without the line pattern"() {
+        given: 'the standard guess for the format'
+        def guess = guesses.find { it.name() == name }
+
+        and: 'its parser'
+        def parser = StandardDateTimeParser.forGuess( guess ).get()
+        def fields = StandardDateTimeParser.fields( guess.formatter().locale )
+
+        expect: 'the parser can parse the line by itself'
+        parser.parse( line, fields ) == StandardDateTimeParser.MATCH
+
+        and: 'the result is the same as parsing with the line pattern'
+        def parserGuess = StandardParserGuess.withStandardParser( guess )
+        fields.toZonedDateTime() == guess.guessDateTime( line ).get()
+        parserGuess.parseEpochNanos( line ) == DateTimeFormatGuess.toEpochNanos( guess.guessDateTime( line ).get() )
+
+        where:
+        name       | line
+        'ISO2'     | '2024-07-02T14:20:14:009+0000 DEBUG {req-359} server'
+        'ISO'      | '2017-09-11T18:13:57.483+02:00 TRACE {worker-1} com.acme.Log event'
+        'ISO'      | 'INFO 2017-9-14T19:23:53.4 [pool-6-thread-1] DEBUG com'
+        'ISO'      | '2013-2-23T5:6:7 [pool-6-thread-1] DEBUG com'
+        'Common'   | 'INFO Fri Sep 01 22:02:55 CEST 2017 - 22'
+        'Common'   | 'Nov 03 14:22:00 UTC 2019 msg'
+        'NCSA'     | '10/Oct/2000:13:55:36 -0700] "GET /apache_pb.gif HTTP/1.0" 200 2326'
+        'NCSA'     | '10/Oct/2000:13:55:36 hello'
+        'RFC-1123' | '[Fri, 09 Sep 2011 10:42:29 GMT] [core:error]'
+        'RFC-1123' | 'Tue, 3 Jun 2008 11:05:30 +0130 message'
+        'APPLE'    | '2020-06-21 18:33:34-07 Some process did something'
+        'APPLE'    | '2020-06-21 18:33:34.123+0700'
+    }
+
+    def "Guesses loaded from the configuration use the parsers of the standard guesses"() {
+        given: 'guesses created from the pattern and formatter strings of the standard guesses'
+        def loadedGuesses = guesses.collect {
+            new PatternBasedDateTimeFormatGuess( it.name(), Pattern.compile( it.linePattern().pattern() ),
+                    it.formatterString() )
+        }
+
+        expect: 'all guesses except RFC-1123, whose formatter cannot be created from a pattern, use a parser'
+        loadedGuesses.findAll { StandardDateTimeParser.forGuess( it ).present }*.name() ==
+                [ 'ISO2', 'ISO', 'Common', 'NCSA', 'APPLE' ]
+    }
+
+    def "Guesses with other patterns or formatters do not use the parsers"() {
+        given: 'the standard ISO guess'
+        def iso = guesses.find { it.name() == 'ISO' }
+
+        expect: 'a guess with a different pattern does not use a parser'
+        !StandardDateTimeParser.forGuess( new PatternBasedDateTimeFormatGuess( 'ISO',
+                Pattern.compile( iso.linePattern().pattern() + 'x' ), iso.formatterString() ) ).present
+
+        and: 'a guess with a formatter using a different resolver style does not use a parser'
+        !StandardDateTimeParser.forGuess( new PatternBasedDateTimeFormatGuess( 'ISO', iso.linePattern(),
+                iso.formatter().withResolverStyle( java.time.format.ResolverStyle.STRICT ),
+                iso.formatterString() ) ).present
+
+        and: 'a guess using names in another language does not use a parser'
+        def common = guesses.find { it.name() == 'Common' }
+        !StandardDateTimeParser.forGuess( new PatternBasedDateTimeFormatGuess( 'Common', common.linePattern(),
+                DateTimeFormatter.ofPattern( common.formatterString(), Locale.GERMAN ),
+                common.formatterString() ) ).present
+    }
+
+    @Unroll
+    def "Date-times in zone #zoneId are converted to the same epoch-second as by ZonedDateTime"() {
+        given: 'the fields of a date-time in a zone with daylight saving time'
+        def fields = new StandardDateTimeParser.Fields()
+        def zone = ZoneId.of( zoneId )
+
+        and: 'every 15 minutes of 2 years, which include gaps and overlaps, in order and then shuffled'
+        def start = LocalDateTime.of( 2023, 1, 1, 0, 0 )
+        def dateTimes = ( 0..<( 2 * 366 * 24 * 4 ) ).collect { start.plusMinutes( it * 15L ) }
+        def shuffled = new ArrayList<>( dateTimes )
+        Collections.shuffle( shuffled, new Random( 42 ) )
+
+        expect: 'each date-time is converted to the same epoch-second as by ZonedDateTime'
+        ( dateTimes + shuffled ).every { dateTime ->
+            fields.reset()
+            fields.year = dateTime.year
+            fields.month = dateTime.monthValue
+            fields.day = dateTime.dayOfMonth
+            fields.hour = dateTime.hour
+            fields.minute = dateTime.minute
+            fields.zone = zone
+            def expected = ZonedDateTime.of( dateTime, zone ).toEpochSecond()
+            def actual = fields.epochSecond()
+            assert actual == expected: "$dateTime in $zone"
+            true
+        }
+
+        where:
+        zoneId << [ 'Europe/Berlin', 'America/New_York', 'Australia/Lord_Howe', 'Asia/Tokyo', 'UTC', '+05:30' ]
+    }
+
+    def "Parsing any line gives the same result as the line pattern and formatter"() {
+        given: 'a random generator of lines resembling log lines'
+        def random = new Random( 42 )
+
+        and: 'the standard guesses using their parsers'
+        def parserGuesses = guesses.collect { StandardParserGuess.withStandardParser( it ) }
+
+        when: 'many lines are parsed by each standard guess with and without the parsers'
+        def mismatches = []
+        def matchCount = 0
+        5_000.times {
+            def line = randomLine( random )
+            [ guesses, parserGuesses ].transpose().each { PatternBasedDateTimeFormatGuess guess, parserGuess ->
+                def expected = guess.guessDateTime( line )
+                def actual = parserGuess.guessDateTime( line )
+                if ( expected.present ) matchCount++
+                if ( actual != expected ) {
+                    mismatches << "${guess.name()}: '$line' -> $actual, expected $expected"
+                }
+                def expectedNanos = expected.map { DateTimeFormatGuess.toEpochNanos( it ) }
+                        .orElse( DateTimeFormatGuess.NO_DATE_TIME )
+                if ( parserGuess.parseEpochNanos( line ) != expectedNanos ) {
+                    mismatches << "${guess.name()} (epoch-nanos): '$line'"
+                }
+            }
+        }
+
+        then: 'the results are the same'
+        mismatches.take( 20 ) == []
+
+        and: 'many of the lines had date-times'
+        matchCount > 500
+    }
+
+    private static final List<String> PREFIXES = [ '', '', 'INFO ', '[main] ', 'a', 'x y ', '[', '-_ ', '12 ' ]
+    private static final List<String> SPACES = [ ' ', ' ', ' ', '  ', '\t', '' ]
+    private static final List<String> SUFFIXES = [ '', ' message', ']', 'Z', '.5', ':1', '0', ' 2019', '\r' ]
+    private static final List<String> MONTHS = [ 'Jan', 'Feb', 'Sep', 'Dec', 'oct', 'Foo', 'September', '10' ]
+    private static final List<String> DAYS = [ 'Mon', 'Sun', 'Fri', 'Tue', 'mon', 'Xyz' ]
+    private static final List<String> ZONES = [ 'UTC', 'GMT', 'CEST', 'PST', 'Europe', 'XYZ', 'Z' ]
+
+    private static String randomLine( Random random ) {
+        def pick = { List list -> list[ random.nextInt( list.size() ) ] }
+        def num = { int maxDigits -> ( random.nextInt( 10**( random.nextInt( maxDigits ) + 1 ) ) as String ) }
+        def padded = { int value, int digits -> random.nextInt( 4 ) == 0 ? value as String : ( value as String ).padLeft( digits, '0' ) }
+        def year = { random.nextInt( 8 ) == 0 ? num( 4 ) : ( 1990 + random.nextInt( 40 ) ) as String }
+        def month = { random.nextInt( 10 ) == 0 ? num( 2 ) : padded( random.nextInt( 12 ) + 1, 2 ) }
+        def day = { random.nextInt( 10 ) == 0 ? num( 2 ) : padded( random.nextInt( 31 ) + 1, 2 ) }
+        def time = {
+            random.nextInt( 10 ) == 0 ? "${num( 2 )}:${num( 2 )}:${num( 3 )}" :
+                    "${padded( random.nextInt( 24 ), 2 )}:${padded( random.nextInt( 60 ), 2 )}:${padded( random.nextInt( 60 ), 2 )}"
+        }
+        def fraction = { String separator -> random.nextBoolean() ? '' : separator + num( random.nextInt( 3 ) == 0 ? 10 : 3 ) }
+        def offset = {
+            def sign = random.nextBoolean() ? '+' : '-'
+            switch ( random.nextInt( 6 ) ) {
+                case 0: return ''
+                case 1: return "$sign${padded( random.nextInt( 20 ), 2 )}:${padded( random.nextInt( 60 ), 2 )}"
+                case 2: return "$sign${padded( random.nextInt( 20 ), 2 )}${padded( random.nextInt( 60 ), 2 )}"
+                case 3: return "$sign${num( 2 )}"
+                case 4: return "${pick( SPACES )}$sign${num( 4 )}"
+                default: return "$sign${num( 1 )}:${num( 3 )}"
+            }
+        }
+
+        def dateTime
+        switch ( random.nextInt( 6 ) ) {
+            case 0: // ISO2
+                dateTime = "${year()}-${month()}-${day()}T${time()}${fraction( ':' )}${offset()}"
+                break
+            case 1: // ISO
+                dateTime = "${year()}-${month()}-${day()}T${time()}${fraction( '.' )}${offset()}"
+                break
+            case 2: // Common
+                dateTime = "${random.nextBoolean() ? pick( DAYS ) + pick( SPACES ) : ''}${pick( MONTHS )}${pick( SPACES )}" +
+                        "${day()}${pick( SPACES )}${time()}${pick( SPACES )}${pick( ZONES )}${pick( SPACES )}${year()}"
+                break
+            case 3: // NCSA
+                dateTime = "${day()}${pick( [ '/', '/', '-', '.' ] )}${pick( MONTHS )}${pick( [ '/', '/', '.' ] )}" +
+                        "${year()}${pick( [ ':', ':', 'T', ' ', '  ' ] )}${time()}${pick( [ ' ', ' ', '' ] )}${offset()}"
+                break
+            case 4: // RFC-1123
+                dateTime = "${pick( DAYS )},${pick( SPACES )}${day()}${pick( SPACES )}${pick( MONTHS )}${pick( SPACES )}" +
+                        "${year()}${pick( SPACES )}${time()}${pick( SPACES )}${pick( [ 'GMT', 'GMT', 'UTC' ] + offset() )}"
+                break
+            default: // APPLE
+                dateTime = "${year()}-${month()}-${day()}${pick( SPACES )}${time()}${fraction( '.' )}${offset()}"
+        }
+
+        return "${pick( PREFIXES )}$dateTime${pick( SUFFIXES )}"
+    }
+
+}
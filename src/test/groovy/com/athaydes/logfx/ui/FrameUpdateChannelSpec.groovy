@@ -0,0 +1,171 @@
+package com.athaydes.logfx.ui
+
+import spock.lang.Specification
+
+class FrameUpdateChannelSpec extends Specification {
+
+    /**
+     * An update that moves the rows of a view by some rotation, whose rotations are merged as in LogView.
+     */
+    static class Update {
+        final String content
+        final int rotation
+
+        Update( String content, int rotation ) {
+            this.content = content
+            this.rotation = rotation
+        }
+
+        Update supersededBy( Update update ) {
+            new Update( update.content, rotation + update.rotation )
+        }
+
+        @Override
+        String toString() { "$content@$rotation" }
+    }
+
+    final frames = new ManualFrames()
+    final List<Update> applied = [ ]
+    final channel = new FrameUpdateChannel<Update>( applied.&add, { a, b -> a.supersededBy( b ) }, frames )
+
+    def "Updates posted between frames are merged into a single update, summing their rotations"() {
+        when: 'several updates are posted before the next frame'
+        channel.post( new Update( 'a', 1 ) )
+        channel.post( new Update( 'b', 2 ) )
+        channel.post( new Update( 'c', -5 ) )
+
+        then: 'nothing is applied before the frame'
+        frames.runPending()
+        applied.isEmpty()
+
+        when: 'a frame is rendered'
+        frames.frame()
+
+        then: 'only the latest update is applied, with the rotation of all updates'
+        applied.collect { it.toString() } == [ 'c@-2' ]
+
+        when: 'another update is posted and a frame is rendered'
+        channel.post( new Update( 'd', 3 ) )
+        frames.runPending()
+        frames.frame()
+
+        then: 'the new update is applied on its own'
+        applied.collect { it.toString() } == [ 'c@-2', 'd@3' ]
+    }
+
+    def "Actions run only after all updates posted before them were applied, in order"() {
+        given: 'a list recording what happens'
+        def events = [ ]
+        def channel = new FrameUpdateChannel<Update>( { events << "applied $it".toString() },
+                { a, b -> a.supersededBy( b ) }, frames )
+
+        when: 'an action is requested while no updates were posted'
+        channel.runAfterPostedUpdates { events << 'action 0' }
+        frames.runPending()
+
+        then: 'the action runs immediately'
+        events == [ 'action 0' ]
+
+        when: 'updates and actions are interleaved'
+        channel.post( new Update( 'a', 1 ) )
+        channel.runAfterPostedUpdates { events << 'action 1' }
+        channel.post( new Update( 'b', 1 ) )
+        channel.runAfterPostedUpdates { events << 'action 2' }
+        frames.runPending()
+
+        then: 'no action runs before the updates posted before it are applied'
+        events == [ 'action 0' ]
+
+        when: 'a frame is rendered'
+        frames.frame()
+
+        then: 'the merged update is applied, then the actions run in the order they were requested'
+        events == [ 'action 0', 'applied b@2', 'action 1', 'action 2' ]
+
+        when: 'an update is posted after an action is requested, and a frame is rendered'
+        channel.runAfterPostedUpdates { events << 'action 3' }
+        channel.post( new Update( 'c', 1 ) )
+        frames.runPending()
+        frames.frame()
+
+        then: 'the action ran before the later update was applied'
+        events == [ 'action 0', 'applied b@2', 'action 1', 'action 2', 'action 3', 'applied c@1' ]
+    }
+
+    def "The frame timer stops when there are no updates and restarts when one is posted"() {
+        when: 'an update is posted'
+        channel.post( new Update( 'a', 0 ) )
+        frames.runPending()
+
+        then: 'the frame timer is started'
+        frames.running
+
+        when: 'the update is applied on a frame'
+        frames.frame()
+
+        then: 'the timer keeps running, in case more updates come'
+        applied.size() == 1
+        frames.running
+
+        when: 'a frame is rendered without any new update'
+        frames.frame()
+
+        then: 'the timer stops'
+        !frames.running
+        applied.size() == 1
+
+        when: 'another update is posted'
+        channel.post( new Update( 'b', 0 ) )
+        frames.runPending()
+
+        then: 'the timer is started again'
+        frames.running
+        frames.startCount == 2
+
+        when: 'a frame is rendered'
+        frames.frame()
+
+        then: 'the update is applied'
+        applied.collect { it.toString() } == [ 'a@0', 'b@0' ]
+    }
+
+    /**
+     * Frames rendered on demand, on the test Thread.
+     */
+    static class ManualFrames implements FrameUpdateChannel.Frames {
+        final List<Runnable> pending = [ ]
+        Runnable onFrame
+        int startCount
+
+        boolean isRunning() {
+            onFrame != null
+        }
+
+        void runPending() {
+            def actions = new ArrayList<>( pending )
+            pending.clear()
+            actions*.run()
+        }
+
+        void frame() {
+            runPending()
+            onFrame?.run()
+        }
+
+        @Override
+        void runLater( Runnable action ) {
+            pending << action
+        }
+
+        @Override
+        void start( Runnable onFrame ) {
+            this.onFrame = onFrame
+            startCount++
+        }
+
+        @Override
+        void stop() {
+            onFrame = null
+        }
+    }
+}
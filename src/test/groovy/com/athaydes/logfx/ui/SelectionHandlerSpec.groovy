@@ -3,7 +3,12 @@ package com.athaydes.logfx.ui
 import com.athaydes.logfx.iterable.ObservableListView
 import javafx.collections.FXCollections
 import javafx.collections.ObservableList
+import javafx.event.EventType
+import javafx.scene.Group
 import javafx.scene.Node
+import javafx.scene.input.MouseButton
+import javafx.scene.input.MouseDragEvent
+import javafx.scene.input.MouseEvent
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -68,6 +73,98 @@ class SelectionHandlerSpec extends Specification {
 
     }
 
+    def 'Selectables that are not nodes can be selected by their position in the container'() {
+        given: 'a container whose selectables are rows drawn by the container node, 10 pixels high each'
+        def rootNode = new Group()
+        ObservableList<SelectionHandler.SelectableNode> rows = FXCollections.observableArrayList(
+                ( 0..<5 ).collect { new TestRow( rootNode, it ) } )
+        def root = Mock( SelectableContainer ) {
+            getSelectables() >> new ObservableListView<SelectionHandler.SelectableNode, SelectionHandler.SelectableNode>(
+                    SelectionHandler.SelectableNode, rows )
+            getNode() >> rootNode
+            selectableAt( _, _ ) >> { double x, double y ->
+                Optional.ofNullable( y >= 0 && y < rows.size() * 10 ? rows[ ( int ) ( y / 10 ) ] : null )
+            }
+        }
+
+        and: 'a SelectionHandler for the container'
+        SelectionHandler handler = new SelectionHandler( root )
+
+        when: 'the mouse is clicked on the third row'
+        rootNode.onMouseReleased.handle( mouseEvent( MouseEvent.MOUSE_RELEASED, 25 ) )
+
+        then: 'the third row is selected'
+        handler.selectedItems as List == [ rows[ 2 ] ]
+        rows[ 2 ].selected
+
+        when: 'the mouse is clicked below all rows'
+        rootNode.onMouseReleased.handle( mouseEvent( MouseEvent.MOUSE_RELEASED, 75 ) )
+
+        then: 'the selection does not change'
+        handler.selectedItems as List == [ rows[ 2 ] ]
+
+        when: 'the mouse is dragged from the second row to the fourth row'
+        rootNode.onDragDetected.handle( mouseEvent( MouseEvent.DRAG_DETECTED, 15 ) )
+        rootNode.onMouseDragOver.handle( mouseDragEvent( 25 ) )
+        rootNode.onMouseDragOver.handle( mouseDragEvent( 35 ) )
+
+        then: 'the rows between them are selected'
+        handler.selectedItems as Set == rows[ 1..3 ] as Set
+        rows.collect { it.selected } == [ false, true, true, true, false ]
+
+        when: 'the mouse is dragged back up to the first row and released'
+        rootNode.onMouseDragOver.handle( mouseDragEvent( 5 ) )
+        rootNode.onMouseReleased.handle( mouseEvent( MouseEvent.MOUSE_RELEASED, 5 ) )
+
+        then: 'the rows between the first and second rows are selected'
+        handler.selectedItems as Set == rows[ 0..1 ] as Set
+        rows.collect { it.selected } == [ true, true, false, false, false ]
+    }
+
+    def 'Rotating the selectables of a container does not drop the selection'() {
+        given: 'a container whose selectables are rows drawn by the container node'
+        def rootNode = new Group()
+        ObservableList<SelectionHandler.SelectableNode> rows = FXCollections.observableArrayList(
+                ( 0..<5 ).collect { new TestRow( rootNode, it ) } )
+        def root = Mock( SelectableContainer ) {
+            getSelectables() >> new ObservableListView<SelectionHandler.SelectableNode, SelectionHandler.SelectableNode>(
+                    SelectionHandler.SelectableNode, rows )
+            getNode() >> rootNode
+        }
+
+        and: 'a SelectionHandler for the container, with two rows selected'
+        SelectionHandler handler = new SelectionHandler( root )
+        handler.selectAllBetween( rows[ 1 ], rows[ 2 ] )
+        def selected = [ rows[ 1 ], rows[ 2 ] ]
+
+        when: 'the rows are rotated, as when the view scrolls'
+        def rotated = new ArrayList<>( rows )
+        Collections.rotate( rotated, 2 )
+        rows.setAll( rotated )
+
+        then: 'the same rows are still selected'
+        handler.selectedItems as Set == selected as Set
+        selected.every { it.selected }
+
+        when: 'a selected row is removed'
+        rows.setAll( rotated - rows[ 3 ] )
+
+        then: 'it is no longer selected, but the other row still is'
+        handler.selectedItems as List == [ selected[ 1 ] ]
+        !selected[ 0 ].selected
+        selected[ 1 ].selected
+    }
+
+    private static MouseEvent mouseEvent( EventType<MouseEvent> type, double y ) {
+        new MouseEvent( type, 10, y, 10, y, MouseButton.PRIMARY, 1,
+                false, false, false, false, true, false, false, false, false, true, null )
+    }
+
+    private static MouseDragEvent mouseDragEvent( double y ) {
+        new MouseDragEvent( MouseDragEvent.MOUSE_DRAG_OVER, 10, y, 10, y, MouseButton.PRIMARY, 1,
+                false, false, false, false, true, false, false, false, false, null, null )
+    }
+
     private TestSelectableNode mockNode() {
         Mock( TestSelectableNode ) {
             getNode() >> Mock( TestSelectableNode )
@@ -75,3 +172,32 @@ class SelectionHandlerSpec extends Specification {
     }
 
 }
+
+/**
+ * A selectable row that is not a node, but is drawn by its container's node.
+ */
+class TestRow implements SelectionHandler.SelectableNode {
+    final Node node
+    final int lineIndex
+    boolean selected
+
+    TestRow( Node node, int lineIndex ) {
+        this.node = node
+        this.lineIndex = lineIndex
+    }
+
+    @Override
+    void setSelect( boolean select ) {
+        selected = select
+    }
+
+    @Override
+    String getText() {
+        "row $lineIndex"
+    }
+
+    @Override
+    String toString() {
+        getText()
+    }
+}